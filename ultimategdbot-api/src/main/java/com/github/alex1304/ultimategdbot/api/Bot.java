@@ -4,17 +4,26 @@ import java.time.Duration;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
 import java.util.ServiceLoader;
 import java.util.Set;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.alex1304.ultimategdbot.api.command.CommandInstrumentation;
 import com.github.alex1304.ultimategdbot.api.database.BlacklistedIds;
+import com.github.alex1304.ultimategdbot.api.database.DatabaseCircuitBreaker;
+import com.github.alex1304.ultimategdbot.api.event.EventPipeline;
+import com.github.alex1304.ultimategdbot.api.shard.GuildAvailabilityTracker;
+import com.github.alex1304.ultimategdbot.api.shard.GuildSettingsWarmup;
+import com.github.alex1304.ultimategdbot.api.shard.ShardLoginOrchestrator;
+import com.github.alex1304.ultimategdbot.api.utils.BotUtils;
+import com.github.alex1304.ultimategdbot.api.utils.InstrumentedGlobalRateLimiter;
 import com.github.alex1304.ultimategdbot.api.utils.Markdown;
 import com.github.alex1304.ultimategdbot.api.utils.PropertyParser;
 import com.github.alex1304.ultimategdbot.api.utils.menu.PaginationControls;
@@ -47,9 +56,12 @@ import discord4j.store.api.mapping.MappingStoreService;
 import discord4j.store.api.noop.NoOpStoreService;
 import discord4j.store.caffeine.CaffeineStoreService;
 import discord4j.store.jdk.JdkStoreService;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
 import reactor.blockhound.BlockHound;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.retry.Retry;
 
@@ -72,17 +84,27 @@ public class Bot {
 	private final Properties pluginsProps;
 	private final CommandKernel cmdKernel;
 	private final Set<Plugin> plugins = new HashSet<>();
-	private final Set<Snowflake> unavailableGuildIds = Collections.synchronizedSet(new HashSet<>());
-	private final AtomicInteger shardsNotReady = new AtomicInteger();
+	private final GuildAvailabilityTracker guildAvailability = new GuildAvailabilityTracker();
+	private final CommandInstrumentation commandInstrumentation = new CommandInstrumentation();
+	private final CompositeMeterRegistry meterRegistry = new CompositeMeterRegistry();
 	private final Mono<ApplicationInfo> appInfo;
 	private final boolean blockhoundMode;
 	private final PaginationControls controls;
 	private final boolean corePluginDisabled;
+	private final ShardLoginOrchestrator shardOrchestrator;
+	private final EventPipeline eventPipeline;
+	private final ExecutionMode executionMode;
+	private final Scheduler blockingScheduler;
+	private final InstrumentedGlobalRateLimiter globalRateLimiter;
+	private final GuildSettingsWarmup settingsWarmup;
 	private Flux<GuildEmoji> emojis;
 
 	private Bot(String token, String defaultPrefix, String flagPrefix, Flux<DiscordClient> discordClients,
 			Database database, int interactiveMenuTimeout, Snowflake debugLogChannelId, Snowflake attachmentsChannelId,
-			List<Snowflake> emojiGuildIds, boolean blockhoundMode, Properties pluginsProps, PaginationControls controls, boolean corePluginDisabled) {
+			List<Snowflake> emojiGuildIds, boolean blockhoundMode, Properties pluginsProps, PaginationControls controls,
+			boolean corePluginDisabled, ShardLoginOrchestrator shardOrchestrator, EventPipeline eventPipeline,
+			ExecutionMode executionMode, Scheduler blockingScheduler, InstrumentedGlobalRateLimiter globalRateLimiter,
+			int settingsWarmupChunkSize) {
 		this.token = token;
 		this.defaultPrefix = defaultPrefix;
 		this.flagPrefix = flagPrefix;
@@ -100,6 +122,12 @@ public class Bot {
 		this.blockhoundMode = blockhoundMode;
 		this.controls = controls;
 		this.corePluginDisabled = corePluginDisabled;
+		this.shardOrchestrator = shardOrchestrator;
+		this.eventPipeline = eventPipeline;
+		this.executionMode = executionMode;
+		this.blockingScheduler = blockingScheduler;
+		this.globalRateLimiter = globalRateLimiter;
+		this.settingsWarmup = new GuildSettingsWarmup(this, settingsWarmupChunkSize);
 		installEmojis();
 	}
 
@@ -289,13 +317,143 @@ public class Bot {
 	public boolean isCorePluginDisabled() {
 		return corePluginDisabled;
 	}
+	
+	/**
+	 * Gets the orchestrator that manages the login of shards and tracks their
+	 * state.
+	 * 
+	 * @return the shard login orchestrator
+	 */
+	public ShardLoginOrchestrator getShardLoginOrchestrator() {
+		return shardOrchestrator;
+	}
+	
+	/**
+	 * Gets the tracker that knows which guilds are currently unavailable on each
+	 * shard.
+	 * 
+	 * @return the guild availability tracker
+	 */
+	public GuildAvailabilityTracker getGuildAvailabilityTracker() {
+		return guildAvailability;
+	}
+	
+	/**
+	 * Gets the pipeline that dispatches gateway events from all shards, with a
+	 * dedicated queue and scheduler for each event class. Components of the bot
+	 * should listen to events through it rather than through the event dispatcher
+	 * of each client.
+	 * 
+	 * @return the event pipeline
+	 */
+	public EventPipeline getEventPipeline() {
+		return eventPipeline;
+	}
+	
+	/**
+	 * Gets the execution mode of the bot, which defines where blocking code runs.
+	 * This is the mode actually in effect, which may differ from the configured one
+	 * if the JVM doesn't support virtual threads.
+	 * 
+	 * @return the execution mode
+	 */
+	public ExecutionMode getExecutionMode() {
+		return executionMode;
+	}
+	
+	/**
+	 * Gets the scheduler on which blocking tasks should run. Depending on the
+	 * execution mode, it is either an elastic scheduler or a scheduler that runs
+	 * each task on a new virtual thread.
+	 * 
+	 * @return the scheduler for blocking tasks
+	 */
+	public Scheduler getBlockingScheduler() {
+		return blockingScheduler;
+	}
+	
+	/**
+	 * Gets the instrumentation that records the latency of each stage of command
+	 * execution.
+	 * 
+	 * @return the command instrumentation
+	 */
+	public CommandInstrumentation getCommandInstrumentation() {
+		return commandInstrumentation;
+	}
+	
+	/**
+	 * Gets the meter registry of the bot. It is a composite registry that doesn't
+	 * publish anything by itself: registries that actually export metrics are
+	 * added to it at startup. Plugins may register their own meters in it.
+	 * 
+	 * @return the meter registry
+	 */
+	public CompositeMeterRegistry getMeterRegistry() {
+		return meterRegistry;
+	}
+	
+	/**
+	 * Gets the global rate limiter shared by all shards for REST requests.
+	 * 
+	 * @return the global rate limiter
+	 */
+	public InstrumentedGlobalRateLimiter getGlobalRateLimiter() {
+		return globalRateLimiter;
+	}
 
 	public static Bot buildFromProperties(Properties props, Properties pluginsProps) {
+		return buildFromProperties(props, pluginsProps, UnaryOperator.identity());
+	}
+
+	/**
+	 * Builds a bot from the given properties, letting the caller customize the
+	 * client builder of each shard once the bot has configured it. This is mainly
+	 * useful to replace the gateway client or the REST router, for example to run
+	 * the bot against a local stub instead of Discord.
+	 * 
+	 * @param props            the bot properties
+	 * @param pluginsProps     the plugins properties
+	 * @param clientCustomizer a function applied to the client builder of each
+	 *                         shard before the client is built
+	 * @return the bot
+	 */
+	@SuppressWarnings("deprecation")
+	public static Bot buildFromProperties(Properties props, Properties pluginsProps,
+			UnaryOperator<DiscordClientBuilder> clientCustomizer) {
 		var propParser = new PropertyParser(props);
 		var token = propParser.parseAsString("token");
 		var defaultPrefix = propParser.parseAsString("default_prefix");
 		var flagPrefix = propParser.parseAsStringOrDefault("flag_prefix", "-");
-		var database = new Database();
+		var requestedExecutionMode = propParser.parseOrDefault("execution_mode",
+				value -> ExecutionMode.valueOf(value.toUpperCase(Locale.ROOT)), ExecutionMode.ELASTIC);
+		var executionMode = requestedExecutionMode.effective();
+		if (executionMode != requestedExecutionMode) {
+			LOGGER.warn("Virtual threads are not supported by this JVM (Java {}), falling back to the elastic execution mode",
+					Runtime.version().feature());
+		}
+		var blockingScheduler = executionMode == ExecutionMode.VIRTUAL_THREADS
+				? executionMode.createScheduler("virtual-threads")
+				: Schedulers.elastic();
+		var databaseCircuitBreaker = new DatabaseCircuitBreaker(
+				propParser.parseAsIntOrDefault("database.circuit_breaker.failure_threshold", 5),
+				Duration.ofMillis(propParser.parseAsLongOrDefault("database.circuit_breaker.slow_call_threshold_millis", 5000)),
+				Duration.ofMillis(propParser.parseAsLongOrDefault("database.circuit_breaker.open_duration_millis", 10000)));
+		var databaseBackend = propParser.parseAsStringOrDefault("database.backend", "hibernate");
+		Database database;
+		switch (databaseBackend.toLowerCase(Locale.ROOT)) {
+			case "r2dbc":
+				database = new R2dbcDatabase(ConnectionFactories.get(propParser.parseAsString("database.r2dbc.url")),
+						databaseCircuitBreaker);
+				break;
+			default:
+				if (!databaseBackend.equalsIgnoreCase("hibernate")) {
+					LOGGER.warn("Unknown database backend '{}', falling back to hibernate", databaseBackend);
+				}
+				database = new HibernateDatabase(executionMode == ExecutionMode.VIRTUAL_THREADS
+						? blockingScheduler
+						: Schedulers.newElastic("database-elastic"), databaseCircuitBreaker);
+		}
 		var interactiveMenuTimeout = propParser.parseAsIntOrDefault("interactive_menu.timeout", 600);
 		var controls = new PaginationControls(
 				propParser.parseAsStringOrDefault("interactive_menu.previous_emoji", "◀"),
@@ -333,39 +491,60 @@ public class Bot {
 			}
 		}, Presence.online(activity));
 		var requestParallelism = propParser.parseAsIntOrDefault("request_parallelism", 12);
+		var globalRateLimiter = new InstrumentedGlobalRateLimiter(new SemaphoreGlobalRateLimiter(requestParallelism));
 		var messageCacheMaxSize = propParser.parseAsIntOrDefault("message_cache_max_size", 50_000);
 		var messageCacheTtl = Duration.ofMinutes(propParser.parseAsLongOrDefault("message_cache_ttl", 120));
 		var disableVoiceStateCache = propParser.parseOrDefault("disable_voice_state_cache", Boolean::parseBoolean, false);
 		var blockhoundMode = propParser.parseOrDefault("blockhound_mode", Boolean::parseBoolean, false);
 		var useImmediateScheduler = propParser.parseOrDefault("use_immediate_scheduler", Boolean::parseBoolean, false);
 		var corePluginDisabled = propParser.parseOrDefault("disable_core_plugin", Boolean::parseBoolean, false);
+		var shardCount = propParser.parseOrDefault("shard_count", Integer::valueOf, null);
+		var settingsWarmupChunkSize = propParser.parseAsIntOrDefault("guild_settings_warmup.chunk_size", 500);
+		var shardOrchestrator = new ShardLoginOrchestrator(
+				propParser.parseAsIntOrDefault("shard_login.identify_concurrency", 1),
+				Duration.ofMillis(propParser.parseAsLongOrDefault("shard_login.delay_millis", 6000)),
+				propParser.parseOrDefault("shard_login.ready_quorum", Double::parseDouble, 1.0));
 		
 		if (useImmediateScheduler) {
 			LOGGER.info("Using immediate scheduler for Discord events. While it may improve performances, {} {}",
-					"it may also cause errors if you use plugins that perform blocking calls. In that case,",
-					"it is recommended to switch `use_immediate_scheduler` to false in bot.properties");
+					"it may also cause errors if you use plugins that perform blocking calls outside of the event pipeline.",
+					"In that case, it is recommended to switch `use_immediate_scheduler` to false in bot.properties");
+		}
+		if (executionMode == ExecutionMode.VIRTUAL_THREADS) {
+			LOGGER.info("Using virtual threads execution mode: command actions and database calls run on virtual threads");
+		} else {
+			LOGGER.info("Using elastic execution mode: database calls run on an elastic scheduler");
 		}
 		
+		var routerOptions = RouterOptions.builder()
+				.onClientResponse(ResponseFunction.emptyIfNotFound())
+				.onClientResponse(ResponseFunction.emptyOnErrorStatus(RouteMatcher.route(Routes.REACTION_CREATE), 400))
+				.globalRateLimiter(globalRateLimiter)
+				.build();
 		var discordClients = new ShardingClientBuilder(token)
+				.setShardCount(shardCount)
 				.setStoreService(MappingStoreService.create()
 						.setMapping(new CaffeineStoreService(builder -> builder
 								.maximumSize(messageCacheMaxSize)
 								.expireAfterAccess(messageCacheTtl)), MessageBean.class)
 						.setMapping(disableVoiceStateCache ? new NoOpStoreService() : new JdkStoreService(), VoiceStateBean.class)
 						.setFallback(new JdkStoreService()))
-				.setRouterOptions(RouterOptions.builder()
-						.onClientResponse(ResponseFunction.emptyIfNotFound())
-						.onClientResponse(ResponseFunction.emptyOnErrorStatus(RouteMatcher.route(Routes.REACTION_CREATE), 400))
-						.globalRateLimiter(new SemaphoreGlobalRateLimiter(requestParallelism))
-						.build())
+				.setRouterOptions(routerOptions)
 				.build()
-				.map(dcb -> dcb.setInitialPresence(presenceStatus)
-						.setEventScheduler(useImmediateScheduler ? Schedulers.immediate() : null))
+				// The shared router ignores them, but a customizer replacing the router factory gets the same options
+				.map(dcb -> dcb.setRouterOptions(routerOptions)
+						.setInitialPresence(presenceStatus)
+						.setEventScheduler(useImmediateScheduler ? Schedulers.immediate() : null)
+						.setIdentifyLimiter(shardOrchestrator.getIdentifyLimiter())
+						.setGatewayObserver(dcb.getGatewayObserver().then(shardOrchestrator.getGatewayObserver())))
+				.map(clientCustomizer)
 				.map(DiscordClientBuilder::build)
 				.cache();
 
 		return new Bot(token, defaultPrefix, flagPrefix, discordClients, database, interactiveMenuTimeout, debugLogChannelId,
-				attachmentsChannelId, emojiGuildIds, blockhoundMode, pluginsProps, controls, corePluginDisabled);
+				attachmentsChannelId, emojiGuildIds, blockhoundMode, pluginsProps, controls, corePluginDisabled, shardOrchestrator,
+				new EventPipeline(discordClients, propParser), executionMode, blockingScheduler, globalRateLimiter,
+				settingsWarmupChunkSize);
 	}
 
 	public Mono<Void> start() {
@@ -381,84 +560,109 @@ public class Bot {
 				.flatMap(plugin -> plugin.setup(this, parser).thenReturn(plugin)
 						.doOnError(e -> LOGGER.error("Failed to load plugin " + plugin.getName(), e)))
 				.doOnNext(plugin -> database.addAllMappingResources(plugin.getDatabaseMappingResources()))
+				.doOnNext(plugin -> database.addAllCacheRegions(plugin.getDatabaseCacheRegions()))
 				.doOnNext(plugin -> LOGGER.info("Loaded plugin: {}", plugin.getName()))
 				.doOnNext(plugins::add)
 				.doOnNext(plugin -> cmdKernel.addProvider(plugin.getCommandProvider()))
 				.doOnNext(plugin -> LOGGER.debug("Plugin {} is providing commands: {}", plugin.getName(), plugin.getCommandProvider()))
+				.then(Mono.fromRunnable(this::checkDatabaseSessions))
 				.then(Mono.fromRunnable(database::configure))
 				.then(database.query(BlacklistedIds.class, "from BlacklistedIds")
 						.map(BlacklistedIds::getId)
 						.doOnNext(cmdKernel::blacklist)
 						.then())
 				.then(Mono.fromRunnable(cmdKernel::start)
-						.and(discordClients.flatMap(DiscordClient::login)));
+						.and(shardOrchestrator.login(discordClients)))
+				.doFinally(signal -> eventPipeline.dispose());
+	}
+	
+	/**
+	 * Fails the start of the bot rather than the first command using a Hibernate
+	 * session, if the database backend doesn't provide them.
+	 */
+	private void checkDatabaseSessions() {
+		if (database.supportsSessions()) {
+			return;
+		}
+		var pluginNames = plugins.stream()
+				.filter(Plugin::requiresDatabaseSessions)
+				.map(Plugin::getName)
+				.sorted()
+				.collect(Collectors.toList());
+		if (!pluginNames.isEmpty()) {
+			throw new IllegalStateException("The database backend " + database.getClass().getSimpleName()
+					+ " doesn't support Hibernate sessions, which are required by the following plugins: "
+					+ String.join(", ", pluginNames) + ". Use database.backend=hibernate instead.");
+		}
 	}
 	
 	@SuppressWarnings("deprecation")
 	private void initEventListeners() {
-		discordClients.flatMap(client -> client.getEventDispatcher().on(ReadyEvent.class).next()
-					.doOnNext(readyEvent -> readyEvent.getGuilds().stream()
-							.map(ReadyEvent.Guild::getId)
-							.forEach(unavailableGuildIds::add))
-					.map(ReadyEvent::getGuilds)
-					.flatMap(guilds -> client.getEventDispatcher().on(GuildCreateEvent.class)
-							.doOnNext(guildCreateEvent -> unavailableGuildIds.remove(guildCreateEvent.getGuild().getId()))
-							.take(guilds.size())
-							.timeout(Duration.ofMinutes(2), Mono.empty())
-							.then(Mono.defer(() -> log("Shard " + client.getConfig().getShardIndex() + " connected! Serving " + guilds.stream()
-									.map(ReadyEvent.Guild::getId)
-									.filter(id -> !unavailableGuildIds.contains(id))
-									.count() + " guilds.")))))
-			.then(Flux.fromIterable(plugins)
-					.flatMap(plugin -> plugin.onBotReady(this)
-							.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("onBotReady action failed for plugin " + plugin.getName(), e))))
-					.then())
-			.then(log("Bot ready!"))
-			.doOnTerminate(() -> {
-				// Guild join
-				discordClients.flatMap(client -> client.getEventDispatcher().on(GuildCreateEvent.class))
-						.filter(event -> shardsNotReady.get() == 0)
-						.filter(event -> !unavailableGuildIds.remove(event.getGuild().getId()))
-						.map(GuildCreateEvent::getGuild)
-						.flatMap(guild -> log(":inbox_tray: New guild joined: " + Markdown.escape(guild.getName())
-								+ " (" + guild.getId().asString() + ")"))
-						.retryWhen(Retry.any().doOnRetry(retryCtx -> LOGGER.error("Error while procesing GuildCreateEvent", retryCtx.exception())))
-						.subscribe();
-				// Guild leave
-				discordClients.flatMap(client -> client.getEventDispatcher().on(GuildDeleteEvent.class))
-						.filter(event -> shardsNotReady.get() == 0)
-						.filter(event -> {
-							if (event.isUnavailable()) {
-								unavailableGuildIds.add(event.getGuildId());
-								return false;
-							}
-							unavailableGuildIds.remove(event.getGuildId());
-							return true;
-						})
-						.map(event -> event.getGuild().map(guild -> Markdown.escape(guild.getName())
-								+ " (" + guild.getId().asString() + ")").orElse(event.getGuildId().asString() + " (no data)"))
-						.flatMap(str -> log(":outbox_tray: Guild left: " + str))
-						.retryWhen(Retry.any().doOnRetry(retryCtx -> LOGGER.error("Error while procesing GuildDeleteEvent", retryCtx.exception())))
-						.subscribe();
-				// Resume on partial reconnections
-				discordClients.flatMap(client -> client.getEventDispatcher().on(ResumeEvent.class)
-								.flatMap(resumeEvent -> log("Shard " + client.getConfig().getShardIndex()
-										+ ": session resumed after websocket disconnection.")))
-						.retryWhen(Retry.any().doOnRetry(retryCtx -> LOGGER.error("Error while procesing ResumeEvent", retryCtx.exception())))
-						.subscribe();
-				// Ready on full reconnections
-				discordClients.flatMap(client -> client.getEventDispatcher().on(ReadyEvent.class)
-								.doOnNext(readyEvent -> shardsNotReady.incrementAndGet())
-								.map(readyEvent -> readyEvent.getGuilds().size())
-								.flatMap(guildCount -> client.getEventDispatcher().on(GuildCreateEvent.class)
-										.take(guildCount)
-										.timeout(Duration.ofMinutes(2), Mono.error(new TimeoutException("Unable to load guilds of shard "
-												+ client.getConfig().getShardIndex() + " in time")))
-										.doAfterTerminate(() -> shardsNotReady.decrementAndGet())
-										.then(log("Shard " + client.getConfig().getShardIndex() + " reconnected (" + guildCount + " guilds)"))))
-						.retryWhen(Retry.any().doOnRetry(retryCtx -> LOGGER.error("Error while procesing ReadyEvent", retryCtx.exception())))
-						.subscribe();
-			})
-			.subscribe();
+		// Guild availability is tracked straight from the gateway dispatchers rather than through the event pipeline:
+		// it depends on the relative order of READY, GuildCreate and GuildDelete, which separate channels don't keep.
+		// Guilds announced in READY are unavailable until their GuildCreate is received
+		// Guild settings are loaded in the background meanwhile, so that they are cached when commands start coming
+		discordClients.flatMap(client -> client.getEventDispatcher().on(ReadyEvent.class)
+						.doOnNext(readyEvent -> {
+							var shardIndex = client.getConfig().getShardIndex();
+							var guildIds = readyEvent.getGuilds().stream().mapToLong(guild -> guild.getId().asLong()).toArray();
+							guildAvailability.onReady(shardIndex, guildIds);
+							settingsWarmup.warmUp(shardIndex, guildIds).subscribe();
+						}))
+				.retryWhen(Retry.any().doOnRetry(retryCtx -> LOGGER.error("Error while procesing ReadyEvent", retryCtx.exception())))
+				.subscribe();
+		// Shard logins and reconnections
+		shardOrchestrator.onGuildsLoaded()
+				.doOnNext(status -> guildAvailability.markShardReady(status.getShardIndex()))
+				.flatMap(status -> log("Shard " + status.getShardIndex() + (status.getReadyCount() > 1
+						? " reconnected (" + status.getLoadedGuildCount() + " guilds)"
+						: " connected! Serving " + status.getLoadedGuildCount() + " guilds." + status.getTimeToGuildsLoaded()
+								.map(time -> " (ready in " + BotUtils.formatDuration(time) + ")")
+								.orElse(""))))
+				.retryWhen(Retry.any().doOnRetry(retryCtx -> LOGGER.error("Error while procesing shard login", retryCtx.exception())))
+				.subscribe();
+		// Guild join
+		discordClients.flatMap(client -> client.getEventDispatcher().on(GuildCreateEvent.class))
+				.filter(event -> {
+					var shardIndex = event.getClient().getConfig().getShardIndex();
+					return !guildAvailability.markAvailable(shardIndex, event.getGuild().getId().asLong())
+							&& guildAvailability.isShardReady(shardIndex);
+				})
+				.map(GuildCreateEvent::getGuild)
+				.flatMap(guild -> log(":inbox_tray: New guild joined: " + Markdown.escape(guild.getName())
+						+ " (" + guild.getId().asString() + ")"))
+				.retryWhen(Retry.any().doOnRetry(retryCtx -> LOGGER.error("Error while procesing GuildCreateEvent", retryCtx.exception())))
+				.subscribe();
+		// Guild leave
+		discordClients.flatMap(client -> client.getEventDispatcher().on(GuildDeleteEvent.class))
+				.filter(event -> {
+					var shardIndex = event.getClient().getConfig().getShardIndex();
+					var guildId = event.getGuildId().asLong();
+					if (event.isUnavailable()) {
+						guildAvailability.markUnavailable(shardIndex, guildId);
+						return false;
+					}
+					guildAvailability.markAvailable(shardIndex, guildId);
+					return guildAvailability.isShardReady(shardIndex);
+				})
+				.map(event -> event.getGuild().map(guild -> Markdown.escape(guild.getName())
+						+ " (" + guild.getId().asString() + ")").orElse(event.getGuildId().asString() + " (no data)"))
+				.flatMap(str -> log(":outbox_tray: Guild left: " + str))
+				.retryWhen(Retry.any().doOnRetry(retryCtx -> LOGGER.error("Error while procesing GuildDeleteEvent", retryCtx.exception())))
+				.subscribe();
+		// Resume on partial reconnections
+		discordClients.flatMap(client -> client.getEventDispatcher().on(ResumeEvent.class)
+						.flatMap(resumeEvent -> log("Shard " + client.getConfig().getShardIndex()
+								+ ": session resumed after websocket disconnection.")))
+				.retryWhen(Retry.any().doOnRetry(retryCtx -> LOGGER.error("Error while procesing ResumeEvent", retryCtx.exception())))
+				.subscribe();
+		// Bot ready once enough shards are operational
+		shardOrchestrator.awaitReadyQuorum()
+				.then(Flux.fromIterable(plugins)
+						.flatMap(plugin -> plugin.onBotReady(this)
+								.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("onBotReady action failed for plugin " + plugin.getName(), e))))
+						.then())
+				.then(log("Bot ready!"))
+				.subscribe();
 	}
 }
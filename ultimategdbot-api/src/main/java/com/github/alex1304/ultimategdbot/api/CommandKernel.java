@@ -3,6 +3,7 @@ package com.github.alex1304.ultimategdbot.api;
 import static com.github.alex1304.ultimategdbot.api.utils.BotUtils.debugError;
 import static java.util.Collections.synchronizedSet;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.util.Collections;
 import java.util.HashSet;
@@ -14,6 +15,7 @@ import org.slf4j.LoggerFactory;
 
 import com.github.alex1304.ultimategdbot.api.command.Command;
 import com.github.alex1304.ultimategdbot.api.command.CommandProvider;
+import com.github.alex1304.ultimategdbot.api.command.CommandStage;
 import com.github.alex1304.ultimategdbot.api.database.NativeGuildSettings;
 
 import discord4j.core.event.domain.message.MessageCreateEvent;
@@ -81,15 +83,25 @@ public class CommandKernel {
 			LOGGER.debug("Ignoring event due to CHANNEL being blacklisted: {}", event);
 			return Mono.empty();
 		}
-		return findGuildSpecificPrefix(event)
-				.flatMapMany(prefix -> Flux.fromIterable(providers)
-						.flatMap(provider -> event.getMessage().getChannel()
-								.flatMap(channel -> Mono.justOrEmpty(provider.provideFromEvent(bot, prefix, event, channel)))))
+		var instrumentation = bot.getCommandInstrumentation();
+		return Mono.fromSupplier(System::nanoTime)
+				.flatMapMany(received -> findGuildSpecificPrefix(event)
+						.flatMapMany(prefix -> {
+							var prefixResolved = System.nanoTime();
+							return event.getMessage().getChannel()
+									.flatMapMany(channel -> Flux.fromIterable(providers)
+											.flatMap(provider -> Mono.justOrEmpty(provider.provideFromEvent(bot, prefix, event, channel))))
+									.doOnNext(executable -> {
+										var alias = executable.getContext().getArgs().get(0);
+										instrumentation.record(alias, CommandStage.PREFIX_RESOLUTION, prefixResolved - received, NANOSECONDS);
+										instrumentation.record(alias, CommandStage.DISPATCH, System.nanoTime() - prefixResolved, NANOSECONDS);
+									});
+						}))
 				.flatMap(executable -> executable.execute()
-						.onErrorResume(e -> Mono.when(event.getMessage().getChannel()
-								.flatMap(c -> c.createMessage(":no_entry_sign: Something went wrong. "
+						.onErrorResume(e -> Mono.when(executable.getContext().getChannel()
+								.createMessage(":no_entry_sign: Something went wrong. "
 										+ "A crash report has been sent to the developer. Sorry for "
-										+ "the inconvenience."))
+										+ "the inconvenience.")
 								.onErrorResume(__ -> Mono.empty()),
 						debugError(":no_entry_sign: Something went wrong when executing a command", executable.getContext(), e),
 						Mono.fromRunnable(() -> LOGGER.error("Something went wrong when executing a command. Context dump: "
@@ -98,10 +110,12 @@ public class CommandKernel {
 	}
 	
 	public void start() {
-		bot.getDiscordClients()
-				.flatMap(client -> client.getEventDispatcher().on(MessageCreateEvent.class))
-				.flatMap(event -> processEvent(event).onErrorResume(e -> Mono
-						.fromRunnable(() -> LOGGER.error("An error occured when processing event " + event, e))))
+		var pipeline = bot.getEventPipeline();
+		var scheduler = pipeline.getScheduler(MessageCreateEvent.class);
+		pipeline.on(MessageCreateEvent.class)
+				.flatMap(event -> Mono.defer(() -> processEvent(event))
+						.subscribeOn(scheduler)
+						.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("An error occured when processing event " + event, e))))
 				.retry()
 				.repeat()
 				.subscribe();
@@ -163,27 +177,56 @@ public class CommandKernel {
 		guildPrefixCache.remove(guildId);
 		LOGGER.debug("Invalidated cached prefix for guild {}", guildId);
 	}
-	
+
+	/**
+	 * Puts the prefix of the given guild settings in cache, so that the first
+	 * command received from this guild doesn't need to query the database. Does
+	 * nothing if a prefix is already cached for this guild.
+	 *
+	 * @param gs the guild settings loaded from the database
+	 */
+	public void cacheGuildPrefix(NativeGuildSettings gs) {
+		requireNonNull(gs);
+		var prefix = gs.getPrefix() == null ? bot.getDefaultPrefix() : gs.getPrefix();
+		guildPrefixCache.putIfAbsent(gs.getGuildId(), prefix.strip());
+	}
+
 	private Mono<String> findGuildSpecificPrefix(MessageCreateEvent event) {
 		return Mono.justOrEmpty(event.getGuildId())
 				.map(Snowflake::asLong)
 				.flatMap(guildId -> Mono.justOrEmpty(guildPrefixCache.get(guildId))
 						.switchIfEmpty(bot.getDatabase()
-								.findByID(NativeGuildSettings.class, guildId)
-								.switchIfEmpty(Mono.fromCallable(() -> {
-											var gs = new NativeGuildSettings();
-											gs.setGuildId(guildId);
-											return gs;
-										})
-										.flatMap(gs -> bot.getDatabase().save(gs)
-												.then(Mono.fromRunnable(() -> LOGGER.debug("Created guild settings: {}", gs)))
-												.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER
-														.error("Unable to save guild settings for " + guildId, e)))
-												.thenReturn(gs)))
+								.findByIDReadOnly(NativeGuildSettings.class, guildId)
+								.switchIfEmpty(findOrCreateGuildSettings(guildId))
 								.flatMap(gs -> Mono.justOrEmpty(gs.getPrefix()))
 								.defaultIfEmpty(bot.getDefaultPrefix())
 								.map(String::strip)
-								.doOnNext(prefix -> guildPrefixCache.put(guildId, prefix))))
+								.doOnNext(prefix -> guildPrefixCache.put(guildId, prefix))
+								// Not cached, so that the prefix of the guild is looked up again once the database is back
+								.onErrorReturn(DatabaseUnavailableException.class, bot.getDefaultPrefix())))
 				.defaultIfEmpty(bot.getDefaultPrefix());
 	}
+
+	private Mono<NativeGuildSettings> findOrCreateGuildSettings(long guildId) {
+		// The replica may not have caught up yet, for example right after a restart, so
+		// check the primary in the same transaction as the insert rather than
+		// overwriting existing settings with default ones
+		return bot.getDatabase()
+				.inTransaction(tx -> tx.findByID(NativeGuildSettings.class, guildId)
+						.switchIfEmpty(Mono.fromCallable(() -> defaultGuildSettings(guildId))
+								.flatMap(gs -> tx.save(gs)
+										.then(Mono.fromRunnable(() -> LOGGER.debug("Created guild settings: {}", gs)))
+										.thenReturn(gs))))
+				.next()
+				.onErrorResume(e -> !(e instanceof DatabaseUnavailableException), e -> Mono.fromCallable(() -> {
+					LOGGER.error("Unable to save guild settings for " + guildId, e);
+					return defaultGuildSettings(guildId);
+				}));
+	}
+	
+	private static NativeGuildSettings defaultGuildSettings(long guildId) {
+		var gs = new NativeGuildSettings();
+		gs.setGuildId(guildId);
+		return gs;
+	}
 }
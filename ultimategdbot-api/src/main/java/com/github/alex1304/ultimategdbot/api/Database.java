@@ -1,189 +1,225 @@
 package com.github.alex1304.ultimategdbot.api;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Objects;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
-import org.hibernate.cfg.Configuration;
 import org.reactivestreams.Publisher;
 
+import com.github.alex1304.ultimategdbot.api.database.CacheRegionSettings;
+import com.github.alex1304.ultimategdbot.api.database.CacheRegionStats;
+import com.github.alex1304.ultimategdbot.api.database.DatabaseCircuitBreaker;
+import com.github.alex1304.ultimategdbot.api.database.DatabaseTransaction;
+import com.github.alex1304.ultimategdbot.api.jfr.DatabaseOperationEvent;
+
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Scheduler;
-import reactor.core.scheduler.Schedulers;
 
 /**
- * Manages interactions with the database.
+ * Manages interactions with the database. Entities are mapped by Hibernate
+ * mapping files, whatever the backend. Each operation emits a
+ * {@link DatabaseOperationEvent} if the flight recorder is recording it.
+ *
+ * <p>
+ * Two backends are available: {@link HibernateDatabase}, which runs blocking
+ * Hibernate sessions on a dedicated scheduler, and {@link R2dbcDatabase}, which
+ * talks to the database through a non-blocking R2DBC driver. Operations taking
+ * a Hibernate {@link Session} are only supported by the former.
  */
-public class Database {
-	
-	private SessionFactory sessionFactory = null;
-	private final Set<String> resourceNames = new HashSet<>();
-	private final Scheduler databaseScheduler = Schedulers.newElastic("database-elastic");
-
-	/**
-	 * Initializes the database.
-	 */
-	public void configure() {
-		var config = new Configuration();
-		for (var resource : resourceNames) {
-			config.addResource(resource);
-		}
-		if (sessionFactory != null) {
-			sessionFactory.close();
-		}
-		sessionFactory = config.buildSessionFactory();
+public interface Database {
+
+	/**
+	 * Initializes the database. Mapping resources and cache regions must be added
+	 * before.
+	 */
+	void configure();
+
+	/**
+	 * Adds Hibernate mapping files describing entities stored in this database.
+	 *
+	 * @param resourceNames the names of the mapping resources
+	 */
+	void addAllMappingResources(Set<String> resourceNames);
+
+	/**
+	 * Adds settings for regions of the second-level cache. Does nothing if the
+	 * backend has no second-level cache.
+	 *
+	 * @param cacheRegions the settings by region name
+	 */
+	default void addAllCacheRegions(Map<String, CacheRegionSettings> cacheRegions) {
 	}
 
 	/**
 	 * Allows to find a database entity by its ID.
-	 * 
+	 *
+	 * @param entityClass class of the entity
+	 * @param key         the ID
+	 * @param             <T> The entity type
+	 * @param             <K> the ID type
+	 * @return a Mono emitting the entity, if found
+	 */
+	<T, K extends Serializable> Mono<T> findByID(Class<T> entityClass, K key);
+
+	/**
+	 * Allows to find a database entity by its ID, for lookups that don't modify
+	 * the entity. Backends may serve it more cheaply than
+	 * {@link #findByID(Class, Serializable)}.
+	 *
 	 * @param entityClass class of the entity
 	 * @param key         the ID
 	 * @param             <T> The entity type
 	 * @param             <K> the ID type
 	 * @return a Mono emitting the entity, if found
 	 */
-	public <T, K extends Serializable> Mono<T> findByID(Class<T> entityClass, K key) {
-		Objects.requireNonNull(entityClass);
-		Objects.requireNonNull(key);
-		return Mono.fromCallable(() -> {
-			try (var s = newSession()) {
-				return s.get(entityClass, key);
-			}
-		}).subscribeOn(databaseScheduler)
-				.onErrorMap(DatabaseException::new);
+	default <T, K extends Serializable> Mono<T> findByIDReadOnly(Class<T> entityClass, K key) {
+		return findByID(entityClass, key);
+	}
+
+	/**
+	 * Finds several database entities by their IDs, in a single
+	 * <code>IN (...)</code> query. IDs that don't match any entity are skipped.
+	 *
+	 * @param entityClass class of the entity
+	 * @param keys        the IDs
+	 * @param             <T> The entity type
+	 * @param             <K> the ID type
+	 * @return a Flux emitting the entities that were found
+	 */
+	<T, K extends Serializable> Flux<T> findAllByIDs(Class<T> entityClass, Collection<K> keys);
+
+	/**
+	 * Makes a simple query to the database. Backends other than Hibernate only
+	 * support queries of the form
+	 * <code>from Entity [where property = ?0 [and ...]] [order by property [asc|desc]]</code>.
+	 *
+	 * @param entityClass the entity type to fetch
+	 * @param query       the HQL query
+	 * @param params      the query params
+	 * @param             <T> the entity type
+	 * @return a Flux emitting the results of the query
+	 */
+	<T> Flux<T> query(Class<T> entityClass, String query, Object... params);
+
+	/**
+	 * Makes a simple query to the database, for queries whose results aren't
+	 * modified. Backends may serve it more cheaply than
+	 * {@link #query(Class, String, Object...)}.
+	 *
+	 * @param entityClass the entity type to fetch
+	 * @param query       the HQL query
+	 * @param params      the query params
+	 * @param             <T> the entity type
+	 * @return a Flux emitting the results of the query
+	 */
+	default <T> Flux<T> queryReadOnly(Class<T> entityClass, String query, Object... params) {
+		return query(entityClass, query, params);
 	}
 
 	/**
-	 * Makes a simple query to the database.
-	 * 
+	 * Makes a simple query to the database, and stores its results in the query
+	 * cache if the backend has one. The cached results are reused by later calls
+	 * with the same query and params, until one of the tables involved is
+	 * modified.
+	 *
 	 * @param entityClass the entity type to fetch
 	 * @param query       the HQL query
 	 * @param params      the query params
 	 * @param             <T> the entity type
 	 * @return a Flux emitting the results of the query
 	 */
-	public <T> Flux<T> query(Class<T> entityClass, String query, Object... params) {
-		Objects.requireNonNull(entityClass);
-		Objects.requireNonNull(query);
-		Objects.requireNonNull(params);
-		return Mono.fromCallable(() -> {
-			var list = new ArrayList<T>();
-			try (var s = newSession()) {
-				var q = s.createQuery(query, entityClass);
-				for (int i = 0; i < params.length; i++) {
-					q.setParameter(i, params[i]);
-				}
-				list.addAll(q.getResultList());
-			}
-			return list;
-		}).subscribeOn(databaseScheduler)
-				.flatMapMany(Flux::fromIterable)
-				.onErrorMap(DatabaseException::new);
+	default <T> Flux<T> cachedQuery(Class<T> entityClass, String query, Object... params) {
+		return query(entityClass, query, params);
 	}
 
 	/**
 	 * Saves an object in database
-	 * 
+	 *
 	 * @param obj the object to save
 	 * @return a Mono that completes when it has saved
 	 */
-	public Mono<Void> save(Object obj) {
-		return performEmptyTransaction(session -> session.saveOrUpdate(obj));
-	}
+	Mono<Void> save(Object obj);
 
 	/**
 	 * Deletes an object from database
-	 * 
+	 *
 	 * @param obj the object to save
 	 * @return a Mono that completes when it has deleted
 	 */
-	public Mono<Void> delete(Object obj) {
-		return performEmptyTransaction(session -> session.delete(obj));
+	Mono<Void> delete(Object obj);
+
+	/**
+	 * Runs several operations in a single transaction, whatever the backend. The
+	 * transaction is committed when the Publisher returned by the function
+	 * completes, and rolled back if it errors or is cancelled.
+	 *
+	 * @param             <V> the type of value that the transaction may produce
+	 * @param txFunction a function that runs operations on the transaction and
+	 *                   returns a Publisher completing when the transaction is
+	 *                   ready to be committed
+	 * @return a Flux completing when the transaction terminates successfully and
+	 *         may emit values that constitute the result of the transaction
+	 */
+	<V> Flux<V> inTransaction(Function<DatabaseTransaction, Publisher<V>> txFunction);
+
+	/**
+	 * Gets whether this database gives access to Hibernate sessions, in other
+	 * words whether {@link #performEmptyTransaction(Consumer)},
+	 * {@link #performTransaction(Function)} and
+	 * {@link #performTransactionWhen(Function)} are supported. The bot refuses to
+	 * start if it isn't the case while a plugin requires them, see
+	 * {@link Plugin#requiresDatabaseSessions()}.
+	 *
+	 * @return true if sessions are supported, false by default
+	 */
+	default boolean supportsSessions() {
+		return false;
 	}
 
 	/**
 	 * Allows to perform more complex actions with the database, by having full
 	 * control on the current transaction. This method does not return a value. If
 	 * you need to perform a transaction that returns a value upon completion, the
-	 * variant {@link #performTransaction(Function)} is preferred.
-	 * 
+	 * variant {@link #performTransaction(Function)} is preferred. Only supported
+	 * by {@link HibernateDatabase}.
+	 *
 	 * @param txConsumer the transaction consuming a Session object
 	 * @return a Mono completing when the transaction terminates successfully
 	 */
-	public Mono<Void> performEmptyTransaction(Consumer<Session> txConsumer) {
-		return Mono.<Void>fromCallable(() -> {
-			Transaction tx = null;
-			try (var s = newSession()) {
-				tx = s.beginTransaction();
-				txConsumer.accept(s);
-				tx.commit();
-			} catch (RuntimeException e) {
-				if (tx != null && tx.isActive()) {
-					try {
-						tx.rollback();
-					} catch (RuntimeException e0) {
-						e.addSuppressed(e0);
-						throw e;
-					}
-				}
-				throw e;
-			}
-			return null;
-		}).subscribeOn(databaseScheduler)
-				.onErrorMap(DatabaseException::new);
+	default Mono<Void> performEmptyTransaction(Consumer<Session> txConsumer) {
+		return Mono.error(new DatabaseException(new UnsupportedOperationException(
+				"Hibernate sessions are not available with " + getClass().getSimpleName())));
 	}
-	
+
 	/**
 	 * Allows to perform more complex actions with the database, by having full
 	 * control on the current transaction. This method can return a value upon
 	 * completion. If you don't need a return value for the transaction, the variant
-	 * {@link #performEmptyTransaction(Consumer)} is preferred.
-	 * 
+	 * {@link #performEmptyTransaction(Consumer)} is preferred. Only supported by
+	 * {@link HibernateDatabase}.
+	 *
 	 * @param            <V> the type of the returned value
 	 * @param txFunction the transaction accepting a Session object and returning a
 	 *                   value
 	 * @return a Mono completing when the transaction terminates successfully and
 	 *         emitting a value.
 	 */
-	public <V> Mono<V> performTransaction(Function<Session, V> txFunction) {
-		return Mono.fromCallable(() -> {
-			V returnVal;
-			Transaction tx = null;
-			try (var s = newSession()) {
-				tx = s.beginTransaction();
-				returnVal = txFunction.apply(s);
-				tx.commit();
-			} catch (RuntimeException e) {
-				e.printStackTrace();
-				if (tx != null && tx.isActive()) {
-					try {
-						tx.rollback();
-					} catch (RuntimeException e0) {
-						e.addSuppressed(e0);
-						throw e;
-					}
-				}
-				throw e;
-			}
-			return returnVal;
-		}).subscribeOn(databaseScheduler)
-				.onErrorMap(DatabaseException::new);
+	default <V> Mono<V> performTransaction(Function<Session, V> txFunction) {
+		return Mono.error(new DatabaseException(new UnsupportedOperationException(
+				"Hibernate sessions are not available with " + getClass().getSimpleName())));
 	}
 
 	/**
 	 * Allows to manipulate a Session in an asynchronous context. The session
 	 * provides a Publisher which completion indicates that the transaction can be
-	 * committed and the session closed.
-	 * 
+	 * committed and the session closed. Only supported by
+	 * {@link HibernateDatabase}.
+	 *
 	 * @param                 <V> the type of value that the transaction may produce
 	 * @param txAsyncFunction a function that manipulates a Session and returns a
 	 *                        Publisher completing when the transaction is ready to
@@ -191,50 +227,54 @@ public class Database {
 	 * @return a Flux completing when the transaction terminates successfully and
 	 *         may emit values that constitute the result of the transaction
 	 */
-	public <V> Flux<V> performTransactionWhen(Function<Session, Publisher<V>> txAsyncFunction) {
-		return Flux.usingWhen(
-						Mono.fromCallable(this::newSession).doOnNext(Session::beginTransaction),
-						txAsyncFunction,
-						this::commitAndClose,
-						this::rollbackAndClose,
-						this::rollbackAndClose)
-				.subscribeOn(databaseScheduler);
+	default <V> Flux<V> performTransactionWhen(Function<Session, Publisher<V>> txAsyncFunction) {
+		return Flux.error(new DatabaseException(new UnsupportedOperationException(
+				"Hibernate sessions are not available with " + getClass().getSimpleName())));
 	}
 
-	void addAllMappingResources(Set<String> resourceNames) {
-		this.resourceNames.addAll(Objects.requireNonNull(resourceNames));
-	}
-	
-	private Mono<Void> commitAndClose(Session session) {
-		return Mono.<Void>fromRunnable(() -> {
-			var tx = session.getTransaction();
-			if (tx != null && tx.isActive()) {
-				try {
-					tx.commit();
-				} finally {
-					session.close();
-				}
-			}
-		}).onErrorMap(DatabaseException::new);
-	}
-	
-	private Mono<Void> rollbackAndClose(Session session) {
-		return Mono.<Void>fromRunnable(() -> {
-			var tx = session.getTransaction();
-			if (tx != null && tx.isActive()) {
-				try {
-					tx.rollback();
-				} finally {
-					session.close();
-				}
-			}
-		}).onErrorMap(DatabaseException::new);
+	/**
+	 * Gets whether the entities of the given class are stored in the second-level
+	 * cache when they are loaded.
+	 *
+	 * @param entityClass class of the entity
+	 * @return true if the entity is cached, false otherwise, if the database isn't
+	 *         configured or if the backend has no second-level cache
+	 */
+	default boolean isSecondLevelCached(Class<?> entityClass) {
+		return false;
 	}
 
-	private Session newSession() {
-		if (sessionFactory == null || sessionFactory.isClosed())
-			throw new IllegalStateException("Database not configured");
+	/**
+	 * Gives access to the JDBC connection provider used by the backend, unwrapped
+	 * as the given type. It can for example be used to get the underlying
+	 * {@code HikariDataSource} in order to monitor the connection pool.
+	 *
+	 * @param          <T> the expected type
+	 * @param type     the class of the expected type
+	 * @return the unwrapped connection provider, or empty if the database isn't
+	 *         configured, if the backend doesn't use JDBC or if the provider
+	 *         can't be unwrapped as the given type
+	 */
+	default <T> Optional<T> unwrapConnectionProvider(Class<T> type) {
+		return Optional.empty();
+	}
 
-		return sessionFactory.openSession();
+	/**
+	 * Gets the statistics of the regions of the second-level cache and of the
+	 * query cache.
+	 *
+	 * @return the statistics by region name, empty if the database isn't
+	 *         configured or if the backend has no such caches
+	 */
+	default Map<String, CacheRegionStats> getCacheRegionStats() {
+		return Map.of();
 	}
+
+	/**
+	 * Gets the circuit breaker protecting this database, in order to monitor its
+	 * state.
+	 *
+	 * @return the circuit breaker
+	 */
+	DatabaseCircuitBreaker getCircuitBreaker();
 }
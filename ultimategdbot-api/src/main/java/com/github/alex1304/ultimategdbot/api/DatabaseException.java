@@ -7,4 +7,8 @@ public class DatabaseException extends RuntimeException {
 	public DatabaseException(Throwable cause) {
 		super(cause);
 	}
+
+	public DatabaseException(String message) {
+		super(message);
+	}
 }
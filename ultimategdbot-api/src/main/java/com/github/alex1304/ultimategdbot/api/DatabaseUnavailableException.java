@@ -0,0 +1,16 @@
+package com.github.alex1304.ultimategdbot.api;
+
+import com.github.alex1304.ultimategdbot.api.database.DatabaseCircuitBreaker;
+
+/**
+ * Thrown when a database operation is rejected without being attempted,
+ * because the {@link DatabaseCircuitBreaker} is open.
+ */
+public class DatabaseUnavailableException extends DatabaseException {
+
+	private static final long serialVersionUID = -3307745018862512937L;
+
+	public DatabaseUnavailableException() {
+		super("The database is unavailable, the operation was rejected by the circuit breaker");
+	}
+}
@@ -0,0 +1,85 @@
+package com.github.alex1304.ultimategdbot.api;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Defines where the bot runs code that is allowed to block, namely database
+ * calls and command actions.
+ */
+public enum ExecutionMode {
+	/**
+	 * Blocking code runs on a Reactor elastic scheduler. Command actions run on the
+	 * thread that received the event and must not block.
+	 */
+	ELASTIC,
+	/**
+	 * Blocking code runs on a new virtual thread for each task. Command actions run
+	 * on virtual threads too, so plugins may perform blocking calls in them, for
+	 * example by calling {@code block()} on a database Mono. Requires a JVM that
+	 * supports virtual threads (Java 21 or newer), otherwise an elastic scheduler
+	 * is used instead.
+	 */
+	VIRTUAL_THREADS;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger("ultimategdbot");
+
+	/**
+	 * Gets whether the running JVM supports virtual threads.
+	 *
+	 * @return a boolean
+	 */
+	public static boolean isVirtualThreadsSupported() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the execution mode actually in effect when this one is requested,
+	 * which is {@link #ELASTIC} instead of {@link #VIRTUAL_THREADS} on a JVM that
+	 * doesn't support virtual threads.
+	 *
+	 * @return the effective execution mode
+	 */
+	public ExecutionMode effective() {
+		return this == VIRTUAL_THREADS && !isVirtualThreadsSupported() ? ELASTIC : this;
+	}
+
+	/**
+	 * Creates a new scheduler suitable for blocking tasks according to this
+	 * execution mode.
+	 *
+	 * @param name the name of the scheduler
+	 * @return a new Scheduler
+	 */
+	public Scheduler createScheduler(String name) {
+		if (this == VIRTUAL_THREADS) {
+			var executor = newVirtualThreadExecutor();
+			if (executor != null) {
+				return Schedulers.fromExecutorService(executor, name);
+			}
+			LOGGER.warn("Virtual threads are not supported by this JVM (Java {}), falling back to an elastic scheduler for {}",
+					Runtime.version().feature(), name);
+		}
+		return Schedulers.newElastic(name);
+	}
+
+	private static ExecutorService newVirtualThreadExecutor() {
+		// Looked up reflectively so that the bot still compiles and runs on its Java 11 baseline
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,742 @@
+package com.github.alex1304.ultimategdbot.api;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import javax.persistence.PersistenceException;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.reactivestreams.Publisher;
+
+import com.github.alex1304.ultimategdbot.api.database.CacheRegionSettings;
+import com.github.alex1304.ultimategdbot.api.database.CacheRegionStats;
+import com.github.alex1304.ultimategdbot.api.database.CaffeineRegionFactory;
+import com.github.alex1304.ultimategdbot.api.database.DatabaseCircuitBreaker;
+import com.github.alex1304.ultimategdbot.api.database.DatabaseTransaction;
+import com.github.alex1304.ultimategdbot.api.jfr.BotEvent;
+import com.github.alex1304.ultimategdbot.api.jfr.DatabaseOperationEvent;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Database backed by Hibernate. Its blocking calls run on a dedicated
+ * scheduler.
+ * 
+ * <p>
+ * Read-only lookups and queries can be served by a replica of the database,
+ * configured by Hibernate properties prefixed with {@value #REPLICA_PREFIX}
+ * that override the settings of the primary database, for example
+ * <code>replica.hibernate.hikari.dataSource.url</code>. Writes and
+ * transactions always go to the primary database. So that the bot reads its
+ * own writes despite the replication lag, the settings of a guild or the
+ * entity that were just written keep being read from the primary database for
+ * a window given in seconds by the {@value #STICKINESS_WINDOW_PROPERTY}
+ * property, 5 by default. The same goes for all read-only queries after any
+ * write.
+ * 
+ * <p>
+ * Operations go through a {@link DatabaseCircuitBreaker}. While it is open,
+ * they fail immediately with {@link DatabaseUnavailableException}, except
+ * lookups of entities that are in the second-level cache.
+ */
+public class HibernateDatabase implements Database {
+	
+	public static final String REPLICA_PREFIX = "replica.";
+	public static final String STICKINESS_WINDOW_PROPERTY = REPLICA_PREFIX + "stickiness_window_seconds";
+	
+	private static final Duration DEFAULT_STICKINESS_WINDOW = Duration.ofSeconds(5);
+	
+	private SessionFactory sessionFactory = null;
+	private SessionFactory replicaSessionFactory = null;
+	private ReplicaWriteTracker writeTracker = null;
+	private final Set<String> resourceNames = new HashSet<>();
+	private final Map<String, CacheRegionSettings> cacheRegions = new HashMap<>();
+	private final Properties propertyOverrides = new Properties();
+	private final Scheduler databaseScheduler;
+	private final DatabaseCircuitBreaker circuitBreaker;
+	
+	/**
+	 * Creates a database that runs its blocking calls on a dedicated elastic
+	 * scheduler, without circuit breaker.
+	 */
+	public HibernateDatabase() {
+		this(Schedulers.newElastic("database-elastic"));
+	}
+	
+	/**
+	 * Creates a database that runs its blocking calls on the given scheduler,
+	 * without circuit breaker.
+	 * 
+	 * @param databaseScheduler the scheduler on which database calls are executed
+	 */
+	public HibernateDatabase(Scheduler databaseScheduler) {
+		this(databaseScheduler, DatabaseCircuitBreaker.disabled());
+	}
+	
+	/**
+	 * Creates a database that runs its blocking calls on the given scheduler, and
+	 * rejects them while the given circuit breaker is open.
+	 * 
+	 * @param databaseScheduler the scheduler on which database calls are executed
+	 * @param circuitBreaker    the circuit breaker
+	 */
+	public HibernateDatabase(Scheduler databaseScheduler, DatabaseCircuitBreaker circuitBreaker) {
+		this.databaseScheduler = Objects.requireNonNull(databaseScheduler);
+		this.circuitBreaker = Objects.requireNonNull(circuitBreaker);
+	}
+
+	/**
+	 * Initializes the database. If the second-level cache or the query cache is
+	 * enabled in the Hibernate configuration without specifying a region factory,
+	 * the caches are provided by {@link CaffeineRegionFactory}.
+	 */
+	@Override
+	public void configure() {
+		configure(propertyOverrides);
+	}
+	
+	/**
+	 * Initializes the database like {@link #configure()}, with the given
+	 * properties taking precedence over the hibernate.properties file.
+	 * 
+	 * @param overrides the Hibernate properties to override
+	 */
+	public void configure(Properties overrides) {
+		var config = new Configuration().addProperties(overrides);
+		for (var resource : resourceNames) {
+			config.addResource(resource);
+		}
+		var props = config.getProperties();
+		if (Boolean.parseBoolean(props.getProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE))
+				|| Boolean.parseBoolean(props.getProperty(AvailableSettings.USE_QUERY_CACHE))) {
+			props.putIfAbsent(AvailableSettings.CACHE_REGION_FACTORY, CaffeineRegionFactory.class.getName());
+		}
+		// Settings from the Hibernate configuration take precedence over those given by plugins
+		cacheRegions.forEach((regionName, settings) -> {
+			var prefix = CaffeineRegionFactory.PROPERTY_PREFIX + regionName + ".";
+			props.putIfAbsent(prefix + "maximum_size", String.valueOf(settings.getMaximumSize()));
+			settings.getExpireAfterWrite().ifPresent(expireAfterWrite -> props.putIfAbsent(
+					prefix + "expire_after_write_seconds", String.valueOf(expireAfterWrite.toSeconds())));
+		});
+		var replicaProps = replicaProperties(props);
+		if (sessionFactory != null) {
+			sessionFactory.close();
+		}
+		if (replicaSessionFactory != null) {
+			replicaSessionFactory.close();
+			replicaSessionFactory = null;
+		}
+		if (replicaProps.isEmpty()) {
+			writeTracker = null;
+			sessionFactory = config.buildSessionFactory();
+			return;
+		}
+		var window = Optional.ofNullable(props.getProperty(STICKINESS_WINDOW_PROPERTY))
+				.map(String::strip)
+				.map(Long::parseLong)
+				.map(Duration::ofSeconds)
+				.orElse(DEFAULT_STICKINESS_WINDOW);
+		writeTracker = new ReplicaWriteTracker(window);
+		sessionFactory = config.setInterceptor(writeTracker.newInterceptor()).buildSessionFactory();
+		var replicaConfig = new Configuration().setProperties(replicaProps);
+		for (var resource : resourceNames) {
+			replicaConfig.addResource(resource);
+		}
+		replicaSessionFactory = replicaConfig.buildSessionFactory();
+	}
+	
+	/**
+	 * Derives the Hibernate properties of the replica from those of the primary
+	 * database. The schema of the replica is left to the primary database, and
+	 * the replica doesn't keep a cache of its own as it would not be invalidated
+	 * by writes made to the primary database.
+	 * 
+	 * @return the properties, or empty if no replica is configured
+	 */
+	private static Properties replicaProperties(Properties props) {
+		var overrides = new Properties();
+		for (var name : props.stringPropertyNames()) {
+			if (name.startsWith(REPLICA_PREFIX) && !name.equals(STICKINESS_WINDOW_PROPERTY)) {
+				overrides.setProperty(name.substring(REPLICA_PREFIX.length()), props.getProperty(name));
+			}
+		}
+		if (overrides.isEmpty()) {
+			return overrides;
+		}
+		var replicaProps = new Properties();
+		for (var name : props.stringPropertyNames()) {
+			if (!name.startsWith(REPLICA_PREFIX)) {
+				replicaProps.setProperty(name, props.getProperty(name));
+			}
+		}
+		replicaProps.setProperty(AvailableSettings.HBM2DDL_AUTO, "none");
+		replicaProps.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false");
+		replicaProps.setProperty(AvailableSettings.USE_QUERY_CACHE, "false");
+		replicaProps.remove(AvailableSettings.CACHE_REGION_FACTORY);
+		replicaProps.putAll(overrides);
+		return replicaProps;
+	}
+
+	/**
+	 * Allows to find a database entity by its ID.
+	 * 
+	 * @param entityClass class of the entity
+	 * @param key         the ID
+	 * @param             <T> The entity type
+	 * @param             <K> the ID type
+	 * @return a Mono emitting the entity, if found
+	 */
+	@Override
+	public <T, K extends Serializable> Mono<T> findByID(Class<T> entityClass, K key) {
+		return findByID(entityClass, key, false);
+	}
+
+	/**
+	 * Allows to find a database entity by its ID, in a read-only session. The
+	 * session keeps no snapshot of the entity for dirty checking and is never
+	 * flushed, which makes it cheaper than {@link #findByID(Class, Serializable)}
+	 * for lookups that don't modify the entity. The second-level cache is still
+	 * used. The lookup is served by the replica if one is configured, unless the
+	 * entity is in the second-level cache or was recently written.
+	 * 
+	 * @param entityClass class of the entity
+	 * @param key         the ID
+	 * @param             <T> The entity type
+	 * @param             <K> the ID type
+	 * @return a Mono emitting the entity, if found
+	 */
+	@Override
+	public <T, K extends Serializable> Mono<T> findByIDReadOnly(Class<T> entityClass, K key) {
+		return findByID(entityClass, key, true);
+	}
+
+	private <T, K extends Serializable> Mono<T> findByID(Class<T> entityClass, K key, boolean readOnly) {
+		Objects.requireNonNull(entityClass);
+		Objects.requireNonNull(key);
+		return Mono.fromCallable(() -> recordOperation(entityClass, "find", result -> result == null ? 0 : 1, () -> {
+			try (var s = readOnly ? newReadSession(entityClass, key) : newSession()) {
+				return s.get(entityClass, key);
+			}
+		})).subscribeOn(databaseScheduler)
+				.onErrorMap(DatabaseException::new)
+				.transform(op -> Mono.defer(() -> isInSecondLevelCache(entityClass, key)
+						? op
+						: circuitBreaker.protect(op, HibernateDatabase::isDatabaseFailure)));
+	}
+
+	/**
+	 * Finds several database entities by their IDs, in a single
+	 * <code>IN (...)</code> query. IDs that don't match any entity are skipped.
+	 *
+	 * @param entityClass class of the entity
+	 * @param keys        the IDs
+	 * @param             <T> The entity type
+	 * @param             <K> the ID type
+	 * @return a Flux emitting the entities that were found
+	 */
+	@Override
+	public <T, K extends Serializable> Flux<T> findAllByIDs(Class<T> entityClass, Collection<K> keys) {
+		Objects.requireNonNull(entityClass);
+		Objects.requireNonNull(keys);
+		if (keys.isEmpty()) {
+			return Flux.empty();
+		}
+		return Mono.fromCallable(() -> recordOperation(entityClass, "find", ArrayList::size, () -> {
+			var list = new ArrayList<T>();
+			try (var s = newSession()) {
+				list.addAll(s.byMultipleIds(entityClass)
+						.withBatchSize(keys.size())
+						.multiLoad(new ArrayList<>(keys)));
+			}
+			list.removeIf(Objects::isNull);
+			return list;
+		})).subscribeOn(databaseScheduler)
+				.onErrorMap(DatabaseException::new)
+				.transform(op -> circuitBreaker.protect(op, HibernateDatabase::isDatabaseFailure))
+				.flatMapMany(Flux::fromIterable);
+	}
+
+	/**
+	 * Gets whether the entities of the given class are stored in the second-level
+	 * cache when they are loaded. This is the case if the second-level cache is
+	 * enabled in the Hibernate configuration and the mapping of the entity
+	 * declares a cache strategy.
+	 *
+	 * @param entityClass class of the entity
+	 * @return true if the entity is cached, false otherwise or if the database
+	 *         isn't configured
+	 */
+	@Override
+	public boolean isSecondLevelCached(Class<?> entityClass) {
+		Objects.requireNonNull(entityClass);
+		var sessionFactory = this.sessionFactory;
+		if (sessionFactory == null || sessionFactory.isClosed()) {
+			return false;
+		}
+		return sessionFactory.unwrap(SessionFactoryImplementor.class)
+				.getMetamodel()
+				.entityPersister(entityClass)
+				.canWriteToCache();
+	}
+
+	/**
+	 * Makes a simple query to the database.
+	 * 
+	 * @param entityClass the entity type to fetch
+	 * @param query       the HQL query
+	 * @param params      the query params
+	 * @param             <T> the entity type
+	 * @return a Flux emitting the results of the query
+	 */
+	@Override
+	public <T> Flux<T> query(Class<T> entityClass, String query, Object... params) {
+		return query(entityClass, query, false, false, params);
+	}
+
+	/**
+	 * Makes a simple query to the database, in a read-only session. The session
+	 * keeps no snapshot of the results for dirty checking and is never flushed,
+	 * which makes it cheaper than {@link #query(Class, String, Object...)} for
+	 * queries whose results aren't modified. The query is served by the replica
+	 * if one is configured, unless a write was recently made.
+	 * 
+	 * @param entityClass the entity type to fetch
+	 * @param query       the HQL query
+	 * @param params      the query params
+	 * @param             <T> the entity type
+	 * @return a Flux emitting the results of the query
+	 */
+	@Override
+	public <T> Flux<T> queryReadOnly(Class<T> entityClass, String query, Object... params) {
+		return query(entityClass, query, false, true, params);
+	}
+
+	/**
+	 * Makes a simple query to the database, and stores its results in the query
+	 * cache. The cached results are reused by later calls with the same query and
+	 * params, until one of the tables involved is modified. This only has an
+	 * effect if the query cache is enabled in the Hibernate configuration, and is
+	 * best used for entities that are also stored in the second-level cache.
+	 * 
+	 * @param entityClass the entity type to fetch
+	 * @param query       the HQL query
+	 * @param params      the query params
+	 * @param             <T> the entity type
+	 * @return a Flux emitting the results of the query
+	 */
+	@Override
+	public <T> Flux<T> cachedQuery(Class<T> entityClass, String query, Object... params) {
+		return query(entityClass, query, true, false, params);
+	}
+
+	private <T> Flux<T> query(Class<T> entityClass, String query, boolean cacheable, boolean readOnly,
+			Object... params) {
+		Objects.requireNonNull(entityClass);
+		Objects.requireNonNull(query);
+		Objects.requireNonNull(params);
+		return Mono.fromCallable(() -> recordOperation(entityClass, "query", ArrayList::size, () -> {
+			var list = new ArrayList<T>();
+			try (var s = readOnly ? newReadSession(entityClass, null) : newSession()) {
+				var q = s.createQuery(query, entityClass).setCacheable(cacheable);
+				for (int i = 0; i < params.length; i++) {
+					q.setParameter(i, params[i]);
+				}
+				list.addAll(q.getResultList());
+			}
+			return list;
+		})).subscribeOn(databaseScheduler)
+				.onErrorMap(DatabaseException::new)
+				.transform(op -> circuitBreaker.protect(op, HibernateDatabase::isDatabaseFailure))
+				.flatMapMany(Flux::fromIterable);
+	}
+
+	/**
+	 * Saves an object in database
+	 * 
+	 * @param obj the object to save
+	 * @return a Mono that completes when it has saved
+	 */
+	@Override
+	public Mono<Void> save(Object obj) {
+		Objects.requireNonNull(obj);
+		return performEmptyTransaction(obj.getClass(), "save", session -> session.saveOrUpdate(obj));
+	}
+
+	/**
+	 * Deletes an object from database
+	 * 
+	 * @param obj the object to save
+	 * @return a Mono that completes when it has deleted
+	 */
+	@Override
+	public Mono<Void> delete(Object obj) {
+		Objects.requireNonNull(obj);
+		return performEmptyTransaction(obj.getClass(), "delete", session -> session.delete(obj));
+	}
+
+	/**
+	 * Allows to perform more complex actions with the database, by having full
+	 * control on the current transaction. This method does not return a value. If
+	 * you need to perform a transaction that returns a value upon completion, the
+	 * variant {@link #performTransaction(Function)} is preferred.
+	 * 
+	 * @param txConsumer the transaction consuming a Session object
+	 * @return a Mono completing when the transaction terminates successfully
+	 */
+	@Override
+	public Mono<Void> performEmptyTransaction(Consumer<Session> txConsumer) {
+		return performEmptyTransaction(null, "transaction", txConsumer);
+	}
+	
+	private Mono<Void> performEmptyTransaction(Class<?> entityClass, String operation, Consumer<Session> txConsumer) {
+		return Mono.<Void>fromCallable(() -> recordOperation(entityClass, operation, __ -> entityClass == null ? -1 : 1, () -> {
+			Transaction tx = null;
+			try (var s = newSession()) {
+				tx = s.beginTransaction();
+				markWrite();
+				txConsumer.accept(s);
+				tx.commit();
+			} catch (RuntimeException e) {
+				if (tx != null && tx.isActive()) {
+					try {
+						tx.rollback();
+					} catch (RuntimeException e0) {
+						e.addSuppressed(e0);
+						throw e;
+					}
+				}
+				throw e;
+			}
+			return null;
+		})).subscribeOn(databaseScheduler)
+				.onErrorMap(DatabaseException::new)
+				.transform(op -> circuitBreaker.protect(op, HibernateDatabase::isDatabaseFailure));
+	}
+	
+	/**
+	 * Allows to perform more complex actions with the database, by having full
+	 * control on the current transaction. This method can return a value upon
+	 * completion. If you don't need a return value for the transaction, the variant
+	 * {@link #performEmptyTransaction(Consumer)} is preferred.
+	 * 
+	 * @param            <V> the type of the returned value
+	 * @param txFunction the transaction accepting a Session object and returning a
+	 *                   value
+	 * @return a Mono completing when the transaction terminates successfully and
+	 *         emitting a value.
+	 */
+	@Override
+	public <V> Mono<V> performTransaction(Function<Session, V> txFunction) {
+		return Mono.fromCallable(() -> recordOperation(null, "transaction", __ -> -1, () -> {
+			V returnVal;
+			Transaction tx = null;
+			try (var s = newSession()) {
+				tx = s.beginTransaction();
+				markWrite();
+				returnVal = txFunction.apply(s);
+				tx.commit();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+				if (tx != null && tx.isActive()) {
+					try {
+						tx.rollback();
+					} catch (RuntimeException e0) {
+						e.addSuppressed(e0);
+						throw e;
+					}
+				}
+				throw e;
+			}
+			return returnVal;
+		})).subscribeOn(databaseScheduler)
+				.onErrorMap(DatabaseException::new)
+				.transform(op -> circuitBreaker.protect(op, HibernateDatabase::isDatabaseFailure));
+	}
+
+	/**
+	 * Allows to manipulate a Session in an asynchronous context. The session
+	 * provides a Publisher which completion indicates that the transaction can be
+	 * committed and the session closed.
+	 * 
+	 * @param                 <V> the type of value that the transaction may produce
+	 * @param txAsyncFunction a function that manipulates a Session and returns a
+	 *                        Publisher completing when the transaction is ready to
+	 *                        be committed
+	 * @return a Flux completing when the transaction terminates successfully and
+	 *         may emit values that constitute the result of the transaction
+	 */
+	@Override
+	public <V> Flux<V> performTransactionWhen(Function<Session, Publisher<V>> txAsyncFunction) {
+		var transaction = circuitBreaker.protect(Flux.usingWhen(
+						Mono.fromCallable(this::newSession).doOnNext(Session::beginTransaction).doOnNext(__ -> markWrite()),
+						txAsyncFunction,
+						this::commitAndClose,
+						this::rollbackAndClose,
+						this::rollbackAndClose)
+				.subscribeOn(databaseScheduler), HibernateDatabase::isDatabaseFailure);
+		return Flux.defer(() -> {
+			var event = new DatabaseOperationEvent();
+			if (!event.isEnabled()) {
+				return transaction;
+			}
+			event.begin();
+			return transaction
+					.doOnComplete(() -> event.complete(null, "async_transaction", -1, BotEvent.outcome(null)))
+					.doOnError(e -> event.complete(null, "async_transaction", -1, BotEvent.outcome(e)))
+					.doOnCancel(() -> event.complete(null, "async_transaction", -1, "CANCELLED"));
+		});
+	}
+
+	/**
+	 * {@inheritDoc} The operations of the transaction run on the same Hibernate
+	 * session, so they must not run concurrently.
+	 */
+	@Override
+	public boolean supportsSessions() {
+		return true;
+	}
+
+	@Override
+	public <V> Flux<V> inTransaction(Function<DatabaseTransaction, Publisher<V>> txFunction) {
+		Objects.requireNonNull(txFunction);
+		return performTransactionWhen(session -> txFunction.apply(new SessionTransaction(session)));
+	}
+
+	/**
+	 * Gives access to the connection provider used by Hibernate, unwrapped as the
+	 * given type. It can for example be used to get the underlying
+	 * {@code HikariDataSource} in order to monitor the connection pool.
+	 * 
+	 * @param          <T> the expected type
+	 * @param type     the class of the expected type
+	 * @return the unwrapped connection provider, or empty if the database isn't
+	 *         configured or if the provider can't be unwrapped as the given type
+	 */
+	@Override
+	public <T> Optional<T> unwrapConnectionProvider(Class<T> type) {
+		Objects.requireNonNull(type);
+		var sessionFactory = this.sessionFactory;
+		if (sessionFactory == null || sessionFactory.isClosed()) {
+			return Optional.empty();
+		}
+		var provider = sessionFactory.getSessionFactoryOptions()
+				.getServiceRegistry()
+				.getService(ConnectionProvider.class);
+		if (provider == null || !provider.isUnwrappableAs(type)) {
+			return Optional.empty();
+		}
+		return Optional.of(provider.unwrap(type));
+	}
+
+	/**
+	 * Gets the circuit breaker protecting this database, in order to monitor its
+	 * state.
+	 * 
+	 * @return the circuit breaker
+	 */
+	@Override
+	public DatabaseCircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Gets the statistics of the regions of the second-level cache and of the
+	 * query cache.
+	 * 
+	 * @return the statistics by region name, empty if the database isn't
+	 *         configured or if the caches aren't provided by
+	 *         {@link CaffeineRegionFactory}
+	 */
+	@Override
+	public Map<String, CacheRegionStats> getCacheRegionStats() {
+		var sessionFactory = this.sessionFactory;
+		if (sessionFactory == null || sessionFactory.isClosed()) {
+			return Map.of();
+		}
+		var regionFactory = sessionFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+		if (!(regionFactory instanceof CaffeineRegionFactory)) {
+			return Map.of();
+		}
+		return ((CaffeineRegionFactory) regionFactory).getRegionStats();
+	}
+
+	/**
+	 * Adds Hibernate properties that take precedence over the
+	 * hibernate.properties file when {@link #configure()} is called.
+	 * 
+	 * @param overrides the Hibernate properties to override
+	 */
+	public void addPropertyOverrides(Properties overrides) {
+		propertyOverrides.putAll(Objects.requireNonNull(overrides));
+	}
+	
+	@Override
+	public void addAllMappingResources(Set<String> resourceNames) {
+		this.resourceNames.addAll(Objects.requireNonNull(resourceNames));
+	}
+	
+	@Override
+	public void addAllCacheRegions(Map<String, CacheRegionSettings> cacheRegions) {
+		this.cacheRegions.putAll(Objects.requireNonNull(cacheRegions));
+	}
+	
+	private Mono<Void> commitAndClose(Session session) {
+		return Mono.<Void>fromRunnable(() -> {
+			var tx = session.getTransaction();
+			if (tx != null && tx.isActive()) {
+				try {
+					tx.commit();
+				} finally {
+					session.close();
+				}
+			}
+		}).onErrorMap(DatabaseException::new);
+	}
+	
+	private Mono<Void> rollbackAndClose(Session session) {
+		return Mono.<Void>fromRunnable(() -> {
+			var tx = session.getTransaction();
+			if (tx != null && tx.isActive()) {
+				try {
+					tx.rollback();
+				} finally {
+					session.close();
+				}
+			}
+		}).onErrorMap(DatabaseException::new);
+	}
+
+	/**
+	 * Only errors coming from the database count towards opening the circuit
+	 * breaker, not errors thrown by the code of a transaction.
+	 */
+	private static boolean isDatabaseFailure(Throwable error) {
+		return error instanceof PersistenceException || error instanceof SQLException;
+	}
+
+	private boolean isInSecondLevelCache(Class<?> entityClass, Serializable key) {
+		var sessionFactory = this.sessionFactory;
+		return sessionFactory != null && !sessionFactory.isClosed()
+				&& sessionFactory.getCache().containsEntity(entityClass, key);
+	}
+
+	private static <V> V recordOperation(Class<?> entityClass, String operation, ToIntFunction<? super V> rowCount,
+			Supplier<V> blockingCall) {
+		var event = new DatabaseOperationEvent();
+		if (!event.isEnabled()) {
+			return blockingCall.get();
+		}
+		event.begin();
+		try {
+			var result = blockingCall.get();
+			event.complete(entityClass, operation, rowCount.applyAsInt(result), BotEvent.outcome(null));
+			return result;
+		} catch (RuntimeException e) {
+			event.complete(entityClass, operation, -1, BotEvent.outcome(e));
+			throw e;
+		}
+	}
+
+	private Session newSession() {
+		if (sessionFactory == null || sessionFactory.isClosed())
+			throw new IllegalStateException("Database not configured");
+
+		return sessionFactory.openSession();
+	}
+
+	/**
+	 * Opens a read-only session, on the replica if one is configured and if it
+	 * can't return data older than what the bot has written or cached.
+	 */
+	private Session newReadSession(Class<?> entityClass, Serializable key) {
+		var replicaSessionFactory = this.replicaSessionFactory;
+		var writeTracker = this.writeTracker;
+		if (replicaSessionFactory == null || replicaSessionFactory.isClosed() || writeTracker == null
+				|| (key == null ? writeTracker.hasRecentWrite() : writeTracker.hasRecentWrite(entityClass, key))
+				|| (key != null && isInSecondLevelCache(entityClass, key))) {
+			return readOnly(newSession());
+		}
+		return readOnly(replicaSessionFactory.openSession());
+	}
+
+	private static Session readOnly(Session session) {
+		session.setDefaultReadOnly(true);
+		session.setHibernateFlushMode(FlushMode.MANUAL);
+		return session;
+	}
+
+	private void markWrite() {
+		var writeTracker = this.writeTracker;
+		if (writeTracker != null) {
+			writeTracker.markWrite();
+		}
+	}
+
+	private class SessionTransaction implements DatabaseTransaction {
+
+		private final Session session;
+
+		private SessionTransaction(Session session) {
+			this.session = session;
+		}
+
+		@Override
+		public <T, K extends Serializable> Mono<T> findByID(Class<T> entityClass, K key) {
+			Objects.requireNonNull(entityClass);
+			Objects.requireNonNull(key);
+			return Mono.fromCallable(() -> session.get(entityClass, key)).subscribeOn(databaseScheduler);
+		}
+
+		@Override
+		public <T> Flux<T> query(Class<T> entityClass, String query, Object... params) {
+			Objects.requireNonNull(entityClass);
+			Objects.requireNonNull(query);
+			Objects.requireNonNull(params);
+			return Mono.fromCallable(() -> {
+						var q = session.createQuery(query, entityClass);
+						for (int i = 0; i < params.length; i++) {
+							q.setParameter(i, params[i]);
+						}
+						return q.getResultList();
+					})
+					.subscribeOn(databaseScheduler)
+					.flatMapMany(Flux::fromIterable);
+		}
+
+		@Override
+		public Mono<Void> save(Object obj) {
+			Objects.requireNonNull(obj);
+			return Mono.<Void>fromRunnable(() -> session.saveOrUpdate(obj)).subscribeOn(databaseScheduler);
+		}
+
+		@Override
+		public Mono<Void> delete(Object obj) {
+			Objects.requireNonNull(obj);
+			return Mono.<Void>fromRunnable(() -> session.delete(obj)).subscribeOn(databaseScheduler);
+		}
+	}
+}
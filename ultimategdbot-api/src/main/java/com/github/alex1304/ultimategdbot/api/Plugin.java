@@ -6,12 +6,12 @@ import java.util.Properties;
 import java.util.Set;
 
 import com.github.alex1304.ultimategdbot.api.command.CommandProvider;
+import com.github.alex1304.ultimategdbot.api.database.CacheRegionSettings;
 import com.github.alex1304.ultimategdbot.api.database.GuildSettingsEntry;
 import com.github.alex1304.ultimategdbot.api.utils.BotUtils;
 import com.github.alex1304.ultimategdbot.api.utils.PropertyParser;
 
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 /**
  * Represents a plugin. A plugin has a name and provides a list of commands.
@@ -49,6 +49,20 @@ public interface Plugin {
 	 */
 	String getName();
 
+	/**
+	 * Gets whether this plugin uses Hibernate sessions through
+	 * {@link Database#performTransaction(java.util.function.Function)} and its
+	 * variants, or queries that only Hibernate understands. By default, plugins
+	 * are assumed to, and the bot refuses to start with a database backend that
+	 * doesn't support them. Plugins that only use the operations available with
+	 * every backend should override this to return false.
+	 * 
+	 * @return true if the plugin requires Hibernate sessions
+	 */
+	default boolean requiresDatabaseSessions() {
+		return true;
+	}
+
 	/**
 	 * Gets a set of resource names that corresponds to database mapping files.
 	 * Mapping files usually end with *.hbm.xml and should be located at the root of
@@ -58,6 +72,22 @@ public interface Plugin {
 	 */
 	Set<String> getDatabaseMappingResources();
 
+	/**
+	 * Gets the settings of the regions of the database cache used by this plugin.
+	 * An entity is stored in the second-level cache if its mapping file contains a
+	 * <code>&lt;cache&gt;</code> element and the second-level cache is enabled in
+	 * the Hibernate configuration. Its region is named after the fully qualified
+	 * name of the entity class, unless the <code>&lt;cache&gt;</code> element
+	 * gives another one. Settings given in the Hibernate configuration for the
+	 * same region take precedence. By default, this returns an empty map, so all
+	 * regions of this plugin use the default settings.
+	 * 
+	 * @return the settings by region name
+	 */
+	default Map<String, CacheRegionSettings> getDatabaseCacheRegions() {
+		return Map.of();
+	}
+
 	/**
 	 * Gets a map of configuration entries for guilds. Anything added here will be
 	 * listed when using the setup command.
@@ -79,7 +109,9 @@ public interface Plugin {
 	 * name of the plugin as returned by {@link #getName()} but all lowercase and
 	 * with spaces replaced with underscores), in the <code>gitprops/</code>
 	 * subdirectory of the resource classpath. If none is found, the returned Mono
-	 * will complete empty.
+	 * will complete empty. The returned Mono may block, so callers should use
+	 * {@link #getGitProperties(Bot)} instead, which only needs this method to be
+	 * overridden in order to load the properties from somewhere else.
 	 * 
 	 * @return a Mono emitting the git properties if found
 	 */
@@ -94,6 +126,19 @@ public interface Plugin {
 			} catch (IOException e) {
 			}
 			return props;
-		}).subscribeOn(Schedulers.elastic());
+		});
+	}
+	
+	/**
+	 * Gets the Git properties for this plugin as returned by
+	 * {@link #getGitProperties()}, loaded on the
+	 * {@link Bot#getBlockingScheduler() blocking scheduler} of the given bot so
+	 * that the calling thread is never blocked.
+	 * 
+	 * @param bot the bot using this plugin
+	 * @return a Mono emitting the git properties if found
+	 */
+	default Mono<Properties> getGitProperties(Bot bot) {
+		return getGitProperties().subscribeOn(bot.getBlockingScheduler());
 	}
 }
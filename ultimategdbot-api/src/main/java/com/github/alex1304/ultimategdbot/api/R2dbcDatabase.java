@@ -0,0 +1,382 @@
+package com.github.alex1304.ultimategdbot.api;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Environment;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.jdbc.connections.internal.UserSuppliedConnectionProviderImpl;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.alex1304.ultimategdbot.api.database.DatabaseCircuitBreaker;
+import com.github.alex1304.ultimategdbot.api.database.DatabaseTransaction;
+import com.github.alex1304.ultimategdbot.api.jfr.BotEvent;
+import com.github.alex1304.ultimategdbot.api.jfr.DatabaseOperationEvent;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcException;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Database talking to the database through a non-blocking R2DBC driver, so
+ * that in-flight operations don't hold a thread each.
+ *
+ * <p>
+ * Entities are mapped by the same Hibernate mapping files as with
+ * {@link HibernateDatabase}, but only entities whose identifier and properties
+ * are each stored in a single column are supported, and only simple queries
+ * (see {@link #query(Class, String, Object...)}). The schema is not managed,
+ * the tables must already exist. Operations taking a Hibernate session are not
+ * supported.
+ */
+public class R2dbcDatabase implements Database {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ultimategdbot.database.r2dbc");
+
+	private final ConnectionFactory connectionFactory;
+	private final DatabaseCircuitBreaker circuitBreaker;
+	private final Set<String> resourceNames = new HashSet<>();
+	private final ConcurrentHashMap<String, R2dbcQuery> queries = new ConcurrentHashMap<>();
+	private volatile Map<Class<?>, R2dbcEntityMapping> mappingsByClass = Map.of();
+	private volatile Map<String, R2dbcEntityMapping> mappingsByName = Map.of();
+
+	/**
+	 * Creates a database using connections from the given factory, without
+	 * circuit breaker.
+	 *
+	 * @param connectionFactory the R2DBC connection factory
+	 */
+	public R2dbcDatabase(ConnectionFactory connectionFactory) {
+		this(connectionFactory, DatabaseCircuitBreaker.disabled());
+	}
+
+	/**
+	 * Creates a database using connections from the given factory, and rejecting
+	 * operations while the given circuit breaker is open.
+	 *
+	 * @param connectionFactory the R2DBC connection factory
+	 * @param circuitBreaker    the circuit breaker
+	 */
+	public R2dbcDatabase(ConnectionFactory connectionFactory, DatabaseCircuitBreaker circuitBreaker) {
+		this.connectionFactory = Objects.requireNonNull(connectionFactory);
+		this.circuitBreaker = Objects.requireNonNull(circuitBreaker);
+	}
+
+	/**
+	 * Reads the mapping files to know how entities are stored. Entities that
+	 * aren't supported are logged and skipped, operations on them fail.
+	 */
+	@Override
+	public void configure() {
+		var builder = new StandardServiceRegistryBuilder()
+				// Only the mapping model is built, Hibernate must not connect to the database
+				.applySetting(AvailableSettings.CONNECTION_PROVIDER, UserSuppliedConnectionProviderImpl.class.getName())
+				.applySetting("hibernate.temp.use_jdbc_metadata_defaults", false)
+				.applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, false)
+				.applySetting(AvailableSettings.USE_QUERY_CACHE, false);
+		if (!Environment.getProperties().containsKey(AvailableSettings.DIALECT)) {
+			// The dialect doesn't affect table and column names, but Hibernate requires one
+			builder.applySetting(AvailableSettings.DIALECT, H2Dialect.class.getName());
+		}
+		var registry = builder.build();
+		try {
+			var sources = new MetadataSources(registry);
+			resourceNames.forEach(sources::addResource);
+			var byClass = new HashMap<Class<?>, R2dbcEntityMapping>();
+			var byName = new HashMap<String, R2dbcEntityMapping>();
+			for (var persistentClass : sources.buildMetadata().getEntityBindings()) {
+				try {
+					var mapping = R2dbcEntityMapping.of(persistentClass);
+					byClass.put(mapping.getEntityClass(), mapping);
+					byName.put(persistentClass.getEntityName(), mapping);
+					byName.put(mapping.getEntityClass().getSimpleName(), mapping);
+				} catch (IllegalArgumentException e) {
+					LOGGER.warn("Entity {} is not supported by the R2DBC backend: {}", persistentClass.getEntityName(),
+							e.getMessage());
+				}
+			}
+			mappingsByClass = byClass;
+			mappingsByName = byName;
+			queries.clear();
+		} finally {
+			StandardServiceRegistryBuilder.destroy(registry);
+		}
+	}
+
+	@Override
+	public void addAllMappingResources(Set<String> resourceNames) {
+		this.resourceNames.addAll(Objects.requireNonNull(resourceNames));
+	}
+
+	@Override
+	public <T, K extends Serializable> Mono<T> findByID(Class<T> entityClass, K key) {
+		Objects.requireNonNull(entityClass);
+		Objects.requireNonNull(key);
+		return execute(entityClass, "find", __ -> 1, conn -> new ConnectionTransaction(conn).findByID(entityClass, key));
+	}
+
+	@Override
+	public <T, K extends Serializable> Flux<T> findAllByIDs(Class<T> entityClass, Collection<K> keys) {
+		Objects.requireNonNull(entityClass);
+		Objects.requireNonNull(keys);
+		if (keys.isEmpty()) {
+			return Flux.empty();
+		}
+		return execute(entityClass, "find", List::size,
+						conn -> new ConnectionTransaction(conn).findAllByIDs(entityClass, keys))
+				.flatMapMany(Flux::fromIterable);
+	}
+
+	/**
+	 * {@inheritDoc} The query is translated to SQL by the bot, so it must be of
+	 * the form
+	 * <code>from Entity [alias] [where property = ?0 [and ...]] [order by property [asc|desc], ...]</code>.
+	 */
+	@Override
+	public <T> Flux<T> query(Class<T> entityClass, String query, Object... params) {
+		Objects.requireNonNull(entityClass);
+		Objects.requireNonNull(query);
+		Objects.requireNonNull(params);
+		return execute(entityClass, "query", List::size,
+						conn -> new ConnectionTransaction(conn).queryList(entityClass, query, params))
+				.flatMapMany(Flux::fromIterable);
+	}
+
+	@Override
+	public Mono<Void> save(Object obj) {
+		Objects.requireNonNull(obj);
+		return execute(obj.getClass(), "save", Integer::intValue,
+						conn -> inTransaction(conn, tx -> tx.saveAndCount(obj)))
+				.then();
+	}
+
+	@Override
+	public Mono<Void> delete(Object obj) {
+		Objects.requireNonNull(obj);
+		return execute(obj.getClass(), "delete", Integer::intValue,
+						conn -> new ConnectionTransaction(conn).deleteAndCount(obj))
+				.then();
+	}
+
+	/**
+	 * {@inheritDoc} The operations of the transaction run on the same
+	 * connection, so they must not run concurrently.
+	 */
+	@Override
+	public <V> Flux<V> inTransaction(Function<DatabaseTransaction, Publisher<V>> txFunction) {
+		Objects.requireNonNull(txFunction);
+		var transaction = circuitBreaker.protect(Flux.usingWhen(
+						Mono.from(connectionFactory.create())
+								.flatMap(conn -> Mono.from(conn.beginTransaction())
+										.onErrorResume(e -> Mono.from(conn.close()).then(Mono.error(e)))
+										.thenReturn(conn)),
+						conn -> txFunction.apply(new ConnectionTransaction(conn)),
+						conn -> commitAndClose(conn),
+						(conn, e) -> rollbackAndClose(conn),
+						conn -> rollbackAndClose(conn)), R2dbcDatabase::isDatabaseFailure);
+		return Flux.defer(() -> {
+			var event = new DatabaseOperationEvent();
+			if (!event.isEnabled()) {
+				return transaction;
+			}
+			event.begin();
+			return transaction
+					.doOnComplete(() -> event.complete(null, "async_transaction", -1, BotEvent.outcome(null)))
+					.doOnError(e -> event.complete(null, "async_transaction", -1, BotEvent.outcome(e)))
+					.doOnCancel(() -> event.complete(null, "async_transaction", -1, "CANCELLED"));
+		});
+	}
+
+	@Override
+	public DatabaseCircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Runs an operation on a connection of its own, and records it.
+	 */
+	private <V> Mono<V> execute(Class<?> entityClass, String operation, ToIntFunction<? super V> rowCount,
+			Function<Connection, Mono<V>> function) {
+		var execution = circuitBreaker.protect(Mono.usingWhen(connectionFactory.create(), function,
+						Connection::close, (conn, e) -> conn.close(), Connection::close)
+				.onErrorMap(DatabaseException::new), R2dbcDatabase::isDatabaseFailure);
+		return Mono.defer(() -> {
+			var event = new DatabaseOperationEvent();
+			if (!event.isEnabled()) {
+				return execution;
+			}
+			event.begin();
+			return execution
+					.doOnSuccess(result -> event.complete(entityClass, operation,
+							result == null ? 0 : rowCount.applyAsInt(result), BotEvent.outcome(null)))
+					.doOnError(e -> event.complete(entityClass, operation, -1, BotEvent.outcome(e)))
+					.doOnCancel(() -> event.complete(entityClass, operation, -1, "CANCELLED"));
+		});
+	}
+
+	private <V> Mono<V> inTransaction(Connection conn, Function<ConnectionTransaction, Mono<V>> function) {
+		return Mono.from(conn.beginTransaction())
+				.then(function.apply(new ConnectionTransaction(conn)))
+				.flatMap(result -> Mono.from(conn.commitTransaction()).thenReturn(result))
+				.onErrorResume(e -> Mono.from(conn.rollbackTransaction())
+						.onErrorResume(e0 -> {
+							e.addSuppressed(e0);
+							return Mono.empty();
+						})
+						.then(Mono.error(e)));
+	}
+
+	private static Mono<Void> commitAndClose(Connection conn) {
+		return Mono.from(conn.commitTransaction())
+				.onErrorResume(e -> Mono.from(conn.close()).then(Mono.error(e)))
+				.then(Mono.from(conn.close()))
+				.onErrorMap(DatabaseException::new);
+	}
+
+	private static Mono<Void> rollbackAndClose(Connection conn) {
+		return Mono.from(conn.rollbackTransaction())
+				.onErrorResume(e -> Mono.from(conn.close()).then(Mono.error(e)))
+				.then(Mono.from(conn.close()))
+				.onErrorMap(DatabaseException::new);
+	}
+
+	/**
+	 * Only errors coming from the database count towards opening the circuit
+	 * breaker, not errors thrown by the code of a transaction.
+	 */
+	private static boolean isDatabaseFailure(Throwable error) {
+		return error instanceof R2dbcException;
+	}
+
+	private R2dbcEntityMapping mapping(Class<?> entityClass) {
+		var mapping = mappingsByClass.get(entityClass);
+		if (mapping == null) {
+			throw new IllegalArgumentException("No R2DBC mapping for " + entityClass.getName());
+		}
+		return mapping;
+	}
+
+	private R2dbcQuery translate(String query) {
+		return queries.computeIfAbsent(query, hql -> R2dbcQuery.translate(hql, mappingsByName::get));
+	}
+
+	private static Mono<Integer> rowsUpdated(Statement statement) {
+		return Flux.from(statement.execute())
+				.flatMap(Result::getRowsUpdated)
+				.reduce(0, Integer::sum);
+	}
+
+	private class ConnectionTransaction implements DatabaseTransaction {
+
+		private final Connection conn;
+
+		private ConnectionTransaction(Connection conn) {
+			this.conn = conn;
+		}
+
+		@Override
+		public <T, K extends Serializable> Mono<T> findByID(Class<T> entityClass, K key) {
+			Objects.requireNonNull(entityClass);
+			Objects.requireNonNull(key);
+			return Mono.defer(() -> {
+				var mapping = mapping(entityClass);
+				return select(entityClass, mapping, conn.createStatement(mapping.selectById()).bind(0, key))
+						.singleOrEmpty();
+			});
+		}
+
+		private <T, K> Mono<List<T>> findAllByIDs(Class<T> entityClass, Collection<K> keys) {
+			return Mono.defer(() -> {
+				var mapping = mapping(entityClass);
+				var statement = conn.createStatement(mapping.selectByIds(keys.size()));
+				var index = 0;
+				for (var key : keys) {
+					statement.bind(index++, key);
+				}
+				return select(entityClass, mapping, statement).collectList();
+			});
+		}
+
+		@Override
+		public <T> Flux<T> query(Class<T> entityClass, String query, Object... params) {
+			Objects.requireNonNull(entityClass);
+			Objects.requireNonNull(query);
+			Objects.requireNonNull(params);
+			return queryList(entityClass, query, params).flatMapMany(Flux::fromIterable);
+		}
+
+		private <T> Mono<List<T>> queryList(Class<T> entityClass, String query, Object... params) {
+			return Mono.defer(() -> {
+				var translated = translate(query);
+				var mapping = translated.getMapping();
+				if (!entityClass.isAssignableFrom(mapping.getEntityClass())) {
+					throw new IllegalArgumentException("Query returns " + mapping.getEntityClass().getName()
+							+ ", not " + entityClass.getName() + ": " + query);
+				}
+				return select(entityClass, mapping, translated.bind(conn.createStatement(translated.getSql()), params))
+						.collectList();
+			});
+		}
+
+		@Override
+		public Mono<Void> save(Object obj) {
+			Objects.requireNonNull(obj);
+			return saveAndCount(obj).then();
+		}
+
+		private Mono<Integer> saveAndCount(Object obj) {
+			return Mono.defer(() -> {
+				var mapping = mapping(obj.getClass());
+				var id = mapping.getId(obj);
+				return Flux.from(conn.createStatement(mapping.exists()).bind(0, id).execute())
+						.flatMap(result -> result.map((row, metadata) -> true))
+						.hasElements()
+						.flatMap(exists -> {
+							if (!exists) {
+								return rowsUpdated(mapping.bindForInsert(conn.createStatement(mapping.insert()), obj));
+							}
+							if (mapping.update() == null) {
+								return Mono.just(0);
+							}
+							return rowsUpdated(mapping.bindForUpdate(conn.createStatement(mapping.update()), obj));
+						});
+			});
+		}
+
+		@Override
+		public Mono<Void> delete(Object obj) {
+			Objects.requireNonNull(obj);
+			return deleteAndCount(obj).then();
+		}
+
+		private Mono<Integer> deleteAndCount(Object obj) {
+			return Mono.defer(() -> {
+				var mapping = mapping(obj.getClass());
+				return rowsUpdated(conn.createStatement(mapping.delete()).bind(0, mapping.getId(obj)));
+			});
+		}
+
+		private <T> Flux<T> select(Class<T> entityClass, R2dbcEntityMapping mapping, Statement statement) {
+			return Flux.from(statement.execute())
+					.flatMap(result -> result.map((row, metadata) -> entityClass.cast(mapping.toEntity(row))));
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package com.github.alex1304.ultimategdbot.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.property.access.spi.Getter;
+import org.hibernate.property.access.spi.Setter;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+
+/**
+ * Maps an entity to a table for {@link R2dbcDatabase}, from the model that
+ * Hibernate builds out of the mapping file of the entity. Only entities made of
+ * an identifier and properties each stored in a single column are supported.
+ */
+final class R2dbcEntityMapping {
+
+	private final Class<?> entityClass;
+	private final MappedProperty id;
+	private final List<MappedProperty> properties;
+	private final List<MappedProperty> allProperties;
+	private final String selectAll;
+	private final String selectById;
+	private final String exists;
+	private final String insert;
+	private final String update;
+	private final String delete;
+
+	private R2dbcEntityMapping(Class<?> entityClass, String table, MappedProperty id, List<MappedProperty> properties) {
+		this.entityClass = entityClass;
+		this.id = id;
+		this.properties = properties;
+		this.allProperties = new ArrayList<>(properties.size() + 1);
+		allProperties.add(id);
+		allProperties.addAll(properties);
+		var columnList = allProperties.stream().map(p -> p.column).collect(Collectors.joining(", "));
+		this.selectAll = "select " + columnList + " from " + table;
+		this.selectById = selectAll + " where " + id.column + " = ?";
+		this.exists = "select " + id.column + " from " + table + " where " + id.column + " = ?";
+		this.insert = "insert into " + table + " (" + columnList + ") values ("
+				+ String.join(", ", Collections.nCopies(allProperties.size(), "?")) + ")";
+		this.update = properties.isEmpty() ? null : "update " + table + " set "
+				+ properties.stream().map(p -> p.column + " = ?").collect(Collectors.joining(", "))
+				+ " where " + id.column + " = ?";
+		this.delete = "delete from " + table + " where " + id.column + " = ?";
+	}
+
+	/**
+	 * Creates the mapping of the given entity.
+	 *
+	 * @param persistentClass the Hibernate model of the entity
+	 * @return the mapping
+	 * @throws IllegalArgumentException if the entity has a property that isn't a
+	 *                                  single column
+	 */
+	static R2dbcEntityMapping of(PersistentClass persistentClass) {
+		var entityClass = persistentClass.getMappedClass();
+		var id = MappedProperty.of(entityClass, persistentClass.getIdentifierProperty());
+		var properties = new ArrayList<MappedProperty>();
+		for (var it = persistentClass.getPropertyIterator(); it.hasNext();) {
+			properties.add(MappedProperty.of(entityClass, (Property) it.next()));
+		}
+		return new R2dbcEntityMapping(entityClass, persistentClass.getTable().getQuotedName(), id, properties);
+	}
+
+	Class<?> getEntityClass() {
+		return entityClass;
+	}
+
+	/**
+	 * Gets the column of the given property.
+	 *
+	 * @param propertyName the name of the property, which may be the identifier
+	 * @return the column, or null if the entity has no such property
+	 */
+	String getColumn(String propertyName) {
+		for (var p : allProperties) {
+			if (p.name.equals(propertyName)) {
+				return p.column;
+			}
+		}
+		return null;
+	}
+
+	String selectAll() {
+		return selectAll;
+	}
+
+	String selectById() {
+		return selectById;
+	}
+
+	String selectByIds(int count) {
+		return selectAll + " where " + id.column + " in (" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+	}
+
+	String exists() {
+		return exists;
+	}
+
+	String insert() {
+		return insert;
+	}
+
+	/**
+	 * Gets the update statement of the entity.
+	 *
+	 * @return the statement, or null if the entity has nothing but its identifier
+	 */
+	String update() {
+		return update;
+	}
+
+	String delete() {
+		return delete;
+	}
+
+	Object getId(Object entity) {
+		return id.getter.get(entity);
+	}
+
+	/**
+	 * Binds the values of the entity in the order of {@link #insert()}.
+	 */
+	Statement bindForInsert(Statement statement, Object entity) {
+		var index = 0;
+		for (var p : allProperties) {
+			bind(statement, index++, p.getter.get(entity), p.type);
+		}
+		return statement;
+	}
+
+	/**
+	 * Binds the values of the entity in the order of {@link #update()}.
+	 */
+	Statement bindForUpdate(Statement statement, Object entity) {
+		var index = 0;
+		for (var p : properties) {
+			bind(statement, index++, p.getter.get(entity), p.type);
+		}
+		return bind(statement, index, id.getter.get(entity), id.type);
+	}
+
+	/**
+	 * Creates an entity from a row selected by one of the select statements.
+	 */
+	Object toEntity(Row row) {
+		try {
+			var entity = entityClass.getDeclaredConstructor().newInstance();
+			var index = 0;
+			for (var p : allProperties) {
+				var value = row.get(index++, p.type);
+				// Leaves primitive fields to their default value rather than failing to unbox null
+				if (value != null || !p.primitive) {
+					p.setter.set(entity, value, null);
+				}
+			}
+			return entity;
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Unable to instantiate " + entityClass.getName(), e);
+		}
+	}
+
+	static Statement bind(Statement statement, int index, Object value, Class<?> type) {
+		return value == null ? statement.bindNull(index, type) : statement.bind(index, value);
+	}
+
+	private static class MappedProperty {
+
+		private final String name;
+		private final String column;
+		private final Class<?> type;
+		private final boolean primitive;
+		private final Getter getter;
+		private final Setter setter;
+
+		private MappedProperty(String name, String column, Class<?> type, boolean primitive, Getter getter,
+				Setter setter) {
+			this.name = name;
+			this.column = column;
+			this.type = type;
+			this.primitive = primitive;
+			this.getter = getter;
+			this.setter = setter;
+		}
+
+		private static MappedProperty of(Class<?> entityClass, Property property) {
+			Objects.requireNonNull(property, "no identifier");
+			var type = property.getType();
+			if (property.getColumnSpan() != 1 || type.isAssociationType() || type.isComponentType()
+					|| !(property.getColumnIterator().next() instanceof Column)) {
+				throw new IllegalArgumentException("Property " + property.getName() + " of " + entityClass.getName()
+						+ " must be stored in a single column");
+			}
+			var column = (Column) property.getColumnIterator().next();
+			var getter = property.getGetter(entityClass);
+			return new MappedProperty(property.getName(), column.getQuotedName(), type.getReturnedClass(),
+					getter.getReturnType().isPrimitive(), getter, property.getSetter(entityClass));
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.github.alex1304.ultimategdbot.api;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import io.r2dbc.spi.Statement;
+
+/**
+ * A HQL query translated to SQL for {@link R2dbcDatabase}. Only queries of the
+ * form
+ * <code>from Entity [alias] [where property = ?0 [and ...]] [order by property [asc|desc], ...]</code>
+ * are supported.
+ */
+final class R2dbcQuery {
+
+	private static final Pattern QUERY = Pattern.compile("\\s*from\\s+([\\w.$]+)(?:\\s+(?:as\\s+)?(?!where\\b|order\\b)(\\w+))?"
+			+ "(?:\\s+where\\s+(.+?))?(?:\\s+order\\s+by\\s+(.+?))?\\s*", Pattern.CASE_INSENSITIVE);
+	private static final Pattern AND = Pattern.compile("\\s+and\\s+", Pattern.CASE_INSENSITIVE);
+	private static final Pattern CONDITION = Pattern.compile("\\s*(?:\\w+\\.)?(\\w+)\\s*=\\s*\\?(\\d+)\\s*");
+	private static final Pattern ORDER = Pattern.compile("\\s*(?:\\w+\\.)?(\\w+)(?:\\s+(asc|desc))?\\s*",
+			Pattern.CASE_INSENSITIVE);
+
+	private final R2dbcEntityMapping mapping;
+	private final String sql;
+	private final int[] paramIndexes;
+
+	private R2dbcQuery(R2dbcEntityMapping mapping, String sql, int[] paramIndexes) {
+		this.mapping = mapping;
+		this.sql = sql;
+		this.paramIndexes = paramIndexes;
+	}
+
+	/**
+	 * Translates the given HQL query.
+	 *
+	 * @param hql              the query
+	 * @param mappingsByEntity gives the mapping of an entity from its name as
+	 *                         written in the query, or null if unknown
+	 * @return the translated query
+	 * @throws UnsupportedOperationException if the query isn't of a supported
+	 *                                       form
+	 * @throws IllegalArgumentException      if the query refers to an unknown
+	 *                                       entity or property
+	 */
+	static R2dbcQuery translate(String hql, Function<String, R2dbcEntityMapping> mappingsByEntity) {
+		var matcher = QUERY.matcher(hql);
+		if (!matcher.matches()) {
+			throw new UnsupportedOperationException("Unsupported query: " + hql);
+		}
+		var mapping = mappingsByEntity.apply(matcher.group(1));
+		if (mapping == null) {
+			throw new IllegalArgumentException("Unknown entity " + matcher.group(1) + " in query: " + hql);
+		}
+		var sql = new StringBuilder(mapping.selectAll());
+		var paramIndexes = new ArrayList<Integer>();
+		if (matcher.group(3) != null) {
+			var conditions = new ArrayList<String>();
+			for (var condition : AND.split(matcher.group(3))) {
+				var conditionMatcher = CONDITION.matcher(condition);
+				if (!conditionMatcher.matches()) {
+					throw new UnsupportedOperationException("Unsupported condition '" + condition + "' in query: " + hql);
+				}
+				conditions.add(column(mapping, conditionMatcher.group(1), hql) + " = ?");
+				paramIndexes.add(Integer.parseInt(conditionMatcher.group(2)));
+			}
+			sql.append(" where ").append(String.join(" and ", conditions));
+		}
+		if (matcher.group(4) != null) {
+			var orders = new ArrayList<String>();
+			for (var order : matcher.group(4).split(",")) {
+				var orderMatcher = ORDER.matcher(order);
+				if (!orderMatcher.matches()) {
+					throw new UnsupportedOperationException("Unsupported ordering '" + order + "' in query: " + hql);
+				}
+				var direction = orderMatcher.group(2) == null ? "" : " " + orderMatcher.group(2).toLowerCase(Locale.ROOT);
+				orders.add(column(mapping, orderMatcher.group(1), hql) + direction);
+			}
+			sql.append(" order by ").append(String.join(", ", orders));
+		}
+		return new R2dbcQuery(mapping, sql.toString(), paramIndexes.stream().mapToInt(Integer::intValue).toArray());
+	}
+
+	R2dbcEntityMapping getMapping() {
+		return mapping;
+	}
+
+	String getSql() {
+		return sql;
+	}
+
+	/**
+	 * Binds the params of the query to the statement created from
+	 * {@link #getSql()}.
+	 *
+	 * @param statement the statement
+	 * @param params    the params, indexed as in the HQL query
+	 * @return the statement
+	 */
+	Statement bind(Statement statement, Object[] params) {
+		for (var i = 0; i < paramIndexes.length; i++) {
+			var paramIndex = paramIndexes[i];
+			if (paramIndex >= params.length) {
+				throw new IllegalArgumentException("Missing value for param ?" + paramIndex);
+			}
+			var value = params[paramIndex];
+			R2dbcEntityMapping.bind(statement, i, value, value == null ? Object.class : value.getClass());
+		}
+		return statement;
+	}
+
+	private static String column(R2dbcEntityMapping mapping, String property, String hql) {
+		var column = mapping.getColumn(property);
+		if (column == null) {
+			throw new IllegalArgumentException("Unknown property " + property + " of "
+					+ mapping.getEntityClass().getSimpleName() + " in query: " + hql);
+		}
+		return column;
+	}
+}
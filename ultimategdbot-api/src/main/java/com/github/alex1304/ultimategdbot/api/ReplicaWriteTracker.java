@@ -0,0 +1,102 @@
+package com.github.alex1304.ultimategdbot.api;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import com.github.alex1304.ultimategdbot.api.database.GuildSettings;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Remembers the entities recently written to the primary database, so that
+ * reads that could observe them are not routed to a replica that may lag
+ * behind. Guild settings are tracked by guild, so a write to any settings
+ * entity of a guild keeps all settings reads of this guild on the primary.
+ * Other entities are tracked by class and ID.
+ */
+class ReplicaWriteTracker {
+
+	private final long windowNanos;
+	private final Cache<String, Boolean> recentWrites;
+	private volatile long lastWrite;
+
+	ReplicaWriteTracker(Duration window) {
+		this.windowNanos = window.toNanos();
+		this.recentWrites = Caffeine.newBuilder().expireAfterWrite(window).build();
+		this.lastWrite = System.nanoTime() - windowNanos;
+	}
+
+	/**
+	 * Records a write that can't be attributed to any entity, such as a
+	 * transaction run by a plugin.
+	 */
+	void markWrite() {
+		lastWrite = System.nanoTime();
+	}
+
+	void markWrite(Object entity, Serializable id) {
+		markWrite();
+		if (windowNanos == 0) {
+			return;
+		}
+		if (entity instanceof GuildSettings) {
+			recentWrites.put(guildKey(((GuildSettings) entity).getGuildId()), true);
+		} else if (id != null) {
+			recentWrites.put(entityKey(entity.getClass(), id), true);
+		}
+	}
+
+	/**
+	 * Whether any write happened during the window. This is what queries rely on,
+	 * as their results can't be tied to a guild or an entity.
+	 */
+	boolean hasRecentWrite() {
+		return System.nanoTime() - lastWrite < windowNanos;
+	}
+
+	boolean hasRecentWrite(Class<?> entityClass, Object id) {
+		var key = GuildSettings.class.isAssignableFrom(entityClass) ? guildKey(id) : entityKey(entityClass, id);
+		return recentWrites.getIfPresent(key) != null;
+	}
+
+	/**
+	 * Creates an interceptor to install on the primary session factory, which
+	 * records every entity that is inserted, updated or deleted.
+	 */
+	EmptyInterceptor newInterceptor() {
+		return new EmptyInterceptor() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames,
+					Type[] types) {
+				markWrite(entity, id);
+				return false;
+			}
+
+			@Override
+			public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState,
+					Object[] previousState, String[] propertyNames, Type[] types) {
+				markWrite(entity, id);
+				return false;
+			}
+
+			@Override
+			public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames,
+					Type[] types) {
+				markWrite(entity, id);
+			}
+		};
+	}
+
+	private static String guildKey(Object guildId) {
+		return "guild:" + guildId;
+	}
+
+	private static String entityKey(Class<?> entityClass, Object id) {
+		return entityClass.getName() + "#" + id;
+	}
+}
@@ -1,7 +1,9 @@
 package com.github.alex1304.ultimategdbot.api.command;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
@@ -21,7 +23,11 @@ import reactor.core.publisher.Mono;
 public class CommandErrorHandler {
 	private static final Logger LOGGER = LoggerFactory.getLogger(CommandErrorHandler.class);
 	
+	private static final int NO_HANDLER = -1;
+	
 	private final Map<Class<? extends Throwable>, BiFunction<Throwable, Context, Mono<Void>>> handlers = new LinkedHashMap<>();
+	// Snapshot of the handlers in resolution order, rebuilt when a handler is added
+	private volatile HandlerTable table = new HandlerTable(Map.of());
 	
 	public CommandErrorHandler() {
 		initDefaultHandlers();
@@ -35,22 +41,24 @@ public class CommandErrorHandler {
 	 * @param handleAction the action to execute according to the error instance and the context
 	 */
 	@SuppressWarnings("unchecked")
-	public <T extends Throwable> void addHandler(Class<T> errorClass, BiFunction<T, Context, Mono<Void>> handleAction) {
+	public synchronized <T extends Throwable> void addHandler(Class<T> errorClass, BiFunction<T, Context, Mono<Void>> handleAction) {
 		handlers.put(errorClass, (error, ctx) -> handleAction.apply((T) error, ctx));
+		table = new HandlerTable(handlers);
 	}
 	
 	/**
 	 * Applies the handler on the resulting Mono of {@link Command#run(Context)}.
+	 * Handlers are tried in the order they were added, the first one that
+	 * accepts the error handles it. If that handler fails in turn, its error is
+	 * given to the handlers that were added after it.
 	 * 
 	 * @param commandMono the Mono returned by {@link Command#run(Context)}
 	 * @param ctx the context in which the command was used
 	 * @return a new Mono&lt;Void&gt; identical to the given commandMono but with the error handlers applied.
 	 */
 	public Mono<Void> apply(Mono<Void> commandMono, Context ctx) {
-		for (var handler : handlers.entrySet()) {
-			commandMono = commandMono.onErrorResume(handler.getKey(), e -> handler.getValue().apply(e, ctx));
-		}
-		return commandMono;
+		var table = this.table;
+		return commandMono.onErrorResume(e -> table.handle(e, ctx, 0));
 	}
 	
 	private void initDefaultHandlers() {
@@ -79,8 +87,40 @@ public class CommandErrorHandler {
 	}
 	
 	@Override
-	public String toString() {
+	public synchronized String toString() {
 		return "CommandErrorHandler{handledErrors=[" + handlers.keySet().stream()
 				.map(Class::getName).collect(Collectors.joining(", ")) + "]}";
 	}
+	
+	private static class HandlerTable {
+		private final Class<?>[] errorClasses;
+		private final List<BiFunction<Throwable, Context, Mono<Void>>> actions;
+		// Index of the first handler accepting each concrete error class
+		private final ConcurrentHashMap<Class<?>, Integer> firstHandlerIndex = new ConcurrentHashMap<>();
+		
+		private HandlerTable(Map<Class<? extends Throwable>, BiFunction<Throwable, Context, Mono<Void>>> handlers) {
+			this.errorClasses = handlers.keySet().toArray(new Class<?>[0]);
+			this.actions = List.copyOf(handlers.values());
+		}
+		
+		private Mono<Void> handle(Throwable error, Context ctx, int fromIndex) {
+			var index = fromIndex == 0
+					? firstHandlerIndex.computeIfAbsent(error.getClass(), errorClass -> findHandler(errorClass, 0))
+					: findHandler(error.getClass(), fromIndex);
+			if (index == NO_HANDLER) {
+				return Mono.error(error);
+			}
+			return Mono.defer(() -> actions.get(index).apply(error, ctx))
+					.onErrorResume(handlerError -> handle(handlerError, ctx, index + 1));
+		}
+		
+		private int findHandler(Class<?> errorClass, int fromIndex) {
+			for (var i = fromIndex; i < errorClasses.length; i++) {
+				if (errorClasses[i].isAssignableFrom(errorClass)) {
+					return i;
+				}
+			}
+			return NO_HANDLER;
+		}
+	}
 }
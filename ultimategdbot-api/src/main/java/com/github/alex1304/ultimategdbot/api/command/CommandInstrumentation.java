@@ -0,0 +1,124 @@
+package com.github.alex1304.ultimategdbot.api.command;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Records how long each stage of command execution takes, in HDR histograms
+ * kept per command alias. Values are recorded in microseconds. Aliases are
+ * case-insensitive, like the command lookup, so that the way a user types an
+ * alias doesn't create a new set of histograms.
+ */
+public class CommandInstrumentation {
+
+	private static final int SIGNIFICANT_DIGITS = 2;
+
+	private final ConcurrentHashMap<String, Histogram[]> histograms = new ConcurrentHashMap<>();
+
+	/**
+	 * Records the duration of a stage for the given alias.
+	 *
+	 * @param alias    the alias used to invoke the command
+	 * @param stage    the stage to record
+	 * @param duration the duration of the stage
+	 * @param unit     the unit of the duration
+	 */
+	public void record(String alias, CommandStage stage, long duration, TimeUnit unit) {
+		var micros = unit.toMicros(duration);
+		histogramsFor(alias)[stage.ordinal()].recordValue(micros < 0 ? 0 : micros);
+	}
+
+	/**
+	 * Wraps the given Mono so that the time between its subscription and its
+	 * termination is recorded for the given stage and alias.
+	 *
+	 * @param <T>   the type of value emitted by the Mono
+	 * @param alias the alias used to invoke the command
+	 * @param stage the stage to record
+	 * @param mono  the Mono to time
+	 * @return the timed Mono
+	 */
+	public <T> Mono<T> time(String alias, CommandStage stage, Mono<T> mono) {
+		Objects.requireNonNull(alias);
+		Objects.requireNonNull(stage);
+		Objects.requireNonNull(mono);
+		return Mono.defer(() -> {
+			var start = System.nanoTime();
+			return mono.doFinally(signal -> record(alias, stage, System.nanoTime() - start, TimeUnit.NANOSECONDS));
+		});
+	}
+
+	/**
+	 * Gets the aliases for which at least one stage was recorded.
+	 *
+	 * @return a Set of aliases
+	 */
+	public Set<String> getRecordedAliases() {
+		return Set.copyOf(histograms.keySet());
+	}
+
+	/**
+	 * Gets a copy of the histogram of a stage for the given alias.
+	 *
+	 * @param alias the alias used to invoke the command
+	 * @param stage the stage
+	 * @return the histogram, or empty if nothing was recorded for this alias
+	 */
+	public Optional<Histogram> getHistogram(String alias, CommandStage stage) {
+		return Optional.ofNullable(histograms.get(canonical(alias))).map(array -> array[stage.ordinal()].copy());
+	}
+
+	/**
+	 * Gets a copy of the histograms of all stages for the given alias.
+	 *
+	 * @param alias the alias used to invoke the command
+	 * @return a Map of histograms by stage, empty if nothing was recorded for this
+	 *         alias
+	 */
+	public Map<CommandStage, Histogram> getHistograms(String alias) {
+		var result = new EnumMap<CommandStage, Histogram>(CommandStage.class);
+		var array = histograms.get(canonical(alias));
+		if (array != null) {
+			for (var stage : CommandStage.values()) {
+				result.put(stage, array[stage.ordinal()].copy());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Clears all recorded values.
+	 */
+	public void reset() {
+		histograms.clear();
+	}
+
+	private Histogram[] histogramsFor(String alias) {
+		var key = canonical(alias);
+		var array = histograms.get(key);
+		if (array != null) {
+			return array;
+		}
+		return histograms.computeIfAbsent(key, k -> {
+			var newArray = new Histogram[CommandStage.values().length];
+			for (var i = 0; i < newArray.length; i++) {
+				newArray[i] = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+			}
+			return newArray;
+		});
+	}
+
+	private static String canonical(String alias) {
+		return alias.toLowerCase();
+	}
+}
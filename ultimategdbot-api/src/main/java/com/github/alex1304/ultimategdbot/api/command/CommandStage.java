@@ -0,0 +1,41 @@
+package com.github.alex1304.ultimategdbot.api.command;
+
+/**
+ * The stages that a command goes through between the reception of the message
+ * and the end of its execution, as recorded by {@link CommandInstrumentation}.
+ */
+public enum CommandStage {
+	/**
+	 * Finding the prefix configured for the guild, which may involve a database
+	 * lookup if it isn't cached yet.
+	 */
+	PREFIX_RESOLUTION,
+	/**
+	 * Finding the command matching the message among all command providers and
+	 * building its context.
+	 */
+	DISPATCH,
+	/**
+	 * Checking that the command can be used in the channel it was sent in.
+	 */
+	SCOPE_CHECK,
+	/**
+	 * Checking that the user has the permission level required by the command.
+	 */
+	PERMISSION_CHECK,
+	/**
+	 * Converting the arguments of an annotated command into the types expected by
+	 * its action method. This stage happens during {@link #ACTION}.
+	 */
+	PARAM_CONVERSION,
+	/**
+	 * Running the command itself, from the call to {@link Command#run(Context)}
+	 * until the returned Mono terminates.
+	 */
+	ACTION,
+	/**
+	 * Sending a reply via {@link Context#reply}. This stage happens during
+	 * {@link #ACTION}, possibly several times per command.
+	 */
+	REPLY;
+}
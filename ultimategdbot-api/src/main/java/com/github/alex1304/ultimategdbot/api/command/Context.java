@@ -1,12 +1,18 @@
 package com.github.alex1304.ultimategdbot.api.command;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import com.github.alex1304.ultimategdbot.api.Bot;
 
 import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.object.entity.Guild;
+import discord4j.core.object.entity.Member;
 import discord4j.core.object.entity.Message;
 import discord4j.core.object.entity.MessageChannel;
 import discord4j.core.object.entity.User;
@@ -14,6 +20,12 @@ import discord4j.core.spec.MessageCreateSpec;
 import discord4j.rest.http.client.ClientException;
 import reactor.core.publisher.Mono;
 
+/**
+ * The context of a command invocation. Discord entities related to the
+ * invocation are resolved at most once and shared through the context: the
+ * channel is resolved before the context is created, and the guild as well as
+ * the permission levels of the author are resolved on first use.
+ */
 public class Context {
 	
 	private final Command command;
@@ -24,6 +36,8 @@ public class Context {
 	private final FlagSet flags;
 	private final User author;
 	private final MessageChannel channel;
+	private final Mono<Guild> guild;
+	private final Map<PermissionLevel, Mono<Boolean>> grantedPermissions = new EnumMap<>(PermissionLevel.class);
 
 	public Context(Command command, MessageCreateEvent event, List<String> args, FlagSet flags, Bot bot, String prefixUsed, MessageChannel channel) {
 		this.command = Objects.requireNonNull(command);
@@ -34,6 +48,7 @@ public class Context {
 		this.flags = Objects.requireNonNull(flags);
 		this.author = event.getMessage().getAuthor().orElseThrow();
 		this.channel = Objects.requireNonNull(channel);
+		this.guild = event.getGuild().cache();
 	}
 	
 	/**
@@ -94,8 +109,7 @@ public class Context {
 	 * @return a Mono emitting the message sent
 	 */
 	public Mono<Message> reply(Consumer<? super MessageCreateSpec> spec) {
-		return event.getMessage().getChannel()
-				.flatMap(c -> c.createMessage(spec))
+		return bot.getCommandInstrumentation().time(args.get(0), CommandStage.REPLY, channel.createMessage(spec)
 				.onErrorResume(ClientException.class, e -> {
 					var author = event.getMessage().getAuthor();
 					if (e.getStatus().code() != 403 || author.isEmpty()) {
@@ -108,7 +122,7 @@ public class Context {
 									+ e.getErrorResponse() + "`"))
 							.onErrorResume(__ -> Mono.empty())
 							.then(Mono.empty());
-				});
+				}));
 	}
 
 	/**
@@ -142,6 +156,37 @@ public class Context {
 	public MessageChannel getChannel() {
 		return channel;
 	}
+	
+	/**
+	 * Gets the guild where the command was sent. The guild is fetched on first
+	 * subscription, and the result is reused by subsequent ones.
+	 * 
+	 * @return a Mono emitting the guild, or completing empty if the command was
+	 *         sent in DMs
+	 */
+	public Mono<Guild> getGuild() {
+		return guild;
+	}
+	
+	/**
+	 * Gets the author of the message that created this context as a guild member.
+	 * The member is carried by the event, so it doesn't need to be fetched.
+	 * 
+	 * @return the member, or an empty Optional if the command was sent in DMs
+	 */
+	public Optional<Member> getMember() {
+		return event.getMember();
+	}
+	
+	/**
+	 * Resolves whether the author is granted the given permission level, or
+	 * reuses the result if it was already resolved in this context.
+	 */
+	Mono<Boolean> isGranted(PermissionLevel level, Function<Context, Mono<Boolean>> resolver) {
+		synchronized (grantedPermissions) {
+			return grantedPermissions.computeIfAbsent(level, __ -> resolver.apply(this).cache());
+		}
+	}
 
 	@Override
 	public String toString() {
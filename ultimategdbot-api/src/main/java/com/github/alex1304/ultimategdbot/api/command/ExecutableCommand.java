@@ -2,6 +2,12 @@ package com.github.alex1304.ultimategdbot.api.command;
 
 import java.util.Objects;
 
+import com.github.alex1304.ultimategdbot.api.ExecutionMode;
+import com.github.alex1304.ultimategdbot.api.jfr.BotEvent;
+import com.github.alex1304.ultimategdbot.api.jfr.CommandExecutionEvent;
+
+import discord4j.core.object.util.Snowflake;
+
 import reactor.core.publisher.Mono;
 
 /**
@@ -25,18 +31,45 @@ public class ExecutableCommand {
 	 * error handler. Scope and permission checks are performed here. If the command
 	 * is not in scope, the execution completes immediately without any side effect.
 	 * If the user is not granted the permission to use the command, the command
-	 * will fail with a {@link PermissionDeniedException}.
+	 * will fail with a {@link PermissionDeniedException}. In the
+	 * {@link ExecutionMode#VIRTUAL_THREADS virtual threads} execution mode, the
+	 * command action is run on the blocking scheduler of the bot. A
+	 * {@link CommandExecutionEvent} is emitted if the flight recorder is recording
+	 * it.
 	 * 
 	 * @return a Mono completing when the command execution is complete. Errors
 	 *         caused by a failed permission check or an abnormal termination of the
 	 *         command will be forwarded through this Mono.
 	 */
 	public Mono<Void> execute() {
-		var commandMono = context.getEvent().getMessage().getChannel()
-				.filter(command.getScope()::isInScope)
-				.flatMap(c -> command.getPermissionLevel().checkGranted(context)
-						.then(command.run(context)));
-		return errorHandler.apply(commandMono, context);
+		var bot = context.getBot();
+		var action = Mono.defer(() -> command.run(context));
+		var scheduledAction = bot.getExecutionMode() == ExecutionMode.VIRTUAL_THREADS
+				? action.subscribeOn(bot.getBlockingScheduler())
+				: action;
+		var instrumentation = bot.getCommandInstrumentation();
+		var alias = context.getArgs().get(0);
+		var commandMono = instrumentation.time(alias, CommandStage.SCOPE_CHECK, Mono.just(context.getChannel())
+						.filter(command.getScope()::isInScope))
+				.flatMap(c -> instrumentation.time(alias, CommandStage.PERMISSION_CHECK, command.getPermissionLevel().checkGranted(context))
+						.then(instrumentation.time(alias, CommandStage.ACTION, scheduledAction)));
+		return errorHandler.apply(recordEvent(alias, commandMono), context);
+	}
+	
+	private Mono<Void> recordEvent(String alias, Mono<Void> commandMono) {
+		return Mono.defer(() -> {
+			var event = new CommandExecutionEvent();
+			if (!event.isEnabled()) {
+				return commandMono;
+			}
+			var guildId = context.getEvent().getGuildId().map(Snowflake::asLong).orElse(0L);
+			var channelId = context.getEvent().getMessage().getChannelId().asLong();
+			event.begin();
+			return commandMono
+					.doOnSuccess(__ -> event.complete(alias, guildId, channelId, BotEvent.outcome(null)))
+					.doOnError(e -> event.complete(alias, guildId, channelId, BotEvent.outcome(e)))
+					.doOnCancel(() -> event.complete(alias, guildId, channelId, "CANCELLED"));
+		});
 	}
 	
 	/**
@@ -18,19 +18,19 @@ public enum PermissionLevel {
 	
 	BOT_OWNER(ctx -> ctx.getBot().getApplicationInfo()
 			.flatMap(ApplicationInfo::getOwner)
-			.map(ctx.getEvent().getMessage().getAuthor().get()::equals)
+			.map(ctx.getAuthor()::equals)
 			.defaultIfEmpty(false).onErrorReturn(false)),
 	
 	BOT_ADMIN(ctx -> BOT_OWNER.isGranted(ctx)
 			.flatMap(isGranted -> isGranted ? Mono.just(true) : ctx.getBot().getDatabase()
-					.findByID(BotAdmins.class, ctx.getEvent().getMessage().getAuthor().get().getId().asLong())
+					.findByIDReadOnly(BotAdmins.class, ctx.getAuthor().getId().asLong())
 					.hasElement()
 					.onErrorReturn(false))),
 	
 	SERVER_ADMIN(ctx -> BOT_ADMIN.isGranted(ctx)
-			.flatMap(isGranted -> isGranted ? Mono.just(true) : ctx.getEvent().getMessage().getChannel()
+			.flatMap(isGranted -> isGranted ? Mono.just(true) : Mono.just(ctx.getChannel())
 					.ofType(GuildChannel.class)
-					.flatMap(c -> c.getEffectivePermissions(ctx.getEvent().getMessage().getAuthor().get().getId())
+					.flatMap(c -> c.getEffectivePermissions(ctx.getAuthor().getId())
 					.map(ps -> ps.contains(Permission.ADMINISTRATOR)))
 					.defaultIfEmpty(false).onErrorReturn(false))),
 	
@@ -38,10 +38,10 @@ public enum PermissionLevel {
 			.flatMap(isGranted -> isGranted ? Mono.just(true) : ctx.getEvent().getGuildId().isEmpty()
 					? Mono.just(false)
 					: ctx.getBot().getDatabase()
-							.findByID(NativeGuildSettings.class, ctx.getEvent().getGuildId().get().asLong())
+							.findByIDReadOnly(NativeGuildSettings.class, ctx.getEvent().getGuildId().get().asLong())
 							.map(NativeGuildSettings::getServerModRoleId)
 							.map(Snowflake::of)
-							.map(id -> ctx.getEvent().getMember().map(m -> m.getRoleIds().contains(id)).orElse(false))
+							.map(id -> ctx.getMember().map(m -> m.getRoleIds().contains(id)).orElse(false))
 							.defaultIfEmpty(false).onErrorReturn(false))),
 	
 	PUBLIC(ctx -> Mono.just(true));
@@ -53,13 +53,14 @@ public enum PermissionLevel {
 	}
 	
 	/**
-	 * Emits true if the permission is granted in the given context, false otherwise.
+	 * Emits true if the permission is granted in the given context, false
+	 * otherwise. The result is resolved once per context.
 	 * 
 	 * @param ctx the context
 	 * @return a Mono emitting a boolean value
 	 */
 	public Mono<Boolean> isGranted(Context ctx) {
-		return isGranted.apply(ctx);
+		return ctx.isGranted(this, isGranted);
 	}
 	
 	/**
@@ -70,7 +71,7 @@ public enum PermissionLevel {
 	 * @return a Mono completing empty or with an error if not granted
 	 */
 	public Mono<Void> checkGranted(Context ctx) {
-		return isGranted.apply(ctx)
+		return isGranted(ctx)
 				.filter(isGranted -> isGranted)
 				.switchIfEmpty(Mono.error(new PermissionDeniedException()))
 				.then();
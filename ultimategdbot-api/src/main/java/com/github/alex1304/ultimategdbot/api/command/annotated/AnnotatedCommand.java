@@ -22,6 +22,7 @@ import com.github.alex1304.ultimategdbot.api.command.Command;
 import com.github.alex1304.ultimategdbot.api.command.CommandDocumentation;
 import com.github.alex1304.ultimategdbot.api.command.CommandDocumentationEntry;
 import com.github.alex1304.ultimategdbot.api.command.CommandFailedException;
+import com.github.alex1304.ultimategdbot.api.command.CommandStage;
 import com.github.alex1304.ultimategdbot.api.command.Context;
 import com.github.alex1304.ultimategdbot.api.command.FlagInformation;
 import com.github.alex1304.ultimategdbot.api.command.PermissionLevel;
@@ -133,7 +134,7 @@ public class AnnotatedCommand implements Command {
 								var parameters = Flux.fromArray(method.getParameters()).skip(1);
 								var argTokens = Flux.fromIterable(args.getTokens(method.getParameters().length + firstArgIndex.get() - 1))
 										.skip(firstArgIndex.get());
-								return Flux.zip(parameters, argTokens)
+								var conversion = Flux.zip(parameters, argTokens)
 										.concatMap(function((param, arg) -> provider.convert(ctx, arg, param.getType())
 												.onErrorMap(e -> new ParamConversionException(formatParamName(param.getName()), arg, e.getMessage()))))
 										.collectList()
@@ -149,7 +150,8 @@ public class AnnotatedCommand implements Command {
 												}
 												argList.add(null);
 											}
-										})
+										});
+								return ctx.getBot().getCommandInstrumentation().time(args.get(0), CommandStage.PARAM_CONVERSION, conversion)
 										.flatMap(argList -> Mono.fromCallable(() -> method.invoke(obj, argList.toArray())))
 										.onErrorMap(InvocationTargetException.class, Throwable::getCause)
 										.flatMap(mono -> (Mono<?>) mono);
@@ -0,0 +1,52 @@
+package com.github.alex1304.ultimategdbot.api.database;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Settings of a region of the database cache.
+ *
+ * @see CaffeineRegionFactory
+ */
+public final class CacheRegionSettings {
+
+	private final long maximumSize;
+	private final Duration expireAfterWrite;
+
+	/**
+	 * Creates settings for a region whose entries never expire.
+	 *
+	 * @param maximumSize the maximum number of entries of the region
+	 */
+	public CacheRegionSettings(long maximumSize) {
+		this(maximumSize, null);
+	}
+
+	/**
+	 * Creates settings for a region whose entries expire after some time.
+	 *
+	 * @param maximumSize      the maximum number of entries of the region
+	 * @param expireAfterWrite how long an entry stays in the region after being
+	 *                         stored, or null if entries never expire
+	 */
+	public CacheRegionSettings(long maximumSize, Duration expireAfterWrite) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("maximumSize < 0");
+		}
+		this.maximumSize = maximumSize;
+		this.expireAfterWrite = expireAfterWrite;
+	}
+
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	public Optional<Duration> getExpireAfterWrite() {
+		return Optional.ofNullable(expireAfterWrite);
+	}
+
+	@Override
+	public String toString() {
+		return "CacheRegionSettings{maximumSize=" + maximumSize + ", expireAfterWrite=" + expireAfterWrite + "}";
+	}
+}
@@ -0,0 +1,56 @@
+package com.github.alex1304.ultimategdbot.api.database;
+
+/**
+ * Statistics of a region of the database cache.
+ */
+public final class CacheRegionStats {
+
+	private final String regionName;
+	private final long size;
+	private final long hitCount;
+	private final long missCount;
+
+	public CacheRegionStats(String regionName, long size, long hitCount, long missCount) {
+		this.regionName = regionName;
+		this.size = size;
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+	}
+
+	public String getRegionName() {
+		return regionName;
+	}
+
+	/**
+	 * Gets the approximate number of entries currently in the region.
+	 *
+	 * @return the size
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Gets the ratio of lookups that found their entry in the region.
+	 *
+	 * @return a value between 0 and 1, or 0 if the region was never looked up
+	 */
+	public double getHitRatio() {
+		var lookups = hitCount + missCount;
+		return lookups == 0 ? 0 : hitCount / (double) lookups;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheRegionStats{regionName=" + regionName + ", size=" + size + ", hitCount=" + hitCount
+				+ ", missCount=" + missCount + "}";
+	}
+}
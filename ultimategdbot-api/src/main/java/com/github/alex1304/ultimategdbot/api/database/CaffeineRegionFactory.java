@@ -0,0 +1,156 @@
+package com.github.alex1304.ultimategdbot.api.database;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Hibernate region factory keeping the second-level cache and the query cache
+ * in local Caffeine caches. Each region can be tuned with the following
+ * Hibernate properties, where <code>&lt;region&gt;</code> is the name of the
+ * region, or <code>default</code> to apply to all regions:
+ * <ul>
+ * <li><code>hibernate.cache.caffeine.&lt;region&gt;.maximum_size</code>: the
+ * maximum number of entries of the region, 10000 by default</li>
+ * <li><code>hibernate.cache.caffeine.&lt;region&gt;.expire_after_write_seconds</code>:
+ * how long an entry stays in the region after being stored, no limit by
+ * default</li>
+ * </ul>
+ * The region of an entity is its fully qualified class name, unless the
+ * <code>&lt;cache&gt;</code> element of its mapping gives another one. The
+ * region storing update timestamps for the query cache is never bounded, as
+ * evicting timestamps would let stale query results be served.
+ */
+public class CaffeineRegionFactory extends RegionFactoryTemplate {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final String PROPERTY_PREFIX = "hibernate.cache.caffeine.";
+
+	private static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+	private final ConcurrentHashMap<String, Cache<Object, Object>> regions = new ConcurrentHashMap<>();
+	private volatile Map<?, ?> configValues = Map.of();
+
+	/**
+	 * Gets the statistics of all regions created by this factory.
+	 *
+	 * @return the statistics by region name, sorted by region name
+	 */
+	public Map<String, CacheRegionStats> getRegionStats() {
+		var result = new TreeMap<String, CacheRegionStats>();
+		regions.forEach((name, cache) -> {
+			var stats = cache.stats();
+			result.put(name, new CacheRegionStats(name, cache.estimatedSize(), stats.hitCount(), stats.missCount()));
+		});
+		return result;
+	}
+
+	@Override
+	protected void prepareForUse(SessionFactoryOptions settings, @SuppressWarnings("rawtypes") Map configValues) {
+		this.configValues = configValues;
+	}
+
+	@Override
+	protected void releaseFromUse() {
+		regions.values().forEach(Cache::invalidateAll);
+		regions.clear();
+	}
+
+	@Override
+	protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+			DomainDataRegionBuildingContext buildingContext) {
+		return new CaffeineStorageAccess(region(regionConfig.getRegionName(), true));
+	}
+
+	@Override
+	protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return new CaffeineStorageAccess(region(regionName, true));
+	}
+
+	@Override
+	protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return new CaffeineStorageAccess(region(regionName, false));
+	}
+
+	private Cache<Object, Object> region(String regionName, boolean bounded) {
+		return regions.computeIfAbsent(regionName, name -> {
+			var builder = Caffeine.newBuilder().recordStats();
+			if (!bounded) {
+				return builder.build();
+			}
+			builder.maximumSize(setting(name, "maximum_size", DEFAULT_MAXIMUM_SIZE));
+			var expireAfterWrite = setting(name, "expire_after_write_seconds", 0);
+			if (expireAfterWrite > 0) {
+				builder.expireAfterWrite(Duration.ofSeconds(expireAfterWrite));
+			}
+			return builder.build();
+		});
+	}
+
+	private long setting(String regionName, String key, long defaultValue) {
+		var value = configValues.get(PROPERTY_PREFIX + regionName + "." + key);
+		if (value == null) {
+			value = configValues.get(PROPERTY_PREFIX + "default." + key);
+		}
+		return value == null ? defaultValue : Long.parseLong(value.toString().strip());
+	}
+
+	private static class CaffeineStorageAccess implements DomainDataStorageAccess {
+
+		private final Cache<Object, Object> cache;
+
+		private CaffeineStorageAccess(Cache<Object, Object> cache) {
+			this.cache = cache;
+		}
+
+		@Override
+		public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+			return cache.getIfPresent(key);
+		}
+
+		@Override
+		public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+			if (value == null) {
+				cache.invalidate(key);
+			} else {
+				cache.put(key, value);
+			}
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return cache.asMap().containsKey(key);
+		}
+
+		@Override
+		public void evictData() {
+			cache.invalidateAll();
+		}
+
+		@Override
+		public void evictData(Object key) {
+			cache.invalidate(key);
+		}
+
+		@Override
+		public void release() {
+			cache.invalidateAll();
+		}
+	}
+}
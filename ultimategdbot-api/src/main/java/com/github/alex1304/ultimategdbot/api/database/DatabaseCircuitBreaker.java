@@ -0,0 +1,230 @@
+package com.github.alex1304.ultimategdbot.api.database;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.alex1304.ultimategdbot.api.DatabaseException;
+import com.github.alex1304.ultimategdbot.api.DatabaseUnavailableException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Stops sending operations to the database once it looks unavailable, so that
+ * they fail immediately instead of each holding a thread until the connection
+ * times out.
+ *
+ * <p>
+ * The breaker opens after a number of consecutive failed or slow operations.
+ * While open, operations are rejected. Once the open duration has elapsed, the
+ * breaker becomes half-open and lets a single operation through as a probe:
+ * if it succeeds the breaker closes, otherwise it opens again.
+ */
+public class DatabaseCircuitBreaker {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ultimategdbot.database.circuitbreaker");
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long slowCallThresholdNanos;
+	private final long openDurationNanos;
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong opened = new AtomicLong();
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openedAt;
+	private boolean probeInFlight;
+
+	/**
+	 * Creates a circuit breaker.
+	 *
+	 * @param failureThreshold  the number of consecutive failed or slow
+	 *                          operations that opens the breaker, or 0 to never
+	 *                          open it
+	 * @param slowCallThreshold the duration above which an operation counts as a
+	 *                          failure even if it succeeds
+	 * @param openDuration      how long the breaker stays open before letting a
+	 *                          probe through
+	 */
+	public DatabaseCircuitBreaker(int failureThreshold, Duration slowCallThreshold, Duration openDuration) {
+		if (failureThreshold < 0) {
+			throw new IllegalArgumentException("failureThreshold < 0");
+		}
+		this.failureThreshold = failureThreshold;
+		this.slowCallThresholdNanos = Objects.requireNonNull(slowCallThreshold).toNanos();
+		this.openDurationNanos = Objects.requireNonNull(openDuration).toNanos();
+	}
+
+	/**
+	 * Creates a circuit breaker that never opens.
+	 *
+	 * @return the circuit breaker
+	 */
+	public static DatabaseCircuitBreaker disabled() {
+		return new DatabaseCircuitBreaker(0, Duration.ZERO, Duration.ZERO);
+	}
+
+	/**
+	 * Asks whether an operation may be sent to the database. If true is returned,
+	 * the caller must then call {@link #onSuccess(long)}, {@link #onFailure(long)}
+	 * or {@link #releasePermission()}.
+	 *
+	 * @return true if the operation may proceed, false if it must be rejected
+	 */
+	public synchronized boolean tryAcquirePermission() {
+		if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+			state = State.HALF_OPEN;
+			LOGGER.info("Database circuit breaker is half-open, letting a probe through");
+		}
+		switch (state) {
+			case CLOSED:
+				return true;
+			case HALF_OPEN:
+				if (!probeInFlight) {
+					probeInFlight = true;
+					return true;
+				}
+				// fall through
+			default:
+				rejected.incrementAndGet();
+				return false;
+		}
+	}
+
+	/**
+	 * Records an operation that completed successfully.
+	 *
+	 * @param durationNanos how long the operation took, in nanoseconds
+	 */
+	public synchronized void onSuccess(long durationNanos) {
+		if (failureThreshold > 0 && durationNanos > slowCallThresholdNanos) {
+			onFailure(durationNanos);
+			return;
+		}
+		consecutiveFailures = 0;
+		if (state == State.HALF_OPEN) {
+			probeInFlight = false;
+			state = State.CLOSED;
+			LOGGER.info("Database circuit breaker closed, the database is available again");
+		}
+	}
+
+	/**
+	 * Records an operation that failed because of the database.
+	 *
+	 * @param durationNanos how long the operation took, in nanoseconds
+	 */
+	public synchronized void onFailure(long durationNanos) {
+		if (failureThreshold == 0) {
+			return;
+		}
+		consecutiveFailures++;
+		if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+			probeInFlight = false;
+			state = State.OPEN;
+			openedAt = System.nanoTime();
+			opened.incrementAndGet();
+			LOGGER.warn("Database circuit breaker opened after {} consecutive failed or slow operations, "
+					+ "rejecting database operations for {} ms", consecutiveFailures, openDurationNanos / 1_000_000);
+		}
+	}
+
+	/**
+	 * Lets the operation through if the breaker allows it, and records its outcome
+	 * and duration. Otherwise, the operation fails with
+	 * {@link DatabaseUnavailableException}.
+	 *
+	 * @param                   <T> the type of the result
+	 * @param operation         the operation
+	 * @param isDatabaseFailure tells whether an error comes from the database,
+	 *                          as opposed to the code of the caller. Only the
+	 *                          former count towards opening the breaker.
+	 * @return the protected operation
+	 */
+	public <T> Mono<T> protect(Mono<T> operation, Predicate<Throwable> isDatabaseFailure) {
+		return Mono.defer(() -> {
+			if (!tryAcquirePermission()) {
+				return Mono.error(new DatabaseUnavailableException());
+			}
+			var start = System.nanoTime();
+			return operation
+					.doOnSuccess(__ -> onSuccess(System.nanoTime() - start))
+					.doOnError(e -> onOutcome(e, isDatabaseFailure, System.nanoTime() - start))
+					.doOnCancel(this::releasePermission);
+		});
+	}
+
+	/**
+	 * Lets the operation through if the breaker allows it, and records its
+	 * outcome. Otherwise, the operation fails with
+	 * {@link DatabaseUnavailableException}. As the duration of a stream depends on
+	 * how fast it is consumed, it isn't recorded, so slow streams never open the
+	 * breaker.
+	 *
+	 * @param                   <T> the type of the elements
+	 * @param operation         the operation
+	 * @param isDatabaseFailure tells whether an error comes from the database,
+	 *                          as opposed to the code of the caller. Only the
+	 *                          former count towards opening the breaker.
+	 * @return the protected operation
+	 */
+	public <T> Flux<T> protect(Flux<T> operation, Predicate<Throwable> isDatabaseFailure) {
+		return Flux.defer(() -> {
+			if (!tryAcquirePermission()) {
+				return Flux.error(new DatabaseUnavailableException());
+			}
+			return operation
+					.doOnComplete(() -> onSuccess(0))
+					.doOnError(e -> onOutcome(e, isDatabaseFailure, 0))
+					.doOnCancel(this::releasePermission);
+		});
+	}
+
+	private void onOutcome(Throwable error, Predicate<Throwable> isDatabaseFailure, long durationNanos) {
+		var cause = error instanceof DatabaseException && error.getCause() != null ? error.getCause() : error;
+		if (isDatabaseFailure.test(cause)) {
+			onFailure(durationNanos);
+		} else {
+			onSuccess(durationNanos);
+		}
+	}
+
+	/**
+	 * Gives back a permission without recording an outcome, for example when the
+	 * operation was cancelled.
+	 */
+	public synchronized void releasePermission() {
+		if (state == State.HALF_OPEN) {
+			probeInFlight = false;
+		}
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * Gets the number of operations rejected because the breaker was open.
+	 *
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * Gets the number of times the breaker opened.
+	 *
+	 * @return the open count
+	 */
+	public long getOpenCount() {
+		return opened.get();
+	}
+}
@@ -0,0 +1,56 @@
+package com.github.alex1304.ultimategdbot.api.database;
+
+import java.io.Serializable;
+
+import com.github.alex1304.ultimategdbot.api.Database;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Operations running in a transaction started by
+ * {@link Database#inTransaction(java.util.function.Function)}. Writes are only
+ * visible to other transactions once it is committed.
+ */
+public interface DatabaseTransaction {
+
+	/**
+	 * Finds a database entity by its ID.
+	 *
+	 * @param entityClass class of the entity
+	 * @param key         the ID
+	 * @param             <T> The entity type
+	 * @param             <K> the ID type
+	 * @return a Mono emitting the entity, if found
+	 */
+	<T, K extends Serializable> Mono<T> findByID(Class<T> entityClass, K key);
+
+	/**
+	 * Makes a simple query to the database.
+	 *
+	 * @param entityClass the entity type to fetch
+	 * @param query       the HQL query, see
+	 *                    {@link Database#query(Class, String, Object...)} for the
+	 *                    supported forms
+	 * @param params      the query params
+	 * @param             <T> the entity type
+	 * @return a Flux emitting the results of the query
+	 */
+	<T> Flux<T> query(Class<T> entityClass, String query, Object... params);
+
+	/**
+	 * Saves an object in database.
+	 *
+	 * @param obj the object to save
+	 * @return a Mono that completes when it has saved
+	 */
+	Mono<Void> save(Object obj);
+
+	/**
+	 * Deletes an object from database.
+	 *
+	 * @param obj the object to delete
+	 * @return a Mono that completes when it has deleted
+	 */
+	Mono<Void> delete(Object obj);
+}
@@ -2,6 +2,8 @@ package com.github.alex1304.ultimategdbot.api.database;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
@@ -9,6 +11,7 @@ import org.hibernate.Session;
 
 import com.github.alex1304.ultimategdbot.api.utils.DatabaseInputFunction;
 import com.github.alex1304.ultimategdbot.api.utils.DatabaseOutputFunction;
+import com.github.alex1304.ultimategdbot.api.utils.GuildEntitySnapshot;
 
 import reactor.core.publisher.Mono;
 
@@ -55,6 +58,57 @@ public class GuildSettingsEntry<E extends GuildSettings, D> {
 				.defaultIfEmpty("None");
 	}
 	
+	/**
+	 * Gives the string representation of the value of this entry in an entity
+	 * that was already loaded, without accessing the database.
+	 * 
+	 * @param entity   the entity, which must be of the class of this entry
+	 * @param snapshot the entities of the guild the value may refer to
+	 * @return a Mono emitting the string representation of the value, or "None"
+	 *         if there is no value
+	 */
+	public Mono<String> getAsString(GuildSettings entity, GuildEntitySnapshot snapshot) {
+		var value = valueGetter.apply(entityClass.cast(entity));
+		if (value == null) {
+			return Mono.just("None");
+		}
+		return valueToString.apply(value, entity.getGuildId(), snapshot).defaultIfEmpty("None");
+	}
+	
+	/**
+	 * Gets the IDs of the users the value of this entry refers to in an entity
+	 * that was already loaded.
+	 * 
+	 * @param entity the entity, which must be of the class of this entry
+	 * @return the user IDs
+	 */
+	public Set<Long> getReferencedUserIds(GuildSettings entity) {
+		var value = valueGetter.apply(entityClass.cast(entity));
+		return value == null ? Set.of() : valueToString.referencedUserIds(value);
+	}
+	
+	/**
+	 * Parses the given string and assigns it to this entry for the given guild,
+	 * creating the entity if it doesn't exist yet. Works with every database
+	 * backend.
+	 * 
+	 * @param tx       the database transaction
+	 * @param strValue the new value, "None" or null to reset it
+	 * @param guildId  the ID of the guild
+	 * @return a Mono completing when the entity is saved, or emitting
+	 *         {@link IllegalArgumentException} if the value is invalid
+	 */
+	public Mono<Void> setFromString(DatabaseTransaction tx, String strValue, long guildId) {
+		return stringToValue.apply(strValue == null ? "None" : strValue, guildId)
+				.map(Optional::of)
+				.defaultIfEmpty(Optional.empty())
+				.flatMap(raw -> findOrCreate(tx, guildId)
+						.flatMap(entity -> {
+							valueSetter.accept(entity, raw.orElse(null));
+							return tx.save(entity);
+						}));
+	}
+	
 	public Mono<Void> setFromString(Session s, String strValue, long guildId) {
 		if (strValue == null) {
 			strValue = "None";
@@ -64,17 +118,41 @@ public class GuildSettingsEntry<E extends GuildSettings, D> {
 				.flatMap(raw -> Mono.fromRunnable(() -> setRaw(s, raw, guildId)));
 	}
 	
-	private E findOrCreate(Session s, long guildId) {
+	/**
+	 * Finds the entity holding the value of this entry for the given guild. If
+	 * it doesn't exist yet, a new one is created but not saved.
+	 * 
+	 * @param s       the database session
+	 * @param guildId the ID of the guild
+	 * @return the entity
+	 */
+	public E findOrCreate(Session s, long guildId) {
 		var entity = s.get(entityClass, guildId);
-		if (entity == null) {
-			try {
-				entity = entityClass.getConstructor().newInstance();
-				entity.setGuildId(guildId);
-			} catch (InstantiationException | IllegalAccessException | IllegalArgumentException
-					| InvocationTargetException | NoSuchMethodException | SecurityException e) {
-				throw new RuntimeException("Unable to create entity using reflection", e);
-			}
+		return entity == null ? newEntity(guildId) : entity;
+	}
+	
+	/**
+	 * Finds the entity holding the value of this entry for the given guild. If
+	 * it doesn't exist yet, a new one is created but not saved. Works with every
+	 * database backend.
+	 * 
+	 * @param tx      the database transaction
+	 * @param guildId the ID of the guild
+	 * @return a Mono emitting the entity
+	 */
+	public Mono<E> findOrCreate(DatabaseTransaction tx, long guildId) {
+		return tx.findByID(entityClass, guildId)
+				.switchIfEmpty(Mono.fromCallable(() -> newEntity(guildId)));
+	}
+	
+	private E newEntity(long guildId) {
+		try {
+			var entity = entityClass.getConstructor().newInstance();
+			entity.setGuildId(guildId);
+			return entity;
+		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException
+				| InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			throw new RuntimeException("Unable to create entity using reflection", e);
 		}
-		return entity;
 	}
 }
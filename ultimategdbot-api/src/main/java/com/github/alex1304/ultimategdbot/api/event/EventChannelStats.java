@@ -0,0 +1,130 @@
+package com.github.alex1304.ultimategdbot.api.event;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the statistics of one channel of the {@link EventPipeline}.
+ */
+public class EventChannelStats {
+
+	private final String eventName;
+	private final int parallelism;
+	private final int queueSize;
+	private final EventOverflowStrategy overflowStrategy;
+	private final long received;
+	private final long delivered;
+	private final long dropped;
+	private final Duration lastLag;
+	private final Duration maxLag;
+
+	EventChannelStats(String eventName, int parallelism, int queueSize, EventOverflowStrategy overflowStrategy,
+			long received, long delivered, long dropped, Duration lastLag, Duration maxLag) {
+		this.eventName = eventName;
+		this.parallelism = parallelism;
+		this.queueSize = queueSize;
+		this.overflowStrategy = overflowStrategy;
+		this.received = received;
+		this.delivered = delivered;
+		this.dropped = dropped;
+		this.lastLag = lastLag;
+		this.maxLag = maxLag;
+	}
+
+	/**
+	 * Gets the simple name of the event class handled by the channel.
+	 *
+	 * @return the event name
+	 */
+	public String getEventName() {
+		return eventName;
+	}
+
+	/**
+	 * Gets the number of threads of the scheduler dedicated to the channel.
+	 *
+	 * @return the parallelism
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Gets the max number of events that can wait in the queue of the channel. The
+	 * value is irrelevant if the overflow strategy is
+	 * {@link EventOverflowStrategy#UNBOUNDED}.
+	 *
+	 * @return the queue size
+	 */
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	/**
+	 * Gets the strategy applied when the queue of the channel is full.
+	 *
+	 * @return the overflow strategy
+	 */
+	public EventOverflowStrategy getOverflowStrategy() {
+		return overflowStrategy;
+	}
+
+	/**
+	 * Gets the number of events received from the gateway.
+	 *
+	 * @return the received count
+	 */
+	public long getReceived() {
+		return received;
+	}
+
+	/**
+	 * Gets the number of events delivered to the subscribers of the channel.
+	 *
+	 * @return the delivered count
+	 */
+	public long getDelivered() {
+		return delivered;
+	}
+
+	/**
+	 * Gets the number of events discarded because the queue was full.
+	 *
+	 * @return the dropped count
+	 */
+	public long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * Gets the number of events currently waiting to be delivered.
+	 *
+	 * @return the queue depth
+	 */
+	public long getQueueDepth() {
+		return Math.max(0, received - delivered - dropped);
+	}
+
+	/**
+	 * Gets the time the last delivered event spent waiting in the channel.
+	 *
+	 * @return the last lag
+	 */
+	public Duration getLastLag() {
+		return lastLag;
+	}
+
+	/**
+	 * Gets the longest time an event spent waiting in the channel.
+	 *
+	 * @return the max lag
+	 */
+	public Duration getMaxLag() {
+		return maxLag;
+	}
+
+	@Override
+	public String toString() {
+		return "EventChannelStats{eventName=" + eventName + ", received=" + received + ", delivered=" + delivered
+				+ ", dropped=" + dropped + ", queueDepth=" + getQueueDepth() + ", lastLag=" + lastLag + ", maxLag=" + maxLag + "}";
+	}
+}
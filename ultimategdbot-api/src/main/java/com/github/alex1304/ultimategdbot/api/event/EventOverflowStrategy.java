@@ -0,0 +1,22 @@
+package com.github.alex1304.ultimategdbot.api.event;
+
+/**
+ * What an {@link EventPipeline} channel does when events are received faster
+ * than they are consumed and its queue is full.
+ */
+public enum EventOverflowStrategy {
+	/**
+	 * The oldest event waiting in the queue is discarded to make room for the new
+	 * one.
+	 */
+	DROP_OLDEST,
+	/**
+	 * The new event is discarded, events already in the queue are kept.
+	 */
+	DROP_LATEST,
+	/**
+	 * The queue grows without limit and no event is ever discarded. Reserved for
+	 * events that must not be lost, such as message creates.
+	 */
+	UNBOUNDED;
+}
@@ -0,0 +1,211 @@
+package com.github.alex1304.ultimategdbot.api.event;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.alex1304.ultimategdbot.api.utils.PropertyParser;
+
+import discord4j.core.DiscordClient;
+import discord4j.core.event.domain.Event;
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Dispatches gateway events from all shards to the bot components, with one
+ * channel per event class. Each channel has its own bounded queue and its own
+ * parallel scheduler, so that a burst of one kind of event (presence updates,
+ * guild creates...) can't delay the processing of another kind, in particular
+ * message creates that trigger commands. Within a channel, each subscriber is
+ * delivered on its own worker of the scheduler, so that up to
+ * {@code parallelism} subscribers process events at the same time.
+ *
+ * <p>
+ * Channels are configured in bot.properties with the keys
+ * {@code event_pipeline.<EventName>.parallelism},
+ * {@code event_pipeline.<EventName>.queue_size} and
+ * {@code event_pipeline.<EventName>.overflow}, where {@code <EventName>} is the
+ * simple name of the event class, or {@code default} to change the settings of
+ * all channels that aren't configured explicitly.
+ */
+public class EventPipeline implements Disposable {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ultimategdbot.events");
+	private static final Set<Class<? extends Event>> CRITICAL_EVENTS = Set.of(MessageCreateEvent.class);
+	private static final int DEFAULT_QUEUE_SIZE = 1024;
+
+	private final Flux<DiscordClient> clients;
+	private final PropertyParser propParser;
+	private final ConcurrentHashMap<Class<? extends Event>, EventChannel<?>> channels = new ConcurrentHashMap<>();
+	private volatile boolean disposed;
+
+	public EventPipeline(Flux<DiscordClient> clients, PropertyParser propParser) {
+		this.clients = Objects.requireNonNull(clients);
+		this.propParser = Objects.requireNonNull(propParser);
+	}
+
+	/**
+	 * Gets a Flux emitting all events of the given class received by any shard.
+	 * Events are emitted in order on a worker of the scheduler dedicated to this
+	 * event class, each subscriber getting its own worker in a round-robin
+	 * fashion. All subscribers share the same upstream subscription and queue.
+	 *
+	 * @param <E>        the type of event
+	 * @param eventClass the class of event to listen to
+	 * @return a Flux of events
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Event> Flux<E> on(Class<E> eventClass) {
+		var channel = (EventChannel<E>) channel(eventClass);
+		return channel.flux.publishOn(channel.scheduler, Queues.XS_BUFFER_SIZE);
+	}
+
+	/**
+	 * Gets the scheduler dedicated to the given event class. A subscriber that
+	 * performs work for each event may use it to spread this work across all
+	 * threads of the channel, for example via {@code subscribeOn}, instead of
+	 * processing events one at a time on its own worker.
+	 *
+	 * @param eventClass the class of event
+	 * @return the scheduler of the channel
+	 */
+	public Scheduler getScheduler(Class<? extends Event> eventClass) {
+		return channel(eventClass).scheduler;
+	}
+
+	/**
+	 * Gets the statistics of all channels opened so far, sorted by event name.
+	 *
+	 * @return a List of channel statistics
+	 */
+	public List<EventChannelStats> getStats() {
+		return channels.values().stream()
+				.map(EventChannel::stats)
+				.sorted(Comparator.comparing(EventChannelStats::getEventName))
+				.collect(Collectors.toUnmodifiableList());
+	}
+
+	/**
+	 * Disposes the schedulers of all channels. The pipeline can't be used
+	 * anymore afterwards.
+	 */
+	@Override
+	public void dispose() {
+		disposed = true;
+		channels.values().forEach(channel -> channel.scheduler.dispose());
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	private EventChannel<?> channel(Class<? extends Event> eventClass) {
+		if (disposed) {
+			throw new IllegalStateException("The event pipeline has been disposed");
+		}
+		return channels.computeIfAbsent(Objects.requireNonNull(eventClass), this::createChannel);
+	}
+
+	private <E extends Event> EventChannel<E> createChannel(Class<E> eventClass) {
+		var name = eventClass.getSimpleName();
+		var critical = CRITICAL_EVENTS.contains(eventClass);
+		var parallelism = propParser.parseAsIntOrDefault("event_pipeline." + name + ".parallelism",
+				propParser.parseAsIntOrDefault("event_pipeline.default.parallelism",
+						critical ? Runtime.getRuntime().availableProcessors() : 1));
+		var queueSize = propParser.parseAsIntOrDefault("event_pipeline." + name + ".queue_size",
+				propParser.parseAsIntOrDefault("event_pipeline.default.queue_size", DEFAULT_QUEUE_SIZE));
+		var overflow = propParser.parseOrDefault("event_pipeline." + name + ".overflow", EventPipeline::parseOverflow,
+				critical ? EventOverflowStrategy.UNBOUNDED : propParser.parseOrDefault("event_pipeline.default.overflow",
+						EventPipeline::parseOverflow, EventOverflowStrategy.DROP_OLDEST));
+		if (parallelism < 1 || queueSize < 1) {
+			throw new IllegalArgumentException("event_pipeline." + name + ": parallelism and queue_size must be at least 1");
+		}
+		LOGGER.debug("Opening event channel {} (parallelism={}, queue_size={}, overflow={})", name, parallelism, queueSize, overflow);
+		return new EventChannel<>(eventClass, name, parallelism, queueSize, overflow);
+	}
+
+	private static EventOverflowStrategy parseOverflow(String value) {
+		return EventOverflowStrategy.valueOf(value.strip().toUpperCase(Locale.ROOT));
+	}
+
+	private class EventChannel<E extends Event> {
+		private final String name;
+		private final int parallelism;
+		private final int queueSize;
+		private final EventOverflowStrategy overflow;
+		private final Scheduler scheduler;
+		private final AtomicLong received = new AtomicLong();
+		private final AtomicLong delivered = new AtomicLong();
+		private final AtomicLong dropped = new AtomicLong();
+		private final AtomicLong maxLagNanos = new AtomicLong();
+		private volatile long lastLagNanos;
+		private final Flux<E> flux;
+
+		EventChannel(Class<E> eventClass, String name, int parallelism, int queueSize, EventOverflowStrategy overflow) {
+			this.name = name;
+			this.parallelism = parallelism;
+			this.queueSize = queueSize;
+			this.overflow = overflow;
+			this.scheduler = Schedulers.newParallel("events-" + name, parallelism, true);
+			this.flux = clients.flatMap(client -> client.getEventDispatcher().on(eventClass))
+					.map(event -> {
+						received.incrementAndGet();
+						return new QueuedEvent<>(event, System.nanoTime());
+					})
+					.transform(this::buffer)
+					.map(queued -> {
+						var lag = System.nanoTime() - queued.receivedAt;
+						delivered.incrementAndGet();
+						lastLagNanos = lag;
+						maxLagNanos.accumulateAndGet(lag, Math::max);
+						return queued.event;
+					})
+					.share();
+		}
+
+		private Flux<QueuedEvent<E>> buffer(Flux<QueuedEvent<E>> events) {
+			if (overflow == EventOverflowStrategy.UNBOUNDED) {
+				return events.onBackpressureBuffer();
+			}
+			return events.onBackpressureBuffer(queueSize, dropped -> onDrop(),
+					overflow == EventOverflowStrategy.DROP_OLDEST
+							? BufferOverflowStrategy.DROP_OLDEST
+							: BufferOverflowStrategy.DROP_LATEST);
+		}
+
+		private void onDrop() {
+			if (dropped.getAndIncrement() % DEFAULT_QUEUE_SIZE == 0) {
+				LOGGER.warn("Event channel {} is full, events are being dropped ({} so far)", name, dropped.get());
+			}
+		}
+
+		EventChannelStats stats() {
+			return new EventChannelStats(name, parallelism, queueSize, overflow, received.get(), delivered.get(),
+					dropped.get(), Duration.ofNanos(lastLagNanos), Duration.ofNanos(maxLagNanos.get()));
+		}
+	}
+
+	private static class QueuedEvent<E> {
+		private final E event;
+		private final long receivedAt;
+
+		QueuedEvent(E event, long receivedAt) {
+			this.event = event;
+			this.receivedAt = receivedAt;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package com.github.alex1304.ultimategdbot.api.jfr;
+
+import jdk.jfr.Event;
+
+/**
+ * Base class of the flight recorder events of the bot. Events of the bot may be
+ * completed from several reactive signals racing with each other (for example
+ * an error and a cancellation), so this class makes sure that an event is
+ * committed at most once.
+ */
+public abstract class BotEvent extends Event {
+
+	private transient boolean completed;
+
+	BotEvent() {
+	}
+
+	/**
+	 * Marks this event as completed.
+	 * 
+	 * @return true if it wasn't already completed, false otherwise
+	 */
+	synchronized boolean markCompleted() {
+		if (completed) {
+			return false;
+		}
+		completed = true;
+		return true;
+	}
+
+	/**
+	 * Gets the outcome to record for a reactive sequence that terminated with the
+	 * given error.
+	 * 
+	 * @param error the error, or null if the sequence completed successfully
+	 * @return the outcome
+	 */
+	public static String outcome(Throwable error) {
+		return error == null ? "SUCCESS" : error.getClass().getSimpleName();
+	}
+}
@@ -0,0 +1,56 @@
+package com.github.alex1304.ultimategdbot.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event emitted for each command execution, from the scope
+ * check to the end of the command action.
+ */
+@Name("ultimategdbot.CommandExecution")
+@Label("Command Execution")
+@Category({ "UltimateGDBot", "Commands" })
+@Description("Execution of a bot command, including scope and permission checks")
+@StackTrace(false)
+public final class CommandExecutionEvent extends BotEvent {
+
+	@Label("Alias")
+	@Description("The alias used to invoke the command")
+	private String alias;
+
+	@Label("Guild ID")
+	@Description("The ID of the guild where the command was invoked, 0 in DMs")
+	private long guildId;
+
+	@Label("Channel ID")
+	private long channelId;
+
+	@Label("Outcome")
+	@Description("SUCCESS, CANCELLED, or the simple name of the exception that terminated the command")
+	private String outcome;
+
+	/**
+	 * Ends the event and commits it if it passes the settings of the recording.
+	 * 
+	 * @param alias     the alias used to invoke the command
+	 * @param guildId   the ID of the guild, or 0 if invoked in DMs
+	 * @param channelId the ID of the channel
+	 * @param outcome   the outcome of the execution
+	 */
+	public void complete(String alias, long guildId, long channelId, String outcome) {
+		if (!markCompleted()) {
+			return;
+		}
+		end();
+		if (shouldCommit()) {
+			this.alias = alias;
+			this.guildId = guildId;
+			this.channelId = channelId;
+			this.outcome = outcome;
+			commit();
+		}
+	}
+}
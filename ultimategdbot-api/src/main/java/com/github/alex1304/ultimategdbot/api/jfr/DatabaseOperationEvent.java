@@ -0,0 +1,56 @@
+package com.github.alex1304.ultimategdbot.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event emitted for each operation performed by the database,
+ * measured on the thread that runs the blocking call.
+ */
+@Name("ultimategdbot.DatabaseOperation")
+@Label("Database Operation")
+@Category({ "UltimateGDBot", "Database" })
+@Description("Blocking database call: lookup, query or transaction")
+@StackTrace(false)
+public final class DatabaseOperationEvent extends BotEvent {
+
+	@Label("Entity")
+	@Description("The class of the entity involved, if known")
+	private String entity;
+
+	@Label("Operation")
+	private String operation;
+
+	@Label("Rows")
+	@Description("The number of entities fetched or written, -1 if unknown")
+	private int rows;
+
+	@Label("Outcome")
+	@Description("SUCCESS, or the simple name of the exception that terminated the operation")
+	private String outcome;
+
+	/**
+	 * Ends the event and commits it if it passes the settings of the recording.
+	 * 
+	 * @param entity    the class of the entity involved, or null if unknown
+	 * @param operation the name of the operation
+	 * @param rows      the number of entities fetched or written, -1 if unknown
+	 * @param outcome   the outcome of the operation
+	 */
+	public void complete(Class<?> entity, String operation, int rows, String outcome) {
+		if (!markCompleted()) {
+			return;
+		}
+		end();
+		if (shouldCommit()) {
+			this.entity = entity == null ? null : entity.getName();
+			this.operation = operation;
+			this.rows = rows;
+			this.outcome = outcome;
+			commit();
+		}
+	}
+}
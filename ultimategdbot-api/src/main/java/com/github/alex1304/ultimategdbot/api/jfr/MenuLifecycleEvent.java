@@ -0,0 +1,61 @@
+package com.github.alex1304.ultimategdbot.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the whole life of an interactive menu, from
+ * the moment it is opened to the moment it closes.
+ */
+@Name("ultimategdbot.MenuLifecycle")
+@Label("Interactive Menu")
+@Category({ "UltimateGDBot", "Interactive Menus" })
+@Description("Interactive menu, from the moment it is opened to the moment it closes")
+@StackTrace(false)
+public final class MenuLifecycleEvent extends BotEvent {
+
+	@Label("Channel ID")
+	private long channelId;
+
+	@Label("Message ID")
+	@Description("The ID of the menu message, 0 if it could not be sent")
+	private long messageId;
+
+	@Label("Interactions")
+	@Description("The number of message and reaction items triggered by the user")
+	private int interactions;
+
+	@Label("Termination")
+	@Description("CLOSED, TIMEOUT, CANCELLED, or the simple name of the exception that terminated the menu")
+	private String termination;
+
+	/**
+	 * Counts an interaction of the user with the menu.
+	 */
+	public synchronized void interacted() {
+		interactions++;
+	}
+
+	/**
+	 * Ends the event and commits it if it passes the settings of the recording.
+	 * 
+	 * @param channelId   the ID of the channel where the menu was opened
+	 * @param messageId   the ID of the menu message, or 0 if it could not be sent
+	 * @param termination the reason why the menu closed
+	 */
+	public void complete(long channelId, long messageId, String termination) {
+		if (!markCompleted()) {
+			return;
+		}
+		end();
+		if (shouldCommit()) {
+			this.channelId = channelId;
+			this.messageId = messageId;
+			this.termination = termination;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.github.alex1304.ultimategdbot.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event emitted for each request going through the global
+ * rate limiter of the Discord REST client.
+ */
+@Name("ultimategdbot.RestRequest")
+@Label("Discord REST Request")
+@Category({ "UltimateGDBot", "Discord" })
+@Description("Request to the Discord REST API, from the moment it asks the global rate limiter for a permit")
+@StackTrace(false)
+public final class RestRequestEvent extends BotEvent {
+
+	@Label("Permit Wait Time")
+	@Description("Time spent waiting for a permit of the global rate limiter")
+	@Timespan(Timespan.NANOSECONDS)
+	private long permitWaitTime;
+
+	@Label("Outcome")
+	@Description("SUCCESS, CANCELLED, or the simple name of the exception that terminated the request")
+	private String outcome;
+
+	/**
+	 * Ends the event and commits it if it passes the settings of the recording.
+	 * 
+	 * @param permitWaitTime the time spent waiting for a permit, in nanoseconds
+	 * @param outcome        the outcome of the request
+	 */
+	public void complete(long permitWaitTime, String outcome) {
+		if (!markCompleted()) {
+			return;
+		}
+		end();
+		if (shouldCommit()) {
+			this.permitWaitTime = permitWaitTime;
+			this.outcome = outcome;
+			commit();
+		}
+	}
+}
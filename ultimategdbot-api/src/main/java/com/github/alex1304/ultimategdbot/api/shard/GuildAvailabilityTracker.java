@@ -0,0 +1,346 @@
+package com.github.alex1304.ultimategdbot.api.shard;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps track of guilds that are known to the bot but currently unavailable,
+ * partitioned by shard. Each shard has its own set of guild IDs, stored as
+ * primitive longs in a lock-free open-addressing table, along with a readiness
+ * flag that tells whether the shard has finished loading its guilds.
+ *
+ * <p>
+ * Marking a guild as available, which happens for every guild create event
+ * received, never takes a lock. Locks are only taken when a table needs to grow
+ * or is replaced by a new READY payload.
+ */
+public class GuildAvailabilityTracker {
+
+	private volatile Partition[] partitions = new Partition[0];
+
+	/**
+	 * Resets the state of the given shard after it received a READY payload. All
+	 * guilds announced in the payload are marked as unavailable until their guild
+	 * create event is received, and the shard is marked as not ready.
+	 *
+	 * @param shardIndex the index of the shard
+	 * @param guildIds   the IDs of the guilds announced in the READY payload
+	 */
+	public void onReady(int shardIndex, long[] guildIds) {
+		partition(shardIndex).reset(guildIds);
+	}
+
+	/**
+	 * Marks the given shard as ready, meaning that it has finished loading its
+	 * guilds.
+	 *
+	 * @param shardIndex the index of the shard
+	 */
+	public void markShardReady(int shardIndex) {
+		partition(shardIndex).ready = true;
+	}
+
+	/**
+	 * Gets whether the given shard has finished loading its guilds since its last
+	 * READY payload.
+	 *
+	 * @param shardIndex the index of the shard
+	 * @return a boolean
+	 */
+	public boolean isShardReady(int shardIndex) {
+		return partition(shardIndex).ready;
+	}
+
+	/**
+	 * Marks a guild as unavailable.
+	 *
+	 * @param shardIndex the index of the shard serving the guild
+	 * @param guildId    the ID of the guild
+	 * @return true if the guild was not already marked as unavailable
+	 */
+	public boolean markUnavailable(int shardIndex, long guildId) {
+		return partition(shardIndex).add(checkId(guildId));
+	}
+
+	/**
+	 * Marks a guild as available.
+	 *
+	 * @param shardIndex the index of the shard serving the guild
+	 * @param guildId    the ID of the guild
+	 * @return true if the guild was marked as unavailable before this call
+	 */
+	public boolean markAvailable(int shardIndex, long guildId) {
+		return partition(shardIndex).remove(checkId(guildId));
+	}
+
+	/**
+	 * Gets whether a guild is currently marked as unavailable.
+	 *
+	 * @param shardIndex the index of the shard serving the guild
+	 * @param guildId    the ID of the guild
+	 * @return a boolean
+	 */
+	public boolean isUnavailable(int shardIndex, long guildId) {
+		return partition(shardIndex).contains(checkId(guildId));
+	}
+
+	/**
+	 * Gets the number of guilds currently marked as unavailable for the given
+	 * shard.
+	 *
+	 * @param shardIndex the index of the shard
+	 * @return the number of unavailable guilds
+	 */
+	public int getUnavailableGuildCount(int shardIndex) {
+		return partition(shardIndex).size();
+	}
+
+	/**
+	 * Gets the number of guilds currently marked as unavailable across all shards.
+	 *
+	 * @return the total number of unavailable guilds
+	 */
+	public int getUnavailableGuildCount() {
+		var total = 0;
+		for (var partition : partitions) {
+			if (partition != null) {
+				total += partition.size();
+			}
+		}
+		return total;
+	}
+
+	private Partition partition(int shardIndex) {
+		var partitions = this.partitions;
+		if (shardIndex < partitions.length) {
+			var partition = partitions[shardIndex];
+			if (partition != null) {
+				return partition;
+			}
+		}
+		return createPartition(shardIndex);
+	}
+
+	private synchronized Partition createPartition(int shardIndex) {
+		if (shardIndex < 0) {
+			throw new IllegalArgumentException("Negative shard index");
+		}
+		var partitions = this.partitions;
+		if (shardIndex >= partitions.length) {
+			partitions = Arrays.copyOf(partitions, shardIndex + 1);
+		}
+		if (partitions[shardIndex] == null) {
+			partitions[shardIndex] = new Partition();
+		}
+		this.partitions = partitions;
+		return partitions[shardIndex];
+	}
+
+	private static long checkId(long guildId) {
+		if (guildId <= 0) {
+			throw new IllegalArgumentException("Invalid guild ID: " + guildId);
+		}
+		return guildId;
+	}
+
+	/**
+	 * Open-addressing set of positive longs with linear probing. Slots hold either
+	 * EMPTY, a live ID, TOMBSTONE for a removed ID, or a frozen value while the
+	 * table is being migrated: MOVED for a free slot and the negated ID for a live
+	 * one. Operations that encounter a frozen slot wait for the migration to end
+	 * and retry on the new table.
+	 *
+	 * <p>
+	 * Each table carries its own counters. A slot update and the counter update
+	 * that follows it always target the same table, so an update racing with a
+	 * migration only touches the counters of the table being discarded, while the
+	 * new table counts the values it actually received.
+	 */
+	private static class Partition {
+		private static final long EMPTY = 0;
+		private static final long TOMBSTONE = Long.MIN_VALUE;
+		private static final long MOVED = Long.MIN_VALUE + 1;
+		private static final int MIN_CAPACITY = 16;
+
+		private volatile Table table = new Table(new AtomicLongArray(MIN_CAPACITY), 0);
+		private volatile boolean ready;
+
+		boolean add(long id) {
+			for (;;) {
+				var current = this.table;
+				var table = current.slots;
+				var mask = table.length() - 1;
+				var frozen = false;
+				for (int i = index(id, mask), probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+					var value = table.get(i);
+					if (value == id) {
+						return false;
+					}
+					if (value == EMPTY) {
+						if (table.compareAndSet(i, EMPTY, id)) {
+							current.size.incrementAndGet();
+							if (current.used.incrementAndGet() * 4L >= table.length() * 3L) {
+								migrate(table, null);
+							}
+							return true;
+						}
+						value = table.get(i);
+						if (value == id) {
+							return false;
+						}
+					}
+					if (value < 0 && value != TOMBSTONE) {
+						frozen = true;
+						break;
+					}
+				}
+				if (!frozen) {
+					// Table full of tombstones, compact it and try again
+					migrate(table, null);
+				}
+				awaitMigration();
+			}
+		}
+
+		boolean remove(long id) {
+			for (;;) {
+				var current = this.table;
+				var table = current.slots;
+				var mask = table.length() - 1;
+				var frozen = false;
+				for (int i = index(id, mask), probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+					var value = table.get(i);
+					if (value == EMPTY) {
+						return false;
+					}
+					if (value == id) {
+						if (table.compareAndSet(i, id, TOMBSTONE)) {
+							current.size.decrementAndGet();
+							return true;
+						}
+						value = table.get(i);
+					}
+					if (value < 0 && value != TOMBSTONE) {
+						frozen = true;
+						break;
+					}
+				}
+				if (!frozen) {
+					return false;
+				}
+				awaitMigration();
+			}
+		}
+
+		boolean contains(long id) {
+			for (;;) {
+				var table = this.table.slots;
+				var mask = table.length() - 1;
+				var frozen = false;
+				for (int i = index(id, mask), probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+					var value = table.get(i);
+					if (value == EMPTY) {
+						return false;
+					}
+					if (value == id) {
+						return true;
+					}
+					if (value < 0 && value != TOMBSTONE) {
+						frozen = true;
+						break;
+					}
+				}
+				if (!frozen) {
+					return false;
+				}
+				awaitMigration();
+			}
+		}
+
+		int size() {
+			return table.size.get();
+		}
+
+		void reset(long[] ids) {
+			ready = false;
+			migrate(table.slots, ids);
+		}
+
+		/**
+		 * Freezes every slot of the old table so that concurrent writers retry on the
+		 * new one, then installs a new table containing either the live values of the
+		 * old table, or the given IDs if not null.
+		 */
+		private synchronized void migrate(AtomicLongArray oldTable, long[] replacement) {
+			if (oldTable != table.slots) {
+				if (replacement == null) {
+					return;
+				}
+				oldTable = table.slots;
+			}
+			var live = new long[replacement == null ? oldTable.length() : 0];
+			var liveCount = 0;
+			for (var i = 0; i < oldTable.length(); i++) {
+				for (;;) {
+					var value = oldTable.get(i);
+					if (value == EMPTY || value == TOMBSTONE) {
+						if (oldTable.compareAndSet(i, value, MOVED)) {
+							break;
+						}
+					} else if (oldTable.compareAndSet(i, value, -value)) {
+						if (replacement == null) {
+							live[liveCount++] = value;
+						}
+						break;
+					}
+				}
+			}
+			var source = replacement == null ? live : replacement;
+			var count = replacement == null ? liveCount : replacement.length;
+			var capacity = MIN_CAPACITY;
+			while (capacity < count * 2L) {
+				capacity <<= 1;
+			}
+			var newTable = new AtomicLongArray(capacity);
+			var mask = capacity - 1;
+			var inserted = 0;
+			for (var j = 0; j < count; j++) {
+				var id = checkId(source[j]);
+				for (var i = index(id, mask);; i = (i + 1) & mask) {
+					var value = newTable.get(i);
+					if (value == id) {
+						break;
+					}
+					if (value == EMPTY) {
+						newTable.set(i, id);
+						inserted++;
+						break;
+					}
+				}
+			}
+			table = new Table(newTable, inserted);
+		}
+
+		private synchronized void awaitMigration() {
+			// Acquiring the monitor is enough: migrations hold it until the new table is installed
+		}
+
+		private static int index(long id, int mask) {
+			var h = id * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+
+		private static class Table {
+			private final AtomicLongArray slots;
+			private final AtomicInteger size;
+			private final AtomicInteger used;
+
+			Table(AtomicLongArray slots, int count) {
+				this.slots = slots;
+				this.size = new AtomicInteger(count);
+				this.used = new AtomicInteger(count);
+			}
+		}
+	}
+}
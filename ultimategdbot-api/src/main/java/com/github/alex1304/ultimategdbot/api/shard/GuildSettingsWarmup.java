@@ -0,0 +1,115 @@
+package com.github.alex1304.ultimategdbot.api.shard;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.alex1304.ultimategdbot.api.Bot;
+import com.github.alex1304.ultimategdbot.api.database.GuildSettingsEntry;
+import com.github.alex1304.ultimategdbot.api.database.NativeGuildSettings;
+import com.github.alex1304.ultimategdbot.api.utils.BotUtils;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Loads the guild settings of all guilds of a shard right after it receives its
+ * READY payload, before command traffic ramps up. Settings are loaded in
+ * chunks, one <code>IN (...)</code> query per chunk and per entity class.
+ *
+ * <p>
+ * The core settings feed the prefix cache of the command kernel. Settings
+ * entities of plugins are only loaded if they are stored in the second-level
+ * cache, otherwise loading them wouldn't save any query later.
+ */
+public class GuildSettingsWarmup {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ultimategdbot.shard.warmup");
+
+	private final Bot bot;
+	private final int chunkSize;
+
+	/**
+	 * Creates a warm-up for the given bot.
+	 *
+	 * @param bot       the bot
+	 * @param chunkSize the maximum number of guild IDs per query, or 0 to disable
+	 *                  the warm-up
+	 */
+	public GuildSettingsWarmup(Bot bot, int chunkSize) {
+		if (chunkSize < 0) {
+			throw new IllegalArgumentException("chunkSize < 0");
+		}
+		this.bot = requireNonNull(bot);
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Loads the guild settings of the given guilds.
+	 *
+	 * @param shardIndex the index of the shard serving the guilds
+	 * @param guildIds   the IDs of the guilds announced in the READY payload
+	 * @return a Mono completing when all settings are loaded. Errors are logged
+	 *         and don't stop the warm-up of other entity classes. The warm-up
+	 *         is started on the blocking scheduler of the bot.
+	 */
+	public Mono<Void> warmUp(int shardIndex, long[] guildIds) {
+		requireNonNull(guildIds);
+		if (chunkSize == 0 || guildIds.length == 0) {
+			return Mono.empty();
+		}
+		// Keeps the caller, typically a READY listener, from being held up while the warm-up is prepared
+		return Mono.<Void>defer(() -> {
+			var start = System.nanoTime();
+			var rowCount = new AtomicInteger();
+			var chunks = chunks(guildIds);
+			return Flux.fromIterable(entityClasses())
+					.concatMap(entityClass -> Flux.fromIterable(chunks)
+							.index()
+							.concatMap(chunk -> bot.getDatabase().findAllByIDs(entityClass, chunk.getT2())
+									.doOnNext(entity -> {
+										rowCount.incrementAndGet();
+										if (entity instanceof NativeGuildSettings) {
+											bot.getCommandKernel().cacheGuildPrefix((NativeGuildSettings) entity);
+										}
+									})
+									.doOnComplete(() -> LOGGER.debug("Shard {}: loaded {} chunk {}/{}", shardIndex,
+											entityClass.getSimpleName(), chunk.getT1() + 1, chunks.size())))
+							.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("Shard " + shardIndex
+									+ ": failed to load " + entityClass.getSimpleName(), e))))
+					.then(Mono.fromRunnable(() -> LOGGER.info("Shard {}: loaded {} guild settings rows for {} guilds in {}",
+							shardIndex, rowCount.get(), guildIds.length,
+							BotUtils.formatDuration(Duration.ofNanos(System.nanoTime() - start)))));
+		}).subscribeOn(bot.getBlockingScheduler());
+	}
+
+	private List<List<Long>> chunks(long[] guildIds) {
+		var chunks = new ArrayList<List<Long>>();
+		for (var from = 0; from < guildIds.length; from += chunkSize) {
+			var chunk = new ArrayList<Long>(Math.min(chunkSize, guildIds.length - from));
+			for (var i = from; i < from + chunkSize && i < guildIds.length; i++) {
+				chunk.add(guildIds[i]);
+			}
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	private LinkedHashSet<Class<?>> entityClasses() {
+		var entityClasses = new LinkedHashSet<Class<?>>();
+		entityClasses.add(NativeGuildSettings.class);
+		for (var plugin : bot.getPlugins()) {
+			plugin.getGuildConfigurationEntries().values().stream()
+					.map(GuildSettingsEntry::getEntityClass)
+					.filter(bot.getDatabase()::isSecondLevelCached)
+					.forEach(entityClasses::add);
+		}
+		return entityClasses;
+	}
+}
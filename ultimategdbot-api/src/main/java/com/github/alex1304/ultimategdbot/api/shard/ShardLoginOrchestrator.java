@@ -0,0 +1,233 @@
+package com.github.alex1304.ultimategdbot.api.shard;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import discord4j.common.SimpleBucket;
+import discord4j.core.DiscordClient;
+import discord4j.core.event.domain.guild.GuildCreateEvent;
+import discord4j.core.event.domain.lifecycle.ReadyEvent;
+import discord4j.core.event.domain.lifecycle.ResumeEvent;
+import discord4j.gateway.GatewayObserver;
+import discord4j.gateway.PayloadTransformer;
+import discord4j.gateway.RateLimiterTransformer;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * Coordinates the login of all shards of the bot. It limits how many shards may
+ * identify at the same time, keeps track of the state of each shard and how
+ * long it took to become ready, and signals when enough shards are operational
+ * for the bot to be considered started.
+ */
+public class ShardLoginOrchestrator {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ultimategdbot.shards");
+	private static final Duration GUILD_LOAD_TIMEOUT = Duration.ofMinutes(2);
+
+	private final int identifyConcurrency;
+	private final Duration loginDelay;
+	private final double readyQuorum;
+	private final PayloadTransformer identifyLimiter;
+	private final ConcurrentHashMap<Integer, ShardStatus> statuses = new ConcurrentHashMap<>();
+	private final AtomicInteger loadingShards = new AtomicInteger();
+	private final AtomicInteger shardsLoadedOnce = new AtomicInteger();
+	private final MonoProcessor<Void> quorumReached = MonoProcessor.create();
+	private final DirectProcessor<ShardStatus> guildsLoaded = DirectProcessor.create();
+	private final FluxSink<ShardStatus> guildsLoadedSink = guildsLoaded.sink();
+
+	/**
+	 * Creates a new orchestrator.
+	 *
+	 * @param identifyConcurrency the max number of shards that may identify during
+	 *                            the same login delay window
+	 * @param loginDelay          the delay between two identify windows
+	 * @param readyQuorum         the fraction of shards, between 0 (exclusive)
+	 *                            and 1 (inclusive), that need to have loaded their
+	 *                            guilds for the bot to be considered ready
+	 */
+	public ShardLoginOrchestrator(int identifyConcurrency, Duration loginDelay, double readyQuorum) {
+		if (identifyConcurrency < 1) {
+			throw new IllegalArgumentException("identifyConcurrency must be at least 1");
+		}
+		if (Objects.requireNonNull(loginDelay).isNegative()) {
+			throw new IllegalArgumentException("loginDelay must not be negative");
+		}
+		if (readyQuorum <= 0 || readyQuorum > 1) {
+			throw new IllegalArgumentException("readyQuorum must be greater than 0 and lower or equal to 1");
+		}
+		this.identifyConcurrency = identifyConcurrency;
+		this.loginDelay = loginDelay;
+		this.readyQuorum = readyQuorum;
+		this.identifyLimiter = new RateLimiterTransformer(new SimpleBucket(identifyConcurrency, loginDelay));
+	}
+
+	/**
+	 * Gets the identify limiter shared by all shards. It should be given to every
+	 * client builder via
+	 * {@link discord4j.core.DiscordClientBuilder#setIdentifyLimiter(PayloadTransformer)}.
+	 *
+	 * @return the identify limiter
+	 */
+	public PayloadTransformer getIdentifyLimiter() {
+		return identifyLimiter;
+	}
+
+	/**
+	 * Gets a gateway observer that updates the state of shards according to the
+	 * state of their websocket connection. It should be chained to the observer
+	 * already set on the client builder via {@link GatewayObserver#then(GatewayObserver)}.
+	 *
+	 * @return a gateway observer
+	 */
+	public GatewayObserver getGatewayObserver() {
+		return (newState, identifyOptions) -> {
+			var status = status(identifyOptions.getShardIndex());
+			if (newState == GatewayObserver.DISCONNECTED_RESUME
+					|| newState == GatewayObserver.RETRY_STARTED
+					|| newState == GatewayObserver.RETRY_RESUME_STARTED) {
+				leaveLoading(status);
+				status.setState(ShardState.RECONNECTING);
+			} else if (newState == GatewayObserver.RETRY_FAILED || newState == GatewayObserver.DISCONNECTED) {
+				leaveLoading(status);
+				status.setState(ShardState.DISCONNECTED);
+			}
+		};
+	}
+
+	/**
+	 * Logs in all the given clients and starts tracking their state. The clients
+	 * are expected to be built with the identify limiter and the gateway observer
+	 * provided by this orchestrator.
+	 *
+	 * @param clients the clients to log in, one per shard
+	 * @return a Mono that completes when all clients are logged out
+	 */
+	@SuppressWarnings("deprecation")
+	public Mono<Void> login(Flux<DiscordClient> clients) {
+		return clients.flatMap(client -> {
+			var shardIndex = client.getConfig().getShardIndex();
+			var shardCount = client.getConfig().getShardCount();
+			var status = status(shardIndex);
+			trackReadiness(client, status, shardCount);
+			return Mono.fromRunnable(() -> {
+						status.markConnecting();
+						LOGGER.info("Shard {}/{}: logging in", shardIndex, shardCount);
+					})
+					.then(client.login());
+		}).then();
+	}
+
+	/**
+	 * Gets a Mono that completes once the configured quorum of shards have loaded
+	 * their guilds for the first time.
+	 *
+	 * @return a Mono completing when the ready quorum is reached
+	 */
+	public Mono<Void> awaitReadyQuorum() {
+		return quorumReached;
+	}
+
+	/**
+	 * Gets a Flux emitting the status of a shard each time it finishes loading its
+	 * guilds, either after the initial login or after a full reconnection. This
+	 * Flux is hot, so it should be subscribed to before the shards log in.
+	 *
+	 * @return a Flux of shard status
+	 */
+	public Flux<ShardStatus> onGuildsLoaded() {
+		return guildsLoaded;
+	}
+
+	/**
+	 * Gets the status of all shards that are known to this orchestrator, sorted by
+	 * shard index.
+	 *
+	 * @return a List of shard status
+	 */
+	public List<ShardStatus> getShardStatuses() {
+		return statuses.values().stream()
+				.sorted(Comparator.comparingInt(ShardStatus::getShardIndex))
+				.collect(Collectors.toUnmodifiableList());
+	}
+
+	/**
+	 * Gets the number of shards that have received their READY payload but are
+	 * still receiving their guilds.
+	 *
+	 * @return the number of shards currently loading guilds
+	 */
+	public int getLoadingShardCount() {
+		return loadingShards.get();
+	}
+
+	public int getIdentifyConcurrency() {
+		return identifyConcurrency;
+	}
+
+	public Duration getLoginDelay() {
+		return loginDelay;
+	}
+
+	public double getReadyQuorum() {
+		return readyQuorum;
+	}
+
+	private ShardStatus status(int shardIndex) {
+		return statuses.computeIfAbsent(shardIndex, ShardStatus::new);
+	}
+
+	private void trackReadiness(DiscordClient client, ShardStatus status, int shardCount) {
+		var dispatcher = client.getEventDispatcher();
+		dispatcher.on(ReadyEvent.class)
+				.doOnNext(readyEvent -> {
+					if (status.getState() != ShardState.READY) {
+						loadingShards.incrementAndGet();
+					}
+					status.markReady(readyEvent.getGuilds().size());
+					LOGGER.info("Shard {}: READY received, expecting {} guilds", status.getShardIndex(), readyEvent.getGuilds().size());
+				})
+				.switchMap(readyEvent -> dispatcher.on(GuildCreateEvent.class)
+						.take(readyEvent.getGuilds().size())
+						.timeout(GUILD_LOAD_TIMEOUT, Mono.fromRunnable(() -> LOGGER.warn("Shard {}: timed out while loading guilds",
+								status.getShardIndex())))
+						.count()
+						.doOnNext(loaded -> onGuildsLoaded(status, loaded.intValue(), shardCount)))
+				.onErrorContinue((e, o) -> LOGGER.error("Error while tracking readiness of shard " + status.getShardIndex(), e))
+				.subscribe();
+		dispatcher.on(ResumeEvent.class)
+				.doOnNext(resumeEvent -> status.markResumed())
+				.subscribe();
+	}
+
+	private void onGuildsLoaded(ShardStatus status, int loaded, int shardCount) {
+		var firstLoad = status.getTimeToGuildsLoaded().isEmpty();
+		leaveLoading(status);
+		status.markGuildsLoaded(loaded);
+		LOGGER.info("Shard {}: {} guilds loaded", status.getShardIndex(), loaded);
+		if (firstLoad) {
+			var target = Math.max(1, (int) Math.ceil(readyQuorum * shardCount));
+			if (shardsLoadedOnce.incrementAndGet() >= target && !quorumReached.isTerminated()) {
+				LOGGER.info("Ready quorum reached: {}/{} shards loaded", target, shardCount);
+				quorumReached.onComplete();
+			}
+		}
+		guildsLoadedSink.next(status);
+	}
+
+	private void leaveLoading(ShardStatus status) {
+		if (status.getState() == ShardState.READY) {
+			loadingShards.decrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.github.alex1304.ultimategdbot.api.shard;
+
+/**
+ * The lifecycle state of a single shard, as seen by the
+ * {@link ShardLoginOrchestrator}.
+ */
+public enum ShardState {
+	/**
+	 * The shard has not started logging in yet.
+	 */
+	WAITING,
+	/**
+	 * The shard is logging in and is waiting for its identify to be accepted.
+	 */
+	CONNECTING,
+	/**
+	 * The shard received its READY payload and is receiving the guilds it serves.
+	 */
+	READY,
+	/**
+	 * All guilds announced in the READY payload have been received, or the load
+	 * timed out. The shard is fully operational.
+	 */
+	GUILDS_LOADED,
+	/**
+	 * The shard lost its connection and is trying to resume or reconnect.
+	 */
+	RECONNECTING,
+	/**
+	 * The shard is disconnected and won't reconnect by itself.
+	 */
+	DISCONNECTED;
+}
@@ -0,0 +1,145 @@
+package com.github.alex1304.ultimategdbot.api.shard;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Holds the state of a shard along with timing information about its login.
+ * Instances are owned and updated by the {@link ShardLoginOrchestrator}.
+ */
+public class ShardStatus {
+
+	private final int shardIndex;
+	private volatile ShardState state = ShardState.WAITING;
+	private volatile long loginStartedAt;
+	private volatile long readyAt;
+	private volatile long guildsLoadedAt;
+	private volatile int expectedGuildCount;
+	private volatile int loadedGuildCount;
+	private volatile int readyCount;
+
+	ShardStatus(int shardIndex) {
+		this.shardIndex = shardIndex;
+	}
+
+	/**
+	 * Gets the index of the shard.
+	 *
+	 * @return the shard index
+	 */
+	public int getShardIndex() {
+		return shardIndex;
+	}
+
+	/**
+	 * Gets the current state of the shard.
+	 *
+	 * @return the state
+	 */
+	public ShardState getState() {
+		return state;
+	}
+
+	/**
+	 * Gets whether the shard is fully operational, that is, it has received all of
+	 * its guilds.
+	 *
+	 * @return a boolean
+	 */
+	public boolean isGuildsLoaded() {
+		return state == ShardState.GUILDS_LOADED;
+	}
+
+	/**
+	 * Gets the number of guilds announced by the last READY payload of this shard.
+	 *
+	 * @return the expected guild count
+	 */
+	public int getExpectedGuildCount() {
+		return expectedGuildCount;
+	}
+
+	/**
+	 * Gets the number of guilds that were effectively received after the last READY
+	 * payload, before the guild load completed or timed out.
+	 *
+	 * @return the loaded guild count
+	 */
+	public int getLoadedGuildCount() {
+		return loadedGuildCount;
+	}
+
+	/**
+	 * Gets how many times this shard has received a READY payload. A value greater
+	 * than 1 means the shard had to reconnect with a new session at least once.
+	 *
+	 * @return the number of READY payloads received
+	 */
+	public int getReadyCount() {
+		return readyCount;
+	}
+
+	/**
+	 * Gets the time elapsed between the start of the login and the reception of
+	 * the first READY payload.
+	 *
+	 * @return the time to ready, or empty if the shard isn't ready yet
+	 */
+	public Optional<Duration> getTimeToReady() {
+		return elapsed(loginStartedAt, readyAt);
+	}
+
+	/**
+	 * Gets the time elapsed between the start of the login and the moment all
+	 * guilds of the first READY payload were received.
+	 *
+	 * @return the time to load guilds, or empty if guilds are not loaded yet
+	 */
+	public Optional<Duration> getTimeToGuildsLoaded() {
+		return elapsed(loginStartedAt, guildsLoadedAt);
+	}
+
+	void markConnecting() {
+		loginStartedAt = System.nanoTime();
+		state = ShardState.CONNECTING;
+	}
+
+	void markReady(int expectedGuildCount) {
+		if (readyAt == 0) {
+			readyAt = System.nanoTime();
+		}
+		this.expectedGuildCount = expectedGuildCount;
+		this.loadedGuildCount = 0;
+		this.readyCount++;
+		state = ShardState.READY;
+	}
+
+	void markGuildsLoaded(int loadedGuildCount) {
+		if (guildsLoadedAt == 0) {
+			guildsLoadedAt = System.nanoTime();
+		}
+		this.loadedGuildCount = loadedGuildCount;
+		state = ShardState.GUILDS_LOADED;
+	}
+
+	void markResumed() {
+		state = ShardState.GUILDS_LOADED;
+	}
+
+	void setState(ShardState state) {
+		this.state = state;
+	}
+
+	private static Optional<Duration> elapsed(long from, long to) {
+		if (from == 0 || to == 0) {
+			return Optional.empty();
+		}
+		return Optional.of(Duration.ofNanos(to - from));
+	}
+
+	@Override
+	public String toString() {
+		return "ShardStatus{shardIndex=" + shardIndex + ", state=" + state + ", expectedGuildCount=" + expectedGuildCount
+				+ ", loadedGuildCount=" + loadedGuildCount + ", readyCount=" + readyCount + "}";
+	}
+}
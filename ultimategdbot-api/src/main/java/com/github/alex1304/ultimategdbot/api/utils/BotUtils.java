@@ -1,15 +1,17 @@
 package com.github.alex1304.ultimategdbot.api.utils;
 
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.github.alex1304.ultimategdbot.api.command.Context;
 import com.github.alex1304.ultimategdbot.api.utils.menu.InteractiveMenu;
-import com.github.alex1304.ultimategdbot.api.utils.menu.PageNumberOutOfRangeException;
 import com.github.alex1304.ultimategdbot.api.utils.menu.PaginationControls;
 
 import discord4j.core.object.entity.Message;
@@ -25,44 +27,36 @@ public class BotUtils {
 	}
 	
 	/**
-	 * Splits a message into several chunks which size is specified. If the chunk
-	 * ends while the text is inside a codeblock or a blockquote, proper markdown is
-	 * added to make the message continuous across chunks. This does not apply to
-	 * inline markdown such as bold, italic or spoilers.
+	 * Splits a message into several chunks which size is specified. Chunks end at
+	 * line boundaries when possible, and lines that are too long are split at word
+	 * boundaries. If the chunk ends while the text is inside a codeblock or a
+	 * blockquote, proper markdown is added to make the message continuous across
+	 * chunks. This does not apply to inline markdown such as bold, italic or
+	 * spoilers.
 	 * 
 	 * @param superLongMessage the message to split
 	 * @param maxCharacters    the max characters that a single chunk may have
 	 * @return a List which elements are the chunks in the correct order
+	 * @throws IllegalArgumentException if maxCharacters is less than 16
 	 */
 	public static List<String> splitMessage(String superLongMessage, int maxCharacters) {
-		var chunks = new ArrayList<String>();
-		var currentChunk = new StringBuilder();
-		var inCodeblock = false;
-		var inBlockquote = false;
-		for (var line : superLongMessage.lines().collect(Collectors.toList())) {
-			inCodeblock = line.startsWith("```") && !line.substring(3).contains("```") ? !inCodeblock : inCodeblock;
-			inBlockquote = inBlockquote || line.startsWith(">>> ");
-			if (currentChunk.length() + line.length() + 1 >= maxCharacters) {
-				if (inCodeblock) {
-					currentChunk.append("```\n");
-				}
-				chunks.add(currentChunk.substring(0, Math.min(currentChunk.length(), maxCharacters)).toString());
-				currentChunk.delete(0, currentChunk.length());
-			} else {
-				if (!chunks.isEmpty() && currentChunk.length() == 0) {
-					if (inBlockquote) {
-						currentChunk.append(">>> ");
-					}
-					if (inCodeblock) {
-						currentChunk.append("```\n");
-					}
-				}
-			}
-			currentChunk.append(line);
-			currentChunk.append('\n');
-		}
-		chunks.add(currentChunk.toString());
-		return chunks;
+		return splitMessageLazily(superLongMessage, maxCharacters).collect(Collectors.toList());
+	}
+	
+	/**
+	 * Splits a message the same way as {@link #splitMessage(String, int)}, except
+	 * that chunks are computed in a single pass as the stream is consumed. It is
+	 * more efficient on large texts, especially when only the first chunks are
+	 * needed.
+	 * 
+	 * @param superLongMessage the message to split
+	 * @param maxCharacters    the max characters that a single chunk may have
+	 * @return a Stream of the chunks in the correct order
+	 * @throws IllegalArgumentException if maxCharacters is less than 16
+	 */
+	public static Stream<String> splitMessageLazily(CharSequence superLongMessage, int maxCharacters) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new MessageSplitter(superLongMessage, maxCharacters),
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
 	}
 	
 	/**
@@ -121,7 +115,7 @@ public class BotUtils {
 		}
 		return ctx.getBot().getDebugLogChannel()
 				.ofType(MessageChannel.class)
-				.flatMapMany(c -> Flux.fromIterable(splitMessage(sb.toString()))
+				.flatMapMany(c -> Flux.fromStream(() -> splitMessageLazily(sb, Message.MAX_CONTENT_LENGTH - 10))
 						.flatMap(c::createMessage));
 	}
 	
@@ -133,11 +127,9 @@ public class BotUtils {
 			return ctx.reply(text).then();
 		}
 		var parts = splitMessage(text, pageLength);
-		return InteractiveMenu.createPaginated(new AtomicInteger(), controls, page -> {
-					PageNumberOutOfRangeException.check(page, 0, parts.size() - 1);
-					return new UniversalMessageSpec(parts.get(page), embed -> embed.addField("Page " + (page + 1) + "/" + parts.size(),
-							"To go to a specific page, type `page <number>`, e.g `page 3`", true));
-				})
+		return InteractiveMenu.createAsyncPaginated(new AtomicInteger(), controls, parts.size(), page -> Mono.just(
+						new UniversalMessageSpec(parts.get(page), embed -> embed.addField("Page " + (page + 1) + "/" + parts.size(),
+								"To go to a specific page, type `page <number>`, e.g `page 3`", true))))
 				.open(ctx);
 	}
 	
@@ -1,5 +1,6 @@
 package com.github.alex1304.ultimategdbot.api.utils;
 
+import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -15,6 +16,33 @@ import reactor.core.publisher.Mono;
  * Function that determines the string to display to the user after reading the value from teh database.
  */
 public interface DatabaseOutputFunction<D> extends BiFunction<D, Long, Mono<String>> {
+	/**
+	 * Gives the string representation of the value, looking up the entities it
+	 * refers to in the given snapshot instead of requesting them. The functions
+	 * reading role, channel or user IDs provided by this interface don't make any
+	 * request when called this way. By default, this simply calls
+	 * {@link #apply(Object, Object)}.
+	 * 
+	 * @param value    the value read from the database
+	 * @param guildId  the ID of the guild
+	 * @param snapshot the entities of the guild that were fetched beforehand
+	 * @return a Mono emitting the string representation of the value
+	 */
+	default Mono<String> apply(D value, Long guildId, GuildEntitySnapshot snapshot) {
+		return apply(value, guildId);
+	}
+	
+	/**
+	 * Gets the IDs of the users the value refers to, which need to be fetched in
+	 * the snapshot given to {@link #apply(Object, Long, GuildEntitySnapshot)}.
+	 * 
+	 * @param value the value read from the database
+	 * @return the user IDs, empty by default
+	 */
+	default Set<Long> referencedUserIds(D value) {
+		return Set.of();
+	}
+	
 	/**
 	 * Forwards the value from the database by returning its string representation
 	 * provided by {@link Object#toString()}
@@ -62,10 +90,20 @@ public interface DatabaseOutputFunction<D> extends BiFunction<D, Long, Mono<Stri
 	 *         role found.
 	 */
 	public static DatabaseOutputFunction<Long> fromRoleId(Bot bot, Function<? super Role, String> roleToString) {
-		return (roleId, guildId) -> bot.getMainDiscordClient()
-				.getRoleById(Snowflake.of(guildId), Snowflake.of(roleId))
-				.map(roleToString::apply)
-				.onErrorResume(e -> Mono.empty());
+		return new DatabaseOutputFunction<>() {
+			@Override
+			public Mono<String> apply(Long roleId, Long guildId) {
+				return bot.getMainDiscordClient()
+						.getRoleById(Snowflake.of(guildId), Snowflake.of(roleId))
+						.map(roleToString::apply)
+						.onErrorResume(e -> Mono.empty());
+			}
+			
+			@Override
+			public Mono<String> apply(Long roleId, Long guildId, GuildEntitySnapshot snapshot) {
+				return Mono.justOrEmpty(snapshot.getRole(roleId).map(roleToString));
+			}
+		};
 	}
 	
 	/**
@@ -92,10 +130,25 @@ public interface DatabaseOutputFunction<D> extends BiFunction<D, Long, Mono<Stri
 	 *         user found.
 	 */
 	public static DatabaseOutputFunction<Long> fromUserId(Bot bot, Function<? super User, String> userToString) {
-		return (userId, guildId) -> bot.getMainDiscordClient()
-				.getUserById(Snowflake.of(userId))
-				.map(userToString)
-				.onErrorResume(e -> Mono.empty());
+		return new DatabaseOutputFunction<>() {
+			@Override
+			public Mono<String> apply(Long userId, Long guildId) {
+				return bot.getMainDiscordClient()
+						.getUserById(Snowflake.of(userId))
+						.map(userToString)
+						.onErrorResume(e -> Mono.empty());
+			}
+			
+			@Override
+			public Mono<String> apply(Long userId, Long guildId, GuildEntitySnapshot snapshot) {
+				return Mono.justOrEmpty(snapshot.getUser(userId).map(userToString));
+			}
+			
+			@Override
+			public Set<Long> referencedUserIds(Long userId) {
+				return Set.of(userId);
+			}
+		};
 	}
 	
 	/**
@@ -122,11 +175,21 @@ public interface DatabaseOutputFunction<D> extends BiFunction<D, Long, Mono<Stri
 	 *         channel found.
 	 */
 	public static DatabaseOutputFunction<Long> fromChannelId(Bot bot, Function<? super GuildChannel, String> channelToString) {
-		return (channelId, guildId) -> bot.getMainDiscordClient()
-				.getChannelById(Snowflake.of(channelId))
-				.ofType(GuildChannel.class)
-				.map(channelToString::apply)
-				.onErrorResume(e -> Mono.empty());
+		return new DatabaseOutputFunction<>() {
+			@Override
+			public Mono<String> apply(Long channelId, Long guildId) {
+				return bot.getMainDiscordClient()
+						.getChannelById(Snowflake.of(channelId))
+						.ofType(GuildChannel.class)
+						.map(channelToString::apply)
+						.onErrorResume(e -> Mono.empty());
+			}
+			
+			@Override
+			public Mono<String> apply(Long channelId, Long guildId, GuildEntitySnapshot snapshot) {
+				return Mono.justOrEmpty(snapshot.getChannel(channelId).map(channelToString));
+			}
+		};
 	}
 	
 	/**
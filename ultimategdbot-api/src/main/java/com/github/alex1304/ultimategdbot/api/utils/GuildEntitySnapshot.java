@@ -0,0 +1,72 @@
+package com.github.alex1304.ultimategdbot.api.utils;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import discord4j.core.object.entity.Guild;
+import discord4j.core.object.entity.GuildChannel;
+import discord4j.core.object.entity.Role;
+import discord4j.core.object.entity.User;
+import discord4j.core.object.util.Snowflake;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Roles, channels and users of a guild fetched all at once, so that values
+ * referencing them can be formatted without making any further request. Roles
+ * and channels are read from the cache of the guild, users are only fetched if
+ * they are explicitly asked for.
+ */
+public class GuildEntitySnapshot {
+
+	private final Map<Long, Role> roles;
+	private final Map<Long, GuildChannel> channels;
+	private final Map<Long, User> users;
+
+	private GuildEntitySnapshot(Map<Long, Role> roles, Map<Long, GuildChannel> channels, Map<Long, User> users) {
+		this.roles = roles;
+		this.channels = channels;
+		this.users = users;
+	}
+
+	/**
+	 * Fetches the roles and channels of the given guild, along with the users
+	 * having the given IDs. Entities that can't be fetched are left out of the
+	 * snapshot.
+	 *
+	 * @param guild   the guild
+	 * @param userIds the IDs of the users to fetch
+	 * @return a Mono emitting the snapshot
+	 */
+	public static Mono<GuildEntitySnapshot> fetch(Guild guild, Set<Long> userIds) {
+		requireNonNull(guild);
+		requireNonNull(userIds);
+		var roles = guild.getRoles()
+				.onErrorResume(e -> Mono.empty())
+				.collectMap(role -> role.getId().asLong());
+		var channels = guild.getChannels()
+				.onErrorResume(e -> Mono.empty())
+				.collectMap(channel -> channel.getId().asLong());
+		var users = Flux.fromIterable(userIds)
+				.flatMap(userId -> guild.getClient().getUserById(Snowflake.of(userId))
+						.onErrorResume(e -> Mono.empty()))
+				.collectMap(user -> user.getId().asLong());
+		return Mono.zip(roles, channels, users)
+				.map(tuple -> new GuildEntitySnapshot(tuple.getT1(), tuple.getT2(), tuple.getT3()));
+	}
+
+	public Optional<Role> getRole(long roleId) {
+		return Optional.ofNullable(roles.get(roleId));
+	}
+
+	public Optional<GuildChannel> getChannel(long channelId) {
+		return Optional.ofNullable(channels.get(channelId));
+	}
+
+	public Optional<User> getUser(long userId) {
+		return Optional.ofNullable(users.get(userId));
+	}
+}
@@ -0,0 +1,150 @@
+package com.github.alex1304.ultimategdbot.api.utils;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+
+import com.github.alex1304.ultimategdbot.api.jfr.BotEvent;
+import com.github.alex1304.ultimategdbot.api.jfr.RestRequestEvent;
+
+import discord4j.rest.request.GlobalRateLimiter;
+import discord4j.rest.request.SemaphoreGlobalRateLimiter;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+
+/**
+ * Decorates a {@link GlobalRateLimiter} in order to count the requests going
+ * through it, how long they wait for a permit and how many times Discord
+ * enforced a global rate limit. Each request also emits a
+ * {@link RestRequestEvent} if the flight recorder is recording it.
+ *
+ * <p>
+ * A request cancelled while waiting for a permit is not cancelled in the
+ * decorated limiter until the permit is granted, and gives the permit back
+ * right away. Otherwise {@link SemaphoreGlobalRateLimiter} loses permits
+ * acquired by cancelled requests, until no request can go through anymore.
+ */
+public class InstrumentedGlobalRateLimiter implements GlobalRateLimiter {
+
+	private final GlobalRateLimiter delegate;
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong waitTimeNanos = new AtomicLong();
+	private final AtomicLong globalRateLimits = new AtomicLong();
+
+	public InstrumentedGlobalRateLimiter(GlobalRateLimiter delegate) {
+		this.delegate = Objects.requireNonNull(delegate);
+	}
+
+	@Override
+	public void rateLimitFor(Duration duration) {
+		globalRateLimits.incrementAndGet();
+		delegate.rateLimitFor(duration);
+	}
+
+	@Override
+	public Duration getRemaining() {
+		return delegate.getRemaining();
+	}
+
+	@Override
+	public <T> Flux<T> withLimiter(Publisher<T> stage) {
+		return Flux.defer(() -> {
+			var queuedAt = System.nanoTime();
+			var event = new RestRequestEvent();
+			var recordEvent = event.isEnabled();
+			if (recordEvent) {
+				event.begin();
+			}
+			var waitTime = new long[1];
+			var granted = new AtomicBoolean();
+			var cancelled = new AtomicBoolean();
+			var limited = guardCancellation(delegate.withLimiter(Flux.defer(() -> {
+						granted.set(true);
+						if (cancelled.get()) {
+							return Flux.empty();
+						}
+						requests.incrementAndGet();
+						inFlight.incrementAndGet();
+						waitTime[0] = System.nanoTime() - queuedAt;
+						waitTimeNanos.addAndGet(waitTime[0]);
+						return Flux.from(stage).doFinally(signal -> inFlight.decrementAndGet());
+					})), granted, cancelled);
+			if (!recordEvent) {
+				return limited;
+			}
+			return limited
+					.doOnComplete(() -> event.complete(waitTime[0], BotEvent.outcome(null)))
+					.doOnError(e -> event.complete(waitTime[0], BotEvent.outcome(e)))
+					.doOnCancel(() -> event.complete(waitTime[0], "CANCELLED"));
+		});
+	}
+
+	/**
+	 * Cancels the limited publisher only once it holds a permit. Until then, the
+	 * cancellation is recorded so that the stage is skipped when the permit is
+	 * granted.
+	 */
+	private static <T> Flux<T> guardCancellation(Flux<T> limited, AtomicBoolean granted, AtomicBoolean cancelled) {
+		return Flux.create(sink -> {
+			var subscription = Disposables.swap();
+			sink.onCancel(() -> {
+				cancelled.set(true);
+				if (granted.get()) {
+					subscription.dispose();
+				}
+			});
+			subscription.update(limited.subscribe(sink::next, e -> {
+				// Nobody listens to the outcome of a request cancelled right as it was granted
+				if (!sink.isCancelled()) {
+					sink.error(e);
+				}
+			}, sink::complete));
+		});
+	}
+
+	/**
+	 * Gets the number of requests that were granted a permit.
+	 *
+	 * @return the request count
+	 */
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	/**
+	 * Gets the number of requests currently holding a permit.
+	 *
+	 * @return the in-flight request count
+	 */
+	public int getInFlightCount() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Gets the total time requests have spent waiting for a permit.
+	 *
+	 * @return the total wait time
+	 */
+	public Duration getTotalWaitTime() {
+		return Duration.ofNanos(waitTimeNanos.get());
+	}
+
+	/**
+	 * Gets the number of times Discord responded with a global rate limit.
+	 *
+	 * @return the global rate limit count
+	 */
+	public long getGlobalRateLimitCount() {
+		return globalRateLimits.get();
+	}
+
+	@Override
+	public String toString() {
+		return "InstrumentedGlobalRateLimiter{delegate=" + delegate + "}";
+	}
+}
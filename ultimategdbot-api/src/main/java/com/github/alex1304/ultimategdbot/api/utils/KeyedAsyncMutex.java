@@ -0,0 +1,248 @@
+package com.github.alex1304.ultimategdbot.api.utils;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Asynchronous read/write lock identified by a key. Waiters of a given key are
+ * served in FIFO order, without blocking any thread. A key only uses memory
+ * while it is held or waited for: its state is freed as soon as the last
+ * holder or waiter leaves, so locking on many distinct keys (such as one per
+ * user or per guild) doesn't accumulate anything.
+ */
+public class KeyedAsyncMutex {
+
+	// Grants signalled while already signalling grants on the same thread
+	private static final ThreadLocal<ArrayDeque<MonoSink<Void>>> PENDING_GRANTS = new ThreadLocal<>();
+	
+	// All state transitions of a key happen atomically inside ConcurrentHashMap.compute
+	private final ConcurrentHashMap<Object, KeyState> keys = new ConcurrentHashMap<>();
+
+	/**
+	 * Acquires the exclusive lock of the given key, subscribes to the given
+	 * Publisher, and releases the lock once the Publisher terminates or the
+	 * subscription is cancelled.
+	 *
+	 * @param <X>   the type of elements emitted by the Publisher
+	 * @param key   the key to lock
+	 * @param until the Publisher to run while holding the lock
+	 * @return a Flux forwarding the signals of the given Publisher
+	 */
+	public <X> Flux<X> acquireUntil(Object key, Publisher<X> until) {
+		return acquireUntil(key, until, true, null);
+	}
+
+	/**
+	 * Acquires the exclusive lock of the given key, subscribes to the given
+	 * Publisher, and releases the lock once the Publisher terminates or the
+	 * subscription is cancelled. If the lock can't be acquired within the given
+	 * timeout, the returned Flux errors with a {@link TimeoutException} and the
+	 * Publisher is never subscribed.
+	 *
+	 * @param <X>     the type of elements emitted by the Publisher
+	 * @param key     the key to lock
+	 * @param until   the Publisher to run while holding the lock
+	 * @param timeout the maximum time to wait for the lock
+	 * @return a Flux forwarding the signals of the given Publisher
+	 */
+	public <X> Flux<X> acquireUntil(Object key, Publisher<X> until, Duration timeout) {
+		return acquireUntil(key, until, true, requireNonNull(timeout));
+	}
+
+	/**
+	 * Acquires the shared lock of the given key, subscribes to the given
+	 * Publisher, and releases the lock once the Publisher terminates or the
+	 * subscription is cancelled. Several holders of the shared lock may run at
+	 * the same time, but never while the exclusive lock is held.
+	 *
+	 * @param <X>   the type of elements emitted by the Publisher
+	 * @param key   the key to lock
+	 * @param until the Publisher to run while holding the lock
+	 * @return a Flux forwarding the signals of the given Publisher
+	 */
+	public <X> Flux<X> acquireReadUntil(Object key, Publisher<X> until) {
+		return acquireUntil(key, until, false, null);
+	}
+
+	/**
+	 * Same as {@link #acquireReadUntil(Object, Publisher)}, but errors with a
+	 * {@link TimeoutException} if the lock can't be acquired within the given
+	 * timeout.
+	 *
+	 * @param <X>     the type of elements emitted by the Publisher
+	 * @param key     the key to lock
+	 * @param until   the Publisher to run while holding the lock
+	 * @param timeout the maximum time to wait for the lock
+	 * @return a Flux forwarding the signals of the given Publisher
+	 */
+	public <X> Flux<X> acquireReadUntil(Object key, Publisher<X> until, Duration timeout) {
+		return acquireUntil(key, until, false, requireNonNull(timeout));
+	}
+
+	/**
+	 * Gets the number of keys currently held or waited for.
+	 *
+	 * @return the number of keys in use
+	 */
+	public int getActiveKeyCount() {
+		return keys.size();
+	}
+
+	private <X> Flux<X> acquireUntil(Object key, Publisher<X> until, boolean exclusive, Duration timeout) {
+		requireNonNull(key);
+		requireNonNull(until);
+		return Flux.defer(() -> {
+			var waiter = new Waiter(exclusive);
+			var acquire = Mono.<Void>create(sink -> {
+				waiter.sink = sink;
+				keys.compute(key, (k, state) -> {
+					if (waiter.left) {
+						// Cancelled before even getting in line
+						return state;
+					}
+					waiter.registered = true;
+					if (state == null) {
+						state = new KeyState();
+					}
+					state.users++;
+					if (state.waiters == null || state.waiters.isEmpty()) {
+						if (state.tryGrant(waiter)) {
+							return state;
+						}
+					}
+					if (state.waiters == null) {
+						state.waiters = new ArrayDeque<>();
+					}
+					state.waiters.add(waiter);
+					return state;
+				});
+				if (waiter.granted) {
+					sink.success();
+				}
+			});
+			// Released before the termination is signalled downstream, so that the
+			// key is free by the time the subscriber is notified
+			return (timeout == null ? acquire : acquire.timeout(timeout))
+					.thenMany(until)
+					.doOnTerminate(() -> leave(key, waiter))
+					.doOnCancel(() -> leave(key, waiter));
+		});
+	}
+
+	private void leave(Object key, Waiter waiter) {
+		var granted = new ArrayList<Waiter>(1);
+		keys.compute(key, (k, state) -> {
+			if (waiter.left) {
+				return state;
+			}
+			waiter.left = true;
+			if (!waiter.registered) {
+				return state;
+			}
+			if (waiter.granted) {
+				state.release(waiter);
+				state.grantWaiting(granted);
+			} else {
+				state.waiters.remove(waiter);
+				// A waiting writer may have been blocking readers behind it
+				state.grantWaiting(granted);
+			}
+			state.users--;
+			return state.users == 0 ? null : state;
+		});
+		signalGranted(granted);
+	}
+
+	/**
+	 * Resumes the waiters that were granted the lock. A resumed waiter may run
+	 * and release the lock synchronously, which grants the lock to the next
+	 * waiter, and so on. To keep the stack from growing with the queue, grants
+	 * made while already signalling are queued and signalled by the outermost
+	 * call instead.
+	 */
+	private static void signalGranted(List<Waiter> granted) {
+		if (granted.isEmpty()) {
+			return;
+		}
+		var pending = PENDING_GRANTS.get();
+		if (pending != null) {
+			granted.forEach(waiter -> pending.add(waiter.sink));
+			return;
+		}
+		var newPending = new ArrayDeque<MonoSink<Void>>();
+		PENDING_GRANTS.set(newPending);
+		try {
+			granted.forEach(waiter -> newPending.add(waiter.sink));
+			MonoSink<Void> sink;
+			while ((sink = newPending.poll()) != null) {
+				sink.success();
+			}
+		} finally {
+			PENDING_GRANTS.remove();
+		}
+	}
+
+	private static class KeyState {
+		private int users;
+		private int readers;
+		private boolean writing;
+		private ArrayDeque<Waiter> waiters;
+
+		private boolean tryGrant(Waiter waiter) {
+			if (writing || (waiter.exclusive && readers > 0)) {
+				return false;
+			}
+			if (waiter.exclusive) {
+				writing = true;
+			} else {
+				readers++;
+			}
+			waiter.granted = true;
+			return true;
+		}
+
+		private void release(Waiter waiter) {
+			if (waiter.exclusive) {
+				writing = false;
+			} else {
+				readers--;
+			}
+		}
+
+		private void grantWaiting(List<Waiter> granted) {
+			if (waiters == null) {
+				return;
+			}
+			Waiter next;
+			while ((next = waiters.peek()) != null && tryGrant(next)) {
+				waiters.poll();
+				granted.add(next);
+			}
+		}
+	}
+
+	private static class Waiter {
+		private final boolean exclusive;
+		private MonoSink<Void> sink;
+		// Only read and written inside ConcurrentHashMap.compute for the key
+		private boolean registered;
+		private boolean granted;
+		private boolean left;
+
+		private Waiter(boolean exclusive) {
+			this.exclusive = exclusive;
+		}
+	}
+}
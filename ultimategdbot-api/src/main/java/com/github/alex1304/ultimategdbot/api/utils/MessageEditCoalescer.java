@@ -0,0 +1,87 @@
+package com.github.alex1304.ultimategdbot.api.utils;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.function.Consumer;
+
+import discord4j.core.object.entity.Message;
+import discord4j.core.spec.MessageEditSpec;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * Coalesces the edits of a single message. At most one edit request is in
+ * flight at a time. Edits submitted meanwhile replace each other, and only the
+ * latest one is sent once the current request finishes, so intermediate states
+ * that would be immediately overwritten are never sent to Discord. This is
+ * useful for messages that may be edited faster than the rate limit allows,
+ * such as menus or progress messages.
+ */
+public class MessageEditCoalescer {
+
+	private final Message message;
+	private Consumer<MessageEditSpec> pendingSpec;
+	private MonoProcessor<Void> pendingDone;
+	private boolean editing;
+
+	public MessageEditCoalescer(Message message) {
+		this.message = requireNonNull(message);
+	}
+
+	/**
+	 * Submits an edit of the message. If an edit is already in progress, this
+	 * one is sent after it finishes, unless it gets replaced by a more recent
+	 * edit in the meantime.
+	 *
+	 * @param spec the spec of the edit
+	 * @return a Mono completing when this edit or an edit that replaced it has
+	 *         been applied, or erroring if that edit failed. Cancelling it does
+	 *         not cancel the edit.
+	 */
+	public Mono<Void> edit(Consumer<MessageEditSpec> spec) {
+		requireNonNull(spec);
+		return Mono.defer(() -> {
+			MonoProcessor<Void> done;
+			boolean startEditing;
+			synchronized (this) {
+				pendingSpec = spec;
+				if (pendingDone == null) {
+					pendingDone = MonoProcessor.create();
+				}
+				done = pendingDone;
+				startEditing = !editing;
+				editing = true;
+			}
+			if (startEditing) {
+				sendPending();
+			}
+			return done;
+		});
+	}
+
+	public Message getMessage() {
+		return message;
+	}
+
+	private void sendPending() {
+		Consumer<MessageEditSpec> spec;
+		MonoProcessor<Void> done;
+		synchronized (this) {
+			spec = pendingSpec;
+			done = pendingDone;
+			pendingSpec = null;
+			pendingDone = null;
+			if (spec == null) {
+				editing = false;
+				return;
+			}
+		}
+		message.edit(spec).then().subscribe(null, e -> {
+			done.onError(e);
+			sendPending();
+		}, () -> {
+			done.onComplete();
+			sendPending();
+		});
+	}
+}
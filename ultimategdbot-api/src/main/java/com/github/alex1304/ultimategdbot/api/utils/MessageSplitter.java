@@ -0,0 +1,255 @@
+package com.github.alex1304.ultimategdbot.api.utils;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Splits a text into chunks of limited size in a single pass, one chunk at a
+ * time. Chunks preferably end at line boundaries, or else at word boundaries
+ * if a line is too long. Code blocks and blockquotes that span several chunks
+ * are closed and reopened so that each chunk renders the same as the original
+ * text would. Each chunk is copied from the input once, the input itself is
+ * never copied.
+ */
+final class MessageSplitter implements Iterator<String> {
+
+	static final int MIN_CHUNK_LENGTH = 16;
+
+	private static final String FENCE = "```";
+	private static final String BLOCKQUOTE = ">>> ";
+	private static final String CLOSING_FENCE = "\n" + FENCE;
+
+	private final CharSequence text;
+	private final int maxCharacters;
+	private int pos;
+	private boolean started;
+	private boolean inCodeblock;
+	private boolean inBlockquote;
+	// Whether the previous chunk ended in the middle of a line
+	private boolean midLine;
+	// Span of the line that opened the current code block, to reopen it with the same language
+	private int fenceStart;
+	private int fenceEnd;
+
+	MessageSplitter(CharSequence text, int maxCharacters) {
+		this.text = Objects.requireNonNull(text);
+		if (maxCharacters < MIN_CHUNK_LENGTH) {
+			throw new IllegalArgumentException("maxCharacters must be at least " + MIN_CHUNK_LENGTH);
+		}
+		this.maxCharacters = maxCharacters;
+	}
+
+	@Override
+	public boolean hasNext() {
+		// An empty text still gives one empty chunk, but trailing blank lines don't get a chunk of their own
+		return !started || !isBlank(pos, text.length());
+	}
+
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		var reopenBlockquote = started && inBlockquote;
+		var reopenCodeblock = started && inCodeblock;
+		started = true;
+		// The fence may change while reading the chunk if it closes and opens code blocks
+		var reopenedFenceStart = fenceStart;
+		var reopenedFenceLength = reopenCodeblock ? reopeningFenceLength() : -1;
+		var prefixLength = (reopenBlockquote ? BLOCKQUOTE.length() : 0) + reopenedFenceLength + 1;
+		var budget = maxCharacters - prefixLength;
+		var start = pos;
+		if (!inCodeblock) {
+			var contentStart = skipLongBlankRun(start, budget);
+			if (contentStart != start) {
+				start = contentStart;
+				midLine = false;
+			}
+		}
+		var end = start;
+		var next = start;
+		var length = text.length();
+		// Where the chunk ended before the last line, if that line opened a code block
+		var endBeforeOpeningFence = -1;
+		while (next < length) {
+			var lineStart = next;
+			var lineEnd = indexOfNewline(lineStart);
+			var contentEnd = lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+			var partialLine = lineStart == start && midLine;
+			var togglesCodeblock = !partialLine && isFence(lineStart, contentEnd);
+			var codeblockAfter = inCodeblock ^ togglesCodeblock;
+			var closingLength = codeblockAfter ? CLOSING_FENCE.length() : 0;
+			if (contentEnd - start + closingLength <= budget) {
+				if (!partialLine) {
+					applyLineState(lineStart, contentEnd, togglesCodeblock);
+				}
+				endBeforeOpeningFence = togglesCodeblock && inCodeblock && !isBlank(start, end) ? end : -1;
+				end = contentEnd;
+				next = lineEnd < length ? lineEnd + 1 : length;
+				continue;
+			}
+			if (endBeforeOpeningFence >= 0) {
+				// Leave the opening line to the next chunk rather than ending with an empty code block
+				inCodeblock = false;
+				next = fenceStart;
+				end = endBeforeOpeningFence;
+			} else if (isBlank(start, end) || onlyOpensCodeblock(start, end, lineStart, budget)) {
+				// The first non-blank line doesn't fit on its own, or follows the line that opened the code block
+				// and would leave it empty: cut it at the last word that fits
+				if (!partialLine) {
+					applyLineState(lineStart, contentEnd, togglesCodeblock);
+				}
+				var limit = start + budget - (inCodeblock ? CLOSING_FENCE.length() : 0);
+				if (lineStart >= limit) {
+					// Leading blank lines take the whole chunk, drop them rather than sending a blank chunk
+					start = lineStart;
+					limit = start + budget - (inCodeblock ? CLOSING_FENCE.length() : 0);
+				}
+				var cut = findCut(lineStart, limit);
+				end = cut;
+				next = cut < length && Character.isWhitespace(text.charAt(cut)) && text.charAt(cut) != '\n' ? cut + 1 : cut;
+			}
+			break;
+		}
+		midLine = next > 0 && next < length && text.charAt(next - 1) != '\n';
+		pos = next;
+		return buildChunk(start, end, reopenBlockquote, reopenedFenceStart, reopenedFenceLength);
+	}
+
+	/**
+	 * Whether the chunk read so far only consists of blank lines and the line
+	 * opening a code block, and there is room left to put part of the next line
+	 * in it.
+	 */
+	private boolean onlyOpensCodeblock(int start, int end, int lineStart, int budget) {
+		return inCodeblock && fenceEnd == end && isBlank(start, fenceStart)
+				&& lineStart < start + budget - CLOSING_FENCE.length();
+	}
+
+	/**
+	 * Skips the blank lines starting at the given position if there are too many
+	 * of them to fit in a chunk along with some content, as the chunk would be
+	 * blank and couldn't be sent. Messages are trimmed anyway.
+	 */
+	private int skipLongBlankRun(int from, int budget) {
+		var length = text.length();
+		var lineStart = from;
+		for (var i = from; i < length && Character.isWhitespace(text.charAt(i)); i++) {
+			if (text.charAt(i) == '\n') {
+				lineStart = i + 1;
+			}
+			if (i + 1 == length) {
+				return from;
+			}
+		}
+		return lineStart - from >= budget - MIN_CHUNK_LENGTH / 2 ? lineStart : from;
+	}
+
+	private boolean isBlank(int from, int to) {
+		for (var i = from; i < to; i++) {
+			if (!Character.isWhitespace(text.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void applyLineState(int lineStart, int contentEnd, boolean togglesCodeblock) {
+		if (togglesCodeblock) {
+			inCodeblock = !inCodeblock;
+			if (inCodeblock) {
+				fenceStart = lineStart;
+				fenceEnd = contentEnd;
+			}
+		} else if (!inCodeblock && !inBlockquote && startsWith(lineStart, contentEnd, BLOCKQUOTE)) {
+			inBlockquote = true;
+		}
+	}
+
+	private String buildChunk(int start, int end, boolean reopenBlockquote, int reopenedFenceStart, int reopenedFenceLength) {
+		var reopenCodeblock = reopenedFenceLength >= 0;
+		var closeCodeblock = inCodeblock && pos < text.length();
+		if (!reopenBlockquote && !reopenCodeblock && !closeCodeblock) {
+			return text.subSequence(start, end).toString();
+		}
+		var sb = new StringBuilder(maxCharacters);
+		if (reopenBlockquote) {
+			sb.append(BLOCKQUOTE);
+		}
+		if (reopenCodeblock) {
+			sb.append(text, reopenedFenceStart, reopenedFenceStart + reopenedFenceLength).append('\n');
+		}
+		sb.append(text, start, end);
+		if (closeCodeblock) {
+			sb.append(CLOSING_FENCE);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Code blocks are reopened with the line that opened them so that they keep
+	 * their language, unless that line is unreasonably long.
+	 */
+	private int reopeningFenceLength() {
+		var length = fenceEnd - fenceStart;
+		return length <= maxCharacters - MIN_CHUNK_LENGTH ? length : FENCE.length();
+	}
+
+	/**
+	 * Finds where to cut a line that is too long, which is the last whitespace
+	 * before the limit that follows a word, or the limit itself if there is none.
+	 */
+	private int findCut(int start, int limit) {
+		limit = Math.min(Math.max(limit, start + 1), text.length() - 1);
+		var firstWord = start;
+		while (firstWord < limit && Character.isWhitespace(text.charAt(firstWord))) {
+			firstWord++;
+		}
+		for (var i = limit; i > firstWord; i--) {
+			if (Character.isWhitespace(text.charAt(i))) {
+				return i;
+			}
+		}
+		// Don't cut surrogate pairs in half
+		return Character.isHighSurrogate(text.charAt(limit - 1)) && limit - 1 > start ? limit - 1 : limit;
+	}
+
+	private int indexOfNewline(int from) {
+		var length = text.length();
+		for (var i = from; i < length; i++) {
+			if (text.charAt(i) == '\n') {
+				return i;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * A line starting with a fence opens or closes a code block, unless it closes
+	 * it on the same line.
+	 */
+	private boolean isFence(int lineStart, int contentEnd) {
+		if (!startsWith(lineStart, contentEnd, FENCE)) {
+			return false;
+		}
+		for (var i = lineStart + FENCE.length(); i + FENCE.length() <= contentEnd; i++) {
+			if (startsWith(i, contentEnd, FENCE)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean startsWith(int from, int to, String prefix) {
+		if (to - from < prefix.length()) {
+			return false;
+		}
+		for (var i = 0; i < prefix.length(); i++) {
+			if (text.charAt(from + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -3,9 +3,6 @@ package com.github.alex1304.ultimategdbot.api.utils.menu;
 import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -13,17 +10,22 @@ import java.util.function.IntFunction;
 
 import com.github.alex1304.ultimategdbot.api.command.ArgumentList;
 import com.github.alex1304.ultimategdbot.api.command.Context;
+import com.github.alex1304.ultimategdbot.api.jfr.BotEvent;
+import com.github.alex1304.ultimategdbot.api.jfr.MenuLifecycleEvent;
 import com.github.alex1304.ultimategdbot.api.utils.InputTokenizer;
+import com.github.alex1304.ultimategdbot.api.utils.MessageEditCoalescer;
 import com.github.alex1304.ultimategdbot.api.utils.UniversalMessageSpec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import discord4j.core.event.domain.message.MessageCreateEvent;
 import discord4j.core.event.domain.message.ReactionAddEvent;
 import discord4j.core.event.domain.message.ReactionRemoveEvent;
 import discord4j.core.object.entity.Message;
 import discord4j.core.object.entity.User;
-import discord4j.core.object.reaction.ReactionEmoji;
 import discord4j.core.object.reaction.ReactionEmoji.Custom;
 import discord4j.core.object.reaction.ReactionEmoji.Unicode;
+import discord4j.core.object.util.Snowflake;
 import discord4j.core.spec.MessageCreateSpec;
 import discord4j.rest.http.client.ClientException;
 import reactor.core.publisher.Flux;
@@ -33,29 +35,31 @@ import reactor.core.publisher.MonoProcessor;
 /**
  * Utility to create interactive menus in Discord. An interactive menu first
  * sends a message as a prompt and waits for a interaction from the user. The
- * said interaction can be either a message or a reaction.
+ * said interaction can be either a message or a reaction. Menus that are
+ * opened often should rather be instantiated from a {@link MenuTemplate}, so
+ * that their items are set up only once.
  */
 public class InteractiveMenu {
 	
+	private static final Cache<Snowflake, Boolean> CHANNELS_MISSING_REACTION_PERMISSION = Caffeine.newBuilder()
+			.expireAfterWrite(Duration.ofMinutes(10))
+			.build();
+	private static final int DEFAULT_PAGE_CACHE_SIZE = 10;
+	
+	private static final MenuTemplate<Object> EMPTY_TEMPLATE = MenuTemplate.builder().build();
+	// Templates of paginated menus, weakly keyed by controls so that plugins creating their own don't leak
+	private static final Cache<PaginationControls, MenuTemplate<PaginationState>> PAGINATED_TEMPLATES = Caffeine.newBuilder()
+			.weakKeys()
+			.build();
+	
 	private final Mono<Consumer<MessageCreateSpec>> specMono;
-	private final Map<String, Function<MessageMenuInteraction, Mono<Void>>> messageItems;
-	private final Map<String, Function<ReactionMenuInteraction, Mono<Void>>> reactionItems;
-	private final boolean deleteMenuOnClose;
-	private final boolean deleteMenuOnTimeout;
-	private final boolean closeAfterMessage;
-	private final boolean closeAfterReaction;
+	private final MenuTemplate<?> template;
+	private final Object state;
 
-	private InteractiveMenu(Mono<Consumer<MessageCreateSpec>> specMono,
-			Map<String, Function<MessageMenuInteraction, Mono<Void>>> messageItems,
-			Map<String, Function<ReactionMenuInteraction, Mono<Void>>> reactionItems, boolean deleteMenuOnClose,
-			boolean deleteMenuOnTimeout, boolean closeAfterMessage, boolean closeAfterReaction) {
+	InteractiveMenu(Mono<Consumer<MessageCreateSpec>> specMono, MenuTemplate<?> template, Object state) {
 		this.specMono = specMono;
-		this.messageItems = messageItems;
-		this.reactionItems = reactionItems;
-		this.deleteMenuOnClose = deleteMenuOnClose;
-		this.deleteMenuOnTimeout = deleteMenuOnTimeout;
-		this.closeAfterMessage = closeAfterMessage;
-		this.closeAfterReaction = closeAfterReaction;
+		this.template = template;
+		this.state = state;
 	}
 	
 	/**
@@ -91,7 +95,7 @@ public class InteractiveMenu {
 	 */
 	public static InteractiveMenu create(Mono<Consumer<MessageCreateSpec>> specMono) {
 		requireNonNull(specMono);
-		return new InteractiveMenu(specMono, Map.of(), Map.of(), false, false, true, true);
+		return EMPTY_TEMPLATE.instantiate(specMono, null);
 	}
 
 	/**
@@ -121,7 +125,9 @@ public class InteractiveMenu {
 	 * Creates a new InteractiveMenu prefilled with menu items useful for
 	 * pagination. Unlike
 	 * {@link #createPaginated(AtomicInteger, PaginationControls, IntFunction)},
-	 * this method support asynchronous paginator functions.
+	 * this method support asynchronous paginator functions. The last pages viewed
+	 * are cached so that navigating back to them doesn't invoke the paginator
+	 * again.
 	 * 
 	 * @param currentPage    an AtomicInteger that stores the current page number
 	 * @param controls    the emojis to use for reaction-based navigation controls
@@ -140,88 +146,140 @@ public class InteractiveMenu {
 	 *         pagination.
 	 */
 	public static InteractiveMenu createAsyncPaginated(AtomicInteger currentPage, PaginationControls controls, IntFunction<Mono<UniversalMessageSpec>> asyncPaginator) {
+		return createAsyncPaginated(currentPage, controls, PageCache.UNKNOWN_PAGE_COUNT, DEFAULT_PAGE_CACHE_SIZE, false, asyncPaginator);
+	}
+
+	/**
+	 * Creates a new InteractiveMenu prefilled with menu items useful for
+	 * pagination, for a paginator that knows its number of pages up front. Pages
+	 * are numbered from 0 to <code>pageCount - 1</code>, so the paginator is never
+	 * invoked with a page number out of range. The last pages viewed are cached,
+	 * and the pages next to the one displayed are rendered in background so that
+	 * navigating to them only needs to edit the menu message.
+	 * 
+	 * @param currentPage    an AtomicInteger that stores the current page number
+	 * @param controls       the emojis to use for reaction-based navigation
+	 *                       controls
+	 * @param pageCount      the number of pages
+	 * @param asyncPaginator a Function that asynchronously generates the message to
+	 *                       display according to the current page number
+	 * @return a new InteractiveMenu prefilled with menu items useful for
+	 *         pagination.
+	 */
+	public static InteractiveMenu createAsyncPaginated(AtomicInteger currentPage, PaginationControls controls, int pageCount,
+			IntFunction<Mono<UniversalMessageSpec>> asyncPaginator) {
+		return createAsyncPaginated(currentPage, controls, pageCount, DEFAULT_PAGE_CACHE_SIZE, true, asyncPaginator);
+	}
+
+	/**
+	 * Creates a new InteractiveMenu prefilled with menu items useful for
+	 * pagination, with full control over how pages are cached.
+	 * 
+	 * @param currentPage    an AtomicInteger that stores the current page number
+	 * @param controls       the emojis to use for reaction-based navigation
+	 *                       controls
+	 * @param pageCount      the number of pages, or -1 if unknown. In the latter
+	 *                       case the paginator is expected to signal out of range
+	 *                       pages with {@link PageNumberOutOfRangeException}
+	 * @param pageCacheSize  the maximum number of pages kept in cache
+	 * @param prefetch       whether to render the pages next to the one displayed
+	 *                       in background
+	 * @param asyncPaginator a Function that asynchronously generates the message to
+	 *                       display according to the current page number
+	 * @return a new InteractiveMenu prefilled with menu items useful for
+	 *         pagination.
+	 */
+	public static InteractiveMenu createAsyncPaginated(AtomicInteger currentPage, PaginationControls controls, int pageCount,
+			int pageCacheSize, boolean prefetch, IntFunction<Mono<UniversalMessageSpec>> asyncPaginator) {
 		requireNonNull(currentPage);
 		requireNonNull(controls);
 		requireNonNull(asyncPaginator);
-		var oldPage = new AtomicInteger();
-		return create(asyncPaginator.apply(currentPage.get()).map(UniversalMessageSpec::toMessageCreateSpec))
-				.addReactionItem(controls.getPreviousEmoji(), interaction -> Mono.fromCallable(currentPage::decrementAndGet)
-						.flatMap(targetPage -> asyncPaginator.apply(targetPage)
-								.map(UniversalMessageSpec::toMessageEditSpec))
-						.onErrorResume(PageNumberOutOfRangeException.class, e -> Mono
-								.just(currentPage.get() + e.getMaxPage() - e.getMinPage() + 1)
-								.doOnNext(currentPage::set)
-								.flatMap(targetPage -> asyncPaginator.apply(targetPage)
-										.map(UniversalMessageSpec::toMessageEditSpec)))
-						.flatMap(interaction.getMenuMessage()::edit)
-						.then())
-				.addReactionItem(controls.getNextEmoji(), interaction -> Mono.fromCallable(currentPage::incrementAndGet)
-						.flatMap(targetPage -> asyncPaginator.apply(targetPage).map(UniversalMessageSpec::toMessageEditSpec))
-						.onErrorResume(PageNumberOutOfRangeException.class, e -> Mono
-								.just(currentPage.get() - e.getMaxPage() + e.getMinPage() - 1)
-								.doOnNext(currentPage::set)
-								.flatMap(targetPage -> asyncPaginator.apply(targetPage)
-										.map(UniversalMessageSpec::toMessageEditSpec)))
-						.flatMap(interaction.getMenuMessage()::edit)
-						.then())
-				.addMessageItem("page", interaction -> Mono.fromCallable(() -> Integer.parseInt(interaction.getArgs().get(1)))
-						.onErrorMap(IndexOutOfBoundsException.class, e -> new UnexpectedReplyException("Please specify a page number."))
-						.onErrorMap(NumberFormatException.class, e -> new UnexpectedReplyException("Invalid page number."))
-						.map(p -> p - 1)
-						.doOnNext(targetPage -> {
-							oldPage.set(currentPage.get());
-							currentPage.set(targetPage);
-						})
-						.flatMap(targetPage -> asyncPaginator.apply(targetPage)
-								.map(UniversalMessageSpec::toMessageEditSpec)
-								.flatMap(interaction.getMenuMessage()::edit))
-						.onErrorMap(PageNumberOutOfRangeException.class, e -> {
-							currentPage.set(oldPage.get());
-							return new UnexpectedReplyException("Page number must be between "
-									+ (e.getMinPage() + 1) + " and " + (e.getMaxPage() + 1) + ".");
-						})
-						.then(interaction.getEvent().getMessage().delete().onErrorResume(e -> Mono.empty())))
-				.addReactionItem(controls.getCloseEmoji(), interaction -> Mono.fromRunnable(interaction::closeMenu))
+		var state = new PaginationState(currentPage, new PageCache(asyncPaginator, pageCount, pageCacheSize, prefetch));
+		return PAGINATED_TEMPLATES.get(controls, InteractiveMenu::paginatedTemplate)
+				.instantiate(Mono.defer(() -> {
+					var initialPage = currentPage.get();
+					return state.pageCache.get(initialPage).doOnNext(__ -> state.pageCache.prefetchAround(initialPage));
+				}).map(UniversalMessageSpec::toMessageCreateSpec), state);
+	}
+	
+	private static MenuTemplate<PaginationState> paginatedTemplate(PaginationControls controls) {
+		return MenuTemplate.<PaginationState>builder()
+				.addReactionItem(controls.getPreviousEmoji(), (interaction, state) -> navigate(state, -1, interaction))
+				.addReactionItem(controls.getNextEmoji(), (interaction, state) -> navigate(state, 1, interaction))
+				.addMessageItem("page", InteractiveMenu::goToPage)
+				.addReactionItem(controls.getCloseEmoji(), (interaction, state) -> Mono.fromRunnable(interaction::closeMenu))
 				.closeAfterMessage(false)
-				.closeAfterReaction(false);
+				.closeAfterReaction(false)
+				.build();
+	}
+	
+	private static Mono<Void> navigate(PaginationState state, int step, ReactionMenuInteraction interaction) {
+		var currentPage = state.currentPage;
+		var pageCache = state.pageCache;
+		return Mono.fromCallable(() -> currentPage.updateAndGet(page -> pageCache.wrap(page + step)))
+				.flatMap(pageCache::get)
+				// The first time the range is exceeded, it is learned from the error
+				.onErrorResume(PageNumberOutOfRangeException.class, e -> Mono
+						.fromCallable(() -> currentPage.updateAndGet(pageCache::wrap))
+						.flatMap(pageCache::get))
+				.map(UniversalMessageSpec::toMessageEditSpec)
+				.flatMap(interaction::editMenuMessage)
+				.doOnSuccess(__ -> pageCache.prefetchAround(currentPage.get()))
+				.then();
+	}
+	
+	private static Mono<Void> goToPage(MessageMenuInteraction interaction, PaginationState state) {
+		var currentPage = state.currentPage;
+		return Mono.fromCallable(() -> Integer.parseInt(interaction.getArgs().get(1)))
+				.onErrorMap(IndexOutOfBoundsException.class, e -> new UnexpectedReplyException("Please specify a page number."))
+				.onErrorMap(NumberFormatException.class, e -> new UnexpectedReplyException("Invalid page number."))
+				.map(p -> p - 1)
+				.doOnNext(targetPage -> {
+					state.oldPage.set(currentPage.get());
+					currentPage.set(targetPage);
+				})
+				.flatMap(targetPage -> state.pageCache.get(targetPage)
+						.map(UniversalMessageSpec::toMessageEditSpec)
+						.flatMap(interaction::editMenuMessage)
+						.doOnSuccess(__ -> state.pageCache.prefetchAround(targetPage)))
+				.onErrorMap(PageNumberOutOfRangeException.class, e -> {
+					currentPage.set(state.oldPage.get());
+					return new UnexpectedReplyException("Page number must be between "
+							+ (e.getMinPage() + 1) + " and " + (e.getMaxPage() + 1) + ".");
+				})
+				.then(interaction.getEvent().getMessage().delete().onErrorResume(e -> Mono.empty()));
 	}
 
 	public InteractiveMenu addMessageItem(String message, Function<MessageMenuInteraction, Mono<Void>> action) {
 		requireNonNull(message);
 		requireNonNull(action);
-		var newMessageItems = new LinkedHashMap<>(messageItems);
-		newMessageItems.put(message, action);
-		return new InteractiveMenu(specMono, Collections.unmodifiableMap(newMessageItems), reactionItems, deleteMenuOnClose,
-				deleteMenuOnTimeout, closeAfterMessage, closeAfterReaction);
+		return new InteractiveMenu(specMono, template.withMessageItem(message, (interaction, state) -> action.apply(interaction)), state);
 	}
 
 	public InteractiveMenu addReactionItem(String emojiName, Function<ReactionMenuInteraction, Mono<Void>> action) {
 		requireNonNull(emojiName);
 		requireNonNull(action);
-		var newReactionItems = new LinkedHashMap<>(reactionItems);
-		newReactionItems.put(emojiName, action);
-		return new InteractiveMenu(specMono, messageItems, Collections.unmodifiableMap(newReactionItems), deleteMenuOnClose,
-				deleteMenuOnTimeout, closeAfterMessage, closeAfterReaction);
+		return new InteractiveMenu(specMono, template.withReactionItem(emojiName, (interaction, state) -> action.apply(interaction)), state);
 	}
 	
 	public InteractiveMenu deleteMenuOnClose(boolean deleteMenuOnClose) {
-		return new InteractiveMenu(specMono, messageItems, reactionItems, deleteMenuOnClose, deleteMenuOnTimeout,
-				closeAfterMessage, closeAfterReaction);
+		return new InteractiveMenu(specMono, template.withOptions(deleteMenuOnClose, template.deleteMenuOnTimeout,
+				template.closeAfterMessage, template.closeAfterReaction), state);
 	}
 	
 	public InteractiveMenu deleteMenuOnTimeout(boolean deleteMenuOnTimeout) {
-		return new InteractiveMenu(specMono, messageItems, reactionItems, deleteMenuOnClose, deleteMenuOnTimeout,
-				closeAfterMessage, closeAfterReaction);
+		return new InteractiveMenu(specMono, template.withOptions(template.deleteMenuOnClose, deleteMenuOnTimeout,
+				template.closeAfterMessage, template.closeAfterReaction), state);
 	}
 	
 	public InteractiveMenu closeAfterMessage(boolean closeAfterMessage) {
-		return new InteractiveMenu(specMono, messageItems, reactionItems, deleteMenuOnClose, deleteMenuOnTimeout,
-				closeAfterMessage, closeAfterReaction);
+		return new InteractiveMenu(specMono, template.withOptions(template.deleteMenuOnClose, template.deleteMenuOnTimeout,
+				closeAfterMessage, template.closeAfterReaction), state);
 	}
 	
 	public InteractiveMenu closeAfterReaction(boolean closeAfterReaction) {
-		return new InteractiveMenu(specMono, messageItems, reactionItems, deleteMenuOnClose, deleteMenuOnTimeout,
-				closeAfterMessage, closeAfterReaction);
+		return new InteractiveMenu(specMono, template.withOptions(template.deleteMenuOnClose, template.deleteMenuOnTimeout,
+				template.closeAfterMessage, closeAfterReaction), state);
 	}
 	
 	/**
@@ -230,6 +288,8 @@ public class InteractiveMenu {
 	 * menu closes or timeouts. If the menu was created using the factory method
 	 * {@link #create(Mono)} and the supplied Mono completes empty or with an
 	 * error, the respective signals will be forwarded through the returning Mono.
+	 * The life of the menu is recorded as a {@link MenuLifecycleEvent} if the
+	 * flight recorder is recording it.
 	 * 
 	 * @param ctx the context of the command invoking this menu
 	 * @return a Mono completing when the menu closes or timeouts. Any error
@@ -237,79 +297,127 @@ public class InteractiveMenu {
 	 */
 	public Mono<Void> open(Context ctx) {
 		requireNonNull(ctx);
+		return Mono.defer(() -> {
+			var event = new MenuLifecycleEvent();
+			if (!event.isEnabled()) {
+				return open(ctx, null);
+			}
+			var channelId = ctx.getEvent().getMessage().getChannelId().asLong();
+			event.begin();
+			return open(ctx, event)
+					.doOnError(e -> event.complete(channelId, 0, BotEvent.outcome(e)))
+					.doOnCancel(() -> event.complete(channelId, 0, "CANCELLED"));
+		});
+	}
+	
+	private Mono<Void> open(Context ctx, MenuLifecycleEvent event) {
 		var closeNotifier = MonoProcessor.<Void>create();
 		return specMono.flatMap(ctx::reply)
-				.flatMap(menuMessage -> addReactionsToMenu(ctx, menuMessage))
-				.flatMap(menuMessage -> Mono.first(
-						closeNotifier,
-						ctx.getBot().getDiscordClients()
-								.flatMap(client -> client.getEventDispatcher().on(MessageCreateEvent.class))
-								.filter(event -> event.getMessage().getAuthor().equals(ctx.getEvent().getMessage().getAuthor())
-										&& event.getMessage().getChannelId().equals(ctx.getEvent().getMessage().getChannelId()))
-								.flatMap(event -> {
-									var tokens = InputTokenizer.tokenize(ctx.getBot().getFlagPrefix(), event.getMessage().getContent().orElse(""));
-									var args = tokens.getT2();
-									var flags = tokens.getT1();
-									if (args.isEmpty()) {
-										return Mono.empty();
-									}
-									var action = messageItems.get(args.get(0));
-									if (action == null) {
-										return Mono.empty();
-									}
-									var replyCtx = new MessageMenuInteraction(menuMessage, closeNotifier, event, new ArgumentList(args), flags);
-									return action.apply(replyCtx).thenReturn(0);
-								})
-								.takeUntil(__ -> closeAfterMessage)
-								.onErrorResume(UnexpectedReplyException.class, e -> ctx.reply(":no_entry_sign: " + e.getMessage()).then(Mono.error(e)))
-								.retry(UnexpectedReplyException.class::isInstance)
-								.then(),
-						ctx.getBot().getDiscordClients()
-								.flatMap(client -> Flux.merge(
-										client.getEventDispatcher().on(ReactionAddEvent.class),
-										client.getEventDispatcher().on(ReactionRemoveEvent.class)))
-								.map(ReactionToggleEvent::new)
-								.filter(event -> event.getMessageId().equals(menuMessage.getId())
-										&& event.getUserId().equals(ctx.getEvent().getMessage().getAuthor().map(User::getId).orElse(null)))
-								.flatMap(event -> {
-									var emojiName = event.getEmoji().asCustomEmoji().map(Custom::getName)
-											.or(() -> event.getEmoji().asUnicodeEmoji().map(Unicode::getRaw))
-											.orElseThrow();
-									var action = reactionItems.get(emojiName);
-									if (action == null) {
-										return Mono.empty();
-									}
-									var reactionCtx = new ReactionMenuInteraction(menuMessage, closeNotifier, event);
-									return action.apply(reactionCtx).thenReturn(0);
-								})
-								.takeUntil(__ -> closeAfterReaction)
-								.then())
-						.then(handleTermination(menuMessage, deleteMenuOnClose))
-						.timeout(Duration.ofSeconds(ctx.getBot().getInteractiveMenuTimeout()),
-								handleTermination(menuMessage, deleteMenuOnTimeout)));
+				.flatMap(menuMessage -> Mono.defer(() -> {
+					var menuMessageEditor = new MessageEditCoalescer(menuMessage);
+					return Mono.first(
+							closeNotifier,
+							ctx.getBot().getEventPipeline().on(MessageCreateEvent.class)
+									.filter(messageEvent -> messageEvent.getMessage().getAuthor().equals(ctx.getEvent().getMessage().getAuthor())
+											&& messageEvent.getMessage().getChannelId().equals(ctx.getEvent().getMessage().getChannelId()))
+									.flatMap(messageEvent -> {
+										var tokens = InputTokenizer.tokenize(ctx.getBot().getFlagPrefix(), messageEvent.getMessage().getContent().orElse(""));
+										var args = tokens.getT2();
+										var flags = tokens.getT1();
+										if (args.isEmpty()) {
+											return Mono.empty();
+										}
+										var action = template.messageItems.get(args.get(0));
+										if (action == null) {
+											return Mono.empty();
+										}
+										if (event != null) {
+											event.interacted();
+										}
+										var replyCtx = new MessageMenuInteraction(menuMessageEditor, closeNotifier, messageEvent, new ArgumentList(args), flags);
+										return action.apply(replyCtx, state).thenReturn(0);
+									})
+									.takeUntil(__ -> template.closeAfterMessage)
+									.onErrorResume(UnexpectedReplyException.class, e -> ctx.reply(":no_entry_sign: " + e.getMessage()).then(Mono.error(e)))
+									.retry(UnexpectedReplyException.class::isInstance)
+									.then(),
+							Flux.merge(
+											ctx.getBot().getEventPipeline().on(ReactionAddEvent.class),
+											ctx.getBot().getEventPipeline().on(ReactionRemoveEvent.class))
+									.map(ReactionToggleEvent::new)
+									.filter(reactionEvent -> reactionEvent.getMessageId().equals(menuMessage.getId())
+											&& reactionEvent.getUserId().equals(ctx.getEvent().getMessage().getAuthor().map(User::getId).orElse(null)))
+									.flatMap(reactionEvent -> {
+										var emojiName = reactionEvent.getEmoji().asCustomEmoji().map(Custom::getName)
+												.or(() -> reactionEvent.getEmoji().asUnicodeEmoji().map(Unicode::getRaw))
+												.orElseThrow();
+										var action = template.reactionItems.get(emojiName);
+										if (action == null) {
+											return Mono.empty();
+										}
+										if (event != null) {
+											event.interacted();
+										}
+										var reactionCtx = new ReactionMenuInteraction(menuMessageEditor, closeNotifier, reactionEvent);
+										return action.apply(reactionCtx, state).thenReturn(0);
+									})
+									.takeUntil(__ -> template.closeAfterReaction)
+									.then(),
+							// Reactions are added while already listening, and stop being added if the menu closes
+							addReactionsToMenu(ctx, menuMessage).then(Mono.never()))
+							.then(handleTermination(menuMessage, template.deleteMenuOnClose, event, "CLOSED"))
+							.timeout(Duration.ofSeconds(ctx.getBot().getInteractiveMenuTimeout()),
+									handleTermination(menuMessage, template.deleteMenuOnTimeout, event, "TIMEOUT"));
+				}));
 	}
 	
-	private static Mono<Void> handleTermination(Message menuMessage, boolean shouldDelete) {
-		return (shouldDelete 
+	private static Mono<Void> handleTermination(Message menuMessage, boolean shouldDelete, MenuLifecycleEvent event, String termination) {
+		var terminationMono = (shouldDelete 
 						? menuMessage.delete()
 						: menuMessage.removeAllReactions())
 				.onErrorResume(e -> Mono.empty());
+		if (event == null) {
+			return terminationMono;
+		}
+		return terminationMono.doOnSuccess(__ -> event.complete(menuMessage.getChannelId().asLong(),
+				menuMessage.getId().asLong(), termination));
 	}
 	
-	private Mono<Message> addReactionsToMenu(Context ctx, Message menuMessage) {
-		return Flux.fromIterable(reactionItems.keySet())
-				.flatMap(emojiName -> ctx.getBot().getInstalledEmojis()
-						.filter(installedEmoji -> installedEmoji.getName().equalsIgnoreCase(emojiName))
-						.next()
-						.map(ReactionEmoji::custom)
-						.cast(ReactionEmoji.class)
-						.switchIfEmpty(Mono.just(emojiName)
-								.map(ReactionEmoji::unicode)))
+	/**
+	 * Adds the reactions of the menu in the order they were declared. Emojis are
+	 * resolved by the template, so that only the reactions themselves need a
+	 * request each. If the bot is missing the permission to add reactions in the
+	 * channel, a warning is posted and this is remembered for a while, so that
+	 * later menus in the same channel neither try again nor repeat the warning.
+	 */
+	private Mono<Void> addReactionsToMenu(Context ctx, Message menuMessage) {
+		if (template.reactionItems.isEmpty()
+				|| CHANNELS_MISSING_REACTION_PERMISSION.getIfPresent(menuMessage.getChannelId()) != null) {
+			return Mono.empty();
+		}
+		return template.resolveReactions(ctx.getBot())
+				.flatMapMany(Flux::fromIterable)
 				.concatMap(reaction -> menuMessage.addReaction(reaction)
 						.onErrorResume(ClientException.isStatusCode(403).negate(), e -> Mono.empty()))
-				.onErrorResume(ClientException.isStatusCode(403), e -> ctx.reply(":warning: It seems that I am missing Add Reactions permission. "
-						+ "Interactive menus using reactions (such as navigation controls or confirmation dialogs) may be unusable.").then())
-				.then()
-				.thenReturn(menuMessage);
+				.onErrorResume(ClientException.isStatusCode(403), e -> Mono.fromCallable(() -> CHANNELS_MISSING_REACTION_PERMISSION
+								.asMap().putIfAbsent(menuMessage.getChannelId(), Boolean.TRUE) == null)
+						// Only the menu that added the entry posts the warning, even if several got a 403 at once
+						.filter(Boolean::booleanValue)
+						.flatMap(__ -> ctx.reply(":warning: It seems that I am missing Add Reactions permission. "
+								+ "Interactive menus using reactions (such as navigation controls or confirmation dialogs) "
+								+ "may be unusable."))
+						.then())
+				.then();
+	}
+	
+	private static class PaginationState {
+		private final AtomicInteger currentPage;
+		private final AtomicInteger oldPage = new AtomicInteger();
+		private final PageCache pageCache;
+		
+		private PaginationState(AtomicInteger currentPage, PageCache pageCache) {
+			this.currentPage = currentPage;
+			this.pageCache = pageCache;
+		}
 	}
 }
@@ -1,20 +1,38 @@
 package com.github.alex1304.ultimategdbot.api.utils.menu;
 
+import java.util.function.Consumer;
+
+import com.github.alex1304.ultimategdbot.api.utils.MessageEditCoalescer;
+
 import discord4j.core.object.entity.Message;
+import discord4j.core.spec.MessageEditSpec;
+import reactor.core.publisher.Mono;
 import reactor.core.publisher.MonoProcessor;
 
 abstract class MenuInteraction {
 	
-	private final Message menuMessage;
+	private final MessageEditCoalescer menuMessageEditor;
 	private final MonoProcessor<Void> closeNotifier;
 
-	MenuInteraction(Message menuMessage, MonoProcessor<Void> closeNotifier) {
-		this.menuMessage = menuMessage;
+	MenuInteraction(MessageEditCoalescer menuMessageEditor, MonoProcessor<Void> closeNotifier) {
+		this.menuMessageEditor = menuMessageEditor;
 		this.closeNotifier = closeNotifier;
 	}
 
 	public Message getMenuMessage() {
-		return menuMessage;
+		return menuMessageEditor.getMessage();
+	}
+	
+	/**
+	 * Edits the menu message. Edits made in quick succession are coalesced so
+	 * that only the latest one is sent once the previous request finishes.
+	 * 
+	 * @param spec the spec of the edit
+	 * @return a Mono completing when the menu message shows this edit or a more
+	 *         recent one
+	 */
+	public Mono<Void> editMenuMessage(Consumer<MessageEditSpec> spec) {
+		return menuMessageEditor.edit(spec);
 	}
 	
 	public void closeMenu() {
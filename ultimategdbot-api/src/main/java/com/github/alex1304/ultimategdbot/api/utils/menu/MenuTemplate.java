@@ -0,0 +1,226 @@
+package com.github.alex1304.ultimategdbot.api.utils.menu;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import com.github.alex1304.ultimategdbot.api.Bot;
+
+import discord4j.core.object.entity.GuildEmoji;
+import discord4j.core.object.reaction.ReactionEmoji;
+import discord4j.core.spec.MessageCreateSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Definition of an interactive menu that can be opened many times. The items
+ * of the menu and its behavior are set up once, typically when the plugin
+ * loads, and each time the menu needs to be opened it is instantiated with the
+ * message to display and a state object holding everything that is specific to
+ * that instance. The state is passed to the item actions along with the
+ * interaction.
+ *
+ * @param <S> the type of the state of menu instances
+ */
+public final class MenuTemplate<S> {
+
+	final Map<String, BiFunction<MessageMenuInteraction, Object, Mono<Void>>> messageItems;
+	final Map<String, BiFunction<ReactionMenuInteraction, Object, Mono<Void>>> reactionItems;
+	final boolean deleteMenuOnClose;
+	final boolean deleteMenuOnTimeout;
+	final boolean closeAfterMessage;
+	final boolean closeAfterReaction;
+	private volatile ResolvedReactions resolvedReactions;
+
+	MenuTemplate(Map<String, BiFunction<MessageMenuInteraction, Object, Mono<Void>>> messageItems,
+			Map<String, BiFunction<ReactionMenuInteraction, Object, Mono<Void>>> reactionItems, boolean deleteMenuOnClose,
+			boolean deleteMenuOnTimeout, boolean closeAfterMessage, boolean closeAfterReaction) {
+		this.messageItems = messageItems;
+		this.reactionItems = reactionItems;
+		this.deleteMenuOnClose = deleteMenuOnClose;
+		this.deleteMenuOnTimeout = deleteMenuOnTimeout;
+		this.closeAfterMessage = closeAfterMessage;
+		this.closeAfterReaction = closeAfterReaction;
+	}
+
+	public static class MenuTemplateBuilder<S> {
+		private final Map<String, BiFunction<MessageMenuInteraction, Object, Mono<Void>>> messageItems = new LinkedHashMap<>();
+		private final Map<String, BiFunction<ReactionMenuInteraction, Object, Mono<Void>>> reactionItems = new LinkedHashMap<>();
+		private boolean deleteMenuOnClose;
+		private boolean deleteMenuOnTimeout;
+		private boolean closeAfterMessage = true;
+		private boolean closeAfterReaction = true;
+
+		private MenuTemplateBuilder() {
+		}
+
+		/**
+		 * Adds an item triggered when the user sends a message starting with the
+		 * given word.
+		 *
+		 * @param message the word triggering the item
+		 * @param action  the action to run, receiving the interaction and the state
+		 *                of the menu instance
+		 * @return this builder
+		 * @throws IllegalArgumentException if the word is blank, contains
+		 *                                  whitespace, or is already used by another
+		 *                                  item
+		 */
+		@SuppressWarnings("unchecked")
+		public MenuTemplateBuilder<S> addMessageItem(String message, BiFunction<MessageMenuInteraction, ? super S, Mono<Void>> action) {
+			requireNonNull(message);
+			requireNonNull(action);
+			if (message.isBlank() || message.chars().anyMatch(Character::isWhitespace)) {
+				throw new IllegalArgumentException("Message item must be a single word: '" + message + "'");
+			}
+			if (messageItems.putIfAbsent(message, (BiFunction<MessageMenuInteraction, Object, Mono<Void>>) action) != null) {
+				throw new IllegalArgumentException("Duplicate message item: " + message);
+			}
+			return this;
+		}
+
+		/**
+		 * Adds an item triggered when the user adds or removes the given reaction.
+		 * Reactions are added to the menu message in the order they are declared.
+		 *
+		 * @param emojiName the name of the emoji, either the name of an emoji
+		 *                  installed on one of the emoji servers or a unicode emoji
+		 * @param action    the action to run, receiving the interaction and the state
+		 *                  of the menu instance
+		 * @return this builder
+		 * @throws IllegalArgumentException if the emoji name is blank or already used
+		 *                                  by another item
+		 */
+		@SuppressWarnings("unchecked")
+		public MenuTemplateBuilder<S> addReactionItem(String emojiName, BiFunction<ReactionMenuInteraction, ? super S, Mono<Void>> action) {
+			requireNonNull(emojiName);
+			requireNonNull(action);
+			if (emojiName.isBlank()) {
+				throw new IllegalArgumentException("Emoji name must not be blank");
+			}
+			if (reactionItems.putIfAbsent(emojiName, (BiFunction<ReactionMenuInteraction, Object, Mono<Void>>) action) != null) {
+				throw new IllegalArgumentException("Duplicate reaction item: " + emojiName);
+			}
+			return this;
+		}
+
+		public MenuTemplateBuilder<S> deleteMenuOnClose(boolean deleteMenuOnClose) {
+			this.deleteMenuOnClose = deleteMenuOnClose;
+			return this;
+		}
+
+		public MenuTemplateBuilder<S> deleteMenuOnTimeout(boolean deleteMenuOnTimeout) {
+			this.deleteMenuOnTimeout = deleteMenuOnTimeout;
+			return this;
+		}
+
+		public MenuTemplateBuilder<S> closeAfterMessage(boolean closeAfterMessage) {
+			this.closeAfterMessage = closeAfterMessage;
+			return this;
+		}
+
+		public MenuTemplateBuilder<S> closeAfterReaction(boolean closeAfterReaction) {
+			this.closeAfterReaction = closeAfterReaction;
+			return this;
+		}
+
+		public MenuTemplate<S> build() {
+			return new MenuTemplate<>(Collections.unmodifiableMap(new LinkedHashMap<>(messageItems)),
+					Collections.unmodifiableMap(new LinkedHashMap<>(reactionItems)), deleteMenuOnClose,
+					deleteMenuOnTimeout, closeAfterMessage, closeAfterReaction);
+		}
+	}
+
+	/**
+	 * Creates a builder to define a new menu template.
+	 *
+	 * @param <S> the type of the state of menu instances
+	 * @return a menu template builder
+	 */
+	public static <S> MenuTemplateBuilder<S> builder() {
+		return new MenuTemplateBuilder<>();
+	}
+
+	/**
+	 * Creates a new menu from this template.
+	 *
+	 * @param spec  the spec to build the menu message
+	 * @param state the state of this menu instance, given to the item actions
+	 * @return a new InteractiveMenu
+	 */
+	public InteractiveMenu instantiate(Consumer<MessageCreateSpec> spec, S state) {
+		requireNonNull(spec);
+		return instantiate(Mono.just(spec), state);
+	}
+
+	/**
+	 * Creates a new menu from this template. The menu message may be supplied
+	 * from an asynchronous source.
+	 *
+	 * @param specMono the Mono emitting the spec to build the menu message
+	 * @param state    the state of this menu instance, given to the item actions
+	 * @return a new InteractiveMenu
+	 */
+	public InteractiveMenu instantiate(Mono<Consumer<MessageCreateSpec>> specMono, S state) {
+		requireNonNull(specMono);
+		return new InteractiveMenu(specMono, this, state);
+	}
+
+	MenuTemplate<S> withMessageItem(String message, BiFunction<MessageMenuInteraction, Object, Mono<Void>> action) {
+		var newMessageItems = new LinkedHashMap<>(messageItems);
+		newMessageItems.put(message, action);
+		return new MenuTemplate<>(Collections.unmodifiableMap(newMessageItems), reactionItems, deleteMenuOnClose,
+				deleteMenuOnTimeout, closeAfterMessage, closeAfterReaction);
+	}
+
+	MenuTemplate<S> withReactionItem(String emojiName, BiFunction<ReactionMenuInteraction, Object, Mono<Void>> action) {
+		var newReactionItems = new LinkedHashMap<>(reactionItems);
+		newReactionItems.put(emojiName, action);
+		return new MenuTemplate<>(messageItems, Collections.unmodifiableMap(newReactionItems), deleteMenuOnClose,
+				deleteMenuOnTimeout, closeAfterMessage, closeAfterReaction);
+	}
+
+	MenuTemplate<S> withOptions(boolean deleteMenuOnClose, boolean deleteMenuOnTimeout, boolean closeAfterMessage,
+			boolean closeAfterReaction) {
+		return new MenuTemplate<>(messageItems, reactionItems, deleteMenuOnClose, deleteMenuOnTimeout, closeAfterMessage,
+				closeAfterReaction);
+	}
+
+	/**
+	 * Resolves the reactions to add to the menu message, in the order they were
+	 * declared. Emoji names matching an emoji installed on one of the emoji
+	 * servers give a custom emoji, other ones are considered unicode emojis. The
+	 * result is reused by all menus instantiated from this template, until the
+	 * emojis are installed again with {@link Bot#installEmojis()}.
+	 */
+	Mono<List<ReactionEmoji>> resolveReactions(Bot bot) {
+		var installedEmojis = bot.getInstalledEmojis();
+		var resolved = resolvedReactions;
+		if (resolved != null && resolved.installedEmojis == installedEmojis) {
+			return Mono.just(resolved.reactions);
+		}
+		return installedEmojis
+				.<String, ReactionEmoji>collectMap(installedEmoji -> installedEmoji.getName().toLowerCase(), ReactionEmoji::custom)
+				.map(emojisByName -> reactionItems.keySet().stream()
+						.map(emojiName -> emojisByName.getOrDefault(emojiName.toLowerCase(), ReactionEmoji.unicode(emojiName)))
+						.collect(toUnmodifiableList()))
+				.doOnNext(reactions -> resolvedReactions = new ResolvedReactions(installedEmojis, reactions));
+	}
+
+	private static class ResolvedReactions {
+		// Bot.installEmojis() replaces the Flux, which makes these reactions stale
+		private final Flux<GuildEmoji> installedEmojis;
+		private final List<ReactionEmoji> reactions;
+
+		private ResolvedReactions(Flux<GuildEmoji> installedEmojis, List<ReactionEmoji> reactions) {
+			this.installedEmojis = installedEmojis;
+			this.reactions = reactions;
+		}
+	}
+}
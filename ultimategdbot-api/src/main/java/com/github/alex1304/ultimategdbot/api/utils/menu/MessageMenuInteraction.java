@@ -2,9 +2,9 @@ package com.github.alex1304.ultimategdbot.api.utils.menu;
 
 import com.github.alex1304.ultimategdbot.api.command.ArgumentList;
 import com.github.alex1304.ultimategdbot.api.command.FlagSet;
+import com.github.alex1304.ultimategdbot.api.utils.MessageEditCoalescer;
 
 import discord4j.core.event.domain.message.MessageCreateEvent;
-import discord4j.core.object.entity.Message;
 import reactor.core.publisher.MonoProcessor;
 
 public class MessageMenuInteraction extends MenuInteraction {
@@ -13,8 +13,8 @@ public class MessageMenuInteraction extends MenuInteraction {
 	private final ArgumentList args;
 	private final FlagSet flags;
 
-	MessageMenuInteraction(Message menuMessage, MonoProcessor<Void> closeNotifier, MessageCreateEvent event, ArgumentList args, FlagSet flags) {
-		super(menuMessage, closeNotifier);
+	MessageMenuInteraction(MessageEditCoalescer menuMessageEditor, MonoProcessor<Void> closeNotifier, MessageCreateEvent event, ArgumentList args, FlagSet flags) {
+		super(menuMessageEditor, closeNotifier);
 		this.event = event;
 		this.args = args;
 		this.flags = flags;
@@ -0,0 +1,134 @@
+package com.github.alex1304.ultimategdbot.api.utils.menu;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import com.github.alex1304.ultimategdbot.api.utils.UniversalMessageSpec;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Bounded cache of the pages rendered by a paginated menu. The least recently
+ * viewed pages are evicted first. Pages that fail with
+ * {@link PageNumberOutOfRangeException} are cached as well, and the page range
+ * they reveal is remembered so that wrapping around doesn't need to render an
+ * out-of-range page again. Other errors are never cached.
+ */
+final class PageCache {
+
+	static final int UNKNOWN_PAGE_COUNT = -1;
+
+	private final IntFunction<Mono<UniversalMessageSpec>> asyncPaginator;
+	private final Map<Integer, Mono<UniversalMessageSpec>> pages;
+	private final boolean prefetch;
+	private final Scheduler prefetchScheduler;
+	private volatile int minPage;
+	private volatile int maxPage;
+	private volatile boolean rangeKnown;
+
+	PageCache(IntFunction<Mono<UniversalMessageSpec>> asyncPaginator, int pageCount, int maxSize, boolean prefetch) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be at least 1");
+		}
+		if (pageCount < 1 && pageCount != UNKNOWN_PAGE_COUNT) {
+			throw new IllegalArgumentException("pageCount must be at least 1");
+		}
+		this.asyncPaginator = asyncPaginator;
+		this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Mono<UniversalMessageSpec>> eldest) {
+				return size() > maxSize;
+			}
+		};
+		this.prefetch = prefetch;
+		this.prefetchScheduler = Schedulers.elastic();
+		if (pageCount != UNKNOWN_PAGE_COUNT) {
+			this.minPage = 0;
+			this.maxPage = pageCount - 1;
+			this.rangeKnown = true;
+		}
+	}
+
+	/**
+	 * Gets the given page, rendering it only if it isn't already cached. Several
+	 * subscribers asking for the same page at the same time share a single
+	 * rendering.
+	 *
+	 * @param page the page number
+	 * @return a Mono emitting the page
+	 */
+	Mono<UniversalMessageSpec> get(int page) {
+		return Mono.defer(() -> {
+			if (rangeKnown && (page < minPage || page > maxPage)) {
+				return Mono.error(new PageNumberOutOfRangeException(page, minPage, maxPage));
+			}
+			synchronized (pages) {
+				var cached = pages.get(page);
+				if (cached != null) {
+					return cached;
+				}
+				var rendered = Mono.defer(() -> asyncPaginator.apply(page))
+						.doOnError(PageNumberOutOfRangeException.class, this::learnRange)
+						.doOnError(e -> !(e instanceof PageNumberOutOfRangeException), e -> evict(page))
+						.cache();
+				pages.put(page, rendered);
+				return rendered;
+			}
+		});
+	}
+
+	/**
+	 * Brings the given page number back in range by wrapping it around, if the
+	 * page range is known.
+	 *
+	 * @param page the page number
+	 * @return the page number in range, or the same page number if the range is
+	 *         unknown
+	 */
+	int wrap(int page) {
+		if (!rangeKnown) {
+			return page;
+		}
+		return minPage + Math.floorMod(page - minPage, maxPage - minPage + 1);
+	}
+
+	/**
+	 * Renders the pages next to the given one in background if prefetch is
+	 * enabled, so that they are ready when the user navigates to them.
+	 *
+	 * @param page the page currently displayed
+	 */
+	void prefetchAround(int page) {
+		if (!prefetch) {
+			return;
+		}
+		prefetch(wrap(page + 1));
+		prefetch(wrap(page - 1));
+	}
+
+	private void prefetch(int page) {
+		synchronized (pages) {
+			if (pages.containsKey(page)) {
+				return;
+			}
+		}
+		get(page).subscribeOn(prefetchScheduler).subscribe(null, e -> {});
+	}
+
+	private void learnRange(PageNumberOutOfRangeException e) {
+		minPage = e.getMinPage();
+		maxPage = e.getMaxPage();
+		rangeKnown = true;
+	}
+
+	private void evict(int page) {
+		synchronized (pages) {
+			pages.remove(page);
+		}
+	}
+}
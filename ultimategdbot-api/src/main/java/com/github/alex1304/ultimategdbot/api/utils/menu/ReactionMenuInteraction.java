@@ -1,14 +1,15 @@
 package com.github.alex1304.ultimategdbot.api.utils.menu;
 
-import discord4j.core.object.entity.Message;
+import com.github.alex1304.ultimategdbot.api.utils.MessageEditCoalescer;
+
 import reactor.core.publisher.MonoProcessor;
 
 public class ReactionMenuInteraction extends MenuInteraction {
 	
 	private final ReactionToggleEvent event;
 
-	ReactionMenuInteraction(Message menuMessage, MonoProcessor<Void> closeNotifier, ReactionToggleEvent event) {
-		super(menuMessage, closeNotifier);
+	ReactionMenuInteraction(MessageEditCoalescer menuMessageEditor, MonoProcessor<Void> closeNotifier, ReactionToggleEvent event) {
+		super(menuMessageEditor, closeNotifier);
 		this.event = event;
 	}
 
@@ -0,0 +1,71 @@
+package com.github.alex1304.ultimategdbot.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.github.alex1304.ultimategdbot.api.database.CacheRegionSettings;
+import com.github.alex1304.ultimategdbot.api.database.CacheRegionStats;
+import com.github.alex1304.ultimategdbot.api.database.NativeGuildSettings;
+
+class DatabaseCacheTest {
+	
+	private static final String SETTINGS_REGION = NativeGuildSettings.class.getName();
+	private static final String QUERY_REGION = "default-query-results-region";
+	
+	private static HibernateDatabase database;
+	
+	@BeforeAll
+	static void setUp() {
+		var props = new Properties();
+		props.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+		props.setProperty("hibernate.connection.url", "jdbc:h2:mem:cachetest;DB_CLOSE_DELAY=-1");
+		props.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		props.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		props.setProperty("hibernate.cache.use_second_level_cache", "true");
+		props.setProperty("hibernate.cache.use_query_cache", "true");
+		database = new HibernateDatabase();
+		database.addAllMappingResources(Set.of("/NativeGuildSettings.hbm.xml"));
+		database.addAllCacheRegions(Map.of(SETTINGS_REGION, new CacheRegionSettings(100)));
+		database.configure(props);
+		for (var guildId = 1L; guildId <= 3; guildId++) {
+			var gs = new NativeGuildSettings();
+			gs.setGuildId(guildId);
+			database.save(gs).block();
+		}
+	}
+	
+	@Test
+	void testFindByIDHitsTheCache() {
+		assertTrue(database.isSecondLevelCached(NativeGuildSettings.class));
+		database.findByID(NativeGuildSettings.class, 1L).block();
+		var before = stats(SETTINGS_REGION);
+		database.findByID(NativeGuildSettings.class, 1L).block();
+		assertEquals(before.getHitCount() + 1, stats(SETTINGS_REGION).getHitCount());
+		assertEquals(before.getMissCount(), stats(SETTINGS_REGION).getMissCount());
+	}
+	
+	@Test
+	void testCachedQueryIsInvalidatedByWrites() {
+		var query = "from NativeGuildSettings where prefix = ?0";
+		database.cachedQuery(NativeGuildSettings.class, query, "?").blockLast();
+		var before = stats(QUERY_REGION);
+		assertEquals(0, database.cachedQuery(NativeGuildSettings.class, query, "?").count().block());
+		assertEquals(before.getHitCount() + 1, stats(QUERY_REGION).getHitCount());
+		var gs = database.findByID(NativeGuildSettings.class, 2L).block();
+		gs.setPrefix("?");
+		database.save(gs).block();
+		assertEquals(1, database.cachedQuery(NativeGuildSettings.class, query, "?").count().block(),
+				"Results are not served from the cache once the table is modified");
+	}
+	
+	private static CacheRegionStats stats(String regionName) {
+		return database.getCacheRegionStats().get(regionName);
+	}
+}
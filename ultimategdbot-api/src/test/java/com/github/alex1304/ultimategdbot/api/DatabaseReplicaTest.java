@@ -0,0 +1,76 @@
+package com.github.alex1304.ultimategdbot.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.alex1304.ultimategdbot.api.database.NativeGuildSettings;
+
+class DatabaseReplicaTest {
+
+	private static int databaseCount;
+
+	private HibernateDatabase database;
+	private String replicaUrl;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		databaseCount++;
+		var primaryUrl = "jdbc:h2:mem:primary" + databaseCount + ";DB_CLOSE_DELAY=-1";
+		replicaUrl = "jdbc:h2:mem:replica" + databaseCount + ";DB_CLOSE_DELAY=-1";
+		var props = new Properties();
+		props.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+		props.setProperty("hibernate.connection.url", primaryUrl);
+		props.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		props.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		props.setProperty("replica.hibernate.connection.url", replicaUrl);
+		// The replica is not fed by the primary database in this test, it gets its own schema and rows
+		props.setProperty("replica.hibernate.hbm2ddl.auto", "create-drop");
+		props.setProperty(HibernateDatabase.STICKINESS_WINDOW_PROPERTY, "60");
+		database = new HibernateDatabase();
+		database.addAllMappingResources(Set.of("/NativeGuildSettings.hbm.xml"));
+		database.configure(props);
+		for (var guildId = 1L; guildId <= 2; guildId++) {
+			insertIntoReplica(guildId, "replica");
+		}
+	}
+
+	@Test
+	void testReadOnlyLookupsAreServedByTheReplica() {
+		assertEquals("replica", database.findByIDReadOnly(NativeGuildSettings.class, 1L).block().getPrefix());
+		assertNull(database.findByID(NativeGuildSettings.class, 1L).block());
+		assertEquals(2, database.queryReadOnly(NativeGuildSettings.class, "from NativeGuildSettings").count().block());
+		assertEquals(0, database.query(NativeGuildSettings.class, "from NativeGuildSettings").count().block());
+	}
+
+	@Test
+	void testReadsStayOnThePrimaryAfterAWrite() {
+		var gs = new NativeGuildSettings();
+		gs.setGuildId(1L);
+		gs.setPrefix("primary");
+		database.save(gs).block();
+		assertEquals("primary", database.findByIDReadOnly(NativeGuildSettings.class, 1L).block().getPrefix());
+		assertEquals("replica", database.findByIDReadOnly(NativeGuildSettings.class, 2L).block().getPrefix(),
+				"Guilds that were not written are still read from the replica");
+		assertEquals(1, database.queryReadOnly(NativeGuildSettings.class, "from NativeGuildSettings").count().block());
+		gs.setPrefix("updated");
+		database.save(gs).block();
+		assertEquals("updated", database.findByIDReadOnly(NativeGuildSettings.class, 1L).block().getPrefix());
+	}
+
+	private void insertIntoReplica(long guildId, String prefix) throws SQLException {
+		try (var conn = DriverManager.getConnection(replicaUrl);
+				var stmt = conn.prepareStatement("insert into native_guild_settings (guild_id, prefix) values (?, ?)")) {
+			stmt.setLong(1, guildId);
+			stmt.setString(2, prefix);
+			stmt.executeUpdate();
+		}
+	}
+}
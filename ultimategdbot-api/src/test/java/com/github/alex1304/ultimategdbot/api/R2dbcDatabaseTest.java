@@ -0,0 +1,116 @@
+package com.github.alex1304.ultimategdbot.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.alex1304.ultimategdbot.api.database.GuildSettingsEntry;
+import com.github.alex1304.ultimategdbot.api.database.NativeGuildSettings;
+import com.github.alex1304.ultimategdbot.api.utils.DatabaseInputFunction;
+import com.github.alex1304.ultimategdbot.api.utils.DatabaseOutputFunction;
+
+import io.r2dbc.spi.ConnectionFactories;
+import reactor.core.publisher.Mono;
+
+class R2dbcDatabaseTest {
+
+	private static int databaseCount;
+
+	private R2dbcDatabase database;
+
+	@BeforeEach
+	void setUp() {
+		databaseCount++;
+		var name = "r2dbc" + databaseCount;
+		// The R2DBC backend doesn't manage the schema, Hibernate creates it
+		var props = new Properties();
+		props.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+		props.setProperty("hibernate.connection.url", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		props.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		props.setProperty("hibernate.hbm2ddl.auto", "create");
+		var schema = new HibernateDatabase();
+		schema.addAllMappingResources(Set.of("/NativeGuildSettings.hbm.xml"));
+		schema.configure(props);
+		database = new R2dbcDatabase(ConnectionFactories.get("r2dbc:h2:mem:///" + name + ";DB_CLOSE_DELAY=-1"));
+		database.addAllMappingResources(Set.of("/NativeGuildSettings.hbm.xml"));
+		database.configure();
+	}
+
+	@Test
+	void testSaveFindAndDelete() {
+		assertNull(database.findByID(NativeGuildSettings.class, 1L).block());
+		database.save(guildSettings(1L, "!")).block();
+		var gs = database.findByID(NativeGuildSettings.class, 1L).block();
+		assertEquals("!", gs.getPrefix());
+		gs.setPrefix("?");
+		database.save(gs).block();
+		assertEquals("?", database.findByID(NativeGuildSettings.class, 1L).block().getPrefix());
+		database.delete(gs).block();
+		assertNull(database.findByID(NativeGuildSettings.class, 1L).block());
+	}
+
+	@Test
+	void testQueries() {
+		for (var guildId = 1L; guildId <= 3; guildId++) {
+			database.save(guildSettings(guildId, guildId == 2 ? "?" : "!")).block();
+		}
+		assertEquals(List.of(3L, 1L), database.query(NativeGuildSettings.class,
+						"from NativeGuildSettings gs where gs.prefix = ?0 order by gs.guildId desc", "!")
+				.map(NativeGuildSettings::getGuildId)
+				.collectList()
+				.block());
+		assertEquals(Set.of(1L, 2L), database.findAllByIDs(NativeGuildSettings.class, List.of(1L, 2L, 4L))
+				.map(NativeGuildSettings::getGuildId)
+				.collect(Collectors.toSet())
+				.block());
+		assertThrows(DatabaseException.class, () -> database.query(NativeGuildSettings.class,
+				"select count(*) from NativeGuildSettings").blockLast());
+	}
+
+	@Test
+	void testTransactionRollsBackOnError() {
+		assertThrows(IllegalStateException.class, () -> database.inTransaction(tx -> tx.save(guildSettings(1L, "!"))
+				.then(Mono.error(new IllegalStateException()))).blockLast());
+		assertNull(database.findByID(NativeGuildSettings.class, 1L).block());
+		database.inTransaction(tx -> tx.save(guildSettings(1L, "!"))).blockLast();
+		assertEquals("!", database.findByID(NativeGuildSettings.class, 1L).block().getPrefix());
+	}
+
+	@Test
+	void testGuildSettingsEntryInTransaction() {
+		var entry = new GuildSettingsEntry<>(NativeGuildSettings.class,
+				NativeGuildSettings::getPrefix,
+				NativeGuildSettings::setPrefix,
+				DatabaseInputFunction.asIs(),
+				DatabaseOutputFunction.stringValue());
+		database.inTransaction(tx -> entry.setFromString(tx, "$", 1L)).blockLast();
+		assertEquals("$", database.findByID(NativeGuildSettings.class, 1L).block().getPrefix());
+		database.inTransaction(tx -> entry.setFromString(tx, "None", 1L)).blockLast();
+		assertNull(database.findByID(NativeGuildSettings.class, 1L).block().getPrefix());
+		assertEquals(2L, database.inTransaction(tx -> entry.findOrCreate(tx, 2L))
+				.blockLast()
+				.getGuildId());
+		assertNull(database.findByID(NativeGuildSettings.class, 2L).block());
+	}
+
+	@Test
+	void testDoesNotSupportSessions() {
+		assertFalse(database.supportsSessions());
+	}
+
+	private static NativeGuildSettings guildSettings(long guildId, String prefix) {
+		var gs = new NativeGuildSettings();
+		gs.setGuildId(guildId);
+		gs.setPrefix(prefix);
+		return gs;
+	}
+}
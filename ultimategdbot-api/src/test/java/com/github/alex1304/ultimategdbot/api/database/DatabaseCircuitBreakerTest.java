@@ -0,0 +1,67 @@
+package com.github.alex1304.ultimategdbot.api.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.alex1304.ultimategdbot.api.database.DatabaseCircuitBreaker.State;
+
+class DatabaseCircuitBreakerTest {
+
+	private static final long FAST = Duration.ofMillis(1).toNanos();
+	private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+	@Test
+	void testOpensAfterConsecutiveFailuresAndRecoversThroughAProbe() throws InterruptedException {
+		var breaker = new DatabaseCircuitBreaker(3, Duration.ofSeconds(1), Duration.ofMillis(50));
+		for (var i = 0; i < 2; i++) {
+			assertTrue(breaker.tryAcquirePermission());
+			breaker.onFailure(FAST);
+		}
+		assertTrue(breaker.tryAcquirePermission());
+		breaker.onSuccess(FAST);
+		for (var i = 0; i < 3; i++) {
+			assertTrue(breaker.tryAcquirePermission());
+			breaker.onFailure(FAST);
+		}
+		assertEquals(State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission());
+		assertEquals(1, breaker.getRejectedCount());
+		Thread.sleep(60);
+		assertTrue(breaker.tryAcquirePermission(), "A probe is let through once the open duration has elapsed");
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission(), "Only one probe at a time");
+		breaker.onSuccess(FAST);
+		assertEquals(State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquirePermission());
+	}
+
+	@Test
+	void testSlowCallsCountAsFailures() throws InterruptedException {
+		var breaker = new DatabaseCircuitBreaker(2, Duration.ofSeconds(1), Duration.ofMillis(50));
+		for (var i = 0; i < 2; i++) {
+			assertTrue(breaker.tryAcquirePermission());
+			breaker.onSuccess(SLOW);
+		}
+		assertEquals(State.OPEN, breaker.getState());
+		Thread.sleep(60);
+		assertTrue(breaker.tryAcquirePermission());
+		breaker.onSuccess(SLOW);
+		assertEquals(State.OPEN, breaker.getState(), "A slow probe opens the breaker again");
+		assertEquals(2, breaker.getOpenCount());
+	}
+
+	@Test
+	void testDisabledBreakerNeverOpens() {
+		var breaker = DatabaseCircuitBreaker.disabled();
+		for (var i = 0; i < 100; i++) {
+			assertTrue(breaker.tryAcquirePermission());
+			breaker.onFailure(SLOW);
+		}
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+}
@@ -0,0 +1,95 @@
+package com.github.alex1304.ultimategdbot.api.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.alex1304.ultimategdbot.api.utils.PropertyParser;
+
+import discord4j.core.DiscordClient;
+import discord4j.core.DiscordClientBuilder;
+import discord4j.core.event.domain.lifecycle.ReconnectEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class EventPipelineTest {
+
+	private DiscordClient client;
+	private EventPipeline pipeline;
+
+	@BeforeEach
+	void setUp() {
+		client = new DiscordClientBuilder("token").build();
+		var props = new Properties();
+		props.setProperty("event_pipeline.ReconnectEvent.parallelism", "2");
+		pipeline = new EventPipeline(Flux.just(client), new PropertyParser(props));
+	}
+
+	@AfterEach
+	void tearDown() {
+		pipeline.dispose();
+	}
+
+	@Test
+	void testSubscribersAreDeliveredInParallel() throws InterruptedException {
+		// Each subscriber blocks until the other one received the event as well, which
+		// can only happen if they run on different threads
+		var bothReceived = new CountDownLatch(2);
+		var bothProceeded = new CountDownLatch(2);
+		for (var i = 0; i < 2; i++) {
+			pipeline.on(ReconnectEvent.class)
+					.take(1)
+					.subscribe(event -> {
+						bothReceived.countDown();
+						try {
+							if (bothReceived.await(5, TimeUnit.SECONDS)) {
+								bothProceeded.countDown();
+							}
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					});
+		}
+		client.getEventDispatcher().publish(new ReconnectEvent(client, 1));
+		assertTrue(bothProceeded.await(10, TimeUnit.SECONDS));
+		assertEquals(1, pipeline.getStats().get(0).getDelivered());
+		assertEquals(2, pipeline.getStats().get(0).getParallelism());
+	}
+
+	@Test
+	void testEventsAreDeliveredInOrder() {
+		var events = pipeline.on(ReconnectEvent.class)
+				.map(ReconnectEvent::getCurrentAttempt)
+				.take(100)
+				.collectList();
+		var result = events.zipWith(Mono.fromRunnable(() -> {
+					for (var i = 0; i < 100; i++) {
+						client.getEventDispatcher().publish(new ReconnectEvent(client, i));
+					}
+				}).then(Mono.just(0)), (list, __) -> list)
+				.block(Duration.ofSeconds(10));
+		for (var i = 0; i < 100; i++) {
+			assertEquals(i, result.get(i));
+		}
+	}
+
+	@Test
+	void testDisposeDisposesSchedulers() {
+		var scheduler = pipeline.getScheduler(ReconnectEvent.class);
+		assertFalse(scheduler.isDisposed());
+		pipeline.dispose();
+		assertTrue(pipeline.isDisposed());
+		assertTrue(scheduler.isDisposed());
+		assertThrows(IllegalStateException.class, () -> pipeline.on(ReconnectEvent.class));
+	}
+}
@@ -0,0 +1,85 @@
+package com.github.alex1304.ultimategdbot.api.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+class GuildAvailabilityTrackerTest {
+
+	@Test
+	void testReadyResetsShard() {
+		var tracker = new GuildAvailabilityTracker();
+		tracker.markShardReady(1);
+		tracker.markUnavailable(1, 42);
+		tracker.onReady(1, new long[] { 1, 2, 2, 3 });
+		assertFalse(tracker.isShardReady(1));
+		assertEquals(3, tracker.getUnavailableGuildCount(1));
+		assertFalse(tracker.isUnavailable(1, 42));
+		assertTrue(tracker.markAvailable(1, 2));
+		assertFalse(tracker.markAvailable(1, 2), "Already available");
+		assertFalse(tracker.isUnavailable(0, 1), "Shards are tracked separately");
+		assertEquals(2, tracker.getUnavailableGuildCount());
+		assertThrows(IllegalArgumentException.class, () -> tracker.markUnavailable(0, 0));
+	}
+
+	@Test
+	void testConcurrentUpdatesKeepCountsExact() {
+		var tracker = new GuildAvailabilityTracker();
+		var shards = 4;
+		var guildsPerShard = 5_000;
+		for (var shard = 0; shard < shards; shard++) {
+			tracker.onReady(shard, LongStream.rangeClosed(1, guildsPerShard).toArray());
+		}
+		// Every guild becomes available, then half of them go unavailable again, from
+		// many threads at once and in an order that interleaves shards
+		Flux.range(0, shards * guildsPerShard)
+				.parallel()
+				.runOn(Schedulers.parallel())
+				.doOnNext(i -> {
+					var shard = i % shards;
+					var guildId = i / shards + 1;
+					assertTrue(tracker.markAvailable(shard, guildId));
+					if (guildId % 2 == 0) {
+						assertTrue(tracker.markUnavailable(shard, guildId));
+					}
+				})
+				.sequential()
+				.blockLast();
+		for (var shard = 0; shard < shards; shard++) {
+			assertEquals(guildsPerShard / 2, tracker.getUnavailableGuildCount(shard));
+			assertTrue(tracker.isUnavailable(shard, 2));
+			assertFalse(tracker.isUnavailable(shard, 1));
+		}
+		assertEquals(shards * guildsPerShard / 2, tracker.getUnavailableGuildCount());
+	}
+
+	@Test
+	void testCountsStayExactWhileTablesGrow() {
+		var tracker = new GuildAvailabilityTracker();
+		var guilds = 50_000;
+		// Starting from an empty shard, so that tables are migrated many times while
+		// other threads are updating them
+		Flux.range(1, guilds)
+				.parallel()
+				.runOn(Schedulers.parallel())
+				.doOnNext(guildId -> {
+					assertTrue(tracker.markUnavailable(0, guildId));
+					if (guildId % 2 == 0) {
+						assertTrue(tracker.markAvailable(0, guildId));
+					}
+				})
+				.sequential()
+				.blockLast();
+		assertEquals(guilds / 2, tracker.getUnavailableGuildCount(0));
+		assertTrue(tracker.isUnavailable(0, 1));
+		assertFalse(tracker.isUnavailable(0, 2));
+	}
+}
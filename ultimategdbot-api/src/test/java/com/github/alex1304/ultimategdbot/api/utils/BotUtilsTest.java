@@ -0,0 +1,97 @@
+package com.github.alex1304.ultimategdbot.api.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class BotUtilsTest {
+	
+	@Test
+	void testSplitMessageShortText() {
+		assertEquals(List.of("hello\nworld"), BotUtils.splitMessage("hello\nworld", 100));
+		assertEquals(List.of(""), BotUtils.splitMessage("", 100));
+	}
+	
+	@Test
+	void testSplitMessageAtLines() {
+		var chunks = BotUtils.splitMessage("aaaaaaaaaa\nbbbbbbbbbb\ncccccccccc\n", 21);
+		assertEquals(List.of("aaaaaaaaaa\nbbbbbbbbbb", "cccccccccc"), chunks);
+	}
+	
+	@Test
+	void testSplitMessageLongLineAtWords() {
+		var line = "the quick brown fox jumps over the lazy dog";
+		var chunks = BotUtils.splitMessage(line, 16);
+		chunks.forEach(chunk -> assertTrue(chunk.length() <= 16, chunk));
+		assertEquals(List.of("the quick brown", "fox jumps over", "the lazy dog"), chunks);
+		var noSpaces = "x".repeat(40);
+		assertEquals(String.join("", BotUtils.splitMessage(noSpaces, 16)), noSpaces, "Nothing is truncated");
+	}
+	
+	@Test
+	void testSplitMessageReopensCodeblock() {
+		var text = "intro\n```java\nline1\nline2\nline3\n```\noutro";
+		var chunks = BotUtils.splitMessage(text, 24);
+		chunks.forEach(chunk -> {
+			assertTrue(chunk.length() <= 24, chunk);
+			assertEquals(0, countFences(chunk) % 2, "Code blocks are balanced in " + chunk);
+		});
+		assertEquals(List.of("intro\n```java\nline1\n```", "```java\nline2\nline3\n```", "outro"), chunks);
+		assertEquals(List.of("intro", "```java\nline1\n```", "```\nline2\nline3\n```", "outro"),
+				BotUtils.splitMessage(text, 22), "Code blocks don't start at the end of a chunk, "
+						+ "and the language is dropped when it leaves too little room");
+	}
+	
+	@Test
+	void testSplitMessageInlineCodeblockDoesNotToggle() {
+		var chunks = BotUtils.splitMessage("```inline```\n" + "word ".repeat(10), 16);
+		chunks.forEach(chunk -> assertEquals(0, countFences(chunk) % 2, chunk));
+	}
+	
+	@Test
+	void testSplitMessageCutsLongLineAfterOpeningFence() {
+		var chunks = BotUtils.splitMessage("```\n" + "x".repeat(40) + "\n```", 16);
+		chunks.forEach(chunk -> {
+			assertTrue(chunk.length() <= 16, chunk);
+			assertEquals(0, countFences(chunk) % 2, chunk);
+			assertFalse(chunk.matches("```\\w*\n```"), "Code block is not empty");
+		});
+		assertEquals("```\n" + "x".repeat(8) + "\n```", chunks.get(0));
+		assertEquals(List.of("```java\nword\n```", "```\nword\n```"),
+				BotUtils.splitMessage("```java\n" + "word ".repeat(10), 16).subList(0, 2));
+	}
+	
+	@Test
+	void testSplitMessageNeverGivesBlankChunks() {
+		var chunks = BotUtils.splitMessage("\n```java\n" + "word ".repeat(600), 2000);
+		chunks.forEach(chunk -> assertFalse(chunk.isBlank(), "Blank chunk in " + chunks));
+		assertTrue(chunks.get(0).startsWith("\n```java\nword"), chunks.get(0));
+		var trailing = BotUtils.splitMessage("```\n" + "line\n".repeat(10) + "```\n\n", 24);
+		trailing.forEach(chunk -> assertFalse(chunk.isBlank(), "Blank chunk in " + trailing));
+	}
+	
+	@Test
+	void testSplitMessageReopensBlockquote() {
+		var chunks = BotUtils.splitMessage("title\n>>> quoted1\nquoted2\nquoted3", 20);
+		assertEquals(List.of("title\n>>> quoted1", ">>> quoted2\nquoted3"), chunks);
+	}
+	
+	@Test
+	void testSplitMessageLazily() {
+		var text = "line\n".repeat(100_000);
+		assertEquals("line\nline\nline", BotUtils.splitMessageLazily(text, 16).findFirst().orElseThrow());
+		var joined = BotUtils.splitMessageLazily(text, 2000).collect(Collectors.joining("\n"));
+		assertEquals(text.strip(), joined);
+		assertThrows(IllegalArgumentException.class, () -> BotUtils.splitMessage(text, 10));
+	}
+	
+	private static int countFences(String chunk) {
+		return chunk.split("```", -1).length - 1;
+	}
+}
@@ -0,0 +1,27 @@
+package com.github.alex1304.ultimategdbot.api.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import discord4j.rest.request.SemaphoreGlobalRateLimiter;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+class InstrumentedGlobalRateLimiterTest {
+
+	@Test
+	void testRequestCancelledWhileWaitingGivesThePermitBack() throws InterruptedException {
+		var limiter = new InstrumentedGlobalRateLimiter(new SemaphoreGlobalRateLimiter(1));
+		var releaseFirst = MonoProcessor.<Void>create();
+		limiter.withLimiter(releaseFirst).subscribe();
+		var waiting = limiter.withLimiter(Mono.just(1)).subscribe();
+		Thread.sleep(50);
+		waiting.dispose();
+		releaseFirst.onComplete();
+		assertEquals(2, limiter.withLimiter(Mono.just(2)).blockLast(Duration.ofSeconds(1)));
+		assertEquals(2, limiter.getRequestCount(), "The cancelled request is not sent");
+	}
+}
@@ -0,0 +1,74 @@
+package com.github.alex1304.ultimategdbot.api.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Schedulers;
+
+class KeyedAsyncMutexTest {
+
+	@Test
+	void testExclusiveLockIsMutuallyExclusive() {
+		var mutex = new KeyedAsyncMutex();
+		var holders = new AtomicInteger();
+		var maxHolders = new AtomicInteger();
+		Flux.range(0, 200)
+				.flatMap(i -> mutex.acquireUntil("key", Mono.fromRunnable(() -> maxHolders.accumulateAndGet(holders.incrementAndGet(), Math::max))
+						.then(Mono.delay(Duration.ofMillis(1)))
+						.doOnTerminate(holders::decrementAndGet))
+						.subscribeOn(Schedulers.parallel()))
+				.blockLast();
+		assertEquals(1, maxHolders.get());
+		assertEquals(0, mutex.getActiveKeyCount(), "Keys are freed once released");
+	}
+
+	@Test
+	void testSharedLockIsSharedButExcludesWriters() throws InterruptedException {
+		var mutex = new KeyedAsyncMutex();
+		var releaseReader1 = MonoProcessor.<Void>create();
+		var reader1Released = new AtomicBoolean();
+		var writerRan = new AtomicBoolean();
+		var writerDone = MonoProcessor.<Void>create();
+		var readers = new AtomicInteger();
+		mutex.acquireReadUntil("key", releaseReader1.doOnSubscribe(__ -> readers.incrementAndGet())).subscribe();
+		mutex.acquireReadUntil("key", Mono.fromRunnable(readers::incrementAndGet)).blockLast(Duration.ofSeconds(1));
+		assertEquals(2, readers.get(), "The second reader doesn't wait for the first one");
+		mutex.acquireUntil("key", Mono.fromRunnable(() -> {
+					assertTrue(reader1Released.get(), "The writer runs only once the first reader released its lock");
+					writerRan.set(true);
+				}))
+				.subscribe(null, writerDone::onError, writerDone::onComplete);
+		Thread.sleep(50);
+		assertFalse(writerRan.get(), "The writer waits while a reader holds the lock");
+		reader1Released.set(true);
+		releaseReader1.onComplete();
+		writerDone.block(Duration.ofSeconds(1));
+		assertTrue(writerRan.get());
+		assertEquals(0, mutex.getActiveKeyCount());
+	}
+
+	@Test
+	void testTimeoutLeavesTheQueue() {
+		var mutex = new KeyedAsyncMutex();
+		var release = MonoProcessor.<Void>create();
+		mutex.acquireUntil("key", release).subscribe();
+		var e = assertThrows(RuntimeException.class, () -> mutex.acquireUntil("key", Mono.empty(), Duration.ofMillis(20)).blockLast());
+		assertEquals(TimeoutException.class, Exceptions.unwrap(e).getClass());
+		release.onComplete();
+		mutex.acquireUntil("key", Mono.just(1)).blockLast(Duration.ofSeconds(1));
+		assertEquals(0, mutex.getActiveKeyCount());
+	}
+}
@@ -0,0 +1,64 @@
+package com.github.alex1304.ultimategdbot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.alex1304.ultimategdbot.api.command.ExecutableCommand;
+
+/**
+ * Measures the invocation of an annotated command action: selection of the
+ * action method, conversion of the arguments and reflective call. The action
+ * itself does nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnnotatedCommandBenchmark {
+	
+	@Param({ "main_action", "main_action_nullable", "subcommand" })
+	public String kind;
+	
+	private ExecutableCommand executable;
+	
+	@Setup
+	public void setup() {
+		var bot = BenchmarkFixtures.bot();
+		String content;
+		switch (kind) {
+			case "main_action":
+				content = BenchmarkFixtures.PREFIX + "bench name 42";
+				break;
+			case "main_action_nullable":
+				content = BenchmarkFixtures.PREFIX + "bench name 42 " + BenchmarkFixtures.AUTHOR_ID;
+				break;
+			case "subcommand":
+				content = BenchmarkFixtures.PREFIX + "bench sub name";
+				break;
+			default:
+				throw new IllegalArgumentException(kind);
+		}
+		executable = BenchmarkFixtures.commandProvider()
+				.provideFromEvent(bot, BenchmarkFixtures.PREFIX, BenchmarkFixtures.messageCreateEvent(bot, content),
+						BenchmarkFixtures.channel(bot))
+				.orElseThrow();
+	}
+	
+	@Benchmark
+	public Object invoke() {
+		return executable.getCommand().run(executable.getContext()).block();
+	}
+}
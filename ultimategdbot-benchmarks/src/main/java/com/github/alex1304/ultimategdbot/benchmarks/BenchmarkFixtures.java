@@ -0,0 +1,147 @@
+package com.github.alex1304.ultimategdbot.benchmarks;
+
+import java.util.Properties;
+
+import com.github.alex1304.ultimategdbot.api.Bot;
+import com.github.alex1304.ultimategdbot.api.command.Context;
+import com.github.alex1304.ultimategdbot.api.command.annotated.AnnotatedCommandProvider;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandAction;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandSpec;
+
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.object.data.stored.AttachmentBean;
+import discord4j.core.object.data.stored.ChannelBean;
+import discord4j.core.object.data.stored.MessageBean;
+import discord4j.core.object.data.stored.ReactionBean;
+import discord4j.core.object.data.stored.UserBean;
+import discord4j.core.object.data.stored.embed.EmbedBean;
+import discord4j.core.object.entity.Channel;
+import discord4j.core.object.entity.Message;
+import discord4j.core.object.entity.MessageChannel;
+import discord4j.core.object.entity.TextChannel;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Synthetic objects used by the benchmarks. Entities are built from Discord4J
+ * beans and the bot is never logged in, so no network access is needed.
+ */
+final class BenchmarkFixtures {
+	
+	static final String PREFIX = "!";
+	static final long BOT_ID = 100_000_000_000_000_001L;
+	static final long GUILD_ID = 100_000_000_000_000_002L;
+	static final long CHANNEL_ID = 100_000_000_000_000_003L;
+	static final long AUTHOR_ID = 100_000_000_000_000_004L;
+	
+	private BenchmarkFixtures() {
+	}
+	
+	/**
+	 * Builds a bot with a single shard that is never logged in.
+	 * 
+	 * @return the bot
+	 */
+	@SuppressWarnings("deprecation")
+	static Bot bot() {
+		var props = new Properties();
+		props.setProperty("token", "benchmark");
+		props.setProperty("default_prefix", PREFIX);
+		props.setProperty("debug_log_channel_id", String.valueOf(CHANNEL_ID));
+		props.setProperty("attachments_channel_id", String.valueOf(CHANNEL_ID));
+		props.setProperty("emoji_guild_ids", String.valueOf(GUILD_ID));
+		props.setProperty("shard_count", "1");
+		var bot = Bot.buildFromProperties(props, new Properties());
+		bot.getMainDiscordClient().getServiceMediator().getStateHolder().getSelfId().set(BOT_ID);
+		return bot;
+	}
+	
+	/**
+	 * Builds a command provider containing the {@link BenchmarkCommand} and a few
+	 * other commands, so that lookups are not trivial.
+	 * 
+	 * @return the command provider
+	 */
+	static AnnotatedCommandProvider commandProvider() {
+		var provider = new AnnotatedCommandProvider();
+		provider.addAnnotated(new BenchmarkCommand());
+		provider.addAnnotated(new PingCommand());
+		provider.addAnnotated(new EchoCommand());
+		return provider;
+	}
+	
+	/**
+	 * Builds a MessageCreateEvent as if the given content was sent in a guild
+	 * text channel by a regular user.
+	 * 
+	 * @param bot     the bot receiving the event
+	 * @param content the content of the message
+	 * @return the event
+	 */
+	@SuppressWarnings("deprecation")
+	static MessageCreateEvent messageCreateEvent(Bot bot, String content) {
+		var client = bot.getMainDiscordClient();
+		var author = new UserBean();
+		author.setId(AUTHOR_ID);
+		author.setUsername("benchmark");
+		author.setDiscriminator("0001");
+		var bean = new MessageBean();
+		bean.setId(AUTHOR_ID + 1);
+		bean.setChannelId(CHANNEL_ID);
+		bean.setAuthor(author);
+		bean.setContent(content);
+		bean.setTimestamp("2019-10-01T00:00:00.000000+00:00");
+		bean.setMentions(new long[0]);
+		bean.setMentionRoles(new long[0]);
+		bean.setAttachments(new AttachmentBean[0]);
+		bean.setEmbeds(new EmbedBean[0]);
+		bean.setReactions(new ReactionBean[0]);
+		return new MessageCreateEvent(client, new Message(client.getServiceMediator(), bean), GUILD_ID, null);
+	}
+	
+	/**
+	 * Builds the guild text channel in which fixture messages are sent.
+	 * 
+	 * @param bot the bot
+	 * @return the channel
+	 */
+	@SuppressWarnings("deprecation")
+	static MessageChannel channel(Bot bot) {
+		var bean = new ChannelBean(CHANNEL_ID, Channel.Type.GUILD_TEXT.getValue());
+		bean.setGuildId(GUILD_ID);
+		bean.setName("benchmarks");
+		return new TextChannel(bot.getMainDiscordClient().getServiceMediator(), bean);
+	}
+	
+	@CommandSpec(aliases = { "bench", "benchmark" })
+	public static class BenchmarkCommand {
+		
+		@CommandAction
+		public Mono<Void> run(Context ctx, String name, int count, @Nullable Long id) {
+			return Mono.empty();
+		}
+		
+		@CommandAction("sub")
+		public Mono<Void> runSub(Context ctx, String name) {
+			return Mono.empty();
+		}
+	}
+	
+	@CommandSpec(aliases = "ping")
+	public static class PingCommand {
+		
+		@CommandAction
+		public Mono<Void> run(Context ctx) {
+			return Mono.empty();
+		}
+	}
+	
+	@CommandSpec(aliases = { "echo", "say" })
+	public static class EchoCommand {
+		
+		@CommandAction
+		public Mono<Void> run(Context ctx, String text) {
+			return Mono.empty();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.github.alex1304.ultimategdbot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.alex1304.ultimategdbot.api.command.CommandInstrumentation;
+import com.github.alex1304.ultimategdbot.api.command.CommandStage;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Measures the fixed overhead that command instrumentation adds to each stage,
+ * compared to the same Mono without instrumentation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandInstrumentationBenchmark {
+	
+	private final CommandInstrumentation instrumentation = new CommandInstrumentation();
+	private final Mono<Integer> stage = Mono.just(1);
+	
+	@Benchmark
+	public Integer baseline() {
+		return stage.block();
+	}
+	
+	@Benchmark
+	public Integer timed() {
+		return instrumentation.time("bench", CommandStage.ACTION, stage).block();
+	}
+	
+	@Benchmark
+	public void record() {
+		instrumentation.record("bench", CommandStage.ACTION, 1234, TimeUnit.MICROSECONDS);
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public void recordContended() {
+		instrumentation.record("bench", CommandStage.ACTION, 1234, TimeUnit.MICROSECONDS);
+	}
+}
@@ -0,0 +1,74 @@
+package com.github.alex1304.ultimategdbot.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.alex1304.ultimategdbot.api.Bot;
+import com.github.alex1304.ultimategdbot.api.command.CommandProvider;
+import com.github.alex1304.ultimategdbot.api.command.ExecutableCommand;
+
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.core.object.entity.MessageChannel;
+
+/**
+ * Measures how long it takes to turn a MessageCreateEvent into an executable
+ * command, which happens for every message the bot can see.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandProviderBenchmark {
+	
+	@Param({ "prefix", "mention", "unknown_command", "no_prefix" })
+	public String kind;
+	
+	private Bot bot;
+	private CommandProvider provider;
+	private MessageCreateEvent event;
+	private MessageChannel channel;
+	
+	@Setup
+	public void setup() {
+		bot = BenchmarkFixtures.bot();
+		provider = BenchmarkFixtures.commandProvider();
+		channel = BenchmarkFixtures.channel(bot);
+		String content;
+		switch (kind) {
+			case "prefix":
+				content = BenchmarkFixtures.PREFIX + "bench name 42 -flag";
+				break;
+			case "mention":
+				content = "<@!" + BenchmarkFixtures.BOT_ID + "> bench name 42 -flag";
+				break;
+			case "unknown_command":
+				content = BenchmarkFixtures.PREFIX + "unknown name 42";
+				break;
+			case "no_prefix":
+				content = "just a regular message in a busy channel";
+				break;
+			default:
+				throw new IllegalArgumentException(kind);
+		}
+		event = BenchmarkFixtures.messageCreateEvent(bot, content);
+	}
+	
+	@Benchmark
+	public Optional<ExecutableCommand> provideFromEvent() {
+		return provider.provideFromEvent(bot, BenchmarkFixtures.PREFIX, event, channel);
+	}
+}
@@ -0,0 +1,99 @@
+package com.github.alex1304.ultimategdbot.benchmarks;
+
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.alex1304.ultimategdbot.api.Database;
+import com.github.alex1304.ultimategdbot.api.HibernateDatabase;
+import com.github.alex1304.ultimategdbot.api.R2dbcDatabase;
+import com.github.alex1304.ultimategdbot.api.database.NativeGuildSettings;
+
+import io.r2dbc.spi.ConnectionFactories;
+import reactor.core.publisher.Flux;
+
+/**
+ * Runs a burst of concurrent guild settings lookups and saves against an
+ * embedded H2 database, through each database backend. The second-level cache
+ * is disabled so that every lookup reaches the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatabaseBackendBenchmark {
+
+	private static final String MAPPING = "/NativeGuildSettings.hbm.xml";
+
+	@Param({ "hibernate", "r2dbc" })
+	public String backend;
+
+	@Param({ "1000" })
+	public int operations;
+
+	@Param({ "100" })
+	public int guilds;
+
+	private Database database;
+
+	@Setup
+	public void setup() {
+		var props = new Properties();
+		props.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+		props.setProperty("hibernate.connection.url", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+		props.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		props.setProperty("hibernate.hbm2ddl.auto", "create");
+		props.setProperty("hibernate.cache.use_second_level_cache", "false");
+		// The Hibernate database also creates the schema used by the R2DBC one
+		var hibernate = new HibernateDatabase();
+		hibernate.addAllMappingResources(Set.of(MAPPING));
+		hibernate.configure(props);
+		if (backend.equals("r2dbc")) {
+			database = new R2dbcDatabase(ConnectionFactories.get("r2dbc:h2:mem:///bench;DB_CLOSE_DELAY=-1"));
+			database.addAllMappingResources(Set.of(MAPPING));
+			database.configure();
+		} else {
+			database = hibernate;
+		}
+		Flux.range(0, guilds)
+				.concatMap(i -> database.save(guildSettings(i)))
+				.blockLast();
+	}
+
+	@Benchmark
+	public Long lookups() {
+		return Flux.range(0, operations)
+				.flatMap(i -> database.findByID(NativeGuildSettings.class, (long) (i % guilds)), operations)
+				.count()
+				.block();
+	}
+
+	@Benchmark
+	public Long saves() {
+		return Flux.range(0, operations)
+				.flatMap(i -> database.save(guildSettings(i % guilds)).thenReturn(i), operations)
+				.count()
+				.block();
+	}
+
+	private static NativeGuildSettings guildSettings(long guildId) {
+		var gs = new NativeGuildSettings();
+		gs.setGuildId(guildId);
+		gs.setPrefix("!");
+		return gs;
+	}
+}
@@ -0,0 +1,94 @@
+package com.github.alex1304.ultimategdbot.benchmarks;
+
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.alex1304.ultimategdbot.api.ExecutionMode;
+import com.github.alex1304.ultimategdbot.api.HibernateDatabase;
+import com.github.alex1304.ultimategdbot.api.database.NativeGuildSettings;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Runs a burst of concurrent commands that each look up guild settings through
+ * the Hibernate database, against an embedded H2 database, with database calls
+ * running on the blocking scheduler of each execution mode. The real JDBC and
+ * connection pool code is exercised, including the monitors it holds while
+ * blocked, which a plain sleep would not reproduce on virtual threads. The
+ * virtual threads run fails on a JVM without virtual threads rather than
+ * measuring the elastic scheduler a second time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionModeBenchmark {
+	
+	@Param({ "ELASTIC", "VIRTUAL_THREADS" })
+	public ExecutionMode mode;
+	
+	@Param({ "10000" })
+	public int commands;
+	
+	@Param({ "100" })
+	public int guilds;
+	
+	private Scheduler scheduler;
+	private HibernateDatabase database;
+	
+	@Setup
+	public void setup() {
+		if (mode.effective() != mode) {
+			throw new IllegalStateException("Virtual threads are not supported by this JVM (Java "
+					+ Runtime.version().feature() + "), run this benchmark on Java 21 or newer");
+		}
+		scheduler = mode.createScheduler("benchmark-" + mode.name().toLowerCase());
+		var props = new Properties();
+		props.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+		props.setProperty("hibernate.connection.url", "jdbc:h2:mem:execution_mode;DB_CLOSE_DELAY=-1");
+		props.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		props.setProperty("hibernate.hbm2ddl.auto", "create");
+		props.setProperty("hibernate.cache.use_second_level_cache", "false");
+		database = new HibernateDatabase(scheduler);
+		database.addAllMappingResources(Set.of("/NativeGuildSettings.hbm.xml"));
+		database.configure(props);
+		Flux.range(0, guilds)
+				.concatMap(i -> {
+					var gs = new NativeGuildSettings();
+					gs.setGuildId((long) i);
+					gs.setPrefix("!");
+					return database.save(gs);
+				})
+				.blockLast();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		scheduler.dispose();
+	}
+	
+	@Benchmark
+	public Long burst() {
+		return Flux.range(0, commands)
+				.flatMap(i -> database.findByID(NativeGuildSettings.class, (long) (i % guilds)), commands)
+				.count()
+				.block();
+	}
+}
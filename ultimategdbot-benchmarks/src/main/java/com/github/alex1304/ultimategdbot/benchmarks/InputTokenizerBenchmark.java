@@ -0,0 +1,57 @@
+package com.github.alex1304.ultimategdbot.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.alex1304.ultimategdbot.api.command.FlagSet;
+import com.github.alex1304.ultimategdbot.api.utils.InputTokenizer;
+
+import reactor.util.function.Tuple2;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InputTokenizerBenchmark {
+	
+	@Param({ "plain", "flags", "quoted" })
+	public String kind;
+	
+	private String input;
+	
+	@Setup
+	public void setup() {
+		switch (kind) {
+			case "plain":
+				input = "bench some arguments 42 and a few more words";
+				break;
+			case "flags":
+				input = "bench -verbose -limit=10 some arguments -format=json 42";
+				break;
+			case "quoted":
+				input = "bench \"some quoted argument\" 42 \"another \\\"escaped\\\" one\" -flag=\"quoted value\"";
+				break;
+			default:
+				throw new IllegalArgumentException(kind);
+		}
+	}
+	
+	@Benchmark
+	public Tuple2<FlagSet, List<String>> tokenize() {
+		return InputTokenizer.tokenize("-", input);
+	}
+}
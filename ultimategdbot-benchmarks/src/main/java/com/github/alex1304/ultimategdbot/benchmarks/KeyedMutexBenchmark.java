@@ -0,0 +1,127 @@
+package com.github.alex1304.ultimategdbot.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Publisher;
+
+import com.github.alex1304.ultimategdbot.api.utils.KeyedAsyncMutex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.pool.InstrumentedPool;
+import reactor.pool.PoolBuilder;
+
+/**
+ * Compares {@link KeyedAsyncMutex} with the former implementation of MutexPool,
+ * which kept a reactor-pool per key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyedMutexBenchmark {
+
+	private static final int IDLE_KEYS = 20_000;
+
+	@Param({ "pool", "keyed" })
+	public String implementation;
+
+	@State(Scope.Benchmark)
+	public static class Contention {
+		
+		@Param({ "1", "1000" })
+		public int keys;
+		
+		private Mutex mutex;
+		
+		@Setup
+		public void setup(KeyedMutexBenchmark benchmark) {
+			mutex = benchmark.newMutex();
+		}
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Object acquireUnderContention(Contention contention) {
+		var key = ThreadLocalRandom.current().nextInt(contention.keys);
+		return contention.mutex.acquireUntil(key, Mono.fromCallable(System::nanoTime)).blockLast();
+	}
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Footprint {
+		public double bytesPerIdleKey;
+	}
+
+	/**
+	 * Locks and unlocks many distinct keys, and measures how much memory stays
+	 * retained afterwards. The result to look at is the bytesPerIdleKey counter.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Object idleKeyFootprint(Footprint footprint) {
+		var idleMutex = newMutex();
+		var before = usedHeap();
+		for (var i = 0; i < IDLE_KEYS; i++) {
+			idleMutex.acquireUntil(i, Mono.empty()).blockLast();
+		}
+		footprint.bytesPerIdleKey = (usedHeap() - before) / (double) IDLE_KEYS;
+		return idleMutex;
+	}
+
+	private Mutex newMutex() {
+		switch (implementation) {
+			case "pool":
+				return new PoolPerKeyMutex()::acquireUntil;
+			case "keyed":
+				return new KeyedAsyncMutex()::acquireUntil;
+			default:
+				throw new IllegalArgumentException(implementation);
+		}
+	}
+
+	private static long usedHeap() {
+		for (var i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private interface Mutex {
+		Flux<Object> acquireUntil(Object key, Publisher<Object> until);
+	}
+
+	private static class PoolPerKeyMutex {
+
+		private final Cache<Object, InstrumentedPool<Object>> poolCache = Caffeine.newBuilder()
+				.expireAfterAccess(Duration.ofMinutes(30))
+				.build();
+
+		private <X> Flux<X> acquireUntil(Object mutex, Publisher<X> until) {
+			var pool = poolCache.asMap().computeIfAbsent(mutex, key -> PoolBuilder.from(Mono.fromCallable(Object::new))
+						.sizeBetween(0, 1)
+						.fifo());
+			return pool.withPoolable(o -> until);
+		}
+	}
+}
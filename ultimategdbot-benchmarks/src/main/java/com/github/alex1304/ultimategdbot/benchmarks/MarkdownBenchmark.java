@@ -0,0 +1,44 @@
+package com.github.alex1304.ultimategdbot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.alex1304.ultimategdbot.api.utils.Markdown;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarkdownBenchmark {
+	
+	@Param({ "plain", "markdown" })
+	public String kind;
+	
+	private String text;
+	
+	@Setup
+	public void setup() {
+		var unit = kind.equals("plain")
+				? "The quick brown fox jumps over the lazy dog. "
+				: "**The** _quick_ ~~brown~~ `fox` __jumps__ ||over|| > the *lazy* dog\\. ";
+		text = unit.repeat(10);
+	}
+	
+	@Benchmark
+	public String escape() {
+		return Markdown.escape(text);
+	}
+}
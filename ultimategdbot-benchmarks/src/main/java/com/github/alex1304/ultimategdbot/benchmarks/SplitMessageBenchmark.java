@@ -0,0 +1,64 @@
+package com.github.alex1304.ultimategdbot.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.alex1304.ultimategdbot.api.utils.BotUtils;
+
+import discord4j.core.object.entity.Message;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SplitMessageBenchmark {
+	
+	@Param({ "2000", "20000", "200000", "1000000" })
+	public int length;
+	
+	@Param({ "false", "true" })
+	public boolean codeBlocks;
+	
+	private String message;
+	
+	@Setup
+	public void setup() {
+		var sb = new StringBuilder();
+		var line = 0;
+		while (sb.length() < length) {
+			if (codeBlocks && line % 20 == 0) {
+				sb.append("```\n");
+			}
+			sb.append("Line ").append(line).append(": the quick brown fox jumps over the lazy dog\n");
+			if (codeBlocks && line % 20 == 19) {
+				sb.append("```\n");
+			}
+			line++;
+		}
+		message = sb.toString();
+	}
+	
+	@Benchmark
+	public List<String> splitMessage() {
+		return BotUtils.splitMessage(message);
+	}
+	
+	@Benchmark
+	public String splitMessageFirstChunk() {
+		return BotUtils.splitMessageLazily(message, Message.MAX_CONTENT_LENGTH - 10).findFirst().orElseThrow();
+	}
+}
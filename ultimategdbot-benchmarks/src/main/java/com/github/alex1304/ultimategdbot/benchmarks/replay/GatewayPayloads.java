@@ -0,0 +1,136 @@
+package com.github.alex1304.ultimategdbot.benchmarks.replay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import discord4j.gateway.json.GatewayPayload;
+import discord4j.gateway.json.Opcode;
+import discord4j.gateway.json.dispatch.Dispatch;
+
+/**
+ * Reads gateway payloads in the JSON format sent by Discord, and builds
+ * synthetic ones for the replay harness. Recorded payloads use the same format,
+ * one payload per line.
+ */
+public class GatewayPayloads {
+	
+	private static final String TIMESTAMP = "2019-10-01T00:00:00.000000+00:00";
+	
+	private final ObjectMapper mapper;
+	
+	public GatewayPayloads(ObjectMapper mapper) {
+		this.mapper = Objects.requireNonNull(mapper);
+	}
+	
+	/**
+	 * Parses a gateway payload.
+	 * 
+	 * @param json the payload, in JSON format
+	 * @return the dispatch it contains, or null if it isn't a dispatch payload
+	 */
+	public Dispatch parse(String json) {
+		try {
+			GatewayPayload<?> payload = mapper.readValue(json, GatewayPayload.class);
+			return payload.getOp() == Opcode.DISPATCH ? (Dispatch) payload.getData() : null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	public Dispatch ready(long botId, List<Long> guildIds) {
+		var guilds = new ArrayList<Map<String, Object>>();
+		for (var guildId : guildIds) {
+			guilds.add(Map.of("id", guildId, "unavailable", true));
+		}
+		return dispatch("READY", Map.of(
+				"v", 6,
+				"user", user(botId, "replay", true),
+				"private_channels", List.of(),
+				"guilds", guilds,
+				"session_id", "replay",
+				"_trace", List.of(),
+				"shard", List.of(0, 1)));
+	}
+	
+	public Dispatch guildCreate(long guildId, List<Long> channelIds) {
+		var channels = new ArrayList<Map<String, Object>>();
+		for (var channelId : channelIds) {
+			channels.add(Map.of("id", channelId, "type", 0, "name", "replay-" + channelId, "position", 0,
+					"permission_overwrites", List.of(), "nsfw", false));
+		}
+		var guild = new HashMap<String, Object>();
+		guild.put("id", guildId);
+		guild.put("name", "Replay");
+		guild.put("owner_id", guildId);
+		guild.put("region", "europe");
+		guild.put("afk_timeout", 300);
+		guild.put("verification_level", 0);
+		guild.put("default_message_notifications", 0);
+		guild.put("explicit_content_filter", 0);
+		guild.put("roles", List.of(Map.of("id", guildId, "name", "@everyone", "color", 0, "hoist", false, "position", 0,
+				"permissions", 104324161, "managed", false, "mentionable", false)));
+		guild.put("emojis", List.of());
+		guild.put("features", List.of());
+		guild.put("mfa_level", 0);
+		guild.put("joined_at", TIMESTAMP);
+		guild.put("large", false);
+		guild.put("unavailable", false);
+		guild.put("member_count", channelIds.size());
+		guild.put("voice_states", List.of());
+		guild.put("members", List.of());
+		guild.put("channels", channels);
+		guild.put("presences", List.of());
+		return dispatch("GUILD_CREATE", guild);
+	}
+	
+	public Dispatch messageCreate(long messageId, long guildId, long channelId, long authorId, String content) {
+		return dispatch("MESSAGE_CREATE", Map.ofEntries(
+				Map.entry("id", messageId),
+				Map.entry("channel_id", channelId),
+				Map.entry("guild_id", guildId),
+				Map.entry("author", user(authorId, "user" + authorId, false)),
+				Map.entry("member", Map.of("roles", List.of(), "joined_at", TIMESTAMP, "deaf", false, "mute", false)),
+				Map.entry("content", content),
+				Map.entry("timestamp", TIMESTAMP),
+				Map.entry("tts", false),
+				Map.entry("mention_everyone", false),
+				Map.entry("mentions", List.of()),
+				Map.entry("mention_roles", List.of()),
+				Map.entry("attachments", List.of()),
+				Map.entry("embeds", List.of()),
+				Map.entry("pinned", false),
+				Map.entry("type", 0)));
+	}
+	
+	public Dispatch reactionAdd(long guildId, long channelId, long messageId, long userId, String emoji) {
+		var emojiMap = new HashMap<String, Object>();
+		emojiMap.put("id", null);
+		emojiMap.put("name", emoji);
+		return dispatch("MESSAGE_REACTION_ADD", Map.of(
+				"user_id", userId,
+				"channel_id", channelId,
+				"message_id", messageId,
+				"guild_id", guildId,
+				"emoji", emojiMap));
+	}
+	
+	private static Map<String, Object> user(long id, String username, boolean bot) {
+		return Map.of("id", id, "username", username, "discriminator", "0001", "bot", bot);
+	}
+	
+	private Dispatch dispatch(String type, Map<String, ?> data) {
+		try {
+			var json = mapper.writeValueAsString(Map.of("op", 0, "t", type, "s", 0, "d", data));
+			return parse(json);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,429 @@
+package com.github.alex1304.ultimategdbot.benchmarks.replay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.alex1304.ultimategdbot.api.Bot;
+import com.github.alex1304.ultimategdbot.api.HibernateDatabase;
+import com.github.alex1304.ultimategdbot.api.database.NativeGuildSettings;
+import com.github.alex1304.ultimategdbot.api.utils.PropertyParser;
+import com.github.alex1304.ultimategdbot.benchmarks.replay.StubRouterFactory.MessageListener;
+
+import discord4j.common.JacksonResourceProvider;
+import discord4j.core.DiscordClient;
+import discord4j.gateway.json.dispatch.Dispatch;
+import discord4j.gateway.json.dispatch.GuildCreate;
+import discord4j.gateway.json.dispatch.MessageCreate;
+import discord4j.gateway.json.dispatch.Ready;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs the bot end to end without connecting to Discord. Gateway dispatches are
+ * emitted at a fixed rate by a {@link StubGatewayClient} and go through the
+ * regular Discord4J dispatch handlers, event pipeline, command kernel, plugins
+ * and interactive menus. REST requests are answered by a
+ * {@link StubRouterFactory} with a configurable latency and global rate limit
+ * rate, and the database is an in-memory H2 database.
+ *
+ * <p>
+ * The workload is either synthetic or recorded:
+ * <ul>
+ * <li>Synthetic: each user has their own channel and sends a mix of
+ * {@code echo}, {@code dbecho} and {@code menu} commands from the
+ * {@link ReplayHarnessPlugin}. Menus are then browsed to page 2 and closed,
+ * or closed as soon as their first control shows up, while the others are
+ * still being added.
+ * Replies are matched with the command that triggered them by their
+ * content.</li>
+ * <li>Recorded: the gateway payloads of {@code replay.file}, one JSON payload
+ * per line, are replayed in order. READY and GUILD_CREATE dispatches are sent
+ * on login. Since their replies are unknown, each message starting with the
+ * prefix is assumed to be answered by the next message the bot sends in the
+ * same channel.</li>
+ * </ul>
+ *
+ * <p>
+ * The harness is configured with system properties, see {@link #main(String[])}.
+ */
+public class GatewayReplayHarness {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger("ultimategdbot.replay");
+
+	static final String PREFIX = "!";
+	static final long BOT_ID = 200_000_000_000_000_001L;
+	static final long GUILD_ID = 200_000_000_000_000_002L;
+	static final long LOG_CHANNEL_ID = 200_000_000_000_000_003L;
+	static final long CHANNEL_ID_BASE = 300_000_000_000_000_000L;
+	static final long USER_ID_BASE = 400_000_000_000_000_000L;
+	static final long MESSAGE_ID_BASE = 500_000_000_000_000_000L;
+
+	private static final String CLOSE_EMOJI = "🚫";
+	private static final String BOT_PROPERTY_PREFIX = "replay.bot.";
+	private static final int MENU_CONTROLS = 3;
+	private static final String FIRST_PAGE_SUFFIX = " page 1";
+	private static final String SECOND_PAGE_SUFFIX = " page 2";
+
+	private final int rate;
+	private final int events;
+	private final int users;
+	private final String file;
+	private final long seed;
+	private final Duration menuThinkTime;
+	private final double menuEarlyCloseProbability;
+	private final Duration drainTimeout;
+	private final Properties botProps = new Properties();
+	private final Properties hibernateProps = new Properties();
+	private final GatewayPayloads payloads;
+	private final StubRouterFactory routerFactory;
+	private final AtomicReference<StubGatewayClient> gatewayClient = new AtomicReference<>();
+	private final AtomicLong nextMessageId = new AtomicLong(MESSAGE_ID_BASE);
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong lastReplyNanos = new AtomicLong();
+	private final Recorder latency = new Recorder(3);
+	private final Map<String, Long> pendingReplies = new ConcurrentHashMap<>();
+	private final Map<Long, Queue<Long>> pendingRecordedReplies = new ConcurrentHashMap<>();
+	private final Map<String, Integer> menuOwners = new ConcurrentHashMap<>();
+	private final Map<Long, String> menuMessages = new ConcurrentHashMap<>();
+	private final Map<Long, Integer> menuReactions = new ConcurrentHashMap<>();
+	private final Map<Long, Integer> menusToCloseEarly = new ConcurrentHashMap<>();
+	private final Set<Integer> usersWithOpenMenu = ConcurrentHashMap.newKeySet();
+
+	public GatewayReplayHarness(Properties config) {
+		var parser = new PropertyParser(config);
+		this.rate = parser.parseAsIntOrDefault("replay.rate", 200);
+		this.events = parser.parseAsIntOrDefault("replay.events", 2000);
+		this.users = parser.parseAsIntOrDefault("replay.users", 50);
+		this.file = parser.parseAsStringOrDefault("replay.file", null);
+		this.seed = parser.parseAsLongOrDefault("replay.seed", 42);
+		this.menuThinkTime = Duration.ofMillis(parser.parseAsLongOrDefault("replay.menu_think_time_millis", 100));
+		this.menuEarlyCloseProbability = parser.parseOrDefault("replay.menu_early_close_probability", Double::parseDouble, 0.0);
+		this.drainTimeout = Duration.ofSeconds(parser.parseAsLongOrDefault("replay.drain_timeout_seconds", 30));
+		// Given to the database directly: Hibernate only reads system properties once, when it is first loaded
+		hibernateProps.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+		hibernateProps.setProperty("hibernate.connection.url", "jdbc:h2:mem:replay;DB_CLOSE_DELAY=-1");
+		hibernateProps.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		hibernateProps.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		config.stringPropertyNames().stream()
+				.filter(key -> key.startsWith("hibernate."))
+				.forEach(key -> hibernateProps.setProperty(key, config.getProperty(key)));
+		var mapper = new JacksonResourceProvider().getObjectMapper();
+		this.payloads = new GatewayPayloads(mapper);
+		this.routerFactory = new StubRouterFactory(mapper,
+				Duration.ofMillis(parser.parseAsLongOrDefault("replay.rest_latency_millis", 20)),
+				Duration.ofMillis(parser.parseAsLongOrDefault("replay.rest_latency_jitter_millis", 20)),
+				parser.parseOrDefault("replay.rest_rate_limit_probability", Double::parseDouble, 0.001),
+				Duration.ofMillis(parser.parseAsLongOrDefault("replay.rest_retry_after_millis", 50)),
+				BOT_ID, new MessageListener() {
+					@Override
+					public void onMessage(long channelId, long messageId, String content) {
+						onReply(channelId, messageId, content);
+					}
+					
+					@Override
+					public void onReaction(long channelId, long messageId, String emoji) {
+						var earlyCloseUser = menusToCloseEarly.remove(messageId);
+						if (earlyCloseUser != null) {
+							closeMenu(channelId, messageId, earlyCloseUser, Duration.ZERO);
+							return;
+						}
+						menuReactions.merge(messageId, 1, Integer::sum);
+						browseMenuWhenReady(messageId);
+					}
+				});
+		botProps.setProperty("token", "replay");
+		botProps.setProperty("default_prefix", parser.parseAsStringOrDefault("replay.prefix", PREFIX));
+		botProps.setProperty("debug_log_channel_id", String.valueOf(LOG_CHANNEL_ID));
+		botProps.setProperty("attachments_channel_id", String.valueOf(LOG_CHANNEL_ID));
+		botProps.setProperty("emoji_guild_ids", String.valueOf(GUILD_ID));
+		botProps.setProperty("shard_count", "1");
+		botProps.setProperty("shard_login.delay_millis", "0");
+		botProps.setProperty("interactive_menu.timeout", String.valueOf(parser.parseAsIntOrDefault("replay.menu_timeout_seconds", 30)));
+		botProps.setProperty("interactive_menu.close_emoji", CLOSE_EMOJI);
+		for (var name : config.stringPropertyNames()) {
+			if (name.startsWith(BOT_PROPERTY_PREFIX)) {
+				botProps.setProperty(name.substring(BOT_PROPERTY_PREFIX.length()), config.getProperty(name));
+			}
+		}
+	}
+
+	/**
+	 * Runs the harness with the configuration given as system properties and logs
+	 * the report. Available properties:
+	 * <ul>
+	 * <li>{@code replay.rate}: dispatches per second (default 200)</li>
+	 * <li>{@code replay.events}: number of commands of the synthetic workload
+	 * (default 2000)</li>
+	 * <li>{@code replay.users}: number of users of the synthetic workload, each
+	 * with their own channel (default 50)</li>
+	 * <li>{@code replay.file}: file of recorded gateway payloads, replacing the
+	 * synthetic workload</li>
+	 * <li>{@code replay.seed}: seed of the synthetic workload (default 42)</li>
+	 * <li>{@code replay.prefix}: command prefix (default {@code !})</li>
+	 * <li>{@code replay.menu_think_time_millis}: delay before each menu
+	 * interaction (default 100)</li>
+	 * <li>{@code replay.menu_early_close_probability}: fraction of menus closed
+	 * as soon as their first control shows up, cancelling the requests that add
+	 * the other controls (default 0)</li>
+	 * <li>{@code replay.menu_timeout_seconds}: interactive menu timeout (default
+	 * 30)</li>
+	 * <li>{@code replay.rest_latency_millis} and
+	 * {@code replay.rest_latency_jitter_millis}: REST response time (default 20 +
+	 * 0-20)</li>
+	 * <li>{@code replay.rest_rate_limit_probability}: fraction of REST requests
+	 * answered with a global rate limit (default 0.001)</li>
+	 * <li>{@code replay.rest_retry_after_millis}: duration of the simulated rate
+	 * limits (default 50)</li>
+	 * <li>{@code replay.bot.*}: passed to the bot configuration without the
+	 * {@code replay.bot.} prefix, for example
+	 * {@code replay.bot.execution_mode=virtual_threads}</li>
+	 * <li>{@code replay.drain_timeout_seconds}: how long to wait for the last
+	 * replies (default 30)</li>
+	 * </ul>
+	 * Hibernate settings can be overridden the same way; they default to an
+	 * in-memory H2 database.
+	 *
+	 * @param args unused
+	 */
+	public static void main(String[] args) {
+		var report = new GatewayReplayHarness(System.getProperties()).run();
+		LOGGER.info("{}", report);
+		System.exit(report.getLostReplies() == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Starts the bot, replays the workload, waits for the replies and logs the bot
+	 * out.
+	 *
+	 * @return the report of the run
+	 */
+	public ReplayReport run() {
+		var workload = file == null ? null : readRecordedPayloads();
+		var loginDispatches = workload == null ? syntheticLoginDispatches() : extractLoginDispatches(workload);
+		var bot = Bot.buildFromProperties(botProps, new Properties(), dcb -> dcb
+				.setRouterFactory(routerFactory)
+				.setGatewayClientFactory((httpClient, reader, writer, retryOptions, token, identifyOptions, observer,
+						identifyLimiter) -> {
+					var client = new StubGatewayClient(loginDispatches, identifyOptions);
+					gatewayClient.set(client);
+					return client;
+				}));
+		if (bot.getDatabase() instanceof HibernateDatabase) {
+			((HibernateDatabase) bot.getDatabase()).addPropertyOverrides(hibernateProps);
+		}
+		bot.start().subscribe(null, e -> LOGGER.error("Bot terminated with an error", e));
+		try {
+			bot.getShardLoginOrchestrator().awaitReadyQuorum().block(Duration.ofSeconds(30));
+			if (workload == null) {
+				// Otherwise the first commands race to create them
+				createGuildSettings(bot);
+			}
+			var allocatedBefore = allocatedBytes();
+			var requestsBefore = routerFactory.getRequestCount();
+			var rateLimitsBefore = routerFactory.getRateLimitCount();
+			latency.reset();
+			var start = System.nanoTime();
+			lastReplyNanos.set(start);
+			if (workload == null) {
+				replaySynthetic(start);
+			} else {
+				replayRecorded(workload, start);
+			}
+			drain();
+			if (!pendingReplies.isEmpty()) {
+				LOGGER.warn("No reply received for: {}", pendingReplies.keySet());
+			}
+			var elapsed = Duration.ofNanos(lastReplyNanos.get() - start);
+			var histogram = latency.getIntervalHistogram();
+			return new ReplayReport(sent.get(), histogram, elapsed, allocatedBytes() - allocatedBefore,
+					routerFactory.getRequestCount() - requestsBefore, routerFactory.getRateLimitCount() - rateLimitsBefore,
+					sent.get() - histogram.getTotalCount());
+		} finally {
+			bot.getDiscordClients().flatMap(DiscordClient::logout).then().block(Duration.ofSeconds(10));
+		}
+	}
+
+	private void replaySynthetic(long start) {
+		var random = new Random(seed);
+		var client = gatewayClient.get();
+		for (var i = 0; i < events; i++) {
+			awaitSlot(start, i);
+			var user = random.nextInt(users);
+			var token = "c" + i;
+			var kind = random.nextDouble();
+			String content;
+			String expected;
+			if (kind < 0.1 && usersWithOpenMenu.add(user)) {
+				menuOwners.put(token, user);
+				content = "menu " + token;
+				expected = ReplayHarnessPlugin.menuPage(token, 0);
+			} else if (kind < 0.4) {
+				content = "dbecho " + token;
+				expected = token;
+			} else {
+				content = "echo " + token;
+				expected = token;
+			}
+			send(client, user, botProps.getProperty("default_prefix") + content, expected);
+		}
+	}
+
+	private void replayRecorded(List<Dispatch> workload, long start) {
+		var client = gatewayClient.get();
+		var prefix = botProps.getProperty("default_prefix");
+		for (var i = 0; i < workload.size(); i++) {
+			awaitSlot(start, i);
+			var dispatch = workload.get(i);
+			if (dispatch instanceof MessageCreate && ((MessageCreate) dispatch).getContent().startsWith(prefix)) {
+				sent.incrementAndGet();
+				pendingRecordedReplies.computeIfAbsent(((MessageCreate) dispatch).getChannelId(), k -> new ConcurrentLinkedQueue<>())
+						.add(System.nanoTime());
+			}
+			client.dispatch(dispatch);
+		}
+	}
+
+	private void send(StubGatewayClient client, int user, String content, String expectedReply) {
+		sent.incrementAndGet();
+		pendingReplies.put(expectedReply, System.nanoTime());
+		client.dispatch(payloads.messageCreate(nextMessageId.incrementAndGet(), GUILD_ID, CHANNEL_ID_BASE + user,
+				USER_ID_BASE + user, content));
+	}
+
+	private void onReply(long channelId, long messageId, String content) {
+		var now = System.nanoTime();
+		var sentAt = pendingReplies.remove(content);
+		if (sentAt == null) {
+			var queue = pendingRecordedReplies.get(channelId);
+			sentAt = queue == null ? null : queue.poll();
+		}
+		if (sentAt == null) {
+			return;
+		}
+		latency.recordValue(TimeUnit.NANOSECONDS.toMicros(now - sentAt));
+		lastReplyNanos.accumulateAndGet(now, Math::max);
+		if (content.endsWith(FIRST_PAGE_SUFFIX)) {
+			var token = content.substring(0, content.length() - FIRST_PAGE_SUFFIX.length());
+			if (menuEarlyCloseProbability > 0 && ThreadLocalRandom.current().nextDouble() < menuEarlyCloseProbability) {
+				menusToCloseEarly.put(messageId, menuOwners.remove(token));
+				return;
+			}
+			menuMessages.put(messageId, token);
+			browseMenuWhenReady(messageId);
+		} else if (content.endsWith(SECOND_PAGE_SUFFIX)) {
+			var token = content.substring(0, content.length() - SECOND_PAGE_SUFFIX.length());
+			closeMenu(channelId, messageId, menuOwners.remove(token), menuThinkTime);
+		}
+	}
+
+	private void closeMenu(long channelId, long messageId, int user, Duration delay) {
+		Mono.delay(delay).subscribe(__ -> {
+			gatewayClient.get().dispatch(payloads.reactionAdd(GUILD_ID, channelId, messageId, USER_ID_BASE + user, CLOSE_EMOJI));
+			usersWithOpenMenu.remove(user);
+		});
+	}
+
+	/**
+	 * Like a real user, the user waits for the navigation controls to show up
+	 * before going to the next page.
+	 */
+	private void browseMenuWhenReady(long messageId) {
+		if (menuReactions.getOrDefault(messageId, 0) < MENU_CONTROLS) {
+			return;
+		}
+		var token = menuMessages.remove(messageId);
+		if (token == null) {
+			return;
+		}
+		menuReactions.remove(messageId);
+		var user = menuOwners.get(token);
+		Mono.delay(menuThinkTime).subscribe(__ -> send(gatewayClient.get(), user, "page 2",
+				ReplayHarnessPlugin.menuPage(token, 1)));
+	}
+
+	private void awaitSlot(long start, int index) {
+		var target = start + index * 1_000_000_000L / rate;
+		var remaining = target - System.nanoTime();
+		if (remaining > 0) {
+			LockSupport.parkNanos(remaining);
+		}
+	}
+
+	private void drain() {
+		var deadline = System.nanoTime() + drainTimeout.toNanos();
+		while (System.nanoTime() < deadline && (!pendingReplies.isEmpty() || !usersWithOpenMenu.isEmpty()
+				|| pendingRecordedReplies.values().stream().anyMatch(queue -> !queue.isEmpty()))) {
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+	}
+
+	private List<Dispatch> syntheticLoginDispatches() {
+		var channelIds = LongStream.range(0, users).map(i -> CHANNEL_ID_BASE + i).boxed().collect(Collectors.toList());
+		return List.of(payloads.ready(BOT_ID, List.of(GUILD_ID)), payloads.guildCreate(GUILD_ID, channelIds));
+	}
+
+	private List<Dispatch> readRecordedPayloads() {
+		try (var lines = Files.lines(Paths.get(file))) {
+			return lines.filter(line -> !line.isBlank())
+					.map(payloads::parse)
+					.filter(Objects::nonNull)
+					.collect(Collectors.toCollection(ArrayList::new));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private List<Dispatch> extractLoginDispatches(List<Dispatch> workload) {
+		var login = workload.stream()
+				.filter(dispatch -> dispatch instanceof Ready || dispatch instanceof GuildCreate)
+				.collect(Collectors.toList());
+		workload.removeAll(login);
+		if (login.stream().noneMatch(Ready.class::isInstance)) {
+			login.add(0, payloads.ready(BOT_ID, login.stream()
+					.map(guild -> ((GuildCreate) guild).getId())
+					.collect(Collectors.toList())));
+		}
+		return login;
+	}
+
+	private static void createGuildSettings(Bot bot) {
+		var settings = new NativeGuildSettings();
+		settings.setGuildId(GUILD_ID);
+		bot.getDatabase().save(settings).block();
+	}
+
+	private static long allocatedBytes() {
+		var threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return 0;
+		}
+		// Bytes allocated by threads that terminated during the run are not counted
+		return LongStream.of(((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds()))
+				.filter(bytes -> bytes > 0)
+				.sum();
+	}
+}
@@ -0,0 +1,105 @@
+package com.github.alex1304.ultimategdbot.benchmarks.replay;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.alex1304.ultimategdbot.api.Bot;
+import com.github.alex1304.ultimategdbot.api.Plugin;
+import com.github.alex1304.ultimategdbot.api.command.CommandProvider;
+import com.github.alex1304.ultimategdbot.api.command.Context;
+import com.github.alex1304.ultimategdbot.api.command.annotated.AnnotatedCommandProvider;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandAction;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandSpec;
+import com.github.alex1304.ultimategdbot.api.database.GuildSettingsEntry;
+import com.github.alex1304.ultimategdbot.api.database.NativeGuildSettings;
+import com.github.alex1304.ultimategdbot.api.utils.PropertyParser;
+import com.github.alex1304.ultimategdbot.api.utils.UniversalMessageSpec;
+import com.github.alex1304.ultimategdbot.api.utils.menu.InteractiveMenu;
+import com.github.alex1304.ultimategdbot.api.utils.menu.PageNumberOutOfRangeException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Plugin providing the commands exercised by the replay harness. Each command
+ * replies with the token it was given, so that the harness can match replies
+ * with the messages that triggered them.
+ */
+public class ReplayHarnessPlugin implements Plugin {
+	
+	static final int MENU_PAGES = 5;
+	
+	private final AnnotatedCommandProvider cmdProvider = new AnnotatedCommandProvider();
+
+	@Override
+	public Mono<Void> setup(Bot bot, PropertyParser parser) {
+		return Mono.fromRunnable(() -> {
+			cmdProvider.addAnnotated(new EchoCommand());
+			cmdProvider.addAnnotated(new DatabaseEchoCommand());
+			cmdProvider.addAnnotated(new MenuCommand());
+		});
+	}
+
+	@Override
+	public String getName() {
+		return "Replay Harness";
+	}
+
+	@Override
+	public boolean requiresDatabaseSessions() {
+		return false;
+	}
+
+	@Override
+	public Set<String> getDatabaseMappingResources() {
+		return Set.of();
+	}
+
+	@Override
+	public Map<String, GuildSettingsEntry<?, ?>> getGuildConfigurationEntries() {
+		return Map.of();
+	}
+
+	@Override
+	public CommandProvider getCommandProvider() {
+		return cmdProvider;
+	}
+	
+	static String menuPage(String token, int page) {
+		return token + " page " + (page + 1);
+	}
+	
+	@CommandSpec(aliases = "echo")
+	public static class EchoCommand {
+		
+		@CommandAction
+		public Mono<Void> run(Context ctx, String token) {
+			return ctx.reply(token).then();
+		}
+	}
+	
+	@CommandSpec(aliases = "dbecho")
+	public static class DatabaseEchoCommand {
+		
+		@CommandAction
+		public Mono<Void> run(Context ctx, String token) {
+			var guildId = ctx.getEvent().getGuildId().orElseThrow().asLong();
+			return ctx.getBot().getDatabase().findByID(NativeGuildSettings.class, guildId)
+					.then(ctx.reply(token))
+					.then();
+		}
+	}
+	
+	@CommandSpec(aliases = "menu")
+	public static class MenuCommand {
+		
+		@CommandAction
+		public Mono<Void> run(Context ctx, String token) {
+			return InteractiveMenu.createPaginated(new AtomicInteger(), ctx.getBot().getDefaultPaginationControls(), page -> {
+						PageNumberOutOfRangeException.check(page, 0, MENU_PAGES - 1);
+						return new UniversalMessageSpec(menuPage(token, page));
+					})
+					.open(ctx);
+		}
+	}
+}
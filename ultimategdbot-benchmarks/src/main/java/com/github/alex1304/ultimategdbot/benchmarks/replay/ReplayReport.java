@@ -0,0 +1,122 @@
+package com.github.alex1304.ultimategdbot.benchmarks.replay;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Results of a run of the {@link GatewayReplayHarness}.
+ */
+public class ReplayReport {
+	
+	private final long sentCommands;
+	private final Histogram latency;
+	private final Duration elapsed;
+	private final long allocatedBytes;
+	private final long restRequests;
+	private final long rateLimits;
+	private final long lostReplies;
+	
+	ReplayReport(long sentCommands, Histogram latency, Duration elapsed, long allocatedBytes, long restRequests,
+			long rateLimits, long lostReplies) {
+		this.sentCommands = sentCommands;
+		this.latency = latency;
+		this.elapsed = elapsed;
+		this.allocatedBytes = allocatedBytes;
+		this.restRequests = restRequests;
+		this.rateLimits = rateLimits;
+		this.lostReplies = lostReplies;
+	}
+	
+	/**
+	 * Gets the number of commands and menu interactions sent to the bot.
+	 * 
+	 * @return the sent command count
+	 */
+	public long getSentCommands() {
+		return sentCommands;
+	}
+	
+	/**
+	 * Gets the number of commands and menu interactions the bot replied to.
+	 * 
+	 * @return the completed command count
+	 */
+	public long getCompletedCommands() {
+		return latency.getTotalCount();
+	}
+	
+	/**
+	 * Gets the number of completed commands per second, from the first dispatch
+	 * to the last reply.
+	 * 
+	 * @return the throughput
+	 */
+	public double getCommandsPerSecond() {
+		return elapsed.isZero() ? 0 : getCompletedCommands() * 1e9 / elapsed.toNanos();
+	}
+	
+	/**
+	 * Gets the end-to-end latency at the given percentile, from the moment the
+	 * dispatch is emitted by the gateway to the moment the reply reaches the REST
+	 * router.
+	 * 
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the latency
+	 */
+	public Duration getLatency(double percentile) {
+		return Duration.ofNanos(latency.getValueAtPercentile(percentile) * 1000);
+	}
+	
+	/**
+	 * Gets the average number of bytes allocated per second by the JVM during the
+	 * run.
+	 * 
+	 * @return the allocation rate
+	 */
+	public double getAllocationRate() {
+		return elapsed.isZero() ? 0 : allocatedBytes * 1e9 / elapsed.toNanos();
+	}
+	
+	/**
+	 * Gets the number of REST requests answered by the stub router, including
+	 * rate limited attempts.
+	 * 
+	 * @return the REST request count
+	 */
+	public long getRestRequests() {
+		return restRequests;
+	}
+	
+	/**
+	 * Gets the number of simulated global rate limits.
+	 * 
+	 * @return the rate limit count
+	 */
+	public long getRateLimits() {
+		return rateLimits;
+	}
+	
+	/**
+	 * Gets the number of commands and menu interactions that never got a reply.
+	 * 
+	 * @return the lost reply count
+	 */
+	public long getLostReplies() {
+		return lostReplies;
+	}
+	
+	public Duration getElapsed() {
+		return elapsed;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "Replayed %d commands in %.2fs: %.1f commands/s, latency p50 %.2fms, "
+						+ "p99 %.2fms, max %.2fms, allocation %.1f MB/s, %d REST requests, %d rate limits, %d lost replies",
+				sentCommands, elapsed.toNanos() / 1e9, getCommandsPerSecond(),
+				latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+				latency.getMaxValue() / 1000.0, getAllocationRate() / (1024 * 1024), restRequests, rateLimits, lostReplies);
+	}
+}
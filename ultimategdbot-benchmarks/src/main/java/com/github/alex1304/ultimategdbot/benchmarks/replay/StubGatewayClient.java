@@ -0,0 +1,122 @@
+package com.github.alex1304.ultimategdbot.benchmarks.replay;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+
+import discord4j.gateway.GatewayClient;
+import discord4j.gateway.GatewayObserver;
+import discord4j.gateway.IdentifyOptions;
+import discord4j.gateway.json.GatewayPayload;
+import discord4j.gateway.json.dispatch.Dispatch;
+import io.netty.buffer.ByteBuf;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * Gateway client that never opens a websocket. Once executed, it emits the
+ * given login dispatches (typically READY followed by the GUILD_CREATE of each
+ * guild), then any dispatch passed to {@link #dispatch(Dispatch)}, which go
+ * through the regular dispatch handlers of Discord4J.
+ */
+public class StubGatewayClient implements GatewayClient {
+	
+	private final List<Dispatch> loginDispatches;
+	private final IdentifyOptions identifyOptions;
+	private final EmitterProcessor<Dispatch> dispatchProcessor = EmitterProcessor.create(false);
+	private final FluxSink<Dispatch> dispatchSink = dispatchProcessor.sink(FluxSink.OverflowStrategy.BUFFER);
+	private final EmitterProcessor<GatewayPayload<?>> senderProcessor = EmitterProcessor.create(false);
+	private final MonoProcessor<Void> closeNotifier = MonoProcessor.create();
+	private final AtomicInteger sequence = new AtomicInteger();
+	private volatile boolean connected;
+	
+	public StubGatewayClient(List<Dispatch> loginDispatches, IdentifyOptions identifyOptions) {
+		this.loginDispatches = List.copyOf(loginDispatches);
+		this.identifyOptions = identifyOptions;
+		senderProcessor.subscribe();
+	}
+	
+	/**
+	 * Emits a dispatch as if it was received from the gateway.
+	 * 
+	 * @param dispatch the dispatch to emit
+	 */
+	public void dispatch(Dispatch dispatch) {
+		sequence.incrementAndGet();
+		dispatchSink.next(dispatch);
+	}
+
+	@Override
+	public Mono<Void> execute(String gatewayUrl) {
+		return execute(gatewayUrl, GatewayObserver.NOOP_LISTENER);
+	}
+
+	@Override
+	public Mono<Void> execute(String gatewayUrl, GatewayObserver observer) {
+		return Mono.fromRunnable(() -> {
+					connected = true;
+					observer.onStateChange(GatewayObserver.CONNECTED, identifyOptions);
+					loginDispatches.forEach(this::dispatch);
+				})
+				.then(closeNotifier)
+				.doFinally(signal -> {
+					connected = false;
+					observer.onStateChange(GatewayObserver.DISCONNECTED, identifyOptions);
+				});
+	}
+
+	@Override
+	public Mono<Void> close(boolean allowResume) {
+		return Mono.fromRunnable(closeNotifier::onComplete);
+	}
+
+	@Override
+	public Flux<Dispatch> dispatch() {
+		return dispatchProcessor;
+	}
+
+	@Override
+	public Flux<GatewayPayload<?>> receiver() {
+		return Flux.never();
+	}
+
+	@Override
+	public <T> Flux<T> receiver(Function<ByteBuf, Publisher<? extends T>> mapper) {
+		return Flux.never();
+	}
+
+	@Override
+	public FluxSink<GatewayPayload<?>> sender() {
+		return senderProcessor.sink();
+	}
+
+	@Override
+	public Mono<Void> sendBuffer(Publisher<ByteBuf> publisher) {
+		return Flux.from(publisher).doOnNext(ByteBuf::release).then();
+	}
+
+	@Override
+	public String getSessionId() {
+		return "replay";
+	}
+
+	@Override
+	public int getSequence() {
+		return sequence.get();
+	}
+
+	@Override
+	public boolean isConnected() {
+		return connected;
+	}
+
+	@Override
+	public long getResponseTime() {
+		return 0;
+	}
+}
@@ -0,0 +1,205 @@
+package com.github.alex1304.ultimategdbot.benchmarks.replay;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import discord4j.common.json.MessageResponse;
+import discord4j.rest.http.client.DiscordWebClient;
+import discord4j.rest.json.response.ChannelResponse;
+import discord4j.rest.json.response.GatewayResponse;
+import discord4j.rest.request.DiscordRequest;
+import discord4j.rest.request.GlobalRateLimiter;
+import discord4j.rest.request.Router;
+import discord4j.rest.request.RouterFactory;
+import discord4j.rest.request.RouterOptions;
+import discord4j.rest.route.Routes;
+import discord4j.rest.util.MultipartRequest;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Creates routers that answer REST requests locally instead of sending them to
+ * Discord. Each request waits for a permit of the global rate limiter like a
+ * real one, then is answered after a configurable latency. A configurable
+ * fraction of requests is answered with a global rate limit, which the router
+ * applies to the limiter before retrying the request.
+ *
+ * <p>
+ * Messages created or edited by the bot are answered with a synthetic message
+ * and reported to the {@link MessageListener}, which is how the replay harness
+ * knows that a command has replied. Reactions added by the bot are reported as
+ * well.
+ */
+public class StubRouterFactory implements RouterFactory {
+	
+	private static final Pattern CHANNEL_URI = Pattern.compile("/channels/(\\d+)(?:/messages/(\\d+))?");
+	
+	private final ObjectMapper mapper;
+	private final Duration latency;
+	private final Duration latencyJitter;
+	private final double rateLimitProbability;
+	private final Duration retryAfter;
+	private final long botId;
+	private final MessageListener listener;
+	private final AtomicLong nextMessageId = new AtomicLong(900_000_000_000_000_000L);
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong rateLimits = new AtomicLong();
+	
+	public StubRouterFactory(ObjectMapper mapper, Duration latency, Duration latencyJitter, double rateLimitProbability,
+			Duration retryAfter, long botId, MessageListener listener) {
+		this.mapper = Objects.requireNonNull(mapper);
+		this.latency = Objects.requireNonNull(latency);
+		this.latencyJitter = Objects.requireNonNull(latencyJitter);
+		this.rateLimitProbability = rateLimitProbability;
+		this.retryAfter = Objects.requireNonNull(retryAfter);
+		this.botId = botId;
+		this.listener = Objects.requireNonNull(listener);
+	}
+
+	@Override
+	public Router getRouter(DiscordWebClient webClient) {
+		return getRouter(webClient, RouterOptions.create());
+	}
+
+	@Override
+	public Router getRouter(DiscordWebClient webClient, RouterOptions routerOptions) {
+		return new StubRouter(routerOptions.getGlobalRateLimiter());
+	}
+	
+	/**
+	 * Gets the number of requests answered so far, including rate limited
+	 * attempts.
+	 * 
+	 * @return the request count
+	 */
+	public long getRequestCount() {
+		return requests.get();
+	}
+	
+	/**
+	 * Gets the number of requests that were answered with a global rate limit.
+	 * 
+	 * @return the rate limit count
+	 */
+	public long getRateLimitCount() {
+		return rateLimits.get();
+	}
+	
+	private Duration nextLatency() {
+		if (latencyJitter.isZero()) {
+			return latency;
+		}
+		return latency.plusNanos(ThreadLocalRandom.current().nextLong(latencyJitter.toNanos() + 1));
+	}
+	
+	private Object respond(DiscordRequest<?> request) {
+		var route = request.getRoute();
+		if (route.equals(Routes.GATEWAY_GET) || route.equals(Routes.GATEWAY_BOT_GET)) {
+			return mapper.convertValue(Map.of("url", "wss://replay.invalid", "shards", 1), GatewayResponse.class);
+		}
+		var matcher = CHANNEL_URI.matcher(request.getCompleteUri());
+		if (!matcher.find()) {
+			return null;
+		}
+		var channelId = Long.parseLong(matcher.group(1));
+		if (route.equals(Routes.CHANNEL_GET)) {
+			return mapper.convertValue(Map.of("id", channelId, "type", 0, "name", "replay-" + channelId, "position", 0,
+					"permission_overwrites", new Object[0], "nsfw", false), ChannelResponse.class);
+		}
+		if (route.equals(Routes.MESSAGE_CREATE) || route.equals(Routes.MESSAGE_EDIT)) {
+			var body = request.getBody() instanceof MultipartRequest
+					? ((MultipartRequest) request.getBody()).getCreateRequest()
+					: request.getBody();
+			var content = body == null ? null : mapper.convertValue(body, Map.class).get("content");
+			var messageId = route.equals(Routes.MESSAGE_CREATE) ? nextMessageId.incrementAndGet() : Long.parseLong(matcher.group(2));
+			var contentString = content instanceof String ? (String) content : "";
+			listener.onMessage(channelId, messageId, contentString);
+			return mapper.convertValue(Map.of(
+					"id", messageId,
+					"channel_id", channelId,
+					"author", Map.of("id", botId, "username", "replay", "discriminator", "0000", "bot", true),
+					"content", contentString,
+					"timestamp", "2019-10-01T00:00:00.000000+00:00",
+					"mentions", new Object[0],
+					"mention_roles", new Object[0],
+					"attachments", new Object[0],
+					"embeds", new Object[0]), MessageResponse.class);
+		}
+		if (route.equals(Routes.REACTION_CREATE)) {
+			var emoji = URLDecoder.decode(request.getCompleteUri().replaceFirst(".*/reactions/([^/]+)/@me$", "$1"),
+					StandardCharsets.UTF_8);
+			listener.onReaction(channelId, Long.parseLong(matcher.group(2)), emoji);
+		}
+		return null;
+	}
+	
+	private class StubRouter implements Router {
+		
+		private final GlobalRateLimiter globalRateLimiter;
+		
+		private StubRouter(GlobalRateLimiter globalRateLimiter) {
+			this.globalRateLimiter = globalRateLimiter;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> Mono<T> exchange(DiscordRequest<T> request) {
+			return globalRateLimiter.withLimiter(Mono.delay(nextLatency(), Schedulers.parallel())
+							.then(Mono.fromCallable(() -> {
+								requests.incrementAndGet();
+								if (rateLimitProbability > 0 && ThreadLocalRandom.current().nextDouble() < rateLimitProbability) {
+									rateLimits.incrementAndGet();
+									globalRateLimiter.rateLimitFor(retryAfter);
+									throw new SimulatedRateLimitException();
+								}
+								return (T) respond(request);
+							})))
+					.singleOrEmpty()
+					.onErrorResume(SimulatedRateLimitException.class, e -> exchange(request));
+		}
+	}
+	
+	private static class SimulatedRateLimitException extends RuntimeException {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private SimulatedRateLimitException() {
+			super(null, null, false, false);
+		}
+	}
+	
+	/**
+	 * Notified of every message created or edited by the bot.
+	 */
+	@FunctionalInterface
+	public interface MessageListener {
+		
+		/**
+		 * Called when the bot creates or edits a message.
+		 * 
+		 * @param channelId the ID of the channel of the message
+		 * @param messageId the ID of the message
+		 * @param content   the new content of the message
+		 */
+		void onMessage(long channelId, long messageId, String content);
+		
+		/**
+		 * Called when the bot adds a reaction to a message. Does nothing by default.
+		 * 
+		 * @param channelId the ID of the channel of the message
+		 * @param messageId the ID of the message
+		 * @param emoji     the emoji, as a unicode string or as name:id for custom
+		 *                  emojis
+		 */
+		default void onReaction(long channelId, long messageId, String emoji) {
+		}
+	}
+}
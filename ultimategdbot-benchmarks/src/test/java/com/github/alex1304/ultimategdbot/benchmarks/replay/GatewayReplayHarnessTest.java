@@ -0,0 +1,33 @@
+package com.github.alex1304.ultimategdbot.benchmarks.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+public class GatewayReplayHarnessTest {
+	
+	@Test
+	void testSyntheticReplay() {
+		var config = new Properties();
+		config.setProperty("replay.rate", "40");
+		config.setProperty("replay.events", "200");
+		config.setProperty("replay.users", "10");
+		config.setProperty("replay.menu_think_time_millis", "100");
+		// Closing a menu while its controls are being added cancels requests that may be waiting for the global rate
+		// limiter, which must give their permit back. Few permits and frequent rate limits make requests wait.
+		config.setProperty("replay.menu_early_close_probability", "0.5");
+		config.setProperty("replay.bot.request_parallelism", "2");
+		config.setProperty("replay.rest_latency_millis", "5");
+		config.setProperty("replay.rest_latency_jitter_millis", "5");
+		config.setProperty("replay.rest_rate_limit_probability", "0.2");
+		config.setProperty("replay.rest_retry_after_millis", "20");
+		var report = new GatewayReplayHarness(config).run();
+		assertTrue(report.getSentCommands() > 200, "Menus are browsed");
+		assertEquals(0, report.getLostReplies(), "All commands are answered");
+		assertEquals(report.getSentCommands(), report.getCompletedCommands());
+		assertTrue(report.getRestRequests() >= report.getCompletedCommands(), "Replies go through the stub router");
+	}
+}
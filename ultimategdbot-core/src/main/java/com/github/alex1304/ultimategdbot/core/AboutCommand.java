@@ -13,7 +13,6 @@ import com.github.alex1304.ultimategdbot.api.utils.DiscordFormatter;
 import discord4j.core.object.entity.ApplicationInfo;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.function.TupleUtils;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
@@ -41,7 +40,7 @@ class AboutCommand {
 				ctx.getBot().getMainDiscordClient().getGuilds().count(),
 				ctx.getBot().getMainDiscordClient().getUsers().count(),
 				Flux.fromIterable(ctx.getBot().getPlugins())
-						.flatMap(p -> p.getGitProperties()
+						.flatMap(p -> p.getGitProperties(ctx.getBot())
 								.map(g -> g.getProperty("git.build.version", "*unknown*"))
 								.defaultIfEmpty("*unknown*")
 								.map(v -> Tuples.of(p, v)))
@@ -70,7 +69,7 @@ class AboutCommand {
 					vars.forEach((k, v) -> result[0] = result[0].replaceAll("\\{\\{ *" + k + " *\\}\\}", String.valueOf(v)));
 					return ctx.reply(result[0]);
 				}))
-				.subscribeOn(Schedulers.elastic())
+				.subscribeOn(ctx.getBot().getBlockingScheduler())
 				.then();
 	}
 }
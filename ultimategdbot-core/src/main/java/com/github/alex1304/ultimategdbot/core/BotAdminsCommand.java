@@ -23,7 +23,7 @@ class BotAdminsCommand {
 	@CommandAction
 	@CommandDoc("Lists all users that have admin privileges on the bot.")
 	public Mono<Void> run(Context ctx) {
-		return ctx.getBot().getDatabase().query(BotAdmins.class, "from BotAdmins")
+		return ctx.getBot().getDatabase().queryReadOnly(BotAdmins.class, "from BotAdmins")
 				.flatMap(admin -> ctx.getBot().getDiscordClients().next().flatMap(client -> client.getUserById(Snowflake.of(admin.getUserId()))))
 				.map(DiscordFormatter::formatUser)
 				.collectSortedList(String.CASE_INSENSITIVE_ORDER)
@@ -0,0 +1,273 @@
+package com.github.alex1304.ultimategdbot.core;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.alex1304.ultimategdbot.api.Bot;
+import com.github.alex1304.ultimategdbot.api.command.CommandStage;
+import com.github.alex1304.ultimategdbot.api.database.DatabaseCircuitBreaker;
+import com.github.alex1304.ultimategdbot.api.event.EventChannelStats;
+import com.github.alex1304.ultimategdbot.api.event.EventPipeline;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import discord4j.core.StateHolder;
+import discord4j.store.api.Store;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.core.instrument.binder.system.UptimeMetrics;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Binds the metrics of the bot to a meter registry: JVM, garbage collection,
+ * event pipeline, commands, database connection pool, REST rate limiter and
+ * entity cache.
+ *
+ * <p>
+ * Event channels, command aliases and shards only become known while the bot
+ * is running, so their meters are registered by {@link #refresh()}, which
+ * should be called before each scrape. Counting cache entries means going
+ * through whole stores, so {@link #refresh()} also starts counting them in the
+ * background and the cache gauges report the last counts completed. Likewise,
+ * command histograms are copied once per alias and stage by {@link #refresh()},
+ * and the command meters read from these copies.
+ */
+class BotMetrics implements MeterBinder {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger("ultimategdbot.metrics");
+	private static final Duration STORE_COUNT_TIMEOUT = Duration.ofSeconds(5);
+	private static final Map<String, Function<StateHolder, Store<?, ?>>> STORES = Map.of(
+			"channels", StateHolder::getChannelStore,
+			"emojis", StateHolder::getGuildEmojiStore,
+			"guilds", StateHolder::getGuildStore,
+			"messages", StateHolder::getMessageStore,
+			"members", StateHolder::getMemberStore,
+			"presences", StateHolder::getPresenceStore,
+			"roles", StateHolder::getRoleStore,
+			"users", StateHolder::getUserStore,
+			"voice_states", StateHolder::getVoiceStateStore);
+	private static final List<Double> PERCENTILES = List.of(0.5, 0.9, 0.99);
+	private static final Histogram EMPTY_HISTOGRAM = new Histogram(2);
+
+	private final Bot bot;
+	private final Set<String> boundEventChannels = ConcurrentHashMap.newKeySet();
+	private final Set<String> boundAliases = ConcurrentHashMap.newKeySet();
+	private final Set<Integer> boundShards = ConcurrentHashMap.newKeySet();
+	private final Map<String, Double> cacheEntryCounts = new ConcurrentHashMap<>();
+	private final Map<String, Map<CommandStage, Histogram>> commandSnapshots = new ConcurrentHashMap<>();
+	private final AtomicBoolean countingCacheEntries = new AtomicBoolean();
+	private volatile MeterRegistry registry;
+
+	BotMetrics(Bot bot) {
+		this.bot = Objects.requireNonNull(bot);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.registry = registry;
+		new ClassLoaderMetrics().bindTo(registry);
+		new JvmMemoryMetrics().bindTo(registry);
+		new JvmGcMetrics().bindTo(registry);
+		new JvmThreadMetrics().bindTo(registry);
+		new ProcessorMetrics().bindTo(registry);
+		new UptimeMetrics().bindTo(registry);
+		bindDatabase(registry);
+		bindRateLimiter(registry);
+		bindCache(registry);
+		refresh();
+	}
+
+	/**
+	 * Registers the meters of event channels, command aliases and shards that
+	 * appeared since the last call, and takes the command histogram snapshots
+	 * read by the command meters.
+	 */
+	void refresh() {
+		var registry = this.registry;
+		if (registry == null) {
+			return;
+		}
+		var pipeline = bot.getEventPipeline();
+		for (var stats : pipeline.getStats()) {
+			if (boundEventChannels.add(stats.getEventName())) {
+				bindEventChannel(registry, pipeline, stats.getEventName());
+			}
+		}
+		var instrumentation = bot.getCommandInstrumentation();
+		for (var alias : instrumentation.getRecordedAliases()) {
+			// Recorded aliases are lowercased and only belong to existing commands, so
+			// there is a bounded number of them
+			if (boundAliases.add(alias)) {
+				bindCommand(registry, alias);
+			}
+		}
+		for (var alias : boundAliases) {
+			commandSnapshots.put(alias, instrumentation.getHistograms(alias));
+		}
+		for (var status : bot.getShardLoginOrchestrator().getShardStatuses()) {
+			if (boundShards.add(status.getShardIndex())) {
+				var shard = String.valueOf(status.getShardIndex());
+				Gauge.builder("ultimategdbot.shard.state", status, s -> s.getState().ordinal())
+						.description("State of the shard, as the ordinal of ShardState")
+						.tag("shard", shard)
+						.register(registry);
+				Gauge.builder("ultimategdbot.shard.guilds.unavailable", bot.getGuildAvailabilityTracker(),
+								tracker -> tracker.getUnavailableGuildCount(status.getShardIndex()))
+						.tag("shard", shard)
+						.register(registry);
+			}
+		}
+		countCacheEntries();
+	}
+
+	private static void bindEventChannel(MeterRegistry registry, EventPipeline pipeline, String eventName) {
+		ToDoubleFunction<EventPipeline> received = p -> stats(p, eventName).getReceived();
+		ToDoubleFunction<EventPipeline> delivered = p -> stats(p, eventName).getDelivered();
+		ToDoubleFunction<EventPipeline> dropped = p -> stats(p, eventName).getDropped();
+		FunctionCounter.builder("ultimategdbot.events.received", pipeline, received)
+				.tag("event", eventName)
+				.register(registry);
+		FunctionCounter.builder("ultimategdbot.events.delivered", pipeline, delivered)
+				.tag("event", eventName)
+				.register(registry);
+		FunctionCounter.builder("ultimategdbot.events.dropped", pipeline, dropped)
+				.tag("event", eventName)
+				.register(registry);
+		Gauge.builder("ultimategdbot.events.queue.depth", pipeline, p -> stats(p, eventName).getQueueDepth())
+				.tag("event", eventName)
+				.register(registry);
+		TimeGauge.builder("ultimategdbot.events.lag", pipeline, TimeUnit.NANOSECONDS,
+						p -> stats(p, eventName).getLastLag().toNanos())
+				.tag("event", eventName)
+				.register(registry);
+	}
+
+	private static EventChannelStats stats(EventPipeline pipeline, String eventName) {
+		return pipeline.getStats().stream()
+				.filter(stats -> stats.getEventName().equals(eventName))
+				.findAny()
+				.orElseThrow();
+	}
+
+	private void bindCommand(MeterRegistry registry, String alias) {
+		FunctionCounter.builder("ultimategdbot.commands.executions", commandSnapshots,
+						snapshots -> snapshot(snapshots, alias, CommandStage.ACTION).getTotalCount())
+				.tag("alias", alias)
+				.register(registry);
+		for (var stage : CommandStage.values()) {
+			var stageName = stage.name().toLowerCase();
+			for (var percentile : PERCENTILES) {
+				TimeGauge.builder("ultimategdbot.commands.latency", commandSnapshots, TimeUnit.MICROSECONDS,
+								snapshots -> snapshot(snapshots, alias, stage).getValueAtPercentile(percentile * 100))
+						.tag("alias", alias)
+						.tag("stage", stageName)
+						.tag("quantile", String.valueOf(percentile))
+						.register(registry);
+			}
+		}
+	}
+
+	private static Histogram snapshot(Map<String, Map<CommandStage, Histogram>> snapshots, String alias,
+			CommandStage stage) {
+		var histogram = snapshots.getOrDefault(alias, Map.of()).get(stage);
+		return histogram != null ? histogram : EMPTY_HISTOGRAM;
+	}
+
+	private void bindDatabase(MeterRegistry registry) {
+		var database = bot.getDatabase();
+		Map<String, ToDoubleFunction<HikariPoolMXBean>> poolGauges = Map.of(
+				"active", HikariPoolMXBean::getActiveConnections,
+				"idle", HikariPoolMXBean::getIdleConnections,
+				"total", HikariPoolMXBean::getTotalConnections,
+				"pending", HikariPoolMXBean::getThreadsAwaitingConnection);
+		poolGauges.forEach((name, getter) -> Gauge.builder("ultimategdbot.database.connections." + name, database,
+						db -> db.unwrapConnectionProvider(HikariDataSource.class)
+								.map(HikariDataSource::getHikariPoolMXBean)
+								.map(getter::applyAsDouble)
+								.orElse(Double.NaN))
+				.register(registry));
+		var circuitBreaker = database.getCircuitBreaker();
+		for (var state : DatabaseCircuitBreaker.State.values()) {
+			Gauge.builder("ultimategdbot.database.circuit_breaker.state", circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+					.tag("state", state.name().toLowerCase())
+					.register(registry);
+		}
+		FunctionCounter.builder("ultimategdbot.database.circuit_breaker.rejected", circuitBreaker,
+						DatabaseCircuitBreaker::getRejectedCount)
+				.description("Database operations rejected because the circuit breaker was open")
+				.register(registry);
+		FunctionCounter.builder("ultimategdbot.database.circuit_breaker.opened", circuitBreaker,
+						DatabaseCircuitBreaker::getOpenCount)
+				.register(registry);
+	}
+
+	private void bindRateLimiter(MeterRegistry registry) {
+		var limiter = bot.getGlobalRateLimiter();
+		FunctionTimer.builder("ultimategdbot.rest.permits", limiter,
+						l -> l.getRequestCount(), l -> l.getTotalWaitTime().toNanos(), TimeUnit.NANOSECONDS)
+				.description("Requests granted a permit by the global rate limiter, and the time they waited for it")
+				.register(registry);
+		Gauge.builder("ultimategdbot.rest.inflight", limiter, l -> l.getInFlightCount())
+				.register(registry);
+		FunctionCounter.builder("ultimategdbot.rest.global_rate_limits", limiter, l -> l.getGlobalRateLimitCount())
+				.register(registry);
+		TimeGauge.builder("ultimategdbot.rest.global_rate_limit.remaining", limiter, TimeUnit.MILLISECONDS,
+						l -> l.getRemaining().toMillis())
+				.register(registry);
+	}
+
+	private void bindCache(MeterRegistry registry) {
+		STORES.keySet().forEach(name -> Gauge.builder("ultimategdbot.cache.entries", cacheEntryCounts,
+						counts -> counts.getOrDefault(name, Double.NaN))
+				.tag("store", name)
+				.register(registry));
+	}
+
+	/**
+	 * Counts the entries of each store one after the other, unless the previous
+	 * count is still running.
+	 */
+	private void countCacheEntries() {
+		if (!countingCacheEntries.compareAndSet(false, true)) {
+			return;
+		}
+		Flux.fromIterable(STORES.entrySet())
+				.concatMap(entry -> countEntries(entry.getValue())
+						.doOnNext(count -> cacheEntryCounts.put(entry.getKey(), count)))
+				.doFinally(signal -> countingCacheEntries.set(false))
+				.subscribe();
+	}
+
+	@SuppressWarnings("deprecation")
+	private Mono<Double> countEntries(Function<StateHolder, Store<?, ?>> store) {
+		return bot.getDiscordClients()
+				.flatMap(client -> store.apply(client.getServiceMediator().getStateHolder()).count())
+				.reduce(0L, Long::sum)
+				.map(Long::doubleValue)
+				.timeout(STORE_COUNT_TIMEOUT)
+				.onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.debug("Unable to count cache entries", e))
+						.thenReturn(Double.NaN));
+	}
+}
@@ -13,7 +13,7 @@ import reactor.core.publisher.Mono;
 
 @CommandSpec(
 		aliases = "cacheinfo",
-		shortDescription = "Give statistics on the cache used to store Discord entities.",
+		shortDescription = "Give statistics on the caches used to store Discord entities and database entities.",
 		permLevel = PermissionLevel.BOT_ADMIN
 )
 class CacheInfoCommand {
@@ -23,7 +23,8 @@ class CacheInfoCommand {
 
 	@CommandAction
 	@CommandDoc("Check the amount of guilds, roles, messages, etc that the bot is storing. Useful to track down what "
-			+ "is consuming the most memory resources during the bot's runtime.")
+			+ "is consuming the most memory resources during the bot's runtime. If the database cache is enabled, it also "
+			+ "gives the size and the hit ratio of each of its regions.")
 	public Mono<Void> run(Context ctx) {
 		@SuppressWarnings("deprecation")
 		var stateHolder = ctx.getBot().getMainDiscordClient().getServiceMediator().getStateHolder();
@@ -55,6 +56,17 @@ class CacheInfoCommand {
 						.append("**").append(STORE_NAMES[6]).append("**: `").append(stateHolder.getRoleStore()).append("`\n")
 						.append("**").append(STORE_NAMES[7]).append("**: `").append(stateHolder.getUserStore()).append("`\n")
 						.append("**").append(STORE_NAMES[8]).append("**: `").append(stateHolder.getVoiceStateStore()).append("`\n");
+					var regions = ctx.getBot().getDatabase().getCacheRegionStats();
+					if (!regions.isEmpty()) {
+						sb.append("\n**__Database cache regions:__**\n\n");
+						for (var region : regions.values()) {
+							sb.append("**").append(region.getRegionName()).append("**: ")
+								.append(region.getSize()).append(" entries, ")
+								.append(String.format("%.1f%%", region.getHitRatio() * 100)).append(" hits (")
+								.append(region.getHitCount()).append("/").append(region.getHitCount() + region.getMissCount())
+								.append(")\n");
+						}
+					}
 					return sb.toString();
 				})
 				.flatMap(ctx::reply)
@@ -0,0 +1,80 @@
+package com.github.alex1304.ultimategdbot.core;
+
+import java.time.Duration;
+import java.util.TreeSet;
+
+import org.HdrHistogram.Histogram;
+
+import com.github.alex1304.ultimategdbot.api.command.CommandFailedException;
+import com.github.alex1304.ultimategdbot.api.command.CommandStage;
+import com.github.alex1304.ultimategdbot.api.command.Context;
+import com.github.alex1304.ultimategdbot.api.command.PermissionLevel;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandAction;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandDoc;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandSpec;
+import com.github.alex1304.ultimategdbot.api.utils.BotUtils;
+import com.github.alex1304.ultimategdbot.api.utils.Markdown;
+
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+@CommandSpec(
+		aliases = "commandstats",
+		shortDescription = "Displays latency statistics about command executions.",
+		permLevel = PermissionLevel.BOT_ADMIN
+)
+class CommandStatsCommand {
+
+	@CommandAction
+	@CommandDoc("If used without arguments, lists all commands that have been used since the bot started, with the number of "
+			+ "executions and the median and 99th percentile duration of their action.\n"
+			+ "If `alias` is specified, shows the latency distribution of each execution stage for that command: prefix resolution, "
+			+ "dispatch, scope check, permission check, parameter conversion, action and reply. Note that parameter conversion and "
+			+ "replies happen while the action is running, so their time is included in the action time.")
+	public Mono<Void> run(Context ctx, @Nullable String alias) {
+		var instrumentation = ctx.getBot().getCommandInstrumentation();
+		var sb = new StringBuilder();
+		if (alias == null) {
+			sb.append("**__Command latency:__**\n\n");
+			var aliases = new TreeSet<>(instrumentation.getRecordedAliases());
+			if (aliases.isEmpty()) {
+				sb.append("_(No command executed yet)_\n");
+			}
+			for (var recordedAlias : aliases) {
+				instrumentation.getHistogram(recordedAlias, CommandStage.ACTION).ifPresent(histogram -> sb
+						.append(Markdown.code(recordedAlias)).append(": ")
+						.append(histogram.getTotalCount()).append(" executions - p50: ")
+						.append(format(histogram, 50)).append(" - p99: ")
+						.append(format(histogram, 99)).append("\n"));
+			}
+			return BotUtils.sendPaginatedMessage(ctx, sb.toString());
+		}
+		var histograms = instrumentation.getHistograms(alias);
+		if (histograms.isEmpty()) {
+			return Mono.error(new CommandFailedException("No statistics recorded for " + Markdown.code(alias) + "."));
+		}
+		sb.append("**__Latency of ").append(Markdown.code(alias)).append(":__**\n\n");
+		histograms.forEach((stage, histogram) -> {
+			sb.append("**").append(stage).append("** (").append(histogram.getTotalCount()).append(")");
+			if (histogram.getTotalCount() > 0) {
+				sb.append(": p50: ").append(format(histogram, 50))
+						.append(" - p90: ").append(format(histogram, 90))
+						.append(" - p99: ").append(format(histogram, 99))
+						.append(" - max: ").append(formatMicros(histogram.getMaxValue()));
+			}
+			sb.append("\n");
+		});
+		return BotUtils.sendPaginatedMessage(ctx, sb.toString());
+	}
+
+	private static String format(Histogram histogram, double percentile) {
+		return formatMicros(histogram.getValueAtPercentile(percentile));
+	}
+
+	private static String formatMicros(long micros) {
+		if (micros < 1000) {
+			return micros + "µs";
+		}
+		return BotUtils.formatDuration(Duration.ofNanos(micros * 1000));
+	}
+}
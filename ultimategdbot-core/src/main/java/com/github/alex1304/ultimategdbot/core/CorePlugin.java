@@ -40,6 +40,8 @@ public class CorePlugin implements Plugin {
 					cmdProvider.addAnnotated(new BotAdminsCommand());
 					cmdProvider.addAnnotated(new BlacklistCommand());
 					cmdProvider.addAnnotated(new CacheInfoCommand());
+					cmdProvider.addAnnotated(new ShardsCommand());
+					cmdProvider.addAnnotated(new CommandStatsCommand());
 					configEntries.put("prefix", new GuildSettingsEntry<>(
 							NativeGuildSettings.class,
 							NativeGuildSettings::getPrefix,
@@ -70,6 +72,11 @@ public class CorePlugin implements Plugin {
 		return "Core";
 	}
 
+	@Override
+	public boolean requiresDatabaseSessions() {
+		return false;
+	}
+
 	@Override
 	public Set<String> getDatabaseMappingResources() {
 		return Set.of();
@@ -46,26 +46,26 @@ class HelpCommand {
 	private Mono<Void> displayCommandList(Context ctx) {
 		var sb = new StringBuilder("Here is the list of commands you can use in this channel. "
 				+ "Use " + code(ctx.getPrefixUsed() + "help <command>") + " to view the detailed documentation of a specific command.\n\n");
-		return ctx.getEvent().getMessage().getChannel()
-				.flatMap(channel -> Flux.fromIterable(ctx.getBot().getPlugins())
-						.sort(comparing(Plugin::getName))
-						.concatMap(plugin -> Flux.fromIterable(plugin.getCommandProvider().getProvidedCommands())
-								.filter(cmd -> cmd.getScope().isInScope(channel))
-								.filterWhen(cmd -> cmd.getPermissionLevel().isGranted(ctx))
-								.collectSortedList(comparing(HelpCommand::joinAliases))
-								.map(cmdList -> Tuples.of(plugin.getName(), cmdList)))
-						.doOnNext(consumer((pluginName, cmdList) -> {
-							sb.append(bold(underline(pluginName))).append("\n");
-							cmdList.stream()
-									.filter(cmd -> !cmd.getDocumentation().isHidden())
-									.forEach(cmd -> {
-										sb.append(code(ctx.getPrefixUsed() + joinAliases(cmd)));
-										sb.append(" - ");
-										sb.append(cmd.getDocumentation().getShortDescription());
-										sb.append('\n');
-									});
-							sb.append('\n');
-						})).then())
+		var channel = ctx.getChannel();
+		return Flux.fromIterable(ctx.getBot().getPlugins())
+				.sort(comparing(Plugin::getName))
+				.concatMap(plugin -> Flux.fromIterable(plugin.getCommandProvider().getProvidedCommands())
+						.filter(cmd -> cmd.getScope().isInScope(channel))
+						.filterWhen(cmd -> cmd.getPermissionLevel().isGranted(ctx))
+						.collectSortedList(comparing(HelpCommand::joinAliases))
+						.map(cmdList -> Tuples.of(plugin.getName(), cmdList)))
+				.doOnNext(consumer((pluginName, cmdList) -> {
+					sb.append(bold(underline(pluginName))).append("\n");
+					cmdList.stream()
+							.filter(cmd -> !cmd.getDocumentation().isHidden())
+							.forEach(cmd -> {
+								sb.append(code(ctx.getPrefixUsed() + joinAliases(cmd)));
+								sb.append(" - ");
+								sb.append(cmd.getDocumentation().getShortDescription());
+								sb.append('\n');
+							});
+					sb.append('\n');
+				}))
 				.then(Mono.defer(() -> sendPaginatedMessage(ctx, sb.toString(), ctx.getBot().getDefaultPaginationControls(), Message.MAX_CONTENT_LENGTH)));
 	}
 	
@@ -1,5 +1,6 @@
 package com.github.alex1304.ultimategdbot.core;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -9,6 +10,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.alex1304.ultimategdbot.api.Bot;
+import com.github.alex1304.ultimategdbot.api.utils.PropertyParser;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
 
 class Main {
 	
@@ -26,10 +31,24 @@ class Main {
 				pluginsProps.load(pluginsPropsInput);
 			}
 			var bot = Bot.buildFromProperties(props, pluginsProps);
+			startMetricsEndpoint(bot, new PropertyParser(props));
 			bot.start().block();	
 		} catch (Exception e) {
 			LOGGER.error("The bot could not be started. Make sure that all configuration files are present and have a valid content", e);
 			System.exit(1);
 		}
 	}
+	
+	private static void startMetricsEndpoint(Bot bot, PropertyParser propParser) throws IOException {
+		var port = propParser.parseOrDefault("metrics.port", Integer::valueOf, null);
+		if (port == null) {
+			return;
+		}
+		var host = propParser.parseAsStringOrDefault("metrics.host", "127.0.0.1");
+		var prometheusRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		bot.getMeterRegistry().add(prometheusRegistry);
+		var metrics = new BotMetrics(bot);
+		metrics.bindTo(bot.getMeterRegistry());
+		new MetricsHttpEndpoint(host, port, prometheusRegistry, metrics::refresh).start();
+	}
 }
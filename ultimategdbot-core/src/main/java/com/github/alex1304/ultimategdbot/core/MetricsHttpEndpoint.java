@@ -0,0 +1,86 @@
+package com.github.alex1304.ultimategdbot.core;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+
+/**
+ * Minimal HTTP server exposing the metrics of the bot in the Prometheus text
+ * format on {@code /metrics}.
+ */
+class MetricsHttpEndpoint {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger("ultimategdbot.metrics");
+
+	private final PrometheusMeterRegistry registry;
+	private final Runnable beforeScrape;
+	private final HttpServer server;
+
+	/**
+	 * @param host         the host to listen on
+	 * @param port         the port to listen on, or 0 to pick a free one
+	 * @param registry     the registry to scrape
+	 * @param beforeScrape run before each scrape, typically
+	 *                     {@link BotMetrics#refresh()}
+	 * @throws IOException if the server can't be bound
+	 */
+	MetricsHttpEndpoint(String host, int port, PrometheusMeterRegistry registry, Runnable beforeScrape) throws IOException {
+		this.registry = Objects.requireNonNull(registry);
+		this.beforeScrape = Objects.requireNonNull(beforeScrape);
+		this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+		server.createContext("/metrics", this::handle);
+		server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+			var thread = new Thread(r, "metrics-http");
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	void start() {
+		server.start();
+		LOGGER.info("Metrics available at http://{}:{}/metrics", server.getAddress().getHostString(), getPort());
+	}
+
+	void stop() {
+		server.stop(0);
+	}
+
+	int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("GET")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			// The body is fully built before the headers are sent, so that a failure can still be reported as a 500
+			byte[] body;
+			try {
+				beforeScrape.run();
+				body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+			} catch (RuntimeException e) {
+				LOGGER.error("Error while serving metrics", e);
+				exchange.sendResponseHeaders(500, -1);
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Type", TextFormat.CONTENT_TYPE_004);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+		} finally {
+			exchange.close();
+		}
+	}
+}
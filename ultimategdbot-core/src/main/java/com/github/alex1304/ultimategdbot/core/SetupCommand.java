@@ -1,6 +1,8 @@
 package com.github.alex1304.ultimategdbot.core;
 
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.stream.Collectors;
 
 import com.github.alex1304.ultimategdbot.api.Plugin;
 import com.github.alex1304.ultimategdbot.api.command.CommandFailedException;
@@ -10,6 +12,9 @@ import com.github.alex1304.ultimategdbot.api.command.Scope;
 import com.github.alex1304.ultimategdbot.api.command.annotated.CommandAction;
 import com.github.alex1304.ultimategdbot.api.command.annotated.CommandDoc;
 import com.github.alex1304.ultimategdbot.api.command.annotated.CommandSpec;
+import com.github.alex1304.ultimategdbot.api.database.GuildSettings;
+import com.github.alex1304.ultimategdbot.api.database.GuildSettingsEntry;
+import com.github.alex1304.ultimategdbot.api.utils.GuildEntitySnapshot;
 
 import discord4j.core.object.util.Snowflake;
 import reactor.core.publisher.Flux;
@@ -34,28 +39,45 @@ class SetupCommand {
 				+ "You can update a field by doing `" + ctx.getPrefixUsed() + "setup set <field> <value>`. "
 				+ "Use `None` as value to reset a field.\n\n");
 		var guildId = ctx.getEvent().getGuildId().map(Snowflake::asLong).orElse(0L);
+		var plugins = ctx.getBot().getPlugins().stream()
+				.sorted(Comparator.comparing(Plugin::getName))
+				.collect(Collectors.toList());
+		// Entries sharing the same entity class read their values from the same entity, loaded only once
+		var entryByEntityClass = new LinkedHashMap<Class<?>, GuildSettingsEntry<?, ?>>();
+		plugins.forEach(plugin -> plugin.getGuildConfigurationEntries().values()
+				.forEach(entry -> entryByEntityClass.putIfAbsent(entry.getEntityClass(), entry)));
 		return ctx.getBot().getDatabase()
-				.performTransactionWhen(session -> Flux.fromIterable(ctx.getBot().getPlugins())
-						.sort(Comparator.comparing(Plugin::getName))
-						.concatMap(plugin -> Flux.fromIterable(plugin.getGuildConfigurationEntries().entrySet())
-								.flatMap(entry -> entry.getValue().getAsString(session, guildId)
-										.map(str -> Tuples.of(entry.getKey(), str)))
-								.collectSortedList(Comparator.comparing(Tuple2::getT1))
-								.doOnNext(list -> {
-									sb.append("**__").append(plugin.getName()).append("__**\n");
-									if (list.isEmpty()) {
-										sb.append("_(Nothing to configure here)_\n");
-										return;
-									}
-									list.forEach(TupleUtils.consumer((key, value) -> {
-										sb.append('`');
-										sb.append(key);
-										sb.append("`: ");
-										sb.append(value);
-										sb.append('\n');
-									}));
-									sb.append('\n');
-								}))
+				.inTransaction(tx -> Flux.fromIterable(entryByEntityClass.values())
+						.concatMap(entry -> entry.findOrCreate(tx, guildId)
+								.map(entity -> Tuples.<Class<?>, GuildSettings>of(entry.getEntityClass(), entity)))
+						.collectMap(Tuple2::getT1, Tuple2::getT2))
+				.next()
+				.flatMap(entities -> ctx.getGuild()
+						.flatMap(guild -> GuildEntitySnapshot.fetch(guild, plugins.stream()
+								.flatMap(plugin -> plugin.getGuildConfigurationEntries().values().stream())
+								.flatMap(entry -> entry.getReferencedUserIds(entities.get(entry.getEntityClass())).stream())
+								.collect(Collectors.toSet())))
+						.flatMapMany(snapshot -> Flux.fromIterable(plugins)
+								.concatMap(plugin -> Flux.fromIterable(plugin.getGuildConfigurationEntries().entrySet())
+										.flatMap(entry -> entry.getValue()
+												.getAsString(entities.get(entry.getValue().getEntityClass()), snapshot)
+												.map(str -> Tuples.of(entry.getKey(), str)))
+										.collectSortedList(Comparator.comparing(Tuple2::getT1))
+										.doOnNext(list -> {
+											sb.append("**__").append(plugin.getName()).append("__**\n");
+											if (list.isEmpty()) {
+												sb.append("_(Nothing to configure here)_\n");
+												return;
+											}
+											list.forEach(TupleUtils.consumer((key, value) -> {
+												sb.append('`');
+												sb.append(key);
+												sb.append("`: ");
+												sb.append(value);
+												sb.append('\n');
+											}));
+											sb.append('\n');
+										})))
 						.then())
 				.then(Mono.defer(() -> ctx.reply(sb.toString())))
 				.then();
@@ -74,7 +96,7 @@ class SetupCommand {
 				.switchIfEmpty(Mono.error(new CommandFailedException("There is no configuration entry with key `" + key + "`.")))
 				.next()
 				.map(map -> map.get(key))
-				.flatMapMany(entry -> ctx.getBot().getDatabase().performTransactionWhen(session -> entry.setFromString(session, value, guildId)))
+				.flatMapMany(entry -> ctx.getBot().getDatabase().inTransaction(tx -> entry.setFromString(tx, value, guildId)))
 				.onErrorMap(IllegalArgumentException.class, e -> new CommandFailedException("Cannot assign this value as `" + key + "`: " + e.getMessage()))
 				.then(ctx.reply(":white_check_mark: Settings updated!"))
 				.then();
@@ -0,0 +1,49 @@
+package com.github.alex1304.ultimategdbot.core;
+
+import com.github.alex1304.ultimategdbot.api.command.Context;
+import com.github.alex1304.ultimategdbot.api.command.PermissionLevel;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandAction;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandDoc;
+import com.github.alex1304.ultimategdbot.api.command.annotated.CommandSpec;
+import com.github.alex1304.ultimategdbot.api.utils.BotUtils;
+
+import reactor.core.publisher.Mono;
+
+@CommandSpec(
+		aliases = "shards",
+		shortDescription = "Displays the state of each shard of the bot.",
+		permLevel = PermissionLevel.BOT_ADMIN
+)
+class ShardsCommand {
+
+	@CommandAction
+	@CommandDoc("Lists all shards with their current state (connecting, ready, guilds loaded, reconnecting...), "
+			+ "the number of guilds they serve (and how many of them are currently unavailable) and how long they took to become ready after the login started.")
+	public Mono<Void> run(Context ctx) {
+		var orchestrator = ctx.getBot().getShardLoginOrchestrator();
+		var guildAvailability = ctx.getBot().getGuildAvailabilityTracker();
+		var sb = new StringBuilder("**__Shards:__**\n\n");
+		var statuses = orchestrator.getShardStatuses();
+		if (statuses.isEmpty()) {
+			sb.append("_(No shard has started logging in yet)_\n");
+		}
+		for (var status : statuses) {
+			sb.append("**Shard ").append(status.getShardIndex()).append("**: `").append(status.getState()).append("`");
+			sb.append(" - ").append(status.getLoadedGuildCount()).append("/").append(status.getExpectedGuildCount()).append(" guilds");
+			var unavailable = guildAvailability.getUnavailableGuildCount(status.getShardIndex());
+			if (unavailable > 0) {
+				sb.append(" (").append(unavailable).append(" unavailable)");
+			}
+			status.getTimeToReady().ifPresent(time -> sb.append(" - ready in ").append(BotUtils.formatDuration(time)));
+			status.getTimeToGuildsLoaded().ifPresent(time -> sb.append(" - guilds loaded in ").append(BotUtils.formatDuration(time)));
+			if (status.getReadyCount() > 1) {
+				sb.append(" - ").append(status.getReadyCount() - 1).append(" reconnection(s)");
+			}
+			sb.append("\n");
+		}
+		sb.append("\n**Identify concurrency:** ").append(orchestrator.getIdentifyConcurrency())
+				.append("\n**Login delay:** ").append(BotUtils.formatDuration(orchestrator.getLoginDelay()))
+				.append("\n**Ready quorum:** ").append(Math.round(orchestrator.getReadyQuorum() * 100)).append("%\n");
+		return BotUtils.sendPaginatedMessage(ctx, sb.toString());
+	}
+}
@@ -1,14 +1,46 @@
 package com.github.alex1304.ultimategdbot.core;
 
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import com.github.alex1304.ultimategdbot.api.command.CommandFailedException;
 import com.github.alex1304.ultimategdbot.api.command.Context;
 import com.github.alex1304.ultimategdbot.api.command.PermissionLevel;
 import com.github.alex1304.ultimategdbot.api.command.annotated.CommandAction;
 import com.github.alex1304.ultimategdbot.api.command.annotated.CommandDoc;
 import com.github.alex1304.ultimategdbot.api.command.annotated.CommandSpec;
+import com.github.alex1304.ultimategdbot.api.event.EventOverflowStrategy;
+import com.github.alex1304.ultimategdbot.api.jfr.BotEvent;
+import com.github.alex1304.ultimategdbot.api.jfr.CommandExecutionEvent;
+import com.github.alex1304.ultimategdbot.api.jfr.DatabaseOperationEvent;
+import com.github.alex1304.ultimategdbot.api.jfr.MenuLifecycleEvent;
+import com.github.alex1304.ultimategdbot.api.jfr.RestRequestEvent;
+import com.github.alex1304.ultimategdbot.api.utils.BotUtils;
+import com.github.alex1304.ultimategdbot.api.utils.Markdown;
 import com.github.alex1304.ultimategdbot.api.utils.SystemUnit;
 
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
 import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
 
 @CommandSpec(
 		aliases = "system",
@@ -17,21 +49,174 @@ import reactor.core.publisher.Mono;
 )
 class SystemCommand {
 	
+	private static final Path JFR_DIRECTORY = Paths.get(".", "jfr");
+	private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+	private static final Pattern THREAD_NUMBER = Pattern.compile("[-#_ ]?\\d+$");
+	private static final Map<String, Class<? extends BotEvent>> BOT_EVENTS = Map.of(
+			"commands", CommandExecutionEvent.class,
+			"database", DatabaseOperationEvent.class,
+			"menus", MenuLifecycleEvent.class,
+			"rest", RestRequestEvent.class);
+	
+	private final AtomicReference<Recording> recording = new AtomicReference<>();
+	
 	@CommandAction("memory")
-	@CommandDoc("Checks the amount of memory that the bot is currently taking up. The JVM garbage "
-			+ "collector is invoked before running this command in order to provide accurate values.")
+	@CommandDoc("Checks the amount of memory that the bot is currently taking up. Values are read from the JVM memory pools "
+			+ "without triggering a garbage collection. For each pool, the usage measured right after the last garbage "
+			+ "collection is also shown when available, which is a good estimate of the memory effectively retained. "
+			+ "Also lists the activity of each garbage collector and the direct and mapped buffers allocated outside the "
+			+ "heap (used by the network layer).")
 	public Mono<Void> runMemory(Context ctx) {
-		System.gc();
-		var total = Runtime.getRuntime().totalMemory();
-		var free = Runtime.getRuntime().freeMemory();
+		var memory = ManagementFactory.getMemoryMXBean();
+		var heap = memory.getHeapMemoryUsage();
+		var nonHeap = memory.getNonHeapMemoryUsage();
 		var max = Runtime.getRuntime().maxMemory();
-		var sb = new StringBuilder();
-		sb.append("**Maximum system RAM available:** " + SystemUnit.format(max) + "\n");
-		sb.append("**Current JVM size:** " + SystemUnit.format(total)
-				+ " (" + String.format("%.2f", total * 100 / (double) max) + "%)\n");
-		sb.append("**Memory effectively used by the bot:** " + SystemUnit.format(total - free)
-				+ " (" + String.format("%.2f", (total - free) * 100 / (double) max) + "%)\n");
-		return ctx.reply(sb.toString()).then();
+		var sb = new StringBuilder("**__Memory:__**\n\n");
+		sb.append("**Maximum heap size:** ").append(SystemUnit.format(max)).append("\n");
+		sb.append("**Heap committed:** ").append(SystemUnit.format(heap.getCommitted()))
+				.append(" (").append(percent(heap.getCommitted(), max)).append(")\n");
+		sb.append("**Heap used:** ").append(SystemUnit.format(heap.getUsed()))
+				.append(" (").append(percent(heap.getUsed(), max)).append(")\n");
+		sb.append("**Non-heap used:** ").append(SystemUnit.format(nonHeap.getUsed())).append("\n\n");
+		sb.append("**__Memory pools:__**\n");
+		for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			var usage = pool.getUsage();
+			if (usage == null) {
+				continue;
+			}
+			sb.append("**").append(pool.getName()).append("** (").append(pool.getType() == MemoryType.HEAP ? "heap" : "non-heap")
+					.append("): ").append(SystemUnit.format(usage.getUsed()));
+			if (usage.getMax() > 0) {
+				sb.append(" / ").append(SystemUnit.format(usage.getMax()));
+			}
+			var afterGc = pool.getCollectionUsage();
+			if (afterGc != null) {
+				sb.append(" - after last GC: ").append(SystemUnit.format(afterGc.getUsed()));
+			}
+			sb.append("\n");
+		}
+		sb.append("\n**__Garbage collectors:__**\n");
+		for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			sb.append("**").append(gc.getName()).append("**: ").append(gc.getCollectionCount()).append(" collections, ")
+					.append(BotUtils.formatDuration(Duration.ofMillis(Math.max(0, gc.getCollectionTime())))).append(" total\n");
+		}
+		sb.append("\n**__Buffer pools:__**\n");
+		for (var buffers : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			sb.append("**").append(buffers.getName()).append("**: ").append(buffers.getCount()).append(" buffers, ")
+					.append(SystemUnit.format(buffers.getMemoryUsed())).append(" used, ")
+					.append(SystemUnit.format(buffers.getTotalCapacity())).append(" capacity\n");
+		}
+		return BotUtils.sendPaginatedMessage(ctx, sb.toString());
+	}
+	
+	@CommandAction("heaphisto")
+	@CommandDoc("Displays the classes whose instances take up the most memory in the heap. The histogram includes "
+			+ "unreachable objects, so it is computed without forcing a garbage collection. By default the top 20 classes "
+			+ "are shown, use `count` to change it.")
+	public Mono<Void> runHeaphisto(Context ctx, @Nullable Integer count) {
+		var top = count == null ? 20 : count;
+		if (top < 1) {
+			return Mono.error(new CommandFailedException("The number of classes must be at least 1."));
+		}
+		return Mono.fromCallable(SystemCommand::classHistogram)
+				.subscribeOn(ctx.getBot().getBlockingScheduler())
+				.map(histogram -> histogram.lines()
+						.limit(top + 2) // header lines
+						.collect(Collectors.joining("\n")))
+				.flatMap(histogram -> BotUtils.sendPaginatedMessage(ctx, "**__Heap histogram (top " + top + "):__**\n"
+						+ Markdown.codeBlock(histogram)));
+	}
+	
+	@CommandAction("threads")
+	@CommandDoc("Displays the number of live threads, grouped by pool (database, event pipeline, Reactor schedulers, "
+			+ "network...). Threads are grouped by their name, without the trailing number.")
+	public Mono<Void> runThreads(Context ctx) {
+		var threadBean = ManagementFactory.getThreadMXBean();
+		var counts = Thread.getAllStackTraces().keySet().stream()
+				.collect(Collectors.groupingBy(thread -> THREAD_NUMBER.matcher(thread.getName()).replaceFirst(""),
+						TreeMap::new, Collectors.counting()));
+		var sb = new StringBuilder("**__Threads:__**\n\n");
+		sb.append("**Live:** ").append(threadBean.getThreadCount())
+				.append(" (").append(threadBean.getDaemonThreadCount()).append(" daemon)")
+				.append(" - **Peak:** ").append(threadBean.getPeakThreadCount()).append("\n\n");
+		counts.forEach((group, n) -> sb.append(Markdown.code(group.isEmpty() ? "(unnamed)" : group)).append(": ").append(n).append("\n"));
+		return BotUtils.sendPaginatedMessage(ctx, sb.toString());
+	}
+	
+	@CommandAction("jfrsnapshot")
+	@CommandDoc("Takes a snapshot of the Java Flight Recorder recordings currently running (for example started with "
+			+ "`-XX:StartFlightRecording`) and writes it to a file in the `jfr` directory of the bot.")
+	public Mono<Void> runJfrsnapshot(Context ctx) {
+		return Mono.fromCallable(() -> {
+					if (!FlightRecorder.isAvailable() || FlightRecorder.getFlightRecorder().getRecordings().isEmpty()) {
+						throw new CommandFailedException("No flight recording is running.");
+					}
+					try (var snapshot = FlightRecorder.getFlightRecorder().takeSnapshot()) {
+						var file = JFR_DIRECTORY.resolve("snapshot-" + FILE_TIMESTAMP.format(LocalDateTime.now()) + ".jfr");
+						Files.createDirectories(JFR_DIRECTORY);
+						snapshot.dump(file);
+						return file;
+					}
+				})
+				.subscribeOn(ctx.getBot().getBlockingScheduler())
+				.flatMap(file -> ctx.reply("Flight recording snapshot written to " + Markdown.code(file.toAbsolutePath().toString())))
+				.then();
+	}
+	
+	@CommandAction("jfr")
+	@CommandDoc("Controls a flight recording of the bot, based on the `default` settings of the JVM plus the events "
+			+ "of the bot. `action` can be:\n"
+			+ "- `start`: starts the recording. `events` is an optional comma-separated list of bot events to enable "
+			+ "among `commands`, `database`, `menus` and `rest`. All of them are enabled if omitted.\n"
+			+ "- `dump`: writes what has been recorded so far to a file, without stopping the recording.\n"
+			+ "- `stop`: stops the recording and writes it to a file.\n"
+			+ "Files are written in the `jfr` directory of the bot.")
+	public Mono<Void> runJfr(Context ctx, String action, @Nullable String events) {
+		switch (action.toLowerCase()) {
+			case "start":
+				return Mono.fromCallable(() -> startRecording(events))
+						.subscribeOn(ctx.getBot().getBlockingScheduler())
+						.flatMap(enabled -> ctx.reply("Flight recording started with bot events: " + String.join(", ", enabled)))
+						.then();
+			case "dump":
+			case "stop":
+				var stop = action.equalsIgnoreCase("stop");
+				return Mono.fromCallable(() -> dumpRecording(stop))
+						.subscribeOn(ctx.getBot().getBlockingScheduler())
+						.flatMap(file -> ctx.reply("Flight recording " + (stop ? "stopped and " : "") + "written to "
+								+ Markdown.code(file.toAbsolutePath().toString())))
+						.then();
+			default:
+				return Mono.error(new CommandFailedException("Unknown action " + Markdown.code(action) + ". Expected "
+						+ "`start`, `dump` or `stop`."));
+		}
+	}
+	
+	@CommandAction("events")
+	@CommandDoc("Displays the state of the event pipeline. For each event class that has been listened to, shows "
+			+ "the configuration of its channel, how many events were received, delivered and dropped, how many "
+			+ "are currently waiting in the queue and how long they waited before being processed.")
+	public Mono<Void> runEvents(Context ctx) {
+		var stats = ctx.getBot().getEventPipeline().getStats();
+		var sb = new StringBuilder("**__Event pipeline:__**\n\n");
+		if (stats.isEmpty()) {
+			sb.append("_(No event channel opened yet)_\n");
+		}
+		for (var channel : stats) {
+			sb.append("**").append(channel.getEventName()).append("** (parallelism: ").append(channel.getParallelism())
+					.append(", overflow: ").append(channel.getOverflowStrategy());
+			if (channel.getOverflowStrategy() != EventOverflowStrategy.UNBOUNDED) {
+				sb.append(", queue size: ").append(channel.getQueueSize());
+			}
+			sb.append(")\n");
+			sb.append("Received: ").append(channel.getReceived())
+					.append(" - Delivered: ").append(channel.getDelivered())
+					.append(" - Dropped: ").append(channel.getDropped())
+					.append(" - In queue: ").append(channel.getQueueDepth()).append("\n");
+			sb.append("Lag: ").append(BotUtils.formatDuration(channel.getLastLag()))
+					.append(" (max: ").append(BotUtils.formatDuration(channel.getMaxLag())).append(")\n\n");
+		}
+		return BotUtils.sendPaginatedMessage(ctx, sb.toString());
 	}
 	
 	@CommandAction("exit")
@@ -47,4 +232,68 @@ class SystemCommand {
 				.doAfterTerminate(() -> System.exit(code))
 				.then();
 	}
+	
+	private TreeSet<String> startRecording(@Nullable String events) throws Exception {
+		var enabled = new TreeSet<String>();
+		if (events == null) {
+			enabled.addAll(BOT_EVENTS.keySet());
+		} else {
+			for (var name : events.toLowerCase().split(",")) {
+				if (!BOT_EVENTS.containsKey(name.strip())) {
+					throw new CommandFailedException("Unknown bot event " + Markdown.code(name.strip()) + ". Expected one of: "
+							+ String.join(", ", new TreeSet<>(BOT_EVENTS.keySet())));
+				}
+				enabled.add(name.strip());
+			}
+		}
+		if (!FlightRecorder.isAvailable()) {
+			throw new CommandFailedException("Flight recorder is not available in this JVM.");
+		}
+		var newRecording = new Recording(Configuration.getConfiguration("default"));
+		newRecording.setName("ultimategdbot");
+		newRecording.setToDisk(true);
+		BOT_EVENTS.forEach((name, eventClass) -> {
+			if (enabled.contains(name)) {
+				newRecording.enable(eventClass).withoutStackTrace();
+			} else {
+				newRecording.disable(eventClass);
+			}
+		});
+		if (!recording.compareAndSet(null, newRecording)) {
+			newRecording.close();
+			throw new CommandFailedException("A flight recording is already running. Stop it first.");
+		}
+		newRecording.start();
+		return enabled;
+	}
+	
+	private Path dumpRecording(boolean stop) throws Exception {
+		var current = stop ? recording.getAndSet(null) : recording.get();
+		if (current == null || current.getState() != RecordingState.RUNNING) {
+			throw new CommandFailedException("No flight recording started with this command is running.");
+		}
+		var file = JFR_DIRECTORY.resolve("recording-" + FILE_TIMESTAMP.format(LocalDateTime.now()) + ".jfr");
+		Files.createDirectories(JFR_DIRECTORY);
+		if (!stop) {
+			current.dump(file);
+			return file;
+		}
+		try {
+			current.stop();
+			current.dump(file);
+			return file;
+		} finally {
+			current.close();
+		}
+	}
+	
+	private static String classHistogram() throws JMException {
+		var server = ManagementFactory.getPlatformMBeanServer();
+		return (String) server.invoke(new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+				new Object[] { new String[] { "-all" } }, new String[] { String[].class.getName() });
+	}
+	
+	private static String percent(long value, long max) {
+		return String.format("%.2f", value * 100 / (double) max) + "%";
+	}
 }
@@ -0,0 +1,77 @@
+package com.github.alex1304.ultimategdbot.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+class MetricsHttpEndpointTest {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final AtomicInteger scrapes = new AtomicInteger();
+	private final AtomicBoolean failScrape = new AtomicBoolean();
+	private MetricsHttpEndpoint endpoint;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		var registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		registry.counter("test.requests").increment(3);
+		endpoint = new MetricsHttpEndpoint("127.0.0.1", 0, registry, () -> {
+			scrapes.incrementAndGet();
+			if (failScrape.get()) {
+				throw new IllegalStateException("scrape failed");
+			}
+		});
+		endpoint.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		endpoint.stop();
+	}
+
+	@Test
+	void testServesMetricsInPrometheusFormat() throws Exception {
+		var response = send(HttpRequest.newBuilder(uri()).GET());
+		assertEquals(200, response.statusCode());
+		assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain"));
+		assertTrue(response.body().contains("test_requests_total 3.0"), response.body());
+		assertEquals(1, scrapes.get(), "Metrics are refreshed before each scrape");
+	}
+
+	@Test
+	void testRejectsOtherMethods() throws Exception {
+		var response = send(HttpRequest.newBuilder(uri()).POST(HttpRequest.BodyPublishers.noBody()));
+		assertEquals(405, response.statusCode());
+		assertEquals(0, scrapes.get());
+	}
+
+	@Test
+	void testReportsScrapeFailureAsServerError() throws Exception {
+		failScrape.set(true);
+		assertEquals(500, send(HttpRequest.newBuilder(uri()).GET()).statusCode());
+		failScrape.set(false);
+		assertEquals(200, send(HttpRequest.newBuilder(uri()).GET()).statusCode(), "The endpoint keeps serving");
+	}
+
+	private URI uri() {
+		return URI.create("http://127.0.0.1:" + endpoint.getPort() + "/metrics");
+	}
+
+	private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+}